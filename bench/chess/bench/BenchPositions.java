@@ -0,0 +1,36 @@
+package chess.bench;
+
+import chess.Fen;
+
+/**
+ * Representative positions shared by the benchmarks, looked up by the
+ * name used in the benchmark parameters.
+ *
+ * @author JC
+ * @version 1.0
+ */
+final class BenchPositions {
+
+    private BenchPositions() {
+    }
+
+    /**
+     * Gets the FEN of a named position.
+     * @param name start, kiwipete, middlegame or endgame.
+     * @return FEN of the position.
+     */
+    static String fen(String name) {
+        switch (name) {
+            case "start":
+                return Fen.START;
+            case "kiwipete":
+                return "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+            case "middlegame":
+                return "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10";
+            case "endgame":
+                return "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+            default:
+                throw new IllegalArgumentException("Unknown position: " + name);
+        }
+    }
+}
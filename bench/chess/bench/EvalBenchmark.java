@@ -0,0 +1,70 @@
+package chess.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chess.Evaluator;
+import chess.Fen;
+import chess.PawnTable;
+import chess.Position;
+
+/**
+ * Benchmarks static evaluation with the pawn structure worked out from
+ * scratch and looked up in a pawn hash table, as the search does.
+ *
+ * @author JC
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvalBenchmark {
+
+    @Param({"start", "kiwipete", "middlegame", "endgame"})
+    public String position;
+
+    private Position pos;
+    private PawnTable pawns;
+
+    /**
+     * Parses the position and creates an empty pawn table.
+     */
+    @Setup
+    public void setup() {
+        pos = Fen.parse(BenchPositions.fen(position));
+        pawns = new PawnTable(PawnTable.DEFAULT_MB);
+    }
+
+    /**
+     * Evaluates without a pawn table.
+     * @return score for the side to move.
+     */
+    @Benchmark
+    public int evaluateUncached() {
+        return Evaluator.evaluate(pos);
+    }
+
+    /**
+     * Evaluates with the pawn table; after the first call every probe
+     * is a hit.
+     * @return score for the side to move.
+     */
+    @Benchmark
+    public int evaluateCached() {
+        return Evaluator.evaluate(pos, pawns);
+    }
+}
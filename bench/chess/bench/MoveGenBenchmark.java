@@ -0,0 +1,97 @@
+package chess.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chess.Fen;
+import chess.Move;
+import chess.MoveGenerator;
+import chess.Position;
+
+/**
+ * Benchmarks single-move validation the way Board does it, full legal
+ * move generation and playing every legal move of a position.
+ *
+ * @author JC
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveGenBenchmark {
+
+    @Param({"start", "kiwipete", "middlegame", "endgame"})
+    public String position;
+
+    private Position pos;
+    private int[] moves;
+    private int count;
+    private int clickFrom;
+    private int clickTo;
+
+    /**
+     * Parses the position and picks the last legal move as the click
+     * to validate, so the lookup has to scan the whole list.
+     */
+    @Setup
+    public void setup() {
+        pos = Fen.parse(BenchPositions.fen(position));
+        moves = new int[MoveGenerator.MAX_MOVES];
+        count = MoveGenerator.generateLegal(pos, moves);
+        clickFrom = Move.from(moves[count - 1]);
+        clickTo = Move.to(moves[count - 1]);
+    }
+
+    /**
+     * Checks one clicked from/to pair, as Board.moveValidation does.
+     * @return the matching move, or Move.NONE.
+     */
+    @Benchmark
+    public int validateClick() {
+        int n = MoveGenerator.generateLegal(pos, moves);
+        for (int i = 0; i < n; i++) {
+            if (Move.from(moves[i]) == clickFrom && Move.to(moves[i]) == clickTo) {
+                return moves[i];
+            }
+        }
+        return Move.NONE;
+    }
+
+    /**
+     * Lists every legal move.
+     * @return number of legal moves.
+     */
+    @Benchmark
+    public int generateLegal() {
+        return MoveGenerator.generateLegal(pos, moves);
+    }
+
+    /**
+     * Plays every legal move of the position and takes it back.
+     * @return number of pieces left on the board, so the work is used.
+     */
+    @Benchmark
+    public long makeUnmake() {
+        long sum = 0;
+        for (int i = 0; i < count; i++) {
+            pos.makeMove(moves[i]);
+            sum += pos.occupied();
+            pos.unmakeMove(moves[i]);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,120 @@
+package chess.bench;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chess.Fen;
+import chess.GameFile;
+import chess.GameRecord;
+import chess.MoveGenerator;
+import chess.Position;
+
+/**
+ * Benchmarks saving and loading positions and games. The games are
+ * 40 half moves played from the benchmark position.
+ *
+ * @author JC
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PersistenceBenchmark {
+
+    @Param({"start", "kiwipete", "middlegame", "endgame"})
+    public String position;
+
+    private Position pos;
+    private Position target;
+    private GameRecord record;
+    private ByteBuffer buffer;
+    private Path file;
+
+    /**
+     * Parses the position to save and plays a game from it.
+     * @throws IOException if the temporary save file cannot be created.
+     */
+    @Setup
+    public void setup() throws IOException {
+        pos = Fen.parse(BenchPositions.fen(position));
+        target = new Position();
+        record = new GameRecord(pos);
+        Position current = new Position();
+        current.copyFrom(pos);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (int ply = 0; ply < 40; ply++) {
+            int count = MoveGenerator.generateLegal(current, moves);
+            if (count == 0) {
+                break;
+            }
+            int move = moves[ply % count];
+            current.makeMove(move);
+            record.addMove(move);
+        }
+        buffer = ByteBuffer.allocate(GameFile.encodedSize(record));
+        file = Files.createTempFile("bench", ".chg");
+    }
+
+    /**
+     * Deletes the temporary save file.
+     * @throws IOException if the file cannot be deleted.
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Writes the position as FEN and reads it back.
+     * @return the position that was read back.
+     */
+    @Benchmark
+    public Position fenRoundTrip() {
+        Fen.parse(Fen.toFen(pos), target);
+        return target;
+    }
+
+    /**
+     * Encodes the game in the binary save format and decodes it again,
+     * without touching the disk.
+     * @return the decoded game.
+     * @throws IOException if the encoded game does not decode.
+     */
+    @Benchmark
+    public GameRecord binaryRoundTrip() throws IOException {
+        buffer.clear();
+        GameFile.encode(record, buffer);
+        buffer.flip();
+        return GameFile.decode(buffer);
+    }
+
+    /**
+     * Saves the game to a file and loads it again.
+     * @return the loaded game.
+     * @throws IOException if the file cannot be written or read.
+     */
+    @Benchmark
+    public GameRecord fileRoundTrip() throws IOException {
+        GameFile.save(record, file);
+        return GameFile.load(file);
+    }
+}
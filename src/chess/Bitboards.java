@@ -0,0 +1,345 @@
+package chess;
+
+/**
+ * Bitboard masks and attack sets.
+ * Every method is static and allocation-free.
+ * Knight, king and pawn attacks are read from 64-entry tables, and pawn
+ * pushes and captures can be computed for a whole set of pawns at once
+ * by shifting its bitboard.
+ * Slider attacks come from magic bitboard tables built once when the
+ * class is loaded: the occupied squares on a slider's relevant rays are
+ * multiplied by a per-square magic number, and the top bits of the
+ * product index that square's table of attack sets. The magic numbers
+ * were found offline by trying sparse random numbers until one mapped
+ * every occupancy of the square without a harmful collision.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public final class Bitboards {
+
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_B = FILE_A << 1;
+    public static final long FILE_G = FILE_A << 6;
+    public static final long FILE_H = FILE_A << 7;
+    public static final long RANK_1 = 0xFFL;
+    public static final long RANK_2 = RANK_1 << 8;
+    public static final long RANK_3 = RANK_1 << 16;
+    public static final long RANK_6 = RANK_1 << 40;
+    public static final long RANK_7 = RANK_1 << 48;
+    public static final long RANK_8 = RANK_1 << 56;
+
+    private static final int[] ROOK_DIRECTIONS = {8, -8, 1, -1};
+    private static final int[] BISHOP_DIRECTIONS = {9, 7, -7, -9};
+
+    private static final long[] ROOK_MAGICS = {
+        0x0980008011400020L, 0x8340004410002000L, 0x0880200090008268L,
+        0x0080080080100004L, 0x8100110004020800L, 0x0300010004000822L,
+        0x08801A0029000080L, 0x8100050001204882L, 0x0844800081400320L,
+        0x0804402010004000L, 0x0108802003100480L, 0x0004808008001000L,
+        0x0003001801001014L, 0x0002000200041008L, 0x0004008108042210L,
+        0x0105000100009042L, 0x0400808000400021L, 0xC100404010002000L,
+        0x0060008010002088L, 0x0400808008001000L, 0x4440808008000400L,
+        0x1002008004000280L, 0x40024400300D1248L, 0x0010020000408104L,
+        0x0101008200204200L, 0x8020002040005000L, 0x4100100080802000L,
+        0x4008006A80100280L, 0x1020080080040080L, 0x0004010040020040L,
+        0x0018A12400080290L, 0x6140004200008104L, 0x4000400020800090L,
+        0x2020002080804000L, 0x0000408202002010L, 0x0080100501000820L,
+        0x0000800400800800L, 0x000A200408014010L, 0x0100800200800100L,
+        0xA00800570200008CL, 0x008000406000C010L, 0x1040100028002000L,
+        0x0048200100110040L, 0x0068490210030020L, 0x1009080005010010L,
+        0x2142000804010100L, 0x1001080110840002L, 0x1801004400820001L,
+        0x010440208D020200L, 0x0000400020008080L, 0x0200200080100280L,
+        0x0000100020090100L, 0x0204008008020480L, 0x8104010040020040L,
+        0x78000201B0080400L, 0x0040800051002880L, 0x0050108001002041L,
+        0x208A801100614003L, 0x0006002042089082L, 0x0011090004201001L,
+        0x1002001004200802L, 0x0005000208040001L, 0x0002002701AC0822L,
+        0x000010250184004AL
+    };
+    private static final long[] BISHOP_MAGICS = {
+        0x0008026808010010L, 0x40510C0480920140L, 0x0108880440800660L,
+        0x0424404083000011L, 0x10011040000000C4L, 0x0020900420800040L,
+        0x0485008884404100L, 0x0500420201014100L, 0x3801120418081442L,
+        0x080028080281820BL, 0x0001110802084000L, 0x090A040506002001L,
+        0x0200040420240008L, 0x0000010120108504L, 0x0004010411200828L,
+        0x0890004400845014L, 0x5020004008020098L, 0x021000A810095040L,
+        0x01040A8200240900L, 0x0241002020448104L, 0x1004000A00940400L,
+        0x0046880410041000L, 0x8082040488110800L, 0x0010801100809001L,
+        0xA22808A104111001L, 0x1008084004100080L, 0x2000880010480220L,
+        0x00A8048218020024L, 0x0020840000802004L, 0x004042002100A200L,
+        0x0221010110445040L, 0xC10E112048808802L, 0x2290501040064403L,
+        0x3004100280042402L, 0x8402002401020808L, 0x2420020080080080L,
+        0x2422008400820020L, 0x0021460080080809L, 0x0204184602828080L,
+        0x00080045040080A0L, 0x0001012022009080L, 0x0141421820481400L,
+        0x0000120104004040L, 0x00400A0122040400L, 0x8058240810100202L,
+        0x2801020081040200L, 0x01A00210A2024100L, 0x080C0C2082024420L,
+        0x0401083110490400L, 0x0900804402202400L, 0x1018120211042400L,
+        0x0018040042020010L, 0x20000204105401F8L, 0x4080200401021004L,
+        0x0020040102041140L, 0x20E8080820912802L, 0x0003040084010800L,
+        0x120004840C010500L, 0x9020808100880410L, 0x8821082100840401L,
+        0x4010840004208201L, 0x0000480810500080L, 0x0200400808009082L,
+        0x0010100928008210L
+    };
+
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+    private static final long[][] PAWN_ATTACKS = new long[2][64];
+    private static final long[] BETWEEN = new long[64 * 64];
+    private static final long[] LINE = new long[64 * 64];
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] ROOK_OFFSETS = new int[64];
+    private static final long[] ROOK_TABLE;
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final int[] BISHOP_OFFSETS = new int[64];
+    private static final long[] BISHOP_TABLE;
+
+    static {
+        for (int sq = 0; sq < 64; sq++) {
+            long bb = 1L << sq;
+            KNIGHT_ATTACKS[sq] = ((bb << 17) & ~FILE_A) | ((bb << 15) & ~FILE_H)
+                    | ((bb << 10) & ~(FILE_A | FILE_B)) | ((bb << 6) & ~(FILE_G | FILE_H))
+                    | ((bb >>> 15) & ~FILE_A) | ((bb >>> 17) & ~FILE_H)
+                    | ((bb >>> 6) & ~(FILE_A | FILE_B)) | ((bb >>> 10) & ~(FILE_G | FILE_H));
+            long sides = ((bb << 1) & ~FILE_A) | ((bb >>> 1) & ~FILE_H);
+            long row = bb | sides;
+            KING_ATTACKS[sq] = sides | (row << 8) | (row >>> 8);
+            PAWN_ATTACKS[Position.WHITE][sq] = pawnCapturesWest(Position.WHITE, bb)
+                    | pawnCapturesEast(Position.WHITE, bb);
+            PAWN_ATTACKS[Position.BLACK][sq] = pawnCapturesWest(Position.BLACK, bb)
+                    | pawnCapturesEast(Position.BLACK, bb);
+        }
+        ROOK_TABLE = initMagics(ROOK_DIRECTIONS, ROOK_MAGICS, ROOK_MASKS, ROOK_SHIFTS, ROOK_OFFSETS);
+        BISHOP_TABLE = initMagics(BISHOP_DIRECTIONS, BISHOP_MAGICS, BISHOP_MASKS, BISHOP_SHIFTS, BISHOP_OFFSETS);
+        for (int a = 0; a < 64; a++) {
+            for (int b = 0; b < 64; b++) {
+                long ends = (1L << a) | (1L << b);
+                if (a == b) {
+                    continue;
+                }
+                if ((rookAttacks(a, 0L) & (1L << b)) != 0) {
+                    BETWEEN[a * 64 + b] = rookAttacks(a, 1L << b) & rookAttacks(b, 1L << a);
+                    LINE[a * 64 + b] = (rookAttacks(a, 0L) & rookAttacks(b, 0L)) | ends;
+                } else if ((bishopAttacks(a, 0L) & (1L << b)) != 0) {
+                    BETWEEN[a * 64 + b] = bishopAttacks(a, 1L << b) & bishopAttacks(b, 1L << a);
+                    LINE[a * 64 + b] = (bishopAttacks(a, 0L) & bishopAttacks(b, 0L)) | ends;
+                }
+            }
+        }
+    }
+
+    private Bitboards() {
+    }
+
+    /**
+     * Gets the index of the lowest set bit.
+     * @param bb non-empty bitboard.
+     * @return square index of the lowest set bit.
+     */
+    public static int lsb(long bb) {
+        return Long.numberOfTrailingZeros(bb);
+    }
+
+    /**
+     * Gets the squares a knight attacks.
+     * @param sq square the knight is on.
+     * @return attacked squares.
+     */
+    public static long knightAttacks(int sq) {
+        return KNIGHT_ATTACKS[sq];
+    }
+
+    /**
+     * Gets the squares a king attacks.
+     * @param sq square the king is on.
+     * @return attacked squares.
+     */
+    public static long kingAttacks(int sq) {
+        return KING_ATTACKS[sq];
+    }
+
+    /**
+     * Gets the squares a pawn attacks.
+     * @param color color of the pawn.
+     * @param sq square the pawn is on.
+     * @return attacked squares.
+     */
+    public static long pawnAttacks(int color, int sq) {
+        return PAWN_ATTACKS[color][sq];
+    }
+
+    /**
+     * Gets the squares strictly between two squares on a rank, file or
+     * diagonal.
+     * @param a one square.
+     * @param b the other square.
+     * @return squares between them, or 0 if they are not aligned.
+     */
+    public static long between(int a, int b) {
+        return BETWEEN[a * 64 + b];
+    }
+
+    /**
+     * Gets the whole rank, file or diagonal through two squares.
+     * @param a one square.
+     * @param b the other square.
+     * @return squares of the line, or 0 if they are not aligned.
+     */
+    public static long line(int a, int b) {
+        return LINE[a * 64 + b];
+    }
+
+    /**
+     * Moves every pawn of a set one square forward.
+     * @param color color of the pawns.
+     * @param pawns squares of the pawns.
+     * @return squares one step ahead of them.
+     */
+    public static long pawnPushes(int color, long pawns) {
+        return color == Position.WHITE ? pawns << 8 : pawns >>> 8;
+    }
+
+    /**
+     * Gets the squares a set of pawns attacks towards the a-file.
+     * @param color color of the pawns.
+     * @param pawns squares of the pawns.
+     * @return attacked squares.
+     */
+    public static long pawnCapturesWest(int color, long pawns) {
+        return color == Position.WHITE ? (pawns << 7) & ~FILE_H : (pawns >>> 9) & ~FILE_H;
+    }
+
+    /**
+     * Gets the squares a set of pawns attacks towards the h-file.
+     * @param color color of the pawns.
+     * @param pawns squares of the pawns.
+     * @return attacked squares.
+     */
+    public static long pawnCapturesEast(int color, long pawns) {
+        return color == Position.WHITE ? (pawns << 9) & ~FILE_A : (pawns >>> 7) & ~FILE_A;
+    }
+
+    /**
+     * Gets the squares a rook attacks, stopping at the first piece
+     * in each direction.
+     * @param sq square the rook is on.
+     * @param occupied occupied squares.
+     * @return attacked squares.
+     */
+    public static long rookAttacks(int sq, long occupied) {
+        int index = (int) (((occupied & ROOK_MASKS[sq]) * ROOK_MAGICS[sq]) >>> ROOK_SHIFTS[sq]);
+        return ROOK_TABLE[ROOK_OFFSETS[sq] + index];
+    }
+
+    /**
+     * Gets the squares a bishop attacks, stopping at the first piece
+     * in each direction.
+     * @param sq square the bishop is on.
+     * @param occupied occupied squares.
+     * @return attacked squares.
+     */
+    public static long bishopAttacks(int sq, long occupied) {
+        int index = (int) (((occupied & BISHOP_MASKS[sq]) * BISHOP_MAGICS[sq]) >>> BISHOP_SHIFTS[sq]);
+        return BISHOP_TABLE[BISHOP_OFFSETS[sq] + index];
+    }
+
+    /**
+     * Gets the squares a queen attacks.
+     * @param sq square the queen is on.
+     * @param occupied occupied squares.
+     * @return attacked squares.
+     */
+    public static long queenAttacks(int sq, long occupied) {
+        return rookAttacks(sq, occupied) | bishopAttacks(sq, occupied);
+    }
+
+    /**
+     * Builds the magic tables of one slider type. For each square the
+     * relevant occupancy mask leaves out the last square of every ray,
+     * since a piece there cannot block anything. Every subset of the
+     * mask is walked once and its attack set stored in the slot its
+     * magic index points to.
+     * @param directions square deltas of the slider.
+     * @param magics magic number per square.
+     * @param masks filled with the relevant occupancy mask per square.
+     * @param shifts filled with 64 minus the index width per square.
+     * @param offsets filled with the start of each square's slots.
+     * @return table of attack sets for every square.
+     * @throws IllegalStateException if a magic maps two occupancies with
+     *     different attacks to the same slot.
+     */
+    private static long[] initMagics(int[] directions, long[] magics, long[] masks,
+            int[] shifts, int[] offsets) {
+        int total = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            masks[sq] = relevantMask(sq, directions);
+            shifts[sq] = 64 - Long.bitCount(masks[sq]);
+            offsets[sq] = total;
+            total += 1 << Long.bitCount(masks[sq]);
+        }
+        long[] table = new long[total];
+        boolean[] filled = new boolean[total];
+        for (int sq = 0; sq < 64; sq++) {
+            long mask = masks[sq];
+            long subset = 0L;
+            do {
+                long attacks = slide(sq, subset, directions);
+                int slot = offsets[sq] + (int) ((subset * magics[sq]) >>> shifts[sq]);
+                if (filled[slot] && table[slot] != attacks) {
+                    throw new IllegalStateException("bad magic for square " + sq);
+                }
+                filled[slot] = true;
+                table[slot] = attacks;
+                subset = (subset - mask) & mask;
+            } while (subset != 0L);
+        }
+        return table;
+    }
+
+    /**
+     * Gets the squares whose occupancy can change a slider's attacks:
+     * its rays without the edge square at the end of each.
+     * @param sq square the slider is on.
+     * @param directions square deltas of the slider.
+     * @return relevant occupancy mask.
+     */
+    private static long relevantMask(int sq, int[] directions) {
+        long mask = 0L;
+        for (int d : directions) {
+            long ray = slide(sq, 0L, new int[] {d});
+            long last = Long.bitCount(ray) == 0 ? 0L
+                    : d > 0 ? Long.highestOneBit(ray) : Long.lowestOneBit(ray);
+            mask |= ray & ~last;
+        }
+        return mask;
+    }
+
+    /**
+     * Walks each direction one square at a time until it leaves the
+     * board or hits a piece. Only used to build the magic tables.
+     * @param sq starting square.
+     * @param occupied occupied squares.
+     * @param directions square deltas to walk.
+     * @return attacked squares.
+     */
+    private static long slide(int sq, long occupied, int[] directions) {
+        long attacks = 0L;
+        for (int d : directions) {
+            int cur = sq;
+            while (true) {
+                int fileBefore = Position.fileOf(cur);
+                cur += d;
+                if (cur < 0 || cur > 63 || Math.abs(Position.fileOf(cur) - fileBefore) > 1) {
+                    break;
+                }
+                attacks |= 1L << cur;
+                if ((occupied & (1L << cur)) != 0) {
+                    break;
+                }
+            }
+        }
+        return attacks;
+    }
+}
@@ -1,48 +1,56 @@
 package chess;
 
-import java.awt.Color;
-import java.awt.GridLayout;
+import java.awt.BorderLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.io.Serializable;
-import javax.swing.ImageIcon;
+import java.io.IOException;
+import java.nio.file.Path;
+import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JMenu;
 import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
+import javax.swing.JOptionPane;
+import javax.swing.SwingWorker;
 
 /**
  * The class Board represents a board that is constructed using a JFrame.
- * The frame is filled up with squares forming an 8x8, each containing
- * their own listener and some containing chess pieces.
+ * The frame holds one BoardView that paints the 8x8 squares and pieces,
+ * and a ScoreBar beside it showing the static evaluation.
+ * The game itself, its rules and its history live in a headless Game;
+ * the board only observes it as a GameListener and renders what its
+ * position holds.
  * This class also implements MouseListener which is used to determine which square
  * is being pressed to allow the user to select and move pieces.
- * This class also checks for valid movements that is implemented differently
- * for each type of chess piece.
+ * Either side can be played by the Engine; its moves are searched on a
+ * background thread and then played like a clicked move.
+ * Check is shown in the title bar, and the end of the game is announced
+ * with a message.
  * 
  * @author JC
  * @version 1.0
  */
-public class Board implements MouseListener, Serializable {
+public class Board implements MouseListener, GameListener {
 
-    private static final long serialVersionUID = 1L;
     private JFrame board;
-    private Square[][] sqr;
-    private ImageIcon tempImg = null;
-    private int xval;
-    private int yval;
+    private BoardView view;
+    private ScoreBar scoreBar;
+    private Game game;
+    private boolean batchUpdate;
     
     private Player black;
     private Player white;
     private Player curPlayer;
+    private Engine engine;
+    private PolyglotBook book;
+    private Tablebases tablebases;
+    private boolean engineWhite;
+    private boolean engineBlack;
+    private int turn;
     
     private File file;
 
@@ -57,19 +65,22 @@ public class Board implements MouseListener, Serializable {
 
     /**
      * Initializes all the gui components.
-     * Creates an 8x8 GridLayout and creates a 2d array.
+     * Creates the board view and listens to its clicks.
      * Also adds in a JMenu that has can create a new game,
      * save a game, and load an old game.
      */
     public void init() {
         board = new JFrame();
         board.setTitle("Chess Board");
-        board.setLayout(new GridLayout(8, 8));
-        sqr = new Square[8][8];
         board.setSize(800, 800);
-        drawBoard();
         setPieces();
-        curPlayer = new Player("white");
+        view = new BoardView(game.position());
+        view.addMouseListener(this);
+        board.add(view, BorderLayout.CENTER);
+        scoreBar = new ScoreBar();
+        scoreBar.setScore(Evaluator.whiteScore(game.position()));
+        board.add(scoreBar, BorderLayout.EAST);
+        curPlayer = white;
 
         
         JMenuBar menuBar = new JMenuBar();
@@ -81,6 +92,25 @@ public class Board implements MouseListener, Serializable {
         file.add(newGame);
         file.add(save);
         file.add(load);
+        JMenu edit = new JMenu("Edit");
+        menuBar.add(edit);
+        JMenuItem undo = new JMenuItem("Undo");
+        JMenuItem redo = new JMenuItem("Redo");
+        edit.add(undo);
+        edit.add(redo);
+        JMenu players = new JMenu("Players");
+        menuBar.add(players);
+        final JCheckBoxMenuItem computerWhite = new JCheckBoxMenuItem("Computer plays White", engineWhite);
+        final JCheckBoxMenuItem computerBlack = new JCheckBoxMenuItem("Computer plays Black", engineBlack);
+        players.add(computerWhite);
+        players.add(computerBlack);
+        players.addSeparator();
+        JMenuItem openBook = new JMenuItem("Opening Book...");
+        JMenuItem noBook = new JMenuItem("No Opening Book");
+        players.add(openBook);
+        players.add(noBook);
+        JMenuItem openTablebases = new JMenuItem("Endgame Tablebases...");
+        players.add(openTablebases);
         
 
         newGame.addActionListener(new ActionListener() {
@@ -101,454 +131,361 @@ public class Board implements MouseListener, Serializable {
             }
         });
 
+        undo.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent ex) {
+                undoAction();
+            }
+        });
+
+        redo.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent ex) {
+                redoAction();
+            }
+        });
+
+        computerWhite.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent ex) {
+                engineWhite = computerWhite.isSelected();
+                setPlayers();
+            }
+        });
+
+        computerBlack.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent ex) {
+                engineBlack = computerBlack.isSelected();
+                setPlayers();
+            }
+        });
+
+        openBook.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent ex) {
+                openBookAction();
+            }
+        });
+
+        noBook.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent ex) {
+                book = null;
+                setPlayers();
+            }
+        });
+
+        openTablebases.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent ex) {
+                openTablebasesAction();
+            }
+        });
+
         board.setJMenuBar(menuBar);
         board.setVisible(true);
         board.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        nextTurn();
     }
 
     /**
      * Creates a new game.
      */
     private void newGame() {
+        if (curPlayer != null) {
+            curPlayer.stopThinking();
+        }
+        if (engine != null) {
+            engine.newGame();
+        }
         init();
         
     }
 
     /**
-     * Saves the current game.
+     * Saves the current game in the compact binary format.
      */
     private void saveGameAction() {
         try {
             JFileChooser fileChooser = new JFileChooser();
-            if (fileChooser.showSaveDialog(null) == JFileChooser.APPROVE_OPTION) {
-                this.file = fileChooser.getSelectedFile();
+            if (fileChooser.showSaveDialog(null) != JFileChooser.APPROVE_OPTION) {
+                return;
             }
-            FileOutputStream fs = new FileOutputStream(this.file.getPath());
-            ObjectOutputStream os = new ObjectOutputStream(fs);
-            os.writeObject(board);
-            os.close();
+            this.file = fileChooser.getSelectedFile();
+            GameFile.save(game.getRecord(), this.file.toPath());
         } catch (Exception ex) {
             ex.printStackTrace();
         }
     }
 
     /**
-     * Loads the old game that was previously saved.
+     * Loads a game that was previously saved. Old saves made of a
+     * serialized frame are imported through LegacyGameImporter.
      */
     private void loadGameAction() {
         try {
             JFileChooser fileChooser = new JFileChooser();
-            if (fileChooser.showOpenDialog(null) == JFileChooser.APPROVE_OPTION) {
-                this.file = fileChooser.getSelectedFile();
+            if (fileChooser.showOpenDialog(null) != JFileChooser.APPROVE_OPTION) {
+                return;
+            }
+            this.file = fileChooser.getSelectedFile();
+            Path path = this.file.toPath();
+            GameRecord record;
+            if (LegacyGameImporter.isLegacyFile(path)) {
+                record = LegacyGameImporter.importGame(path);
+            } else {
+                record = GameFile.load(path);
             }
-            board.dispose();
-            FileInputStream fileStream = new FileInputStream(this.file.getPath());
-            ObjectInputStream is = new ObjectInputStream(fileStream);
-            JFrame restore = (JFrame) is.readObject();
-            restore.setVisible(true);
-            is.close();
+            curPlayer.stopThinking();
+            game.load(record);
         } catch (Exception ex) {
             ex.printStackTrace();
         }
     }
 
     /**
-     * Creates an 8x8 layout with alternating red and white squares.
-     * Each square is given its own button and each button is given
-     * a mouseListener used for moving pieces.
+     * Lets the user pick a Polyglot opening book for the computer players.
      */
-    private void drawBoard() {
-        sqr = new Square[8][8];
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                if ((i + j) % 2 == 0) {
-                    sqr[i][j] = new Square(Color.RED);
-                    board.add(sqr[i][j].getButton());
-                } else {
-                    sqr[i][j] = new Square(Color.WHITE);
-                    board.add(sqr[i][j].getButton());
-                }
-                sqr[i][j].getButton().addMouseListener(this);
-            }
+    private void openBookAction() {
+        JFileChooser fileChooser = new JFileChooser();
+        if (fileChooser.showOpenDialog(null) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        try {
+            book = PolyglotBook.open(fileChooser.getSelectedFile().toPath());
+            setPlayers();
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(board, ex.getMessage(), "Opening Book", JOptionPane.ERROR_MESSAGE);
         }
     }
 
     /**
-     * Sets the pieces on the board and sets the first player as white.
-     */
-    private void setPieces() {
-        setBlackPieces();
-        setWhitePieces();
-    }
-
-    /**
-     * sets the black chess pieces on the first and second row.
+     * Lets the user pick the directory of endgame tablebases for the
+     * computer players.
      */
-    private void setBlackPieces() {
-        black = new Player("black");
-        sqr[0][0].setPiece(new Rook("black"));
-        sqr[0][1].setPiece(new Knight("black"));
-        sqr[0][2].setPiece(new Bishop("black"));
-        sqr[0][3].setPiece(new King("black"));
-        sqr[0][4].setPiece(new Queen("black"));
-        sqr[0][5].setPiece(new Bishop("black"));
-        sqr[0][6].setPiece(new Knight("black"));
-        sqr[0][7].setPiece(new Rook("black"));
-        for (int i = 0; i < 8; i++) {
-            sqr[1][i].setPiece(new Pawn("black"));
+    private void openTablebasesAction() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        if (fileChooser.showOpenDialog(null) != JFileChooser.APPROVE_OPTION) {
+            return;
         }
+        tablebases = new Tablebases(fileChooser.getSelectedFile().toPath(), Tablebases.DEFAULT_BUDGET);
+        setPlayers();
     }
 
     /**
-     * sets the white chess pieces on the seventh and eight row.
+     * Starts a new game from the starting position and observes it.
      */
-    private void setWhitePieces() {
-        white = new Player("white");
-        sqr[7][0].setPiece(new Rook("white"));
-        sqr[7][1].setPiece(new Knight("white"));
-        sqr[7][2].setPiece(new Bishop("white"));
-        sqr[7][3].setPiece(new King("white"));
-        sqr[7][4].setPiece(new Queen("white"));
-        sqr[7][5].setPiece(new Bishop("white"));
-        sqr[7][6].setPiece(new Knight("white"));
-        sqr[7][7].setPiece(new Rook("white"));
-        for (int i = 0; i < 8; i++) {
-            sqr[6][i].setPiece(new Pawn("white"));
-        }
+    private void setPieces() {
+        createPlayers();
+        game = new Game();
+        game.addListener(this);
     }
 
     /**
-     * Locates the square that was clicked with the method getSource().
-     * Lets user to pick up pieces and move them to either an empty square
-     * or capture them if it's an opposing color's piece.
-     * Doesn't let user to capture the same color pieces.
+     * Creates the players from the Players menu choices.
      */
-    @Override
-    public void mousePressed(MouseEvent ex) {
-        for (int i = 0; i <= 7; i++) {
-            for (int j = 0; j <= 7; j++) {
-                if (ex.getSource() == sqr[i][j].getButton()) {
-                    if (tempImg == null) {
-                        choosePiece(i, j);
-                    } else if (sqr[i][j].hasPiece() == true) {
-                        if (sqr[i][j].getPColor().equals(sqr[xval][yval].getPColor())
-                              || (!sqr[i][j].getPColor().equals(sqr[xval][yval].getPColor())
-                                  && sqr[i][j].getPColor().equals(curPlayer.getColor()))) {
-                            choosePiece(i, j);
-                        } else {
-                            move(i, j);
-                        }
-                    } else {
-                        move(i, j);
-                    }
-                }
+    private void createPlayers() {
+        if ((engineWhite || engineBlack) && engine == null) {
+            engine = new Engine(Engine.DEFAULT_HASH_MB, Runtime.getRuntime().availableProcessors());
+            engine.getMetrics().register("board");
+        }
+        if (engine != null) {
+            engine.setTablebases(tablebases);
+        }
+        SearchLimits limits = SearchLimits.moveTime(1000);
+        white = engineWhite ? new EnginePlayer("white", engine, limits) : new Player("white");
+        black = engineBlack ? new EnginePlayer("black", engine, limits) : new Player("black");
+        for (Player player : new Player[] {white, black}) {
+            if (player instanceof EnginePlayer) {
+                ((EnginePlayer) player).setBook(book, true);
             }
         }
     }
 
     /**
-     * Choose the piece clicked at coordinates (i,j).
-     * @param xcoord represents the x-coord of piece clicked
-     * @param ycoord represents the y-coord of piece clicked
+     * Replaces the players after a Players menu change and starts the
+     * engine if it is now to move.
      */
-    private void choosePiece(int xcoord, int ycoord) {
-        tempImg = sqr[xcoord][ycoord].getImage();
-        xval = xcoord;
-        yval = ycoord;
+    private void setPlayers() {
+        curPlayer.stopThinking();
+        createPlayers();
+        nextTurn();
     }
 
     /**
-     * Moves the piece and captures the opponent's piece.
-     * @param newx represents the x-coord of piece clicked
-     * @param newy represents the y-coord of piece clicked
+     * Repaints the squares that changed since the view last drew the
+     * position, highlights the last move of the record and updates the
+     * score bar.
      */
-    private void move(int newx, int newy) {
-        if (sqr[xval][yval].getPColor().equals(curPlayer.getColor())) {
-            if (sqr[newx][newy].getButton() != sqr[xval][yval].getButton()) {
-                if (sqr[newx][newy].getPColor() == null) {
-                    moveValidation(newx, newy);
-                } else if (!sqr[newx][newy].getPColor().equals(sqr[xval][yval].getPColor())) {
-                    moveValidation(newx, newy);
-                }
-            }
-        }
+    private void renderAll() {
+        view.setLastMove(game.getLastMove());
+        view.refresh();
+        scoreBar.setScore(Evaluator.whiteScore(game.position()));
     }
 
     /**
-     * Validates the specific type of chess piece and moves the piece
-     * if the piece is valid.
-     * @param newx represents the x-coord of piece clicked
-     * @param newy represents the y-coord of piece clicked
+     * Renders the game and hands the turn on whenever it changes,
+     * unless the board is making several changes in a row.
+     * @param changed the game that changed.
      */
-    private void moveValidation(int newx, int newy) {
-        if (sqr[xval][yval].getPiece().pieceType().equals("Knight")) {
-            if (validateKnight(xval, yval, newx, newy) == true) {
-                moveAndRepaint( newx, newy);
-
-            }
-        } else if (sqr[xval][yval].getPiece().pieceType().equals("Bishop")) {
-            if (validateBishop(xval, yval, newx, newy) == true) {
-                moveAndRepaint( newx, newy);
-
-            }
-        } else if (sqr[xval][yval].getPiece().pieceType().equals("Rook")) {
-            if (validateRook(xval, yval, newx, newy) == true) {
-                moveAndRepaint( newx, newy);
-
-            }
-        } else if (sqr[xval][yval].getPiece().pieceType().equals("King")) {
-            if (validateKing(xval, yval, newx, newy) == true) {
-                moveAndRepaint( newx, newy);
-
-            }
-        } else if (sqr[xval][yval].getPiece().pieceType().equals("Queen")) {
-            if (validateQueen(xval, yval, newx, newy) == true) {
-                moveAndRepaint( newx, newy);
-
-            }
-        } else if (sqr[xval][yval].getPiece().pieceType().equals("Pawn")
-                && sqr[xval][yval].getPColor().equals("white")) {
-            if (validateWhitePawn(xval, yval, newx, newy) == true) {
-                moveAndRepaint( newx, newy);
-
-            }
-        } else if (sqr[xval][yval].getPiece().pieceType().equals("Pawn")
-                && sqr[xval][yval].getPColor().equals("black")) {
-            if (validateBlackPawn(xval, yval, newx, newy) == true) {
-                moveAndRepaint( newx, newy);
-            }
+    @Override
+    public void gameChanged(Game changed) {
+        if (batchUpdate) {
+            return;
         }
+        renderAll();
+        nextTurn();
     }
-    
+
     /**
-     * sets piece onto square. sets new image on new square, and
-     * nullifies image on previous square.
-     * @param newx new x-coordinate
-     * @param newy new y-coordinate
+     * Maps the click to a square with the view's arithmetic.
+     * Lets user to pick up pieces of the side to move and move them to
+     * either an empty square or capture an opposing color's piece.
+     * Clicking another piece of the same color picks that one up instead.
      */
-    private void moveAndRepaint(int newx, int newy) {
-        sqr[newx][newy].setPiece(sqr[xval][yval].getPiece());
-        sqr[newx][newy].setImage(tempImg);
-        sqr[xval][yval].setImage(null);
-        tempImg = null;
+    @Override
+    public void mousePressed(MouseEvent ex) {
+        if (!curPlayer.isHuman()) {
+            return;
+        }
+        int sq = view.squareAt(ex.getX(), ex.getY());
+        if (sq == Position.NO_SQUARE) {
+            return;
+        }
+        int piece = game.position().pieceAt(sq);
+        if (piece != Position.NO_PIECE && Position.colorOf(piece) == game.sideToMove()) {
+            view.setSelected(sq);
+        } else if (view.getSelected() != Position.NO_SQUARE) {
+            moveValidation(view.getSelected(), sq);
+        }
     }
 
     /**
-     * function to switch turns when it is called.
+     * Validates the clicked move against the legal moves of the position
+     * and plays it if it is one of them. Pawns reaching the last rank
+     * become queens.
+     * @param from square of the piece picked up
+     * @param to square clicked
      */
-    private void switchTurns() {
-        if (curPlayer.getColor().equals("black")) {
-            curPlayer = white;
-        } else {
-            curPlayer = black;
+    private void moveValidation(int from, int to) {
+        int move = game.findMove(from, to, Position.QUEEN);
+        if (move != Move.NONE) {
+            moveAndRepaint(move);
         }
     }
-
+    
     /**
-     * validates white pawn movement.
-     * @param oldX x-coordinate the pawn is moving from
-     * @param oldY y-coordinate the pawn is moving from
-     * @param newX x-coordinate the pawn is moving to
-     * @param newY y-coordinate the pawn is moving to
-     * @return true if move is valid
+     * plays the move in the game; the game then tells the board to
+     * re-render and hand the turn to the other player.
+     * @param move packed move to play
      */
-    private boolean validateWhitePawn(int oldX, int oldY, int newX, int newY) {
-        if (sqr[newX][newY].hasPiece() == true) {
-            if (Math.abs(newY - oldY) == 1 && newX - oldX == -1) {
-                sqr[xval][yval].getPiece().firstMoveComplete();
-                switchTurns();
-                return true;
-            }
-        } else if (sqr[newX][newY].hasPiece() == false) {
-            if (sqr[xval][yval].getPiece().isFirstMoveCompleted() == false) {
-                if (newY - oldY == 0 && (newX - oldX == -2 || newX - oldX == -1)) {
-                    sqr[xval][yval].getPiece().firstMoveComplete();
-                    switchTurns();
-                    return true;
-                }
-            } else {
-                if (newY - oldY == 0 && newX - oldX == -1) {
-                    sqr[xval][yval].getPiece().firstMoveComplete();
-                    switchTurns();
-                    return true;
-                }
-            }
-        }
-        return false;
+    private void moveAndRepaint(int move) {
+        game.applyMove(move);
     }
 
     /**
-     * validate black pawn movement.
-     * @param oldX x-coordinate the pawn is moving from
-     * @param oldY y-coordinate the pawn is moving from
-     * @param newX x-coordinate the pawn is moving to
-     * @param newY y-coordinate the pawn is moving to
-     * @return true if move is valid
+     * Takes back the last move, and the computer's reply before it, so
+     * a person is to move again.
      */
-    private boolean validateBlackPawn(int oldX, int oldY, int newX, int newY) {
-        if (sqr[newX][newY].hasPiece() == true) {
-            if (Math.abs(newY - oldY) == 1 && newX - oldX == 1) {
-                sqr[xval][yval].getPiece().firstMoveComplete();
-                switchTurns();
-                return true;
-            }
-        } else if (sqr[newX][newY].hasPiece() == false) {
-            if (sqr[xval][yval].getPiece().isFirstMoveCompleted() == false) {
-                if (newY - oldY == 0 && (newX - oldX == 2 || newX - oldX == 1)) {
-                    sqr[xval][yval].getPiece().firstMoveComplete();
-                    switchTurns();
-                    return true;
-                }
-            } else {
-                if (newY - oldY == 0 && newX - oldX == 1) {
-                    sqr[xval][yval].getPiece().firstMoveComplete();
-                    switchTurns();
-                    return true;
-                }
+    private void undoAction() {
+        curPlayer.stopThinking();
+        batchUpdate = true;
+        try {
+            boolean more = game.undo();
+            while (more && !playerToMove().isHuman() && (white.isHuman() || black.isHuman())) {
+                more = game.undo();
             }
+        } finally {
+            batchUpdate = false;
         }
-        return false;
+        renderAll();
+        nextTurn();
     }
 
     /**
-     * validates rook movement.
-     * @param oldX x-coordinate the rook is moving from.
-     * @param oldY y-coordinate the rook is moving from.
-     * @param newX x-coordinate the rook is moving to.
-     * @param newY y-coordinate the rook is moving to.
-     * @return true if move is valid
+     * Plays again the moves taken back by the last undo, up to the next
+     * time a person is to move.
      */
-    private boolean validateRook(int oldX, int oldY, int newX, int newY) {
-        if (oldX == newX || oldY == newY) {
-
-            if (oldX == newX && newY - oldY > 0) {
-                for (int i = 1; i < Math.abs(newY - oldY); i++) {
-                    if (sqr[oldX][oldY + i].hasPiece() == true) {
-                        return false;
-                    }
-                }
-            } else if (oldX == newX && newY - oldY < 0) {
-                for (int i = 1; i < Math.abs(newY - oldY); i++) {
-                    if (sqr[oldX][oldY - i].hasPiece() == true) {
-                        return false;
-                    }
-                }
-            } else if (oldY == newY && newX - oldX > 0) {
-                for (int i = 1; i < Math.abs(newX - oldX); i++) {
-                    if (sqr[oldX + i][oldY].hasPiece() == true) {
-                        return false;
-                    }
-                }
-            } else if (oldY == newY && newX - oldX < 0) {
-                for (int i = 1; i < Math.abs(newX - oldX); i++) {
-                    if (sqr[oldX - i][oldY].hasPiece() == true) {
-                        return false;
-                    }
-                }
+    private void redoAction() {
+        curPlayer.stopThinking();
+        batchUpdate = true;
+        try {
+            boolean more = game.redo();
+            while (more && !playerToMove().isHuman() && (white.isHuman() || black.isHuman())) {
+                more = game.redo();
             }
-
-            switchTurns();
-            return true;
-
-        } else {
-            return false;
+        } finally {
+            batchUpdate = false;
         }
+        renderAll();
+        nextTurn();
     }
 
     /**
-     * Validates knight movement.
-     * @param oldX x-coordinate the knight is moving from
-     * @param oldY y-coordinate the knight is moving from
-     * @param newX x-coordinate the knight is moving to
-     * @param newY y-coordinate the knight is moving to
-     * @return true if move is valid
+     * Gets the player whose side is to move in the position.
+     * @return white or black.
      */
-    private boolean validateKnight(int oldX, int oldY, int newX, int newY) {
-        if (Math.abs(newY - oldY) == 2 && Math.abs(newX - oldX) == 1
-                || Math.abs(newY - oldY) == 1 && Math.abs(newX - oldX) == 2) {
-            switchTurns();
-            return true;
-        }
-        return false;
+    private Player playerToMove() {
+        return game.sideToMove() == Position.WHITE ? white : black;
     }
 
     /**
-     * Validates bishop movement.
-     * @param oldX x-coordinate the bishop is moving from
-     * @param oldY y-coordinate the bishop is moving from
-     * @param newX x-coordinate the bishop is moving to
-     * @param newY y-coordinate the bishop is moving to
-     * @return true if move is valid
+     * Hands the turn to the player whose side is to move and lets the
+     * engine search if that player is the computer.
      */
-    private boolean validateBishop(int oldX, int oldY, int newX, int newY) {
-        int deltaY = newY - oldY;
-        int deltaX = newX - oldX;
-        if (Math.abs(newY - oldY) == Math.abs(newX - oldX)) {
-            if (deltaX > 0 && deltaY > 0) {
-                for (int i = 1; i < Math.abs(deltaX); i++) {
-                    if (sqr[oldX + i][oldY + i].hasPiece() == true) {
-                        return false;
-                    }
-                }
-            } else if (deltaX < 0 && deltaY > 0) {
-                for (int i = 1; i < Math.abs(deltaX); i++) {
-                    if (sqr[oldX - i][oldY + i].hasPiece() == true) {
-                        return false;
-                    }
-                }
-            } else if (deltaX > 0 && deltaY < 0) {
-                for (int i = 1; i < Math.abs(deltaX); i++) {
-                    if (sqr[oldX + i][oldY - i].hasPiece() == true) {
-                        return false;
-                    }
-                }
-            } else if (deltaX < 0 && deltaY < 0) {
-                for (int i = 1; i < Math.abs(deltaX); i++) {
-                    if (sqr[oldX - i][oldY - i].hasPiece() == true) {
-                        return false;
-                    }
-                }
-            }
-            switchTurns();
-            return true;
+    private void nextTurn() {
+        turn++;
+        curPlayer = playerToMove();
+        view.setSelected(Position.NO_SQUARE);
+        if (announceResult()) {
+            return;
         }
-        return false;
+        requestEngineMove();
     }
 
     /**
-     * Validates queen movement
-     * @param oldX x-coordinate the queen is moving from.
-     * @param oldY y-coordinate the queen is moving from.
-     * @param newX x-coordinate the queen is moving to.
-     * @param newY y-coordinate the queen is moving to.
-     * @return true if move is valid
+     * Shows check in the title bar and announces the end of the game.
+     * @return true if the game is over.
      */
-    private boolean validateQueen(int oldX, int oldY, int newX, int newY) {
-        if (validateRook(oldX, oldY, newX, newY) == true) {
-            return true;
-        } else if (validateBishop(oldX, oldY, newX, newY) == true) {
-            return true;
-        } else {
+    private boolean announceResult() {
+        String side = game.sideToMove() == Position.WHITE ? "White" : "Black";
+        board.setTitle(game.position().inCheck() ? "Chess Board - " + side + " is in check" : "Chess Board");
+        String message = game.describeResult();
+        if (message == null) {
             return false;
         }
+        board.setTitle("Chess Board - " + message);
+        JOptionPane.showMessageDialog(board, message, "Game over", JOptionPane.INFORMATION_MESSAGE);
+        return true;
     }
 
     /**
-     * validates the king movement.
-     * @param oldX x-coordinate the king is moving from
-     * @param oldY y-coordinate the king is moving from
-     * @param newX x-coordinate the king is moving to. 
-     * @param newY y-coordinate the king is moving to. 
-     * @return true if move is valid.
+     * Searches a copy of the position on a background thread when the
+     * current player is the engine, then plays the move found through
+     * moveAndRepaint on the event dispatch thread. The move is dropped
+     * if the game moved on while the engine was thinking.
      */
-    private boolean validateKing(int oldX, int oldY, int newX, int newY) {
-        if ((Math.abs(newY - oldY) == 1 || newY - oldY == 0) 
-                && ((Math.abs(newX - oldX) == 1) || newX - oldX == 0)) {
-            switchTurns();
-            return true;
-        } else {
-            return false;
+    private void requestEngineMove() {
+        if (curPlayer == null || curPlayer.isHuman()) {
+            return;
         }
+        final Player mover = curPlayer;
+        final int searchTurn = turn;
+        final Position copy = game.getPosition();
+        final long[] history = game.getHistory();
+        new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() {
+                return mover.chooseMove(copy, history);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    int move = get();
+                    if (searchTurn == turn && mover == curPlayer && move != Move.NONE) {
+                        moveAndRepaint(move);
+                    }
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                }
+            }
+        }.execute();
     }
 
     @Override
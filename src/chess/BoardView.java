@@ -0,0 +1,193 @@
+package chess;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import javax.swing.JComponent;
+
+/**
+ * One component that draws the whole board with Java2D.
+ * Clicks are turned into squares by dividing the coordinates by the
+ * cell size, and after a change only the squares whose contents or
+ * highlight changed are repainted. The view only reads the position it
+ * is given; it never changes it.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public class BoardView extends JComponent {
+
+    private static final long serialVersionUID = 1L;
+    private static final Color DARK = Color.RED;
+    private static final Color LIGHT = Color.WHITE;
+    private static final Color SELECTED = new Color(255, 215, 0);
+    private static final Color LAST_MOVE = new Color(120, 170, 255);
+    private static final float HIGHLIGHT_ALPHA = 0.5f;
+
+    private Position position;
+    private final int[] shown = new int[64];
+    private int selected = Position.NO_SQUARE;
+    private int lastFrom = Position.NO_SQUARE;
+    private int lastTo = Position.NO_SQUARE;
+
+    /**
+     * Constructor for the view.
+     * @param position position to draw.
+     */
+    public BoardView(Position position) {
+        setPosition(position);
+        setOpaque(true);
+    }
+
+    /**
+     * Switches to another position and repaints everything.
+     * @param position position to draw.
+     */
+    public void setPosition(Position position) {
+        this.position = position;
+        for (int sq = 0; sq < 64; sq++) {
+            shown[sq] = position.pieceAt(sq);
+        }
+        repaint();
+    }
+
+    /**
+     * Repaints the squares whose piece differs from what was last drawn.
+     */
+    public void refresh() {
+        for (int sq = 0; sq < 64; sq++) {
+            int piece = position.pieceAt(sq);
+            if (shown[sq] != piece) {
+                shown[sq] = piece;
+                repaintSquare(sq);
+            }
+        }
+    }
+
+    /**
+     * Highlights the square of the piece the user picked up.
+     * @param sq square to highlight, or Position.NO_SQUARE for none.
+     */
+    public void setSelected(int sq) {
+        if (sq != selected) {
+            repaintSquare(selected);
+            selected = sq;
+            repaintSquare(selected);
+        }
+    }
+
+    /**
+     * Gets the highlighted square.
+     * @return square, or Position.NO_SQUARE.
+     */
+    public int getSelected() {
+        return selected;
+    }
+
+    /**
+     * Highlights the squares of the last move played.
+     * @param move packed move, or Move.NONE for none.
+     */
+    public void setLastMove(int move) {
+        repaintSquare(lastFrom);
+        repaintSquare(lastTo);
+        lastFrom = move == Move.NONE ? Position.NO_SQUARE : Move.from(move);
+        lastTo = move == Move.NONE ? Position.NO_SQUARE : Move.to(move);
+        repaintSquare(lastFrom);
+        repaintSquare(lastTo);
+    }
+
+    /**
+     * Gets the square under a point of the component.
+     * @param x horizontal coordinate in pixels.
+     * @param y vertical coordinate in pixels.
+     * @return square index, or Position.NO_SQUARE if outside the board.
+     */
+    public int squareAt(int x, int y) {
+        int cell = cellSize();
+        if (cell == 0 || x < 0 || y < 0 || x >= 8 * cell || y >= 8 * cell) {
+            return Position.NO_SQUARE;
+        }
+        return Position.square(x / cell, 7 - y / cell);
+    }
+
+    /**
+     * Gets the preferred size, 100 pixels per square.
+     * @return preferred size.
+     */
+    @Override
+    public Dimension getPreferredSize() {
+        return new Dimension(800, 800);
+    }
+
+    /**
+     * Draws the squares that intersect the clip, with their highlight
+     * and piece.
+     * @param graphics graphics to draw with.
+     */
+    @Override
+    protected void paintComponent(Graphics graphics) {
+        Graphics2D g = (Graphics2D) graphics;
+        int cell = cellSize();
+        g.setColor(getBackground() != null ? getBackground() : LIGHT);
+        g.fillRect(0, 0, getWidth(), getHeight());
+        if (cell == 0) {
+            return;
+        }
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        int firstCol = Math.max(0, clip.x / cell);
+        int lastCol = Math.min(7, (clip.x + clip.width - 1) / cell);
+        int firstRow = Math.max(0, clip.y / cell);
+        int lastRow = Math.min(7, (clip.y + clip.height - 1) / cell);
+        Composite opaque = g.getComposite();
+        Composite translucent = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, HIGHLIGHT_ALPHA);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                int sq = Position.square(col, 7 - row);
+                int x = col * cell;
+                int y = row * cell;
+                g.setColor((row + col) % 2 == 0 ? DARK : LIGHT);
+                g.fillRect(x, y, cell, cell);
+                Color highlight = sq == selected ? SELECTED
+                        : sq == lastFrom || sq == lastTo ? LAST_MOVE : null;
+                if (highlight != null) {
+                    g.setComposite(translucent);
+                    g.setColor(highlight);
+                    g.fillRect(x, y, cell, cell);
+                    g.setComposite(opaque);
+                }
+                int piece = shown[sq];
+                if (piece != Position.NO_PIECE) {
+                    g.drawImage(Sprites.image(piece, cell), x, y, null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Repaints one square.
+     * @param sq square index, or Position.NO_SQUARE to do nothing.
+     */
+    private void repaintSquare(int sq) {
+        if (sq == Position.NO_SQUARE) {
+            return;
+        }
+        int cell = cellSize();
+        repaint(Position.fileOf(sq) * cell, (7 - Position.rankOf(sq)) * cell, cell, cell);
+    }
+
+    /**
+     * Gets the size of one square so the board fits the component.
+     * @return cell size in pixels.
+     */
+    private int cellSize() {
+        return Math.min(getWidth(), getHeight()) / 8;
+    }
+}
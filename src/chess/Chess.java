@@ -1,5 +1,7 @@
 package chess;
 
+import java.io.IOException;
+
 /**
  * Chess has a 8x8 board that contains squares, some containg chess Pieces.
  * There are two players (black and white). Each player is given 16 
@@ -15,11 +17,17 @@ package chess;
 public class Chess {
 
     /**
-     * This is the driver for the Chess game.
+     * This is the driver for the Chess game. With the argument uci the
+     * engine talks UCI on stdin and stdout instead of opening the board.
      * @param args command line arguments.
+     * @throws IOException if stdin cannot be read in UCI mode.
      */
-    public static void main(String[] args) {
-        new Board();
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("uci")) {
+            Uci.main(args);
+        } else {
+            new Board();
+        }
     }
     
     
@@ -0,0 +1,411 @@
+package chess;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * The chess engine: a transposition table and the searches that use it.
+ * Callers hand it a position and limits and get the best move back.
+ * With more than one thread the engine runs a Lazy SMP search: helper
+ * threads search the same root at staggered depths and only share the
+ * transposition table, while the calling thread runs the main search
+ * whose result is returned. With one thread no helper is started and
+ * a search from a cleared table is fully deterministic.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public class Engine {
+
+    /** Default transposition table size in megabytes. */
+    public static final int DEFAULT_HASH_MB = 16;
+    /** Most threads the engine runs. */
+    public static final int MAX_THREADS = 256;
+
+    private final TranspositionTable tt;
+    private final Search search;
+    private Search[] helpers = new Search[0];
+    private ExecutorService pool;
+    private Tablebases tablebases;
+    private int pawnHashMb = PawnTable.DEFAULT_MB;
+    private final EngineMetrics metrics = new EngineMetrics(this);
+    private volatile boolean thinking;
+
+    /**
+     * Constructor for an engine with the default hash size.
+     */
+    public Engine() {
+        this(DEFAULT_HASH_MB);
+    }
+
+    /**
+     * Constructor for a single-threaded engine.
+     * @param hashMb transposition table size in megabytes.
+     */
+    public Engine(int hashMb) {
+        this(hashMb, 1);
+    }
+
+    /**
+     * Constructor for an engine.
+     * @param hashMb transposition table size in megabytes.
+     * @param threads number of search threads, including the caller's.
+     */
+    public Engine(int hashMb, int threads) {
+        tt = new TranspositionTable(hashMb);
+        search = new Search(tt);
+        setThreads(threads);
+    }
+
+    /**
+     * Searches a position with no game before it for the best move.
+     * @param pos position to search; it is not changed.
+     * @param limits limits of the search.
+     * @return best move, or Move.NONE if there is no legal move.
+     */
+    public int think(Position pos, SearchLimits limits) {
+        return think(pos, new long[0], limits);
+    }
+
+    /**
+     * Searches a position for the best move. Blocks until a limit is
+     * reached or stop() is called; helper threads are stopped before
+     * it returns.
+     * @param pos position to search; it is not changed.
+     * @param history hashes of the positions of the game before pos,
+     *     oldest first, so the search can see repetitions of them.
+     * @param limits limits of the search.
+     * @return best move, or Move.NONE if there is no legal move.
+     */
+    public synchronized int think(Position pos, long[] history, SearchLimits limits) {
+        prepare(history);
+        return go(pos, limits);
+    }
+
+    /**
+     * Gets the engine ready for the next search: clears the stop flag
+     * and takes the game history. A caller that runs go on another
+     * thread calls this first on its own, so a stop sent right after
+     * the search is started is never lost.
+     * @param history hashes of the positions of the game before the
+     *     position to search, oldest first.
+     */
+    public synchronized void prepare(long[] history) {
+        search.prepare(history);
+        for (Search helper : helpers) {
+            helper.prepare(history);
+        }
+    }
+
+    /**
+     * Searches a position for the best move after prepare has been
+     * called. Blocks until a limit is reached or stop() is called.
+     * @param pos position to search; it is not changed.
+     * @param limits limits of the search.
+     * @return best move, or Move.NONE if there is no legal move.
+     */
+    public synchronized int go(Position pos, SearchLimits limits) {
+        thinking = true;
+        EngineMoveEvent event = new EngineMoveEvent();
+        event.begin();
+        long begin = System.nanoTime();
+        Future<?>[] running = new Future<?>[helpers.length];
+        int best = Move.NONE;
+        try {
+            tt.newSearch();
+            final SearchLimits helperLimits = SearchLimits.depth(limits.maxDepth());
+            for (int i = 0; i < helpers.length; i++) {
+                final Search helper = helpers[i];
+                final Position root = new Position();
+                root.copyFrom(pos);
+                running[i] = pool.submit(new Runnable() {
+                    public void run() {
+                        helper.run(root, helperLimits);
+                    }
+                });
+            }
+            best = search.run(pos, limits);
+            return best;
+        } finally {
+            for (Search helper : helpers) {
+                helper.stop();
+            }
+            waitFor(running);
+            Search[] all = new Search[helpers.length + 1];
+            all[0] = search;
+            System.arraycopy(helpers, 0, all, 1, helpers.length);
+            metrics.searchFinished(all, System.nanoTime() - begin);
+            event.end();
+            if (event.shouldCommit()) {
+                event.move = Move.toUci(best);
+                event.depth = search.getCompletedDepth();
+                event.score = search.getBestScore();
+                event.nodes = getNodes();
+                event.threads = all.length;
+                event.commit();
+            }
+            thinking = false;
+        }
+    }
+
+    /**
+     * Stops the current search; think returns the best move found so far.
+     */
+    public void stop() {
+        search.stop();
+    }
+
+    /**
+     * Checks whether a search is running.
+     * @return true while think is running.
+     */
+    public boolean isThinking() {
+        return thinking;
+    }
+
+    /**
+     * Forgets everything learned in earlier searches.
+     */
+    public synchronized void newGame() {
+        tt.clear();
+    }
+
+    /**
+     * Changes the transposition table size, dropping its entries.
+     * @param megabytes size in megabytes.
+     */
+    public synchronized void setHashSize(int megabytes) {
+        tt.resize(megabytes);
+    }
+
+    /**
+     * Changes the number of search threads.
+     * @param threads number of threads including the caller's, 1 for
+     *     a deterministic single-threaded search.
+     */
+    public synchronized void setThreads(int threads) {
+        int count = Math.max(1, Math.min(threads, MAX_THREADS)) - 1;
+        if (count == helpers.length) {
+            return;
+        }
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+        helpers = new Search[count];
+        for (int i = 0; i < count; i++) {
+            helpers[i] = new Search(tt);
+            helpers[i].setDepthOffset((i + 1) & 1);
+            helpers[i].setTablebases(tablebases);
+            helpers[i].getPawnTable().resize(pawnHashMb);
+        }
+        if (count > 0) {
+            pool = Executors.newFixedThreadPool(count, new ThreadFactory() {
+                private int created;
+
+                public Thread newThread(Runnable task) {
+                    Thread thread = new Thread(task, "search-helper-" + ++created);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+    }
+
+    /**
+     * Gets the number of search threads.
+     * @return number of threads including the caller's.
+     */
+    public synchronized int getThreads() {
+        return helpers.length + 1;
+    }
+
+    /**
+     * Sets the listener told about every iteration of the main search.
+     * @param listener listener, or null for none.
+     */
+    public void setListener(SearchListener listener) {
+        search.setListener(listener);
+    }
+
+    /**
+     * Sets the endgame tablebases every search thread probes.
+     * @param tablebases tablebases, or null for none.
+     */
+    public synchronized void setTablebases(Tablebases tablebases) {
+        this.tablebases = tablebases;
+        search.setTablebases(tablebases);
+        for (Search helper : helpers) {
+            helper.setTablebases(tablebases);
+        }
+    }
+
+    /**
+     * Gets the endgame tablebases.
+     * @return tablebases, or null for none.
+     */
+    public synchronized Tablebases getTablebases() {
+        return tablebases;
+    }
+
+    /**
+     * Resizes the pawn hash table of every search thread. Must not be
+     * called while the engine is thinking.
+     * @param megabytes size of each thread's table in megabytes.
+     */
+    public synchronized void setPawnHashSize(int megabytes) {
+        pawnHashMb = Math.max(1, megabytes);
+        search.getPawnTable().resize(pawnHashMb);
+        for (Search helper : helpers) {
+            helper.getPawnTable().resize(pawnHashMb);
+        }
+    }
+
+    /**
+     * Gets the number of pawn hash table probes of every thread in the
+     * last search.
+     * @return number of probes.
+     */
+    public long getPawnProbes() {
+        long probes = search.getPawnTable().getProbes();
+        for (Search helper : helpers) {
+            probes += helper.getPawnTable().getProbes();
+        }
+        return probes;
+    }
+
+    /**
+     * Gets the number of pawn hash table probes of every thread in the
+     * last search that found their pawn structure.
+     * @return number of hits.
+     */
+    public long getPawnHits() {
+        long hits = search.getPawnTable().getHits();
+        for (Search helper : helpers) {
+            hits += helper.getPawnTable().getHits();
+        }
+        return hits;
+    }
+
+    /**
+     * Gets the totals of the search counters, which can be published
+     * over JMX with EngineMetrics.register.
+     * @return the engine's metrics.
+     */
+    public EngineMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Gets the transposition table.
+     * @return the table.
+     */
+    public TranspositionTable getTranspositionTable() {
+        return tt;
+    }
+
+    /**
+     * Gets the number of nodes searched by every thread in the last
+     * search.
+     * @return number of nodes.
+     */
+    public long getNodes() {
+        long nodes = search.getNodes();
+        for (Search helper : helpers) {
+            nodes += helper.getNodes();
+        }
+        return nodes;
+    }
+
+    /**
+     * Gets the number of beta cutoffs of every thread in the last search.
+     * @return number of cutoffs.
+     */
+    public long getCutoffs() {
+        long cutoffs = search.getCutoffs();
+        for (Search helper : helpers) {
+            cutoffs += helper.getCutoffs();
+        }
+        return cutoffs;
+    }
+
+    /**
+     * Gets the number of beta cutoffs of every thread in the last search
+     * that came from the first move tried.
+     * @return number of first move cutoffs.
+     */
+    public long getFirstMoveCutoffs() {
+        long cutoffs = search.getFirstMoveCutoffs();
+        for (Search helper : helpers) {
+            cutoffs += helper.getFirstMoveCutoffs();
+        }
+        return cutoffs;
+    }
+
+    /**
+     * Gets the number of beta cutoffs of every thread in the last search
+     * made by moves of one move picker stage.
+     * @param stage stage index, from 0 (hash move) to 4 (losing captures).
+     * @return number of cutoffs.
+     */
+    public long getStageCutoffs(int stage) {
+        long cutoffs = search.getStageCutoffs(stage);
+        for (Search helper : helpers) {
+            cutoffs += helper.getStageCutoffs(stage);
+        }
+        return cutoffs;
+    }
+
+    /**
+     * Gets the score of the last search.
+     * @return score for the side to move.
+     */
+    public int getScore() {
+        return search.getBestScore();
+    }
+
+    /**
+     * Gets the depth reached by the last search.
+     * @return depth in plies.
+     */
+    public int getDepth() {
+        return search.getCompletedDepth();
+    }
+
+    /**
+     * Gets the principal variation of the last search.
+     * @return moves of the principal variation.
+     */
+    public int[] getPrincipalVariation() {
+        return search.getPrincipalVariation();
+    }
+
+    /**
+     * Waits for the helper searches to finish.
+     * @param running futures of the helpers that were started.
+     */
+    private static void waitFor(Future<?>[] running) {
+        boolean interrupted = false;
+        for (Future<?> future : running) {
+            if (future == null) {
+                continue;
+            }
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                } catch (ExecutionException ex) {
+                    throw new IllegalStateException("helper search failed", ex.getCause());
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
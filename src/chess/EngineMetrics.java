@@ -0,0 +1,279 @@
+package chess;
+
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Totals of an Engine's search counters, for JMX. The search threads
+ * count in plain fields of their own; the engine adds them up here once
+ * per move, after its helpers have stopped, so the search itself pays
+ * nothing for being monitored.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public final class EngineMetrics implements EngineMetricsMXBean {
+
+    private final Engine engine;
+    private final LatencyHistogram moveTime = new LatencyHistogram();
+    private long searches;
+    private long nodes;
+    private long searchNanos;
+    private long ttProbes;
+    private long ttHits;
+    private long ttCollisions;
+    private long cutoffs;
+    private long firstMoveCutoffs;
+    private long pawnProbes;
+    private long pawnHits;
+    private long generations;
+    private long movesGenerated;
+    private double branchingFactor;
+    private int threads;
+
+    /**
+     * Constructor for the metrics of an engine.
+     * @param engine engine whose searches are counted.
+     */
+    EngineMetrics(Engine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Adds the counters of a finished search.
+     * @param searches every search thread of the engine, main one first.
+     * @param nanos time the search took.
+     */
+    synchronized void searchFinished(Search[] searches, long nanos) {
+        this.searches++;
+        searchNanos += nanos;
+        moveTime.record(nanos);
+        for (Search search : searches) {
+            nodes += search.getNodes();
+            ttProbes += search.getTtProbes();
+            ttHits += search.getTtHits();
+            ttCollisions += search.getTtCollisions();
+            cutoffs += search.getCutoffs();
+            firstMoveCutoffs += search.getFirstMoveCutoffs();
+            pawnProbes += search.getPawnTable().getProbes();
+            pawnHits += search.getPawnTable().getHits();
+            generations += search.getGenerations();
+            movesGenerated += search.getMovesGenerated();
+        }
+        branchingFactor = searches[0].getBranchingFactor();
+        threads = searches.length;
+    }
+
+    /**
+     * Publishes the metrics on the platform MBean server.
+     * @param name value of the name key, such as uci.
+     * @return the name registered, or null if registration failed.
+     */
+    public ObjectName register(String name) {
+        return register(this, "Engine", name);
+    }
+
+    /**
+     * Publishes a bean on the platform MBean server under
+     * chess:type=&lt;type&gt;,name=&lt;name&gt;, replacing a bean already
+     * registered under that name.
+     * @param bean MXBean to publish.
+     * @param type value of the type key.
+     * @param name value of the name key.
+     * @return the name registered, or null if registration failed.
+     */
+    static ObjectName register(Object bean, String type, String name) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName("chess:type=" + type + ",name=" + ObjectName.quote(name));
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(bean, objectName);
+            return objectName;
+        } catch (JMException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Removes a bean from the platform MBean server.
+     * @param objectName name returned by register, or null.
+     */
+    static void unregister(ObjectName objectName) {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException ex) {
+            // already gone
+        }
+    }
+
+    /**
+     * Gets the number of searches run.
+     * @return number of searches.
+     */
+    @Override
+    public synchronized long getSearches() {
+        return searches;
+    }
+
+    /**
+     * Gets the number of nodes searched by every thread.
+     * @return number of nodes.
+     */
+    @Override
+    public synchronized long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Gets the nodes searched per second of search time.
+     * @return nodes per second.
+     */
+    @Override
+    public synchronized long getNodesPerSecond() {
+        return searchNanos == 0 ? 0 : (long) (nodes * 1e9 / searchNanos);
+    }
+
+    /**
+     * Gets the number of transposition table probes.
+     * @return number of probes.
+     */
+    @Override
+    public synchronized long getTtProbes() {
+        return ttProbes;
+    }
+
+    /**
+     * Gets the number of transposition table probes that found their
+     * position.
+     * @return number of hits.
+     */
+    @Override
+    public synchronized long getTtHits() {
+        return ttHits;
+    }
+
+    /**
+     * Gets the number of transposition table stores that overwrote the
+     * entry of another position.
+     * @return number of collisions.
+     */
+    @Override
+    public synchronized long getTtCollisions() {
+        return ttCollisions;
+    }
+
+    /**
+     * Gets how full the transposition table is.
+     * @return entries used by the last search, per thousand.
+     */
+    @Override
+    public int getHashfull() {
+        return engine.getTranspositionTable().hashfull();
+    }
+
+    /**
+     * Gets the number of beta cutoffs.
+     * @return number of cutoffs.
+     */
+    @Override
+    public synchronized long getCutoffs() {
+        return cutoffs;
+    }
+
+    /**
+     * Gets the share of beta cutoffs made by the first move tried.
+     * @return fraction from 0 to 1.
+     */
+    @Override
+    public synchronized double getFirstMoveCutoffRate() {
+        return cutoffs == 0 ? 0 : (double) firstMoveCutoffs / cutoffs;
+    }
+
+    /**
+     * Gets the effective branching factor of the last search.
+     * @return branching factor, or 0 if unknown.
+     */
+    @Override
+    public synchronized double getEffectiveBranchingFactor() {
+        return branchingFactor;
+    }
+
+    /**
+     * Gets the number of pawn hash table probes.
+     * @return number of probes.
+     */
+    @Override
+    public synchronized long getPawnHashProbes() {
+        return pawnProbes;
+    }
+
+    /**
+     * Gets the number of pawn hash table probes that found their pawns.
+     * @return number of hits.
+     */
+    @Override
+    public synchronized long getPawnHashHits() {
+        return pawnHits;
+    }
+
+    /**
+     * Gets the number of times the search generated moves.
+     * @return number of generations.
+     */
+    @Override
+    public synchronized long getMoveGenerations() {
+        return generations;
+    }
+
+    /**
+     * Gets the number of legal moves the search generated.
+     * @return number of moves.
+     */
+    @Override
+    public synchronized long getMovesGenerated() {
+        return movesGenerated;
+    }
+
+    /**
+     * Gets the median time to choose a move.
+     * @return milliseconds.
+     */
+    @Override
+    public double getMoveTimeP50Millis() {
+        return moveTime.percentile(50) / 1e6;
+    }
+
+    /**
+     * Gets the 99th percentile of the time to choose a move.
+     * @return milliseconds.
+     */
+    @Override
+    public double getMoveTimeP99Millis() {
+        return moveTime.percentile(99) / 1e6;
+    }
+
+    /**
+     * Gets the number of threads the last search ran on.
+     * @return number of threads.
+     */
+    @Override
+    public synchronized int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Checks whether a search is running.
+     * @return true while the engine thinks.
+     */
+    @Override
+    public boolean isThinking() {
+        return engine.isThinking();
+    }
+}
@@ -0,0 +1,123 @@
+package chess;
+
+/**
+ * Engine counters published over JMX. Counts are totals over every
+ * search since the engine was created, so monitoring tools can turn
+ * them into rates; the branching factor and hashfull describe the last
+ * search.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public interface EngineMetricsMXBean {
+
+    /**
+     * Gets the number of searches run.
+     * @return number of searches.
+     */
+    long getSearches();
+
+    /**
+     * Gets the number of nodes searched by every thread.
+     * @return number of nodes.
+     */
+    long getNodes();
+
+    /**
+     * Gets the nodes searched per second of search time.
+     * @return nodes per second.
+     */
+    long getNodesPerSecond();
+
+    /**
+     * Gets the number of transposition table probes.
+     * @return number of probes.
+     */
+    long getTtProbes();
+
+    /**
+     * Gets the number of transposition table probes that found their
+     * position.
+     * @return number of hits.
+     */
+    long getTtHits();
+
+    /**
+     * Gets the number of transposition table stores that overwrote the
+     * entry of another position.
+     * @return number of collisions.
+     */
+    long getTtCollisions();
+
+    /**
+     * Gets how full the transposition table is.
+     * @return entries used by the last search, per thousand.
+     */
+    int getHashfull();
+
+    /**
+     * Gets the number of beta cutoffs.
+     * @return number of cutoffs.
+     */
+    long getCutoffs();
+
+    /**
+     * Gets the share of beta cutoffs made by the first move tried.
+     * @return fraction from 0 to 1.
+     */
+    double getFirstMoveCutoffRate();
+
+    /**
+     * Gets the effective branching factor of the last search.
+     * @return branching factor, or 0 if unknown.
+     */
+    double getEffectiveBranchingFactor();
+
+    /**
+     * Gets the number of pawn hash table probes.
+     * @return number of probes.
+     */
+    long getPawnHashProbes();
+
+    /**
+     * Gets the number of pawn hash table probes that found their pawns.
+     * @return number of hits.
+     */
+    long getPawnHashHits();
+
+    /**
+     * Gets the number of times the search generated moves.
+     * @return number of generations.
+     */
+    long getMoveGenerations();
+
+    /**
+     * Gets the number of legal moves the search generated.
+     * @return number of moves.
+     */
+    long getMovesGenerated();
+
+    /**
+     * Gets the median time to choose a move.
+     * @return milliseconds.
+     */
+    double getMoveTimeP50Millis();
+
+    /**
+     * Gets the 99th percentile of the time to choose a move.
+     * @return milliseconds.
+     */
+    double getMoveTimeP99Millis();
+
+    /**
+     * Gets the number of threads the last search ran on.
+     * @return number of threads.
+     */
+    int getThreads();
+
+    /**
+     * Checks whether a search is running.
+     * @return true while the engine thinks.
+     */
+    boolean isThinking();
+}
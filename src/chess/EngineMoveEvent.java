@@ -0,0 +1,39 @@
+package chess;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for one move chosen by the engine. Its duration
+ * is the time Engine.think took, helper threads included.
+ *
+ * @author JC
+ * @version 1.0
+ */
+@Name("chess.EngineMove")
+@Label("Engine Move")
+@Category({"Chess", "Engine"})
+@Description("A move chosen by the engine")
+final class EngineMoveEvent extends Event {
+
+    @Label("Move")
+    String move;
+
+    @Label("Depth")
+    @Description("Depth of the last completed iteration of the main thread")
+    int depth;
+
+    @Label("Score")
+    @Description("Score in centipawns for the side to move, or a mate score")
+    int score;
+
+    @Label("Nodes")
+    @Description("Nodes searched by every thread")
+    long nodes;
+
+    @Label("Threads")
+    int threads;
+}
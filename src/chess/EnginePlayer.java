@@ -0,0 +1,111 @@
+package chess;
+
+import java.util.Random;
+
+/**
+ * A Player whose moves are chosen by the Engine instead of by clicking.
+ * Its moves go through the same path on the board as a person's moves.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public class EnginePlayer extends Player {
+
+    private final Engine engine;
+    private SearchLimits limits;
+    private PolyglotBook book;
+    private Random bookRandom;
+
+    /**
+     * Constructor for an engine player.
+     * @param color color of the player.
+     * @param engine engine that chooses the moves.
+     * @param limits limits of each search.
+     */
+    public EnginePlayer(String color, Engine engine, SearchLimits limits) {
+        super(color);
+        this.engine = engine;
+        this.limits = limits;
+    }
+
+    /**
+     * Checks whether moves for this player come from the board.
+     * @return false, the engine chooses its own moves.
+     */
+    @Override
+    public boolean isHuman() {
+        return false;
+    }
+
+    /**
+     * Plays from the opening book while the position is in it, and
+     * otherwise searches the position for the best move. Blocks while
+     * the engine thinks, so call it off the event dispatch thread.
+     * @param pos position to move in; it is not changed.
+     * @param history hashes of the positions of the game before pos,
+     *     which the search uses to see repetitions.
+     * @return packed move, or Move.NONE if there is no legal move.
+     */
+    @Override
+    public int chooseMove(Position pos, long[] history) {
+        if (book != null) {
+            int move = bookRandom != null ? book.weightedMove(pos, bookRandom) : book.bestMove(pos);
+            if (move != Move.NONE) {
+                return move;
+            }
+        }
+        return engine.think(pos, history, limits);
+    }
+
+    /**
+     * Stops the engine; chooseMove returns the best move found so far.
+     */
+    @Override
+    public void stopThinking() {
+        engine.stop();
+    }
+
+    /**
+     * Gets the engine of this player.
+     * @return the engine.
+     */
+    public Engine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Gets the limits of each search.
+     * @return search limits.
+     */
+    public SearchLimits getLimits() {
+        return limits;
+    }
+
+    /**
+     * Sets the opening book consulted before searching.
+     * @param book book, or null to always search.
+     * @param varied true to pick book moves at random by weight, false
+     *     to always play the move with the highest weight.
+     */
+    public void setBook(PolyglotBook book, boolean varied) {
+        this.book = book;
+        this.bookRandom = varied ? new Random() : null;
+    }
+
+    /**
+     * Gets the opening book.
+     * @return book, or null if there is none.
+     */
+    public PolyglotBook getBook() {
+        return book;
+    }
+
+    /**
+     * Sets the limits of the next searches, such as a new share of the
+     * clock before each move.
+     * @param limits search limits.
+     */
+    public void setLimits(SearchLimits limits) {
+        this.limits = limits;
+    }
+}
@@ -0,0 +1,338 @@
+package chess;
+
+/**
+ * Static evaluation of a position, in centipawns from the point of view
+ * of the side to move.
+ * The evaluation is material plus piece-square tables, with one set of
+ * values for the middlegame and one for the endgame. Position adds and
+ * subtracts the entry of a piece on a square every time it puts a piece
+ * on or takes one off the board, so both sums and the game phase are
+ * always up to date after makeMove and unmakeMove, and evaluating costs
+ * the same few operations whatever the position. The two sums are
+ * blended by the phase, which runs from 24 with all pieces on the board
+ * down to 0 with only kings and pawns left.
+ * Pawn structure adds penalties for doubled, isolated and backward pawns
+ * and bonuses for passed pawns. It depends on the pawns alone, so the
+ * search keeps it in a PawnTable keyed by the position's pawn hash;
+ * only the bonus for a passed pawn whose next square is empty is worked
+ * out at every node, from the passed pawns the table remembers.
+ * Middlegame and endgame pawn scores travel together packed in one int.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public final class Evaluator {
+
+    /** Value of each piece type, indexed by type. The king has none. */
+    public static final int[] PIECE_VALUES = {100, 320, 330, 500, 900, 0};
+    /** Endgame value of each piece type, indexed by type. */
+    static final int[] ENDGAME_VALUES = {120, 300, 320, 520, 920, 0};
+    /** Phase of the opening position, where the middlegame values count fully. */
+    public static final int MAX_PHASE = 24;
+
+    /** Middlegame value of each piece on each square for White, indexed by piece * 64 + square. */
+    static final int[] MIDDLEGAME = new int[12 * 64];
+    /** Endgame value of each piece on each square for White, indexed by piece * 64 + square. */
+    static final int[] ENDGAME = new int[12 * 64];
+    /** Phase each piece adds while on the board, indexed by piece. */
+    static final int[] PHASE = new int[12];
+
+    private static final int[] TYPE_PHASE = {0, 1, 1, 2, 4, 0};
+
+    private static final int DOUBLED = pack(-10, -20);
+    private static final int ISOLATED = pack(-10, -15);
+    private static final int BACKWARD = pack(-8, -10);
+    /** Bonus for a passed pawn by rank counted from its own side. */
+    private static final int[] PASSED = {
+        0, pack(5, 10), pack(10, 20), pack(15, 35), pack(25, 60), pack(40, 90), pack(60, 130), 0,
+    };
+    /** Extra endgame bonus for a passed pawn whose next square is empty. */
+    private static final int[] PASSED_FREE = {0, 0, 5, 10, 20, 35, 55, 0};
+
+    private static final long[] ADJACENT_FILES = new long[8];
+    /** Squares in front of a pawn on its own and the adjacent files, by color and square. */
+    private static final long[][] PASSED_SPAN = new long[2][64];
+    /** Squares on the adjacent files level with or behind a pawn, by color and square. */
+    private static final long[][] SUPPORT_SPAN = new long[2][64];
+
+    // Tables are written as seen from White's side of the board: rank 8 first.
+    private static final int[] PAWN_TABLE = {
+          0,   0,   0,   0,   0,   0,   0,   0,
+         50,  50,  50,  50,  50,  50,  50,  50,
+         10,  10,  20,  30,  30,  20,  10,  10,
+          5,   5,  10,  25,  25,  10,   5,   5,
+          0,   0,   0,  20,  20,   0,   0,   0,
+          5,  -5, -10,   0,   0, -10,  -5,   5,
+          5,  10,  10, -20, -20,  10,  10,   5,
+          0,   0,   0,   0,   0,   0,   0,   0,
+    };
+    private static final int[] PAWN_ENDGAME_TABLE = {
+          0,   0,   0,   0,   0,   0,   0,   0,
+         80,  80,  80,  80,  80,  80,  80,  80,
+         50,  50,  50,  50,  50,  50,  50,  50,
+         30,  30,  30,  30,  30,  30,  30,  30,
+         15,  15,  15,  15,  15,  15,  15,  15,
+          5,   5,   5,   5,   5,   5,   5,   5,
+          0,   0,   0,   0,   0,   0,   0,   0,
+          0,   0,   0,   0,   0,   0,   0,   0,
+    };
+    private static final int[] KNIGHT_TABLE = {
+        -50, -40, -30, -30, -30, -30, -40, -50,
+        -40, -20,   0,   0,   0,   0, -20, -40,
+        -30,   0,  10,  15,  15,  10,   0, -30,
+        -30,   5,  15,  20,  20,  15,   5, -30,
+        -30,   0,  15,  20,  20,  15,   0, -30,
+        -30,   5,  10,  15,  15,  10,   5, -30,
+        -40, -20,   0,   5,   5,   0, -20, -40,
+        -50, -40, -30, -30, -30, -30, -40, -50,
+    };
+    private static final int[] BISHOP_TABLE = {
+        -20, -10, -10, -10, -10, -10, -10, -20,
+        -10,   0,   0,   0,   0,   0,   0, -10,
+        -10,   0,   5,  10,  10,   5,   0, -10,
+        -10,   5,   5,  10,  10,   5,   5, -10,
+        -10,   0,  10,  10,  10,  10,   0, -10,
+        -10,  10,  10,  10,  10,  10,  10, -10,
+        -10,   5,   0,   0,   0,   0,   5, -10,
+        -20, -10, -10, -10, -10, -10, -10, -20,
+    };
+    private static final int[] ROOK_TABLE = {
+          0,   0,   0,   0,   0,   0,   0,   0,
+          5,  10,  10,  10,  10,  10,  10,   5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+          0,   0,   0,   5,   5,   0,   0,   0,
+    };
+    private static final int[] QUEEN_TABLE = {
+        -20, -10, -10,  -5,  -5, -10, -10, -20,
+        -10,   0,   0,   0,   0,   0,   0, -10,
+        -10,   0,   5,   5,   5,   5,   0, -10,
+         -5,   0,   5,   5,   5,   5,   0,  -5,
+          0,   0,   5,   5,   5,   5,   0,  -5,
+        -10,   5,   5,   5,   5,   5,   0, -10,
+        -10,   0,   5,   0,   0,   0,   0, -10,
+        -20, -10, -10,  -5,  -5, -10, -10, -20,
+    };
+    private static final int[] KING_TABLE = {
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -20, -30, -30, -40, -40, -30, -30, -20,
+        -10, -20, -20, -20, -20, -20, -20, -10,
+         20,  20,   0,   0,   0,   0,  20,  20,
+         20,  30,  10,   0,   0,  10,  30,  20,
+    };
+    private static final int[] KING_ENDGAME_TABLE = {
+        -50, -40, -30, -20, -20, -30, -40, -50,
+        -30, -20, -10,   0,   0, -10, -20, -30,
+        -30, -10,  20,  30,  30,  20, -10, -30,
+        -30, -10,  30,  40,  40,  30, -10, -30,
+        -30, -10,  30,  40,  40,  30, -10, -30,
+        -30, -10,  20,  30,  30,  20, -10, -30,
+        -30, -30,   0,   0,   0,   0, -30, -30,
+        -50, -30, -30, -30, -30, -30, -30, -50,
+    };
+
+    static {
+        int[][] middlegame = {PAWN_TABLE, KNIGHT_TABLE, BISHOP_TABLE, ROOK_TABLE, QUEEN_TABLE, KING_TABLE};
+        int[][] endgame = {PAWN_ENDGAME_TABLE, KNIGHT_TABLE, BISHOP_TABLE, ROOK_TABLE, QUEEN_TABLE,
+            KING_ENDGAME_TABLE};
+        for (int type = Position.PAWN; type <= Position.KING; type++) {
+            int white = Position.piece(Position.WHITE, type);
+            int black = Position.piece(Position.BLACK, type);
+            for (int sq = 0; sq < 64; sq++) {
+                // A white piece on sq is drawn at row 7 - rank; a black one
+                // uses the mirrored square and counts against White.
+                MIDDLEGAME[white * 64 + sq] = PIECE_VALUES[type] + middlegame[type][sq ^ 56];
+                ENDGAME[white * 64 + sq] = ENDGAME_VALUES[type] + endgame[type][sq ^ 56];
+                MIDDLEGAME[black * 64 + sq] = -PIECE_VALUES[type] - middlegame[type][sq];
+                ENDGAME[black * 64 + sq] = -ENDGAME_VALUES[type] - endgame[type][sq];
+            }
+            PHASE[white] = TYPE_PHASE[type];
+            PHASE[black] = TYPE_PHASE[type];
+        }
+        for (int file = 0; file < 8; file++) {
+            long files = Bitboards.FILE_A << file;
+            ADJACENT_FILES[file] = ((files << 1) & ~Bitboards.FILE_A) | ((files >>> 1) & ~Bitboards.FILE_H);
+        }
+        for (int sq = 0; sq < 64; sq++) {
+            int file = Position.fileOf(sq);
+            int rank = Position.rankOf(sq);
+            long span = ADJACENT_FILES[file] | (Bitboards.FILE_A << file);
+            long above = rank == 7 ? 0 : -1L << (8 * (rank + 1));
+            long below = rank == 0 ? 0 : -1L >>> (8 * (8 - rank));
+            PASSED_SPAN[Position.WHITE][sq] = span & above;
+            PASSED_SPAN[Position.BLACK][sq] = span & below;
+            SUPPORT_SPAN[Position.WHITE][sq] = ADJACENT_FILES[file] & ~above;
+            SUPPORT_SPAN[Position.BLACK][sq] = ADJACENT_FILES[file] & ~below;
+        }
+    }
+
+    private Evaluator() {
+    }
+
+    /**
+     * Evaluates a position, working the pawn structure out from scratch.
+     * @param pos position to evaluate.
+     * @return score for the side to move.
+     */
+    public static int evaluate(Position pos) {
+        int score = whiteScore(pos);
+        return pos.sideToMove == Position.WHITE ? score : -score;
+    }
+
+    /**
+     * Evaluates a position, looking the pawn structure up in a table.
+     * @param pos position to evaluate.
+     * @param pawns pawn hash table of the calling thread.
+     * @return score for the side to move.
+     */
+    public static int evaluate(Position pos, PawnTable pawns) {
+        int entry = pawns.probe(pos);
+        int score = blend(pos, pawns.score(entry),
+                pawns.passed(entry, Position.WHITE), pawns.passed(entry, Position.BLACK));
+        return pos.sideToMove == Position.WHITE ? score : -score;
+    }
+
+    /**
+     * Evaluates a position for White, as shown by the score bar.
+     * @param pos position to evaluate.
+     * @return score in centipawns, positive when White is better.
+     */
+    public static int whiteScore(Position pos) {
+        long white = pos.pieces[Position.piece(Position.WHITE, Position.PAWN)];
+        long black = pos.pieces[Position.piece(Position.BLACK, Position.PAWN)];
+        return blend(pos, pawnStructure(white, black),
+                passedPawns(Position.WHITE, white, black), passedPawns(Position.BLACK, black, white));
+    }
+
+    /**
+     * Adds the pawn structure and the free passed pawn bonus to the
+     * position's sums and blends middlegame and endgame by the phase.
+     * @param pos position to evaluate.
+     * @param pawnScore packed pawn structure score for White.
+     * @param whitePassed passed white pawns.
+     * @param blackPassed passed black pawns.
+     * @return score in centipawns for White.
+     */
+    private static int blend(Position pos, int pawnScore, long whitePassed, long blackPassed) {
+        int middlegame = pos.middlegame + middlegameOf(pawnScore);
+        int endgame = pos.endgame + endgameOf(pawnScore);
+        while (whitePassed != 0) {
+            int sq = Bitboards.lsb(whitePassed);
+            whitePassed &= whitePassed - 1;
+            if (pos.board[sq + 8] == Position.NO_PIECE) {
+                endgame += PASSED_FREE[Position.rankOf(sq)];
+            }
+        }
+        while (blackPassed != 0) {
+            int sq = Bitboards.lsb(blackPassed);
+            blackPassed &= blackPassed - 1;
+            if (pos.board[sq - 8] == Position.NO_PIECE) {
+                endgame -= PASSED_FREE[7 - Position.rankOf(sq)];
+            }
+        }
+        int phase = Math.min(pos.phase, MAX_PHASE);
+        return (middlegame * phase + endgame * (MAX_PHASE - phase)) / MAX_PHASE;
+    }
+
+    /**
+     * Scores the pawn structure: doubled, isolated and backward pawns
+     * and passed pawns of both sides.
+     * @param white white pawns.
+     * @param black black pawns.
+     * @return packed middlegame and endgame score for White.
+     */
+    static int pawnStructure(long white, long black) {
+        return pawnStructure(Position.WHITE, white, black) - pawnStructure(Position.BLACK, black, white);
+    }
+
+    /**
+     * Scores the pawn structure of one side.
+     * @param color side the pawns belong to.
+     * @param own pawns of that side.
+     * @param enemy pawns of the other side.
+     * @return packed middlegame and endgame score for that side.
+     */
+    private static int pawnStructure(int color, long own, long enemy) {
+        int score = 0;
+        for (int file = 0; file < 8; file++) {
+            int count = Long.bitCount(own & (Bitboards.FILE_A << file));
+            if (count > 1) {
+                score += (count - 1) * DOUBLED;
+            }
+        }
+        long enemyAttacks = Bitboards.pawnCapturesWest(color ^ 1, enemy)
+                | Bitboards.pawnCapturesEast(color ^ 1, enemy);
+        long pawns = own;
+        while (pawns != 0) {
+            int sq = Bitboards.lsb(pawns);
+            pawns &= pawns - 1;
+            int relativeRank = color == Position.WHITE ? Position.rankOf(sq) : 7 - Position.rankOf(sq);
+            if ((own & ADJACENT_FILES[Position.fileOf(sq)]) == 0) {
+                score += ISOLATED;
+            } else if ((own & SUPPORT_SPAN[color][sq]) == 0
+                    && (enemyAttacks & (1L << (color == Position.WHITE ? sq + 8 : sq - 8))) != 0) {
+                score += BACKWARD;
+            }
+            if ((enemy & PASSED_SPAN[color][sq]) == 0) {
+                score += PASSED[relativeRank];
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Finds the passed pawns of one side: those with no enemy pawn in
+     * front of them on their own or an adjacent file.
+     * @param color side the pawns belong to.
+     * @param own pawns of that side.
+     * @param enemy pawns of the other side.
+     * @return passed pawns.
+     */
+    static long passedPawns(int color, long own, long enemy) {
+        long passed = 0;
+        long pawns = own;
+        while (pawns != 0) {
+            int sq = Bitboards.lsb(pawns);
+            pawns &= pawns - 1;
+            if ((enemy & PASSED_SPAN[color][sq]) == 0) {
+                passed |= 1L << sq;
+            }
+        }
+        return passed;
+    }
+
+    /**
+     * Packs a middlegame and an endgame score into one int. Packed
+     * scores can be added and subtracted as they are.
+     * @param middlegame middlegame score.
+     * @param endgame endgame score.
+     * @return packed score.
+     */
+    static int pack(int middlegame, int endgame) {
+        return (middlegame << 16) + endgame;
+    }
+
+    /**
+     * Gets the middlegame part of a packed score.
+     * @param packed packed score.
+     * @return middlegame score.
+     */
+    static int middlegameOf(int packed) {
+        return (packed + 0x8000) >> 16;
+    }
+
+    /**
+     * Gets the endgame part of a packed score.
+     * @param packed packed score.
+     * @return endgame score.
+     */
+    static int endgameOf(int packed) {
+        return (short) packed;
+    }
+}
@@ -0,0 +1,259 @@
+package chess;
+
+/**
+ * Reads and writes positions in Forsyth-Edwards Notation.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public final class Fen {
+
+    public static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private static final String PIECE_CHARS = "PNBRQKpnbrqk";
+
+    private Fen() {
+    }
+
+    /**
+     * Parses a FEN string into a new position.
+     * @param fen FEN string; the move clocks may be left out.
+     * @return the parsed position.
+     * @throws IllegalArgumentException if the FEN is malformed.
+     */
+    public static Position parse(String fen) {
+        Position pos = new Position();
+        parse(fen, pos);
+        return pos;
+    }
+
+    /**
+     * Parses a FEN string into an existing position. Besides the syntax,
+     * the position has to be one the rules can work with: eight ranks of
+     * eight files, one king a side, the side not to move not in check,
+     * castling rights only where king and rook stand on their squares,
+     * and an en passant square only behind a pawn that has just moved two
+     * squares.
+     * @param fen FEN string; the move clocks may be left out.
+     * @param pos position to overwrite.
+     * @throws IllegalArgumentException if the FEN is malformed.
+     */
+    public static void parse(String fen, Position pos) {
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 4) {
+            throw new IllegalArgumentException("FEN needs at least 4 fields: " + fen);
+        }
+        pos.clear();
+        int rank = 7;
+        int file = 0;
+        for (int i = 0; i < fields[0].length(); i++) {
+            char c = fields[0].charAt(i);
+            if (c == '/') {
+                if (file != 8 || rank == 0) {
+                    throw new IllegalArgumentException("Bad piece placement: " + fen);
+                }
+                rank--;
+                file = 0;
+            } else if (c >= '1' && c <= '8') {
+                file += c - '0';
+                if (file > 8) {
+                    throw new IllegalArgumentException("Bad piece placement: " + fen);
+                }
+            } else {
+                int piece = PIECE_CHARS.indexOf(c);
+                if (piece < 0 || file > 7) {
+                    throw new IllegalArgumentException("Bad piece placement: " + fen);
+                }
+                pos.put(piece, Position.square(file, rank));
+                file++;
+            }
+        }
+        if (file != 8 || rank != 0) {
+            throw new IllegalArgumentException("Bad piece placement: " + fen);
+        }
+        if (fields[1].equals("w")) {
+            pos.setSideToMove(Position.WHITE);
+        } else if (fields[1].equals("b")) {
+            pos.setSideToMove(Position.BLACK);
+        } else {
+            throw new IllegalArgumentException("Bad side to move: " + fen);
+        }
+        int rights = 0;
+        for (int i = 0; i < fields[2].length(); i++) {
+            switch (fields[2].charAt(i)) {
+                case 'K':
+                    rights |= Position.WHITE_KINGSIDE;
+                    break;
+                case 'Q':
+                    rights |= Position.WHITE_QUEENSIDE;
+                    break;
+                case 'k':
+                    rights |= Position.BLACK_KINGSIDE;
+                    break;
+                case 'q':
+                    rights |= Position.BLACK_QUEENSIDE;
+                    break;
+                case '-':
+                    break;
+                default:
+                    throw new IllegalArgumentException("Bad castling rights: " + fen);
+            }
+        }
+        pos.setCastlingRights(rights);
+        pos.setEpSquare(fields[3].equals("-") ? Position.NO_SQUARE : parseSquare(fields[3]));
+        try {
+            validate(pos);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException(ex.getMessage() + ": " + fen, ex);
+        }
+        try {
+            pos.halfmoveClock = fields.length > 4 ? Integer.parseInt(fields[4]) : 0;
+            pos.fullmoveNumber = fields.length > 5 ? Integer.parseInt(fields[5]) : 1;
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Bad move counters: " + fen, ex);
+        }
+        if (pos.halfmoveClock < 0 || pos.fullmoveNumber < 1) {
+            throw new IllegalArgumentException("Bad move counters: " + fen);
+        }
+    }
+
+    /**
+     * Checks that a position is one the rules can work with: one king a
+     * side, the side not to move not in check, castling rights only
+     * where king and rook stand on their squares, and an en passant
+     * square only behind a pawn that has just moved two squares. Used
+     * for every position read from outside, not only FEN.
+     * @param pos position with every field set.
+     * @throws IllegalArgumentException if the position breaks a rule.
+     */
+    static void validate(Position pos) {
+        for (int color = Position.WHITE; color <= Position.BLACK; color++) {
+            if (Long.bitCount(pos.pieces(color, Position.KING)) != 1) {
+                throw new IllegalArgumentException("Each side needs one king");
+            }
+        }
+        if (!castlingPossible(pos, pos.castlingRights())) {
+            throw new IllegalArgumentException("Castling rights without king and rook");
+        }
+        int ep = pos.epSquare();
+        if (ep != Position.NO_SQUARE && !enPassantPossible(pos, ep)) {
+            throw new IllegalArgumentException("Bad en passant square");
+        }
+        int theirKing = Bitboards.lsb(pos.pieces(pos.sideToMove() ^ 1, Position.KING));
+        if (MoveGenerator.isAttacked(pos, theirKing, pos.sideToMove())) {
+            throw new IllegalArgumentException("Side not to move is in check");
+        }
+    }
+
+    /**
+     * checks to see if every castling right has its king and rook on
+     * their starting squares.
+     * @param pos position with its pieces placed.
+     * @param rights castling rights to check.
+     * @return true if the rights fit the position.
+     */
+    private static boolean castlingPossible(Position pos, int rights) {
+        int[] right = {Position.WHITE_KINGSIDE, Position.WHITE_QUEENSIDE,
+            Position.BLACK_KINGSIDE, Position.BLACK_QUEENSIDE};
+        int[] rookFile = {7, 0, 7, 0};
+        for (int i = 0; i < right.length; i++) {
+            if ((rights & right[i]) == 0) {
+                continue;
+            }
+            int color = i < 2 ? Position.WHITE : Position.BLACK;
+            int rank = color == Position.WHITE ? 0 : 7;
+            if (pos.pieceAt(Position.square(4, rank)) != Position.piece(color, Position.KING)
+                    || pos.pieceAt(Position.square(rookFile[i], rank)) != Position.piece(color, Position.ROOK)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * checks to see if an en passant square lies behind a pawn of the
+     * side not to move that can just have moved two squares.
+     * @param pos position with its pieces and side to move set.
+     * @param ep en passant square.
+     * @return true if the square fits the position.
+     */
+    private static boolean enPassantPossible(Position pos, int ep) {
+        int us = pos.sideToMove();
+        int rank = us == Position.WHITE ? 5 : 2;
+        int pawnSq = us == Position.WHITE ? ep - 8 : ep + 8;
+        int startSq = us == Position.WHITE ? ep + 8 : ep - 8;
+        return Position.rankOf(ep) == rank
+                && pos.pieceAt(ep) == Position.NO_PIECE
+                && pos.pieceAt(startSq) == Position.NO_PIECE
+                && pos.pieceAt(pawnSq) == Position.piece(us ^ 1, Position.PAWN);
+    }
+
+    /**
+     * Writes a position as a FEN string.
+     * @param pos position to write.
+     * @return FEN string.
+     */
+    public static String toFen(Position pos) {
+        StringBuilder sb = new StringBuilder(90);
+        for (int rank = 7; rank >= 0; rank--) {
+            int empty = 0;
+            for (int file = 0; file < 8; file++) {
+                int piece = pos.board[Position.square(file, rank)];
+                if (piece == Position.NO_PIECE) {
+                    empty++;
+                } else {
+                    if (empty > 0) {
+                        sb.append(empty);
+                        empty = 0;
+                    }
+                    sb.append(PIECE_CHARS.charAt(piece));
+                }
+            }
+            if (empty > 0) {
+                sb.append(empty);
+            }
+            if (rank > 0) {
+                sb.append('/');
+            }
+        }
+        sb.append(pos.sideToMove == Position.WHITE ? " w " : " b ");
+        if (pos.castling == 0) {
+            sb.append('-');
+        } else {
+            if ((pos.castling & Position.WHITE_KINGSIDE) != 0) {
+                sb.append('K');
+            }
+            if ((pos.castling & Position.WHITE_QUEENSIDE) != 0) {
+                sb.append('Q');
+            }
+            if ((pos.castling & Position.BLACK_KINGSIDE) != 0) {
+                sb.append('k');
+            }
+            if ((pos.castling & Position.BLACK_QUEENSIDE) != 0) {
+                sb.append('q');
+            }
+        }
+        sb.append(' ');
+        sb.append(pos.epSquare == Position.NO_SQUARE ? "-" : Move.squareName(pos.epSquare));
+        sb.append(' ').append(pos.halfmoveClock).append(' ').append(pos.fullmoveNumber);
+        return sb.toString();
+    }
+
+    /**
+     * Parses a square name such as e4.
+     * @param name square name.
+     * @return square index.
+     * @throws IllegalArgumentException if the name is not a square.
+     */
+    public static int parseSquare(String name) {
+        if (name.length() != 2) {
+            throw new IllegalArgumentException("Bad square: " + name);
+        }
+        int file = name.charAt(0) - 'a';
+        int rank = name.charAt(1) - '1';
+        if (file < 0 || file > 7 || rank < 0 || rank > 7) {
+            throw new IllegalArgumentException("Bad square: " + name);
+        }
+        return Position.square(file, rank);
+    }
+}
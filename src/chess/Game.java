@@ -0,0 +1,486 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * One game of chess without any user interface: the current position,
+ * the moves played, moves taken back that can be replayed, and whether
+ * and how the game has ended.
+ * Nothing here touches AWT or Swing, so games run under
+ * java.awt.headless=true and many can share one JVM. A Game is not
+ * thread-safe; callers that share one between threads must lock it.
+ * Listeners hear about every change, which is how the Swing Board
+ * follows a game it does not own the rules of.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public class Game {
+
+    public static final int ONGOING = 0;
+    public static final int CHECKMATE = 1;
+    public static final int STALEMATE = 2;
+    public static final int DRAW_FIFTY_MOVES = 3;
+    public static final int DRAW_REPETITION = 4;
+    public static final int DRAW_INSUFFICIENT_MATERIAL = 5;
+    public static final int RESIGNED = 6;
+
+    private final Position position = new Position();
+    private GameRecord record;
+    private long[] hashes = new long[128];
+    private int[] redoMoves = new int[64];
+    private int redoCount;
+    private int status;
+    private int resignedColor;
+    private final int[] moveBuffer = new int[MoveGenerator.MAX_MOVES];
+    private final List<GameListener> listeners = new ArrayList<GameListener>();
+
+    /**
+     * Constructor for a game from the standard starting position.
+     */
+    public Game() {
+        newGame();
+    }
+
+    /**
+     * Constructor for a game from the given position.
+     * @param start position to start from; it is copied.
+     */
+    public Game(Position start) {
+        newGame(start);
+    }
+
+    /**
+     * Starts over from the standard starting position.
+     */
+    public void newGame() {
+        newGame(Position.startPosition());
+    }
+
+    /**
+     * Starts over from the given position.
+     * @param start position to start from; it is copied.
+     */
+    public void newGame(Position start) {
+        load(new GameRecord(start));
+    }
+
+    /**
+     * Replaces this game with a recorded one, replaying its moves.
+     * @param loaded record to replay; it is kept, not copied.
+     */
+    public void load(GameRecord loaded) {
+        int[] moves = new int[loaded.getMoveCount()];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = loaded.getMove(i);
+        }
+        record = loaded;
+        record.truncate(0);
+        position.copyFrom(record.getStart());
+        hashes[0] = position.hash();
+        redoCount = 0;
+        resignedColor = -1;
+        for (int move : moves) {
+            play(move);
+        }
+        updateStatus();
+        fireChanged();
+    }
+
+    /**
+     * Plays a move if it is legal and the game is not over. Any moves
+     * that were taken back can no longer be redone.
+     * @param move packed move.
+     * @return true if the move was played.
+     */
+    public boolean applyMove(int move) {
+        if (status != ONGOING || !isLegal(move)) {
+            return false;
+        }
+        redoCount = 0;
+        play(move);
+        updateStatus();
+        fireChanged();
+        return true;
+    }
+
+    /**
+     * Plays a move given in UCI notation, such as e2e4 or e7e8q.
+     * @param uci move text.
+     * @return true if the move was legal and played.
+     */
+    public boolean applyMove(String uci) {
+        int move = findMove(uci);
+        return move != Move.NONE && applyMove(move);
+    }
+
+    /**
+     * Looks up the legal move written in UCI notation.
+     * @param uci move text.
+     * @return packed move, or Move.NONE if no legal move matches.
+     */
+    public int findMove(String uci) {
+        int count = MoveGenerator.generateLegal(position, moveBuffer);
+        for (int i = 0; i < count; i++) {
+            if (Move.toUci(moveBuffer[i]).equals(uci)) {
+                return moveBuffer[i];
+            }
+        }
+        return Move.NONE;
+    }
+
+    /**
+     * Looks up the legal move between two squares. A pawn reaching the
+     * last rank becomes the given piece type.
+     * @param from square the piece moves from.
+     * @param to square the piece moves to.
+     * @param promotion piece type to promote to.
+     * @return packed move, or Move.NONE if no legal move matches.
+     */
+    public int findMove(int from, int to, int promotion) {
+        int count = MoveGenerator.generateLegal(position, moveBuffer);
+        for (int i = 0; i < count; i++) {
+            int move = moveBuffer[i];
+            if (Move.from(move) == from && Move.to(move) == to
+                    && (!Move.isPromotion(move) || Move.promotionType(move) == promotion)) {
+                return move;
+            }
+        }
+        return Move.NONE;
+    }
+
+    /**
+     * checks to see if a move is legal in the current position.
+     * @param move packed move.
+     * @return true if the move is one of the legal moves.
+     */
+    public boolean isLegal(int move) {
+        int count = MoveGenerator.generateLegal(position, moveBuffer);
+        for (int i = 0; i < count; i++) {
+            if (moveBuffer[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Lists the legal moves of the side to move.
+     * @param moves buffer of at least MoveGenerator.MAX_MOVES entries.
+     * @return number of moves written; 0 once the game is over.
+     */
+    public int legalMoves(int[] moves) {
+        if (status != ONGOING) {
+            return 0;
+        }
+        return MoveGenerator.generateLegal(position, moves);
+    }
+
+    /**
+     * Lists the legal moves of the side to move.
+     * @return packed moves; empty once the game is over.
+     */
+    public int[] legalMoves() {
+        int count = legalMoves(moveBuffer);
+        return Arrays.copyOf(moveBuffer, count);
+    }
+
+    /**
+     * Takes back the last move.
+     * @return true if there was a move to take back.
+     */
+    public boolean undo() {
+        int count = record.getMoveCount();
+        if (count == 0) {
+            return false;
+        }
+        int move = record.getMove(count - 1);
+        position.unmakeMove(move);
+        record.truncate(count - 1);
+        if (redoCount == redoMoves.length) {
+            redoMoves = Arrays.copyOf(redoMoves, redoCount * 2);
+        }
+        redoMoves[redoCount++] = move;
+        resignedColor = -1;
+        updateStatus();
+        fireChanged();
+        return true;
+    }
+
+    /**
+     * Plays again the last move taken back.
+     * @return true if there was a move to redo.
+     */
+    public boolean redo() {
+        if (redoCount == 0) {
+            return false;
+        }
+        play(redoMoves[--redoCount]);
+        updateStatus();
+        fireChanged();
+        return true;
+    }
+
+    /**
+     * Ends the game with one side resigning.
+     * @param color Position.WHITE or Position.BLACK.
+     */
+    public void resign(int color) {
+        if (status != ONGOING) {
+            return;
+        }
+        resignedColor = color;
+        status = RESIGNED;
+        fireChanged();
+    }
+
+    /**
+     * Gets the current position.
+     * @return a copy of the position.
+     */
+    public Position getPosition() {
+        Position copy = new Position();
+        copy.copyFrom(position);
+        return copy;
+    }
+
+    /**
+     * Gets the hashes of the positions the game went through before the
+     * current one, oldest first, so a search can see repetitions of them.
+     * @return one hash per move played.
+     */
+    public long[] getHistory() {
+        return Arrays.copyOf(hashes, record.getMoveCount());
+    }
+
+    /**
+     * Gets the live position, for views in this package that only read it.
+     * @return the position itself.
+     */
+    Position position() {
+        return position;
+    }
+
+    /**
+     * Gets the side to move.
+     * @return Position.WHITE or Position.BLACK.
+     */
+    public int sideToMove() {
+        return position.sideToMove();
+    }
+
+    /**
+     * Gets the current position in Forsyth-Edwards Notation.
+     * @return FEN text.
+     */
+    public String toFen() {
+        return Fen.toFen(position);
+    }
+
+    /**
+     * Gets the record of the moves played so far.
+     * @return the record; callers must not change it.
+     */
+    public GameRecord getRecord() {
+        return record;
+    }
+
+    /**
+     * Gets the number of moves played.
+     * @return number of half moves.
+     */
+    public int getMoveCount() {
+        return record.getMoveCount();
+    }
+
+    /**
+     * Gets the last move played.
+     * @return packed move, or Move.NONE at the start.
+     */
+    public int getLastMove() {
+        int count = record.getMoveCount();
+        return count > 0 ? record.getMove(count - 1) : Move.NONE;
+    }
+
+    /**
+     * Gets the number of moves that can be redone.
+     * @return number of half moves taken back.
+     */
+    public int getRedoCount() {
+        return redoCount;
+    }
+
+    /**
+     * Gets the state of the game.
+     * @return ONGOING or the way the game ended.
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * checks to see if the game has ended.
+     * @return true unless the game is ONGOING.
+     */
+    public boolean isOver() {
+        return status != ONGOING;
+    }
+
+    /**
+     * Gets the result of the game in PGN form.
+     * @return PgnGame.WHITE_WINS, BLACK_WINS, DRAW or UNFINISHED.
+     */
+    public String getResult() {
+        return resultOf(status, status == RESIGNED ? resignedColor : position.sideToMove());
+    }
+
+    /**
+     * Gets the PGN result for a status.
+     * @param status ONGOING or the way the game ended.
+     * @param loser side to move after a checkmate, or the side that
+     *     resigned.
+     * @return PgnGame.WHITE_WINS, BLACK_WINS, DRAW or UNFINISHED.
+     */
+    static String resultOf(int status, int loser) {
+        switch (status) {
+            case CHECKMATE:
+            case RESIGNED:
+                return loser == Position.WHITE ? PgnGame.BLACK_WINS : PgnGame.WHITE_WINS;
+            case ONGOING:
+                return PgnGame.UNFINISHED;
+            default:
+                return PgnGame.DRAW;
+        }
+    }
+
+    /**
+     * Describes how the game ended, for people.
+     * @return description, or null while the game is ongoing.
+     */
+    public String describeResult() {
+        String winner = PgnGame.WHITE_WINS.equals(getResult()) ? "White" : "Black";
+        switch (status) {
+            case CHECKMATE:
+                return "Checkmate. " + winner + " wins.";
+            case RESIGNED:
+                return (resignedColor == Position.WHITE ? "White" : "Black") + " resigns. " + winner + " wins.";
+            case STALEMATE:
+                return "Stalemate. The game is a draw.";
+            case DRAW_FIFTY_MOVES:
+                return "Fifty moves without a capture or pawn move. The game is a draw.";
+            case DRAW_REPETITION:
+                return "Threefold repetition. The game is a draw.";
+            case DRAW_INSUFFICIENT_MATERIAL:
+                return "Neither side can mate. The game is a draw.";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Registers a listener for changes.
+     * @param listener listener to add.
+     */
+    public void addListener(GameListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener.
+     * @param listener listener to remove.
+     */
+    public void removeListener(GameListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Plays a move known to be legal and records it.
+     * @param move packed move.
+     */
+    private void play(int move) {
+        position.makeMove(move);
+        record.addMove(move);
+        int count = record.getMoveCount();
+        if (count == hashes.length) {
+            hashes = Arrays.copyOf(hashes, count * 2);
+        }
+        hashes[count] = position.hash();
+    }
+
+    /**
+     * Works out whether the current position ends the game.
+     */
+    private void updateStatus() {
+        status = resignedColor >= 0 ? RESIGNED : statusOf(position, hashes, record.getMoveCount());
+    }
+
+    /**
+     * Works out whether a position ends the game, apart from resignation.
+     * @param pos position to look at.
+     * @param history hashes of the positions of the game, one per ply.
+     * @param last index of pos's own hash in history.
+     * @return ONGOING or the way the game ended.
+     */
+    static int statusOf(Position pos, long[] history, int last) {
+        if (!MoveGenerator.hasLegalMove(pos)) {
+            return pos.inCheck() ? CHECKMATE : STALEMATE;
+        } else if (pos.halfmoveClock() >= 100) {
+            return DRAW_FIFTY_MOVES;
+        } else if (isThreefoldRepetition(pos, history, last)) {
+            return DRAW_REPETITION;
+        } else if (isInsufficientMaterial(pos)) {
+            return DRAW_INSUFFICIENT_MATERIAL;
+        }
+        return ONGOING;
+    }
+
+    /**
+     * checks to see if a position has occurred three times since the
+     * last capture or pawn move.
+     * @param pos position to look at.
+     * @param history hashes of the positions of the game, one per ply.
+     * @param last index of pos's own hash in history.
+     * @return true on a threefold repetition.
+     */
+    private static boolean isThreefoldRepetition(Position pos, long[] history, int last) {
+        int limit = Math.max(0, last - pos.halfmoveClock());
+        int seen = 1;
+        for (int i = last - 2; i >= limit; i -= 2) {
+            if (history[i] == history[last] && ++seen == 3) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * checks to see if neither side has enough material to mate: bare
+     * kings, or one knight or bishop against a bare king.
+     * @param position position to look at.
+     * @return true if no mate is possible.
+     */
+    private static boolean isInsufficientMaterial(Position position) {
+        long heavy = 0L;
+        for (int color = Position.WHITE; color <= Position.BLACK; color++) {
+            heavy |= position.pieces(color, Position.PAWN) | position.pieces(color, Position.ROOK)
+                    | position.pieces(color, Position.QUEEN);
+        }
+        if (heavy != 0) {
+            return false;
+        }
+        long minors = position.occupied() & ~position.pieces(Position.WHITE, Position.KING)
+                & ~position.pieces(Position.BLACK, Position.KING);
+        return Long.bitCount(minors) <= 1;
+    }
+
+    /**
+     * Tells every listener that the game changed.
+     */
+    private void fireChanged() {
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).gameChanged(this);
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary save format for a GameRecord, read and written
+ * through NIO file channels.
+ * Layout, big-endian:
+ * <pre>
+ * magic        4 bytes  "CHSG"
+ * version      1 byte
+ * occupancy    8 bytes  bitboard of occupied squares in the start position
+ * pieces       16 bytes one nibble per occupied square, lowest square first
+ * side         1 byte
+ * castling     1 byte
+ * ep square    1 byte   255 for none
+ * halfmove     2 bytes
+ * fullmove     2 bytes
+ * white clock  8 bytes  milliseconds left, -1 for untimed
+ * black clock  8 bytes
+ * move count   4 bytes
+ * moves        2 bytes each, packed as in Move
+ * crc32        4 bytes  of everything before it
+ * </pre>
+ * A game of n half moves takes 60 + 2n bytes.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public final class GameFile {
+
+    public static final int MAGIC = 0x43485347;
+    public static final int VERSION = 1;
+
+    /** Bytes taken by a position written with writePosition. */
+    static final int POSITION_SIZE = 31;
+
+    private static final int HEADER_SIZE = 56;
+    private static final int MAX_MOVES = 1 << 16;
+
+    private GameFile() {
+    }
+
+    /**
+     * Gets the number of bytes a record takes when encoded.
+     * @param record game record.
+     * @return encoded size in bytes.
+     */
+    public static int encodedSize(GameRecord record) {
+        return HEADER_SIZE + 2 * record.getMoveCount() + 4;
+    }
+
+    /**
+     * Saves a game record to a file, replacing it if it exists.
+     * @param record game record to save.
+     * @param path file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void save(GameRecord record, Path path) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(encodedSize(record));
+        encode(record, buf);
+        buf.flip();
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            while (buf.hasRemaining()) {
+                channel.write(buf);
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Loads a game record from a file.
+     * @param path file to read.
+     * @return the game record.
+     * @throws IOException if the file cannot be read or is not a valid save.
+     */
+    public static GameRecord load(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        ByteBuffer buf;
+        try {
+            long size = channel.size();
+            if (size < HEADER_SIZE + 4 || size > HEADER_SIZE + 4 + 2L * MAX_MOVES) {
+                throw new IOException("Not a saved game: " + path);
+            }
+            buf = ByteBuffer.allocate((int) size);
+            while (buf.hasRemaining()) {
+                if (channel.read(buf) < 0) {
+                    throw new IOException("Unexpected end of file: " + path);
+                }
+            }
+        } finally {
+            channel.close();
+        }
+        buf.flip();
+        return decode(buf);
+    }
+
+    /**
+     * Encodes a game record into a buffer.
+     * @param record game record to encode.
+     * @param buf buffer with at least encodedSize(record) bytes remaining.
+     */
+    public static void encode(GameRecord record, ByteBuffer buf) {
+        int begin = buf.position();
+        Position start = record.getStart();
+        buf.putInt(MAGIC);
+        buf.put((byte) VERSION);
+        writePosition(start, buf);
+        buf.putLong(record.getWhiteTimeMs());
+        buf.putLong(record.getBlackTimeMs());
+        buf.putInt(record.getMoveCount());
+        for (int i = 0; i < record.getMoveCount(); i++) {
+            buf.putShort((short) record.getMove(i));
+        }
+        buf.putInt((int) crc(buf, begin, buf.position()));
+    }
+
+    /**
+     * Decodes a game record from a buffer. Every move is checked against
+     * the legal moves of the position it is played in.
+     * @param buf buffer positioned at the start of an encoded record.
+     * @return the game record.
+     * @throws IOException if the data is not a valid save.
+     */
+    public static GameRecord decode(ByteBuffer buf) throws IOException {
+        int begin = buf.position();
+        if (buf.remaining() < HEADER_SIZE + 4 || buf.getInt() != MAGIC) {
+            throw new IOException("Not a saved game");
+        }
+        int version = buf.get();
+        if (version != VERSION) {
+            throw new IOException("Unsupported save version " + version);
+        }
+        Position start = new Position();
+        readPosition(buf, start);
+        GameRecord record = new GameRecord(start);
+        record.setClocks(buf.getLong(), buf.getLong());
+        int count = buf.getInt();
+        if (count < 0 || count > MAX_MOVES || buf.remaining() != 2 * count + 4) {
+            throw new IOException("Corrupt saved game");
+        }
+        int movesStart = buf.position();
+        buf.position(movesStart + 2 * count);
+        int end = buf.position();
+        if (buf.getInt() != (int) crc(buf, begin, end)) {
+            throw new IOException("Saved game checksum mismatch");
+        }
+        Position current = new Position();
+        current.copyFrom(start);
+        int[] legal = new int[MoveGenerator.MAX_MOVES];
+        for (int i = 0; i < count; i++) {
+            int move = buf.getShort(movesStart + 2 * i) & 0xFFFF;
+            if (!contains(legal, MoveGenerator.generateLegal(current, legal), move)) {
+                throw new IOException("Illegal move " + Move.toUci(move) + " at ply " + i);
+            }
+            current.makeMove(move);
+            record.addMove(move);
+        }
+        return record;
+    }
+
+    /**
+     * Writes a position in the packed form used by the save header:
+     * occupancy, one nibble per piece, side, castling, en passant square
+     * and the two clocks, POSITION_SIZE bytes in all.
+     * @param pos position to write.
+     * @param buf buffer with at least POSITION_SIZE bytes remaining.
+     */
+    static void writePosition(Position pos, ByteBuffer buf) {
+        long occupied = pos.occupied;
+        if (Long.bitCount(occupied) > 32) {
+            throw new IllegalArgumentException("More than 32 pieces on the board");
+        }
+        buf.putLong(occupied);
+        int pieceBytes = buf.position();
+        for (int i = 0; i < 16; i++) {
+            buf.put((byte) 0);
+        }
+        int index = 0;
+        while (occupied != 0) {
+            int sq = Bitboards.lsb(occupied);
+            occupied &= occupied - 1;
+            int at = pieceBytes + (index >> 1);
+            int shift = (index & 1) == 0 ? 4 : 0;
+            buf.put(at, (byte) (buf.get(at) | (pos.board[sq] << shift)));
+            index++;
+        }
+        buf.put((byte) pos.sideToMove);
+        buf.put((byte) pos.castling);
+        buf.put((byte) pos.epSquare);
+        buf.putShort((short) pos.halfmoveClock);
+        buf.putShort((short) pos.fullmoveNumber);
+    }
+
+    /**
+     * Reads a position written by writePosition.
+     * @param buf buffer positioned at the packed position.
+     * @param pos position to fill; it is cleared first.
+     * @throws IOException if the data does not describe a position the
+     *     rules can work with, as Fen.validate checks.
+     */
+    static void readPosition(ByteBuffer buf, Position pos) throws IOException {
+        pos.clear();
+        long occupied = buf.getLong();
+        if (Long.bitCount(occupied) > 32) {
+            throw new IOException("Corrupt saved game");
+        }
+        int pieceBytes = buf.position();
+        int index = 0;
+        while (occupied != 0) {
+            int sq = Bitboards.lsb(occupied);
+            occupied &= occupied - 1;
+            int b = buf.get(pieceBytes + (index >> 1));
+            int piece = (index & 1) == 0 ? (b >> 4) & 15 : b & 15;
+            if (piece >= 12) {
+                throw new IOException("Corrupt saved game");
+            }
+            pos.put(piece, sq);
+            index++;
+        }
+        buf.position(pieceBytes + 16);
+        pos.setSideToMove(buf.get() & 1);
+        pos.setCastlingRights(buf.get() & Position.ALL_CASTLING);
+        int ep = buf.get();
+        pos.setEpSquare(ep < 0 || ep > 63 ? Position.NO_SQUARE : ep);
+        pos.halfmoveClock = buf.getShort() & 0xFFFF;
+        pos.fullmoveNumber = buf.getShort() & 0xFFFF;
+        try {
+            Fen.validate(pos);
+        } catch (IllegalArgumentException ex) {
+            throw new IOException("Corrupt saved game", ex);
+        }
+    }
+
+    /**
+     * checks to see if a move is in the first count entries of a buffer.
+     * @param moves move buffer.
+     * @param count number of moves in the buffer.
+     * @param move packed move to look for.
+     * @return true if the move is in the buffer.
+     */
+    private static boolean contains(int[] moves, int count, int move) {
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Computes the CRC32 of a range of a buffer without moving its position.
+     * @param buf buffer to read.
+     * @param from first byte of the range.
+     * @param to end of the range, exclusive.
+     * @return CRC32 value.
+     */
+    private static long crc(ByteBuffer buf, int from, int to) {
+        ByteBuffer range = buf.duplicate();
+        range.limit(to);
+        range.position(from);
+        CRC32 crc = new CRC32();
+        crc.update(range);
+        return crc.getValue();
+    }
+}
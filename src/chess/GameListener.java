@@ -0,0 +1,17 @@
+package chess;
+
+/**
+ * Receives a call whenever a Game changes: a move is played or taken
+ * back, a new game is started or loaded, or a side resigns.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public interface GameListener {
+
+    /**
+     * Called after the game has changed, on the thread that changed it.
+     * @param game the game that changed.
+     */
+    void gameChanged(Game game);
+}
@@ -0,0 +1,119 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * The record of one game: the position it started from, the moves played
+ * since, and the time each side has left on its clock.
+ * Moves are kept as packed ints (see Move) in a growable array.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public class GameRecord {
+
+    /** Clock value for a side that plays without a time limit. */
+    public static final long UNTIMED = -1L;
+
+    private final Position start = new Position();
+    private int[] moves = new int[128];
+    private int moveCount;
+    private long whiteTimeMs = UNTIMED;
+    private long blackTimeMs = UNTIMED;
+
+    /**
+     * Constructor for a record starting at the standard starting position.
+     */
+    public GameRecord() {
+        start.copyFrom(Position.startPosition());
+    }
+
+    /**
+     * Constructor for a record starting at the given position.
+     * @param start position the game starts from; it is copied.
+     */
+    public GameRecord(Position start) {
+        this.start.copyFrom(start);
+    }
+
+    /**
+     * Gets the position the game started from.
+     * @return starting position; callers must not change it.
+     */
+    public Position getStart() {
+        return start;
+    }
+
+    /**
+     * Appends a move to the record.
+     * @param move packed move.
+     */
+    public void addMove(int move) {
+        if (moveCount == moves.length) {
+            moves = Arrays.copyOf(moves, moveCount * 2);
+        }
+        moves[moveCount++] = move;
+    }
+
+    /**
+     * Drops moves from the end of the record.
+     * @param count number of moves to keep.
+     */
+    public void truncate(int count) {
+        moveCount = Math.min(moveCount, Math.max(0, count));
+    }
+
+    /**
+     * Gets the number of moves played.
+     * @return number of half moves in the record.
+     */
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Gets one of the moves played.
+     * @param index index of the half move, starting at 0.
+     * @return packed move.
+     */
+    public int getMove(int index) {
+        return moves[index];
+    }
+
+    /**
+     * Gets the time white has left.
+     * @return milliseconds left, or UNTIMED.
+     */
+    public long getWhiteTimeMs() {
+        return whiteTimeMs;
+    }
+
+    /**
+     * Gets the time black has left.
+     * @return milliseconds left, or UNTIMED.
+     */
+    public long getBlackTimeMs() {
+        return blackTimeMs;
+    }
+
+    /**
+     * Sets the time each side has left.
+     * @param whiteTimeMs milliseconds white has left, or UNTIMED.
+     * @param blackTimeMs milliseconds black has left, or UNTIMED.
+     */
+    public void setClocks(long whiteTimeMs, long blackTimeMs) {
+        this.whiteTimeMs = whiteTimeMs;
+        this.blackTimeMs = blackTimeMs;
+    }
+
+    /**
+     * Plays every recorded move from the starting position.
+     * @param target position to overwrite with the current position.
+     */
+    public void replay(Position target) {
+        target.copyFrom(start);
+        for (int i = 0; i < moveCount; i++) {
+            target.makeMove(moves[i]);
+        }
+    }
+}
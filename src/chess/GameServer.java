@@ -0,0 +1,469 @@
+package chess;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.ObjectName;
+
+/**
+ * Hosts many games at once behind a local TCP socket, with a small line
+ * based protocol. Every request is one line and gets one reply line
+ * starting with "ok" or "err":
+ * <pre>
+ * new [fen]               ok &lt;id&gt;
+ * move &lt;id&gt; &lt;uci&gt;         ok &lt;status&gt; &lt;result&gt;
+ * moves &lt;id&gt;              ok &lt;uci&gt; &lt;uci&gt; ...
+ * fen &lt;id&gt;                ok &lt;fen&gt;
+ * status &lt;id&gt;             ok &lt;status&gt; &lt;result&gt;
+ * resign &lt;id&gt; [white|black]  ok resigned &lt;result&gt;, side to move by default
+ * end &lt;id&gt;                ok, forgets the game
+ * stats                   ok games=.. moves=.. mps=.. p50us=.. p99us=..
+ * quit                    closes the connection
+ * </pre>
+ * The status is one of ongoing, checkmate, stalemate, fifty, repetition,
+ * material or resigned. Games are not tied to a connection. Requests can
+ * be pipelined; replies are flushed once no more input is waiting.
+ * A request that fails gets an err reply and the connection stays open.
+ * Each connection is served by its own pooled thread, which also owns
+ * the scratch position the compact ServerGames are unpacked into.
+ * mps in the stats is the move rate since the stats were last described.
+ * While listening the server is registered as an MXBean named
+ * chess:type=GameServer, and each move request is recorded as a
+ * chess.ServerMove Flight Recorder event when recording is enabled.
+ * Usage: java chess.GameServer [port]
+ *
+ * @author JC
+ * @version 1.0
+ */
+public class GameServer implements GameServerMXBean {
+
+    public static final int DEFAULT_PORT = 7777;
+
+    private static final String[] STATUS_NAMES = {
+        "ongoing", "checkmate", "stalemate", "fifty", "repetition", "material", "resigned"
+    };
+
+    private final int requestedPort;
+    private final ConcurrentMap<Integer, ServerGame> games = new ConcurrentHashMap<Integer, ServerGame>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private final Set<Socket> clients = ConcurrentHashMap.<Socket>newKeySet();
+    private final LongAdder moveCount = new LongAdder();
+    private final LatencyHistogram moveLatency = new LatencyHistogram();
+    private final long startNanos = System.nanoTime();
+    private long rateNanos = startNanos;
+    private long rateMoves;
+    private ServerSocket serverSocket;
+    private ExecutorService pool;
+    private ObjectName mbeanName;
+
+    /**
+     * Constructor for the server.
+     * @param port TCP port to listen on, 0 for any free port.
+     */
+    public GameServer(int port) {
+        this.requestedPort = port;
+    }
+
+    /**
+     * Opens the socket on the loopback address and starts accepting
+     * connections in the background.
+     * @throws IOException if the socket cannot be opened.
+     */
+    public synchronized void start() throws IOException {
+        if (serverSocket != null) {
+            throw new IllegalStateException("server already started");
+        }
+        serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), requestedPort), 1024);
+        pool = Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable task) {
+                Thread thread = new Thread(task, "game-server-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        final ServerSocket listening = serverSocket;
+        final ExecutorService workers = pool;
+        pool.execute(new Runnable() {
+            @Override
+            public void run() {
+                acceptLoop(listening, workers);
+            }
+        });
+        mbeanName = EngineMetrics.register(this, "GameServer", "port " + serverSocket.getLocalPort());
+    }
+
+    /**
+     * Closes the listening socket and every open connection. Games are
+     * kept.
+     */
+    public synchronized void stop() {
+        if (serverSocket == null) {
+            return;
+        }
+        try {
+            serverSocket.close();
+        } catch (IOException ex) {
+            // nothing left to release
+        }
+        for (Socket client : clients) {
+            try {
+                client.close();
+            } catch (IOException ex) {
+                // already closed by the client
+            }
+        }
+        clients.clear();
+        pool.shutdownNow();
+        EngineMetrics.unregister(mbeanName);
+        serverSocket = null;
+        pool = null;
+        mbeanName = null;
+    }
+
+    /**
+     * Gets the port the server listens on.
+     * @return port number, or -1 if not started.
+     */
+    @Override
+    public synchronized int getPort() {
+        return serverSocket == null ? -1 : serverSocket.getLocalPort();
+    }
+
+    /**
+     * Gets the number of games being hosted.
+     * @return game count.
+     */
+    @Override
+    public int getGameCount() {
+        return games.size();
+    }
+
+    /**
+     * Gets the number of open connections.
+     * @return connection count.
+     */
+    @Override
+    public int getConnectionCount() {
+        return clients.size();
+    }
+
+    /**
+     * Gets the number of moves played since the server was created.
+     * @return move count.
+     */
+    @Override
+    public long getMoveCount() {
+        return moveCount.sum();
+    }
+
+    /**
+     * Gets a percentile of the time taken to check and play a move.
+     * @param percent percentile, such as 99.
+     * @return latency in nanoseconds.
+     */
+    public long getMoveLatency(double percent) {
+        return moveLatency.percentile(percent);
+    }
+
+    /**
+     * Gets the median time taken to check and play a move.
+     * @return latency in microseconds.
+     */
+    @Override
+    public double getMoveLatencyP50Micros() {
+        return getMoveLatency(50) / 1000.0;
+    }
+
+    /**
+     * Gets the 99th percentile of the time taken to check and play a move.
+     * @return latency in microseconds.
+     */
+    @Override
+    public double getMoveLatencyP99Micros() {
+        return getMoveLatency(99) / 1000.0;
+    }
+
+    /**
+     * Gets the 99.9th percentile of the time taken to check and play a move.
+     * @return latency in microseconds.
+     */
+    @Override
+    public double getMoveLatencyP999Micros() {
+        return getMoveLatency(99.9) / 1000.0;
+    }
+
+    /**
+     * Gets the time since the server was created.
+     * @return uptime in seconds.
+     */
+    @Override
+    public long getUptimeSeconds() {
+        return (System.nanoTime() - startNanos) / 1000000000L;
+    }
+
+    /**
+     * Gets the move rate since the last call, or since the server was
+     * created on the first call.
+     * @return moves per second.
+     */
+    public synchronized double sampleMovesPerSecond() {
+        long now = System.nanoTime();
+        long moves = moveCount.sum();
+        double rate = now == rateNanos ? 0 : (moves - rateMoves) * 1e9 / (now - rateNanos);
+        rateNanos = now;
+        rateMoves = moves;
+        return rate;
+    }
+
+    /**
+     * Describes the counters in the form used by the stats reply.
+     * @return games, moves, move rate and latency percentiles.
+     */
+    public String describeStats() {
+        return String.format("games=%d moves=%d mps=%.0f p50us=%.1f p99us=%.1f uptime=%ds",
+                getGameCount(), getMoveCount(), sampleMovesPerSecond(),
+                getMoveLatencyP50Micros(), getMoveLatencyP99Micros(), getUptimeSeconds());
+    }
+
+    /**
+     * Accepts connections until the socket is closed.
+     * @param listening socket to accept on.
+     * @param workers pool that serves the connections.
+     */
+    private void acceptLoop(ServerSocket listening, ExecutorService workers) {
+        while (!listening.isClosed()) {
+            try {
+                final Socket socket = listening.accept();
+                socket.setTcpNoDelay(true);
+                workers.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        serve(socket);
+                    }
+                });
+            } catch (IOException ex) {
+                if (!listening.isClosed()) {
+                    System.err.println("accept failed: " + ex.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Answers the requests of one connection until it closes.
+     * @param socket connected socket.
+     */
+    private void serve(Socket socket) {
+        Position scratch = new Position();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        StringBuilder reply = new StringBuilder(1024);
+        clients.add(socket);
+        try {
+            try {
+                BufferedReader in = new BufferedReader(
+                        new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII), 1 << 16);
+                Writer out = new BufferedWriter(
+                        new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII), 1 << 16);
+                String line;
+                while ((line = in.readLine()) != null) {
+                    reply.setLength(0);
+                    if (!handle(line.trim(), scratch, moves, reply)) {
+                        break;
+                    }
+                    reply.append('\n');
+                    out.append(reply);
+                    if (!in.ready()) {
+                        out.flush();
+                    }
+                }
+                out.flush();
+            } finally {
+                clients.remove(socket);
+                socket.close();
+            }
+        } catch (SocketException ex) {
+            // the client went away
+        } catch (IOException ex) {
+            System.err.println("connection failed: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Answers one request.
+     * @param line request text.
+     * @param scratch position owned by the calling thread.
+     * @param moves move buffer owned by the calling thread.
+     * @param reply receives the reply, without the line end.
+     * @return false if the connection should be closed.
+     */
+    private boolean handle(String line, Position scratch, int[] moves, StringBuilder reply) {
+        String[] words = line.split("\\s+", 3);
+        String command = words[0];
+        try {
+            if (command.equals("quit")) {
+                return false;
+            } else if (command.equals("new")) {
+                Position start = words.length > 1 ? Fen.parse(line.substring(3).trim()) : Fen.parse(Fen.START);
+                int id = nextId.getAndIncrement();
+                games.put(id, new ServerGame(start));
+                reply.append("ok ").append(id);
+            } else if (command.equals("stats")) {
+                reply.append("ok ").append(describeStats());
+            } else if (command.isEmpty()) {
+                reply.append("err empty request");
+            } else {
+                handleGame(command, words, scratch, moves, reply);
+            }
+        } catch (IllegalArgumentException ex) {
+            reply.setLength(0);
+            reply.append("err ").append(ex.getMessage());
+        } catch (RuntimeException ex) {
+            System.err.println("request failed: " + line + ": " + ex);
+            reply.setLength(0);
+            reply.append("err failed: ").append(ex);
+        }
+        return true;
+    }
+
+    /**
+     * Answers a request about one game.
+     * @param command first word of the request.
+     * @param words words of the request; the second is the game id.
+     * @param scratch position owned by the calling thread.
+     * @param moves move buffer owned by the calling thread.
+     * @param reply receives the reply.
+     * @throws IllegalArgumentException if the request is malformed.
+     */
+    private void handleGame(String command, String[] words, Position scratch, int[] moves, StringBuilder reply) {
+        if (words.length < 2) {
+            throw new IllegalArgumentException("missing game id");
+        }
+        int id;
+        try {
+            id = Integer.parseInt(words[1]);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("bad game id " + words[1]);
+        }
+        ServerGame game = games.get(id);
+        if (game == null) {
+            throw new IllegalArgumentException("no game " + id);
+        }
+        synchronized (game) {
+            if (command.equals("move")) {
+                if (words.length < 3) {
+                    throw new IllegalArgumentException("missing move");
+                }
+                ServerMoveEvent event = new ServerMoveEvent();
+                event.begin();
+                long begin = System.nanoTime();
+                boolean played = false;
+                if (game.getStatus() != Game.ONGOING) {
+                    reply.append("err game over");
+                } else if (!game.play(words[2], scratch, moves)) {
+                    reply.append("err illegal move ").append(words[2]);
+                } else {
+                    played = true;
+                    moveCount.increment();
+                    moveLatency.record(System.nanoTime() - begin);
+                    appendStatus(game, reply);
+                }
+                event.end();
+                if (event.shouldCommit()) {
+                    event.game = id;
+                    event.move = words[2];
+                    event.played = played;
+                    event.commit();
+                }
+            } else if (command.equals("moves")) {
+                game.unpack(scratch);
+                int count = game.getStatus() == Game.ONGOING ? MoveGenerator.generateLegal(scratch, moves) : 0;
+                reply.append("ok");
+                for (int i = 0; i < count; i++) {
+                    reply.append(' ').append(Move.toUci(moves[i]));
+                }
+            } else if (command.equals("fen")) {
+                game.unpack(scratch);
+                reply.append("ok ").append(Fen.toFen(scratch));
+            } else if (command.equals("status")) {
+                appendStatus(game, reply);
+            } else if (command.equals("resign")) {
+                int color = game.sideToMove();
+                if (words.length > 2) {
+                    color = parseColor(words[2]);
+                }
+                if (!game.resign(color)) {
+                    reply.append("err game over");
+                } else {
+                    appendStatus(game, reply);
+                }
+            } else if (command.equals("end")) {
+                games.remove(id);
+                reply.append("ok");
+            } else {
+                throw new IllegalArgumentException("unknown command " + command);
+            }
+        }
+    }
+
+    /**
+     * Appends "ok", the status name and the result of a game.
+     * @param game game to describe.
+     * @param reply receives the text.
+     */
+    private static void appendStatus(ServerGame game, StringBuilder reply) {
+        reply.append("ok ").append(STATUS_NAMES[game.getStatus()]).append(' ').append(game.getResult());
+    }
+
+    /**
+     * Parses a side name.
+     * @param name "white" or "black".
+     * @return Position.WHITE or Position.BLACK.
+     * @throws IllegalArgumentException for anything else.
+     */
+    private static int parseColor(String name) {
+        if (name.equals("white")) {
+            return Position.WHITE;
+        } else if (name.equals("black")) {
+            return Position.BLACK;
+        }
+        throw new IllegalArgumentException("unknown side " + name);
+    }
+
+    /**
+     * Starts a server and keeps it running.
+     * @param args optional port number.
+     * @throws IOException if the socket cannot be opened.
+     * @throws InterruptedException if interrupted while serving.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        GameServer server = new GameServer(args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT);
+        server.start();
+        System.out.println("listening on localhost:" + server.getPort());
+        while (true) {
+            Thread.sleep(10000);
+            System.out.println(server.describeStats());
+        }
+    }
+}
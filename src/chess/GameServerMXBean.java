@@ -0,0 +1,60 @@
+package chess;
+
+/**
+ * Management view of a GameServer, registered with the platform MBean
+ * server while it is listening so that jconsole and other JMX clients
+ * can watch it.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public interface GameServerMXBean {
+
+    /**
+     * Gets the port the server listens on.
+     * @return port number, or -1 if not started.
+     */
+    int getPort();
+
+    /**
+     * Gets the number of games being hosted.
+     * @return games in flight.
+     */
+    int getGameCount();
+
+    /**
+     * Gets the number of open connections.
+     * @return connection count.
+     */
+    int getConnectionCount();
+
+    /**
+     * Gets the number of moves played since the server was created.
+     * @return move count.
+     */
+    long getMoveCount();
+
+    /**
+     * Gets the median time taken to check and play a move.
+     * @return latency in microseconds.
+     */
+    double getMoveLatencyP50Micros();
+
+    /**
+     * Gets the 99th percentile of the time taken to check and play a move.
+     * @return latency in microseconds.
+     */
+    double getMoveLatencyP99Micros();
+
+    /**
+     * Gets the 99.9th percentile of the time taken to check and play a move.
+     * @return latency in microseconds.
+     */
+    double getMoveLatencyP999Micros();
+
+    /**
+     * Gets the time since the server was created.
+     * @return uptime in seconds.
+     */
+    long getUptimeSeconds();
+}
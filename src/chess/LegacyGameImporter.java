@@ -0,0 +1,587 @@
+package chess;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Imports the board from the old .gam save files, which were a whole
+ * JFrame written with ObjectOutputStream.
+ * The file is never deserialized: no class named in it is loaded and no
+ * object in it is created. Instead the serialization stream is walked
+ * as plain data, the old Board object is found among the frame's
+ * listeners, and its squares, pieces and current player are read from
+ * their field values, under the names of either version of Board
+ * that wrote such files. This also works for files written by JDKs whose
+ * Swing classes no longer match the running one, and for the many saves
+ * that were cut short when part of the frame turned out not to be
+ * serializable, as long as the Board was written before that point.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public final class LegacyGameImporter {
+
+    private static final int STREAM_MAGIC = 0xACED;
+    private static final int STREAM_VERSION = 5;
+    private static final int BASE_HANDLE = 0x7E0000;
+
+    private static final int TC_NULL = 0x70;
+    private static final int TC_REFERENCE = 0x71;
+    private static final int TC_CLASSDESC = 0x72;
+    private static final int TC_OBJECT = 0x73;
+    private static final int TC_STRING = 0x74;
+    private static final int TC_ARRAY = 0x75;
+    private static final int TC_CLASS = 0x76;
+    private static final int TC_BLOCKDATA = 0x77;
+    private static final int TC_ENDBLOCKDATA = 0x78;
+    private static final int TC_RESET = 0x79;
+    private static final int TC_BLOCKDATALONG = 0x7A;
+    private static final int TC_EXCEPTION = 0x7B;
+    private static final int TC_LONGSTRING = 0x7C;
+    private static final int TC_PROXYCLASSDESC = 0x7D;
+    private static final int TC_ENUM = 0x7E;
+
+    private static final int SC_WRITE_METHOD = 0x01;
+    private static final int SC_SERIALIZABLE = 0x02;
+    private static final int SC_EXTERNALIZABLE = 0x04;
+    private static final int SC_BLOCK_DATA = 0x08;
+
+    private static final String[] PIECE_CLASSES = {
+        "chess.Pawn", "chess.Knight", "chess.Bishop", "chess.Rook", "chess.Queen", "chess.King"
+    };
+
+    private final DataInputStream in;
+    /** Size of the file; no array or string in it can be longer. */
+    private final long limit;
+    private final List<Object> handles = new ArrayList<Object>();
+    private StreamObject legacyBoard;
+
+    /**
+     * Constructor for the importer.
+     * @param in stream positioned at the start of a .gam file.
+     * @param limit size of the file in bytes.
+     */
+    private LegacyGameImporter(InputStream in, long limit) {
+        this.in = new DataInputStream(new BufferedInputStream(in));
+        this.limit = limit;
+    }
+
+    /**
+     * checks to see if a file starts like a Java serialization stream.
+     * @param path file to look at.
+     * @return true if the file looks like an old .gam save.
+     * @throws IOException if the file cannot be read.
+     */
+    public static boolean isLegacyFile(Path path) throws IOException {
+        InputStream in = Files.newInputStream(path);
+        try {
+            return in.read() == (STREAM_MAGIC >>> 8) && in.read() == (STREAM_MAGIC & 0xFF);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Imports the board of an old .gam save.
+     * The game record starts at the saved board with the saved player
+     * to move. Castling rights are kept only where king and rook still
+     * stand on their standard home squares.
+     * @param path .gam file to read.
+     * @return a game record with no moves.
+     * @throws IOException if the file is not an old save, is corrupt, or
+     *     holds a board the rules cannot work with.
+     */
+    public static GameRecord importGame(Path path) throws IOException {
+        InputStream stream = Files.newInputStream(path);
+        try {
+            LegacyGameImporter importer = new LegacyGameImporter(stream, Files.size(path));
+            return importer.read();
+        } catch (RuntimeException ex) {
+            throw new IOException("Corrupt legacy saved game: " + path, ex);
+        } catch (StackOverflowError ex) {
+            throw new IOException("Legacy saved game nested too deeply: " + path, ex);
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * Walks the whole stream and converts the Board found in it.
+     * @return the imported game record.
+     * @throws IOException if the stream is malformed or holds no Board.
+     */
+    private GameRecord read() throws IOException {
+        if (in.readUnsignedShort() != STREAM_MAGIC || in.readUnsignedShort() != STREAM_VERSION) {
+            throw new IOException("Not a legacy saved game");
+        }
+        try {
+            while (true) {
+                int tc = in.read();
+                if (tc < 0) {
+                    break;
+                }
+                readContent(tc);
+            }
+        } catch (StreamAbortedException ex) {
+            // the writer gave up part way; use whatever was written before
+        } catch (EOFException ex) {
+            if (legacyBoard == null) {
+                throw ex;
+            }
+        }
+        if (legacyBoard == null || legacyBoard.field("sqr", "squares") == null) {
+            throw new IOException("No board found in legacy saved game");
+        }
+        return convert(legacyBoard);
+    }
+
+    /**
+     * Converts the fields of the old Board into a game record.
+     * @param old the old Board object.
+     * @return the imported game record.
+     * @throws IOException if the Board fields are not as expected.
+     */
+    private static GameRecord convert(StreamObject old) throws IOException {
+        Object sqr = old.field("sqr", "squares");
+        if (!(sqr instanceof Object[]) || ((Object[]) sqr).length != 8) {
+            throw new IOException("Legacy board has no squares");
+        }
+        Position pos = new Position();
+        Object[] rows = (Object[]) sqr;
+        for (int x = 0; x < 8; x++) {
+            if (!(rows[x] instanceof Object[]) || ((Object[]) rows[x]).length != 8) {
+                throw new IOException("Legacy board has a bad row");
+            }
+            Object[] row = (Object[]) rows[x];
+            for (int y = 0; y < 8; y++) {
+                if (!(row[y] instanceof StreamObject)) {
+                    continue;
+                }
+                StreamObject square = (StreamObject) row[y];
+                if (square.fields.get("img") == null) {
+                    continue;
+                }
+                Object piece = square.fields.get("piece");
+                if (piece instanceof StreamObject) {
+                    StreamObject p = (StreamObject) piece;
+                    int type = indexOf(PIECE_CLASSES, p.className);
+                    if (type >= 0) {
+                        int color = "black".equals(p.fields.get("color")) ? Position.BLACK : Position.WHITE;
+                        pos.put(Position.piece(color, type), Position.square(y, 7 - x));
+                    }
+                }
+            }
+        }
+        Object player = old.field("curPlayer", "currentPlayer");
+        if (player instanceof StreamObject && "black".equals(((StreamObject) player).fields.get("color"))) {
+            pos.setSideToMove(Position.BLACK);
+        }
+        pos.setCastlingRights(homeCastlingRights(pos));
+        try {
+            Fen.validate(pos);
+        } catch (IllegalArgumentException ex) {
+            throw new IOException("Legacy board is not a playable position: " + ex.getMessage(), ex);
+        }
+        return new GameRecord(pos);
+    }
+
+    /**
+     * Works out which castling rights are still possible from the pieces
+     * standing on their home squares.
+     * @param pos imported position.
+     * @return castling rights.
+     */
+    private static int homeCastlingRights(Position pos) {
+        int rights = 0;
+        int whiteRook = Position.piece(Position.WHITE, Position.ROOK);
+        int blackRook = Position.piece(Position.BLACK, Position.ROOK);
+        if (pos.board[4] == Position.piece(Position.WHITE, Position.KING)) {
+            rights |= pos.board[7] == whiteRook ? Position.WHITE_KINGSIDE : 0;
+            rights |= pos.board[0] == whiteRook ? Position.WHITE_QUEENSIDE : 0;
+        }
+        if (pos.board[60] == Position.piece(Position.BLACK, Position.KING)) {
+            rights |= pos.board[63] == blackRook ? Position.BLACK_KINGSIDE : 0;
+            rights |= pos.board[56] == blackRook ? Position.BLACK_QUEENSIDE : 0;
+        }
+        return rights;
+    }
+
+    /**
+     * Finds a string in an array.
+     * @param values array to search.
+     * @param value string to look for.
+     * @return index of the string, or -1.
+     */
+    private static int indexOf(String[] values, String value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i].equals(value)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reads one content item: an object or a block of data.
+     * @param tc type code already read from the stream.
+     * @return the object read, or null for block data.
+     * @throws IOException if the stream is malformed.
+     */
+    private Object readContent(int tc) throws IOException {
+        switch (tc) {
+            case TC_BLOCKDATA:
+                skip(in.readUnsignedByte());
+                return null;
+            case TC_BLOCKDATALONG:
+                skip(in.readInt() & 0xFFFFFFFFL);
+                return null;
+            default:
+                return readObject(tc);
+        }
+    }
+
+    /**
+     * Reads one object, following the grammar of the serialization
+     * stream format.
+     * @param tc type code already read from the stream.
+     * @return the object read: a StreamObject, a String, an Object[] for
+     *         arrays of objects, a ClassDesc, or null.
+     * @throws IOException if the stream is malformed.
+     */
+    private Object readObject(int tc) throws IOException {
+        switch (tc) {
+            case TC_NULL:
+                return null;
+            case TC_REFERENCE:
+                return handle(in.readInt());
+            case TC_STRING:
+                return newHandle(in.readUTF());
+            case TC_LONGSTRING:
+                return newHandle(readLongString());
+            case TC_CLASSDESC:
+            case TC_PROXYCLASSDESC:
+                return readClassDesc(tc);
+            case TC_CLASS: {
+                ClassDesc desc = readClassDesc(in.readUnsignedByte());
+                return newHandle(desc);
+            }
+            case TC_ENUM: {
+                readClassDesc(in.readUnsignedByte());
+                int handle = reserveHandle();
+                Object name = readObject(in.readUnsignedByte());
+                handles.set(handle, name);
+                return name;
+            }
+            case TC_ARRAY:
+                return readArray();
+            case TC_OBJECT:
+                return readNewObject();
+            case TC_RESET:
+                handles.clear();
+                return null;
+            case TC_EXCEPTION:
+                handles.clear();
+                readObject(in.readUnsignedByte());
+                throw new StreamAbortedException();
+            default:
+                throw new IOException("Unexpected type code 0x" + Integer.toHexString(tc));
+        }
+    }
+
+    /**
+     * Reads a class descriptor, including its superclass descriptors.
+     * @param tc type code already read from the stream.
+     * @return the class descriptor, or null.
+     * @throws IOException if the stream is malformed.
+     */
+    private ClassDesc readClassDesc(int tc) throws IOException {
+        if (tc == TC_NULL) {
+            return null;
+        }
+        if (tc == TC_REFERENCE) {
+            Object desc = handle(in.readInt());
+            if (!(desc instanceof ClassDesc)) {
+                throw new IOException("Reference to a class descriptor expected");
+            }
+            return (ClassDesc) desc;
+        }
+        ClassDesc desc = new ClassDesc();
+        if (tc == TC_PROXYCLASSDESC) {
+            newHandle(desc);
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                in.readUTF();
+            }
+            desc.name = "$Proxy";
+            desc.flags = SC_SERIALIZABLE;
+        } else if (tc == TC_CLASSDESC) {
+            desc.name = in.readUTF();
+            in.readLong();
+            newHandle(desc);
+            desc.flags = in.readUnsignedByte();
+            int count = in.readUnsignedShort();
+            desc.fieldTypes = new char[count];
+            desc.fieldNames = new String[count];
+            for (int i = 0; i < count; i++) {
+                desc.fieldTypes[i] = (char) in.readUnsignedByte();
+                desc.fieldNames[i] = in.readUTF();
+                if (desc.fieldTypes[i] == '[' || desc.fieldTypes[i] == 'L') {
+                    readObject(in.readUnsignedByte());
+                }
+            }
+        } else {
+            throw new IOException("Expected class descriptor, got 0x" + Integer.toHexString(tc));
+        }
+        skipAnnotation();
+        desc.superDesc = readClassDesc(in.readUnsignedByte());
+        return desc;
+    }
+
+    /**
+     * Reads an array. Arrays of objects are kept, arrays of primitives
+     * are skipped.
+     * @return an Object[] for arrays of objects, otherwise null.
+     * @throws IOException if the stream is malformed.
+     */
+    private Object readArray() throws IOException {
+        ClassDesc desc = readClassDesc(in.readUnsignedByte());
+        int handle = reserveHandle();
+        int length = in.readInt();
+        if (desc == null || desc.name.length() < 2 || desc.name.charAt(0) != '[') {
+            throw new IOException("Array without an array class");
+        }
+        checkLength(length);
+        char type = desc.name.charAt(1);
+        if (type == 'L' || type == '[') {
+            Object[] values = new Object[length];
+            handles.set(handle, values);
+            for (int i = 0; i < length; i++) {
+                values[i] = readObject(in.readUnsignedByte());
+            }
+            return values;
+        }
+        skip((long) length * primitiveSize(type));
+        return null;
+    }
+
+    /**
+     * Reads a new object: its class descriptor, then the data of each
+     * class from the topmost serializable superclass down.
+     * @return the object read.
+     * @throws IOException if the stream is malformed.
+     */
+    private StreamObject readNewObject() throws IOException {
+        ClassDesc desc = readClassDesc(in.readUnsignedByte());
+        StreamObject obj = new StreamObject();
+        obj.className = desc.name;
+        newHandle(obj);
+        if (legacyBoard == null && "chess.Board".equals(desc.name)) {
+            legacyBoard = obj;
+        }
+        List<ClassDesc> chain = new ArrayList<ClassDesc>();
+        for (ClassDesc d = desc; d != null; d = d.superDesc) {
+            chain.add(0, d);
+        }
+        for (ClassDesc d : chain) {
+            if ((d.flags & SC_EXTERNALIZABLE) != 0) {
+                if ((d.flags & SC_BLOCK_DATA) == 0) {
+                    throw new IOException("Unsupported externalizable data in " + d.name);
+                }
+                skipAnnotation();
+            } else if ((d.flags & SC_SERIALIZABLE) != 0) {
+                readFields(d, obj);
+                if ((d.flags & SC_WRITE_METHOD) != 0) {
+                    skipAnnotation();
+                }
+            }
+        }
+        return obj;
+    }
+
+    /**
+     * Reads the field values one class writes for an object.
+     * @param desc class descriptor listing the fields.
+     * @param obj object to store the object-valued fields in.
+     * @throws IOException if the stream is malformed.
+     */
+    private void readFields(ClassDesc desc, StreamObject obj) throws IOException {
+        for (int i = 0; i < desc.fieldTypes.length; i++) {
+            char type = desc.fieldTypes[i];
+            if (type == 'L' || type == '[') {
+                obj.fields.put(desc.fieldNames[i], readObject(in.readUnsignedByte()));
+            } else {
+                skip(primitiveSize(type));
+            }
+        }
+    }
+
+    /**
+     * Skips contents up to and including the end-of-block-data marker.
+     * Objects inside are still read so that their handles are assigned.
+     * @throws IOException if the stream is malformed.
+     */
+    private void skipAnnotation() throws IOException {
+        while (true) {
+            int tc = in.readUnsignedByte();
+            if (tc == TC_ENDBLOCKDATA) {
+                return;
+            }
+            readContent(tc);
+        }
+    }
+
+    /**
+     * Reads a string longer than 65535 bytes.
+     * @return the string.
+     * @throws IOException if the stream is malformed.
+     */
+    private String readLongString() throws IOException {
+        long length = in.readLong();
+        checkLength(length);
+        byte[] bytes = new byte[(int) length];
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    /**
+     * Checks a length read from the stream before anything that size is
+     * allocated: every array element and string byte takes at least one
+     * byte of the file.
+     * @param length length read from the stream.
+     * @throws IOException if the file is too short to hold that many.
+     */
+    private void checkLength(long length) throws IOException {
+        if (length < 0 || length > limit) {
+            throw new IOException("Bad length " + length + " in legacy saved game");
+        }
+    }
+
+    /**
+     * Gets the value a handle refers to.
+     * @param handle handle read from the stream.
+     * @return the value.
+     * @throws IOException if no value has that handle.
+     */
+    private Object handle(int handle) throws IOException {
+        int index = handle - BASE_HANDLE;
+        if (index < 0 || index >= handles.size()) {
+            throw new IOException("Bad handle 0x" + Integer.toHexString(handle));
+        }
+        return handles.get(index);
+    }
+
+    /**
+     * Gets the number of bytes a primitive field or array element takes.
+     * @param type field type code.
+     * @return size in bytes.
+     * @throws IOException if the type code is unknown.
+     */
+    private static int primitiveSize(char type) throws IOException {
+        switch (type) {
+            case 'B':
+            case 'Z':
+                return 1;
+            case 'C':
+            case 'S':
+                return 2;
+            case 'I':
+            case 'F':
+                return 4;
+            case 'J':
+            case 'D':
+                return 8;
+            default:
+                throw new IOException("Unknown field type " + type);
+        }
+    }
+
+    /**
+     * Skips bytes of the stream.
+     * @param count number of bytes to skip.
+     * @throws IOException if the stream ends first.
+     */
+    private void skip(long count) throws IOException {
+        while (count > 0) {
+            long skipped = in.skip(count);
+            if (skipped <= 0) {
+                if (in.read() < 0) {
+                    throw new EOFException();
+                }
+                skipped = 1;
+            }
+            count -= skipped;
+        }
+    }
+
+    /**
+     * Assigns the next handle to a value.
+     * @param value value the handle refers to.
+     * @return the value.
+     */
+    private <T> T newHandle(T value) {
+        handles.add(value);
+        return value;
+    }
+
+    /**
+     * Assigns the next handle before its value is known.
+     * @return index of the handle.
+     */
+    private int reserveHandle() {
+        handles.add(null);
+        return handles.size() - 1;
+    }
+
+    /**
+     * Thrown when the stream holds the exception that made the writer
+     * abort, after which nothing more was written.
+     */
+    private static final class StreamAbortedException extends IOException {
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * A class descriptor from the stream.
+     */
+    private static final class ClassDesc {
+        private String name;
+        private int flags;
+        private char[] fieldTypes = new char[0];
+        private String[] fieldNames = new String[0];
+        private ClassDesc superDesc;
+    }
+
+    /**
+     * An object from the stream: its class name and the values of its
+     * object-valued fields.
+     */
+    private static final class StreamObject {
+        private String className;
+        private final Map<String, Object> fields = new HashMap<String, Object>();
+
+        /**
+         * Gets the value of a field that older versions of the class
+         * may have called by a different name.
+         * @param names names the field has had.
+         * @return value of the first name present, or null.
+         */
+        private Object field(String... names) {
+            for (String name : names) {
+                Object value = fields.get(name);
+                if (value != null) {
+                    return value;
+                }
+            }
+            return null;
+        }
+    }
+}
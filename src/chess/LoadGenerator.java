@@ -0,0 +1,256 @@
+package chess;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load generator for the GameServer. Opens a few connections and plays
+ * many games at once over each of them, choosing random legal moves.
+ * Every round a connection sends one "moves" request per live game,
+ * then one "move" request per game, pipelined in batches, so thousands
+ * of games share one socket. Games end by the rules or after a ply limit and are
+ * then replaced by new ones until the total has been played.
+ * Usage:
+ * <pre>
+ * java chess.LoadGenerator [host] [port] [connections] [games] [live] [maxPlies]
+ * </pre>
+ * games is the total to play and live the number in play at once per
+ * connection. If the port is 0 a server is started in this JVM.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public class LoadGenerator {
+
+    /**
+     * Requests sent before reading their replies. Kept small enough that
+     * the replies fit the socket buffers, or both ends would block
+     * writing.
+     */
+    private static final int BATCH = 128;
+
+    private final String host;
+    private final int port;
+    private final int maxPlies;
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder finished = new LongAdder();
+
+    /**
+     * Constructor for the load generator.
+     * @param host server host.
+     * @param port server port.
+     * @param maxPlies plies after which a game is abandoned.
+     */
+    public LoadGenerator(String host, int port, int maxPlies) {
+        this.host = host;
+        this.port = port;
+        this.maxPlies = maxPlies;
+    }
+
+    /**
+     * Plays games over one connection.
+     * @param games number of games to play.
+     * @param live number of games in play at once.
+     * @param seed seed for the move choices.
+     * @throws IOException if the connection fails or the server
+     *     answers with an error.
+     */
+    public void drive(int games, int live, long seed) throws IOException {
+        Random random = new Random(seed);
+        Socket socket = new Socket(host, port);
+        try {
+            socket.setTcpNoDelay(true);
+            BufferedReader in = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII), 1 << 16);
+            Writer out = new BufferedWriter(
+                    new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII), 1 << 16);
+            int slots = Math.min(live, games);
+            int[] ids = new int[slots];
+            int[] plies = new int[slots];
+            String[] chosen = new String[slots];
+            for (int i = 0; i < slots; i++) {
+                out.write("new\n");
+                if (i % BATCH == BATCH - 1 || i == slots - 1) {
+                    out.flush();
+                    for (int j = i - i % BATCH; j <= i; j++) {
+                        ids[j] = parseId(in.readLine());
+                    }
+                }
+            }
+            int[] fresh = new int[slots];
+            int started = slots;
+            int active = slots;
+            while (active > 0) {
+                int kept = 0;
+                int renewed = 0;
+                for (int from = 0; from < active; from += BATCH) {
+                    int to = Math.min(active, from + BATCH);
+                    for (int i = from; i < to; i++) {
+                        out.write("moves " + ids[i] + "\n");
+                    }
+                    out.flush();
+                    for (int i = from; i < to; i++) {
+                        String[] legal = expect(in.readLine()).split(" ");
+                        chosen[i] = legal[1 + random.nextInt(legal.length - 1)];
+                    }
+                    for (int i = from; i < to; i++) {
+                        out.write("move " + ids[i] + " " + chosen[i] + "\n");
+                    }
+                    out.flush();
+                    int ended = 0;
+                    int batchRenewed = 0;
+                    for (int i = from; i < to; i++) {
+                        String reply = expect(in.readLine());
+                        moves.increment();
+                        if (reply.startsWith("ok ongoing") && plies[i] + 1 < maxPlies) {
+                            ids[kept] = ids[i];
+                            plies[kept] = plies[i] + 1;
+                            kept++;
+                        } else {
+                            out.write("end " + ids[i] + "\n");
+                            ended++;
+                            if (started < games) {
+                                out.write("new\n");
+                                started++;
+                                batchRenewed++;
+                            }
+                        }
+                    }
+                    out.flush();
+                    for (int i = 0; i < ended; i++) {
+                        expect(in.readLine());
+                        finished.increment();
+                        if (i < batchRenewed) {
+                            fresh[renewed++] = parseId(in.readLine());
+                        }
+                    }
+                }
+                for (int i = 0; i < renewed; i++) {
+                    ids[kept] = fresh[i];
+                    plies[kept] = 0;
+                    kept++;
+                }
+                active = kept;
+            }
+            out.write("quit\n");
+            out.flush();
+        } finally {
+            socket.close();
+        }
+    }
+
+    /**
+     * Gets the number of moves played.
+     * @return move count.
+     */
+    public long getMoves() {
+        return moves.sum();
+    }
+
+    /**
+     * Gets the number of games played to the end or to the ply limit.
+     * @return game count.
+     */
+    public long getFinished() {
+        return finished.sum();
+    }
+
+    /**
+     * Reads the game id from the reply to "new".
+     * @param reply reply line.
+     * @return game id.
+     * @throws IOException if the reply is an error.
+     */
+    private static int parseId(String reply) throws IOException {
+        return Integer.parseInt(expect(reply).substring(3));
+    }
+
+    /**
+     * checks a reply for an error.
+     * @param reply reply line.
+     * @return the reply.
+     * @throws IOException if the connection closed or the reply is an error.
+     */
+    private static String expect(String reply) throws IOException {
+        if (reply == null) {
+            throw new IOException("server closed the connection");
+        } else if (!reply.startsWith("ok")) {
+            throw new IOException("server error: " + reply);
+        }
+        return reply;
+    }
+
+    /**
+     * Runs the load generator and prints the move rate seen by the
+     * client and the server's own counters.
+     * @param args optional host, port, connections, games, live games
+     *     per connection and ply limit.
+     * @throws Exception if a connection fails.
+     */
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : GameServer.DEFAULT_PORT;
+        int connections = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        final int games = args.length > 3 ? Integer.parseInt(args[3]) : 40000;
+        final int live = args.length > 4 ? Integer.parseInt(args[4]) : 5000;
+        int maxPlies = args.length > 5 ? Integer.parseInt(args[5]) : 200;
+        GameServer local = null;
+        if (port == 0) {
+            local = new GameServer(0);
+            local.start();
+            port = local.getPort();
+        }
+        final LoadGenerator load = new LoadGenerator(host, port, maxPlies);
+        Thread[] threads = new Thread[connections];
+        final IOException[] failure = new IOException[1];
+        long begin = System.nanoTime();
+        for (int i = 0; i < connections; i++) {
+            final int share = games / connections + (i < games % connections ? 1 : 0);
+            final long seed = i;
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        load.drive(share, live, seed);
+                    } catch (IOException ex) {
+                        synchronized (failure) {
+                            failure[0] = ex;
+                        }
+                    }
+                }
+            }, "load-" + i);
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        System.out.printf("%d games, %d moves in %.1f s: %.0f moves/s%n",
+                load.getFinished(), load.getMoves(), seconds, load.getMoves() / seconds);
+        Socket socket = new Socket(host, port);
+        try {
+            Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII);
+            out.write("stats\nquit\n");
+            out.flush();
+            BufferedReader in = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            System.out.println("server: " + in.readLine());
+        } finally {
+            socket.close();
+        }
+        if (local != null) {
+            local.stop();
+        }
+    }
+}
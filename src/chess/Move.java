@@ -0,0 +1,133 @@
+package chess;
+
+/**
+ * Helpers for moves packed into 16 bits of an int.
+ * Bits 0-5 hold the from square, bits 6-11 the to square and
+ * bits 12-15 the flags: 4 marks a capture, 8 marks a promotion
+ * and the low two bits of a promotion name the new piece.
+ * A packed move is never 0 except for NONE, since from and to differ.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public final class Move {
+
+    public static final int NONE = 0;
+
+    public static final int QUIET = 0;
+    public static final int DOUBLE_PAWN_PUSH = 1;
+    public static final int KING_CASTLE = 2;
+    public static final int QUEEN_CASTLE = 3;
+    public static final int CAPTURE = 4;
+    public static final int EP_CAPTURE = 5;
+    public static final int PROMOTION = 8;
+    public static final int PROMOTION_CAPTURE = 12;
+
+    private static final char[] PROMOTION_CHARS = {'n', 'b', 'r', 'q'};
+
+    private Move() {
+    }
+
+    /**
+     * Packs a move.
+     * @param from square the piece moves from.
+     * @param to square the piece moves to.
+     * @param flags move flags.
+     * @return packed move.
+     */
+    public static int encode(int from, int to, int flags) {
+        return from | (to << 6) | (flags << 12);
+    }
+
+    /**
+     * Packs a promotion.
+     * @param from square the pawn moves from.
+     * @param to square the pawn moves to.
+     * @param capture true if the promotion also captures.
+     * @param type piece type the pawn becomes, KNIGHT to QUEEN.
+     * @return packed move.
+     */
+    public static int promotion(int from, int to, boolean capture, int type) {
+        int flags = (capture ? PROMOTION_CAPTURE : PROMOTION) | (type - Position.KNIGHT);
+        return encode(from, to, flags);
+    }
+
+    /**
+     * Gets the from square of a move.
+     * @param move packed move.
+     * @return from square.
+     */
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    /**
+     * Gets the to square of a move.
+     * @param move packed move.
+     * @return to square.
+     */
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    /**
+     * Gets the flags of a move.
+     * @param move packed move.
+     * @return move flags.
+     */
+    public static int flags(int move) {
+        return (move >>> 12) & 15;
+    }
+
+    /**
+     * checks to see if a move captures a piece, en passant included.
+     * @param move packed move.
+     * @return true if the move captures.
+     */
+    public static boolean isCapture(int move) {
+        return (move & (CAPTURE << 12)) != 0;
+    }
+
+    /**
+     * checks to see if a move promotes a pawn.
+     * @param move packed move.
+     * @return true if the move promotes.
+     */
+    public static boolean isPromotion(int move) {
+        return (move & (PROMOTION << 12)) != 0;
+    }
+
+    /**
+     * Gets the piece type a pawn promotes to.
+     * @param move packed promotion.
+     * @return piece type, KNIGHT to QUEEN.
+     */
+    public static int promotionType(int move) {
+        return Position.KNIGHT + ((move >>> 12) & 3);
+    }
+
+    /**
+     * Writes a move in coordinate notation, such as e2e4 or e7e8q.
+     * @param move packed move.
+     * @return move in coordinate notation.
+     */
+    public static String toUci(int move) {
+        if (move == NONE) {
+            return "0000";
+        }
+        String text = squareName(from(move)) + squareName(to(move));
+        if (isPromotion(move)) {
+            text += PROMOTION_CHARS[promotionType(move) - Position.KNIGHT];
+        }
+        return text;
+    }
+
+    /**
+     * Gets the name of a square, such as e4.
+     * @param sq square index.
+     * @return name of the square.
+     */
+    public static String squareName(int sq) {
+        return "" + (char) ('a' + Position.fileOf(sq)) + (char) ('1' + Position.rankOf(sq));
+    }
+}
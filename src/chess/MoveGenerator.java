@@ -0,0 +1,390 @@
+package chess;
+
+/**
+ * Legal move generator.
+ * Moves are written as packed ints (see Move) into a buffer supplied by
+ * the caller, so generating moves never allocates. The generator does not
+ * change the position it is given, which makes it safe to call from any
+ * number of threads as long as each thread has its own buffer.
+ * Legality is decided from the checkers and pinned pieces the position
+ * keeps up to date: only king moves and en passant captures need an
+ * attack test of their own.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public final class MoveGenerator {
+
+    /** Enough room for the moves of any legal chess position. */
+    public static final int MAX_MOVES = 256;
+
+    private static final ThreadLocal<int[]> SCRATCH = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[MAX_MOVES];
+        }
+    };
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Lists every legal move of the side to move.
+     * @param pos position to generate moves for.
+     * @param moves buffer of at least MAX_MOVES entries.
+     * @return the number of moves written to the buffer.
+     */
+    public static int generateLegal(Position pos, int[] moves) {
+        int us = pos.sideToMove;
+        int them = us ^ 1;
+        long own = pos.colors[us];
+        long enemy = pos.colors[them];
+        long occupied = pos.occupied;
+        long targets = ~own;
+        int count = 0;
+
+        long checkers = pos.checkers();
+        if ((checkers & (checkers - 1)) != 0) {
+            int from = Bitboards.lsb(pos.pieces[Position.piece(us, Position.KING)]);
+            return addMoves(pos, moves, count, from, Bitboards.kingAttacks(from) & targets, enemy);
+        }
+        count = generatePawnMoves(pos, moves, count);
+
+        long knights = pos.pieces[Position.piece(us, Position.KNIGHT)];
+        while (knights != 0) {
+            int from = Bitboards.lsb(knights);
+            knights &= knights - 1;
+            count = addMoves(pos, moves, count, from, Bitboards.knightAttacks(from) & targets, enemy);
+        }
+        long bishops = pos.pieces[Position.piece(us, Position.BISHOP)];
+        while (bishops != 0) {
+            int from = Bitboards.lsb(bishops);
+            bishops &= bishops - 1;
+            long attacks = Bitboards.bishopAttacks(from, occupied);
+            count = addMoves(pos, moves, count, from, attacks & targets, enemy);
+        }
+        long rooks = pos.pieces[Position.piece(us, Position.ROOK)];
+        while (rooks != 0) {
+            int from = Bitboards.lsb(rooks);
+            rooks &= rooks - 1;
+            long attacks = Bitboards.rookAttacks(from, occupied);
+            count = addMoves(pos, moves, count, from, attacks & targets, enemy);
+        }
+        long queens = pos.pieces[Position.piece(us, Position.QUEEN)];
+        while (queens != 0) {
+            int from = Bitboards.lsb(queens);
+            queens &= queens - 1;
+            long attacks = Bitboards.queenAttacks(from, occupied);
+            count = addMoves(pos, moves, count, from, attacks & targets, enemy);
+        }
+        long king = pos.pieces[Position.piece(us, Position.KING)];
+        if (king != 0) {
+            int from = Bitboards.lsb(king);
+            count = addMoves(pos, moves, count, from, Bitboards.kingAttacks(from) & targets, enemy);
+            count = generateCastling(pos, moves, count, from);
+        }
+        return count;
+    }
+
+    /**
+     * checks to see if the side to move is in check.
+     * @param pos position to look at.
+     * @return true if the king of the side to move is attacked.
+     */
+    public static boolean inCheck(Position pos) {
+        return pos.inCheck();
+    }
+
+    /**
+     * checks to see if the side to move has been checkmated.
+     * @param pos position to look at.
+     * @return true if the side to move is in check and has no legal move.
+     */
+    public static boolean isCheckmate(Position pos) {
+        return pos.inCheck() && !hasLegalMove(pos);
+    }
+
+    /**
+     * checks to see if the side to move is stalemated.
+     * @param pos position to look at.
+     * @return true if the side to move is not in check and has no legal move.
+     */
+    public static boolean isStalemate(Position pos) {
+        return !pos.inCheck() && !hasLegalMove(pos);
+    }
+
+    /**
+     * checks to see if the side to move has any legal move. King moves
+     * are tried first since they are what is usually left.
+     * @param pos position to look at.
+     * @return true if there is at least one legal move.
+     */
+    public static boolean hasLegalMove(Position pos) {
+        int us = pos.sideToMove;
+        long king = pos.pieces[Position.piece(us, Position.KING)];
+        if (king != 0) {
+            int from = Bitboards.lsb(king);
+            long targets = Bitboards.kingAttacks(from) & ~pos.colors[us];
+            while (targets != 0) {
+                int to = Bitboards.lsb(targets);
+                targets &= targets - 1;
+                if (isLegal(pos, Move.encode(from, to, Move.QUIET))) {
+                    return true;
+                }
+            }
+        }
+        return generateLegal(pos, SCRATCH.get()) > 0;
+    }
+
+    /**
+     * checks to see if a square is attacked by one side.
+     * @param pos position to look at.
+     * @param sq square to check.
+     * @param by color of the attacking side.
+     * @return true if any piece of that side attacks the square.
+     */
+    public static boolean isAttacked(Position pos, int sq, int by) {
+        return isAttacked(pos, sq, by, pos.occupied, -1L);
+    }
+
+    /**
+     * checks to see if a square is attacked by one side, with a changed
+     * occupancy and some of the attacker's pieces masked out.
+     * @param pos position to look at.
+     * @param sq square to check.
+     * @param by color of the attacking side.
+     * @param occupied occupancy to use for sliding pieces.
+     * @param mask only attackers on these squares count.
+     * @return true if the square is attacked.
+     */
+    static boolean isAttacked(Position pos, int sq, int by, long occupied, long mask) {
+        long[] p = pos.pieces;
+        int base = Position.piece(by, Position.PAWN);
+        if ((Bitboards.pawnAttacks(by ^ 1, sq) & p[base + Position.PAWN] & mask) != 0) {
+            return true;
+        }
+        if ((Bitboards.knightAttacks(sq) & p[base + Position.KNIGHT] & mask) != 0) {
+            return true;
+        }
+        if ((Bitboards.kingAttacks(sq) & p[base + Position.KING] & mask) != 0) {
+            return true;
+        }
+        long queens = p[base + Position.QUEEN];
+        long diagonal = (p[base + Position.BISHOP] | queens) & mask;
+        if (diagonal != 0 && (Bitboards.bishopAttacks(sq, occupied) & diagonal) != 0) {
+            return true;
+        }
+        long straight = (p[base + Position.ROOK] | queens) & mask;
+        return straight != 0 && (Bitboards.rookAttacks(sq, occupied) & straight) != 0;
+    }
+
+    /**
+     * checks to see if a pseudo-legal move leaves the mover's own king
+     * safe, without changing the position.
+     * @param pos position the move is played in.
+     * @param move packed move.
+     * @return true if the move is legal.
+     */
+    static boolean isLegal(Position pos, int move) {
+        int us = pos.sideToMove;
+        int from = Move.from(move);
+        int to = Move.to(move);
+        long fromBit = 1L << from;
+        long toBit = 1L << to;
+        if (pos.board[from] == Position.piece(us, Position.KING)) {
+            long occupied = pos.occupied & ~fromBit;
+            return !isAttacked(pos, to, us ^ 1, occupied, ~toBit);
+        }
+        long king = pos.pieces[Position.piece(us, Position.KING)];
+        if (king == 0) {
+            return true;
+        }
+        int kingSq = Bitboards.lsb(king);
+        if (Move.flags(move) == Move.EP_CAPTURE) {
+            long captured = 1L << (us == Position.WHITE ? to - 8 : to + 8);
+            long occupied = (pos.occupied & ~fromBit & ~captured) | toBit;
+            return !isAttacked(pos, kingSq, us ^ 1, occupied, ~captured);
+        }
+        long checkers = pos.checkers();
+        if (checkers != 0) {
+            if ((checkers & (checkers - 1)) != 0) {
+                return false;
+            }
+            int checker = Bitboards.lsb(checkers);
+            if (to != checker && (Bitboards.between(kingSq, checker) & toBit) == 0) {
+                return false;
+            }
+        }
+        return (pos.pinned() & fromBit) == 0 || (Bitboards.line(kingSq, from) & toBit) != 0;
+    }
+
+    /**
+     * Adds the legal moves of one piece to the buffer.
+     * @param pos position the moves are played in.
+     * @param moves move buffer.
+     * @param count number of moves already in the buffer.
+     * @param from square the piece moves from.
+     * @param targets squares the piece can move to.
+     * @param enemy squares holding enemy pieces.
+     * @return the new number of moves in the buffer.
+     */
+    private static int addMoves(Position pos, int[] moves, int count, int from, long targets, long enemy) {
+        while (targets != 0) {
+            int to = Bitboards.lsb(targets);
+            targets &= targets - 1;
+            int flags = (enemy & (1L << to)) != 0 ? Move.CAPTURE : Move.QUIET;
+            count = addIfLegal(pos, moves, count, Move.encode(from, to, flags));
+        }
+        return count;
+    }
+
+    /**
+     * Adds a move to the buffer if it is legal.
+     * @param pos position the move is played in.
+     * @param moves move buffer.
+     * @param count number of moves already in the buffer.
+     * @param move packed move.
+     * @return the new number of moves in the buffer.
+     */
+    private static int addIfLegal(Position pos, int[] moves, int count, int move) {
+        if (isLegal(pos, move)) {
+            moves[count++] = move;
+        }
+        return count;
+    }
+
+    /**
+     * Adds pushes, double pushes, captures, en passant captures and
+     * promotions of every pawn of the side to move. The targets of each
+     * kind are found for all pawns at once by shifting the pawn bitboard;
+     * each target then lies a fixed distance from its pawn.
+     * @param pos position to generate moves for.
+     * @param moves move buffer.
+     * @param count number of moves already in the buffer.
+     * @return the new number of moves in the buffer.
+     */
+    private static int generatePawnMoves(Position pos, int[] moves, int count) {
+        int us = pos.sideToMove;
+        long enemy = pos.colors[us ^ 1];
+        long empty = ~pos.occupied;
+        long pawns = pos.pieces[Position.piece(us, Position.PAWN)];
+        boolean white = us == Position.WHITE;
+        int push = white ? 8 : -8;
+        long thirdRank = white ? Bitboards.RANK_3 : Bitboards.RANK_6;
+        long lastRank = white ? Bitboards.RANK_8 : Bitboards.RANK_1;
+
+        long single = Bitboards.pawnPushes(us, pawns) & empty;
+        long twice = Bitboards.pawnPushes(us, single & thirdRank) & empty;
+        long west = Bitboards.pawnCapturesWest(us, pawns) & enemy;
+        long east = Bitboards.pawnCapturesEast(us, pawns) & enemy;
+
+        count = addPawnMoves(pos, moves, count, single & ~lastRank, push, Move.QUIET);
+        count = addPawnMoves(pos, moves, count, twice, 2 * push, Move.DOUBLE_PAWN_PUSH);
+        count = addPawnMoves(pos, moves, count, west & ~lastRank, push - 1, Move.CAPTURE);
+        count = addPawnMoves(pos, moves, count, east & ~lastRank, push + 1, Move.CAPTURE);
+        count = addPawnPromotions(pos, moves, count, single & lastRank, push, false);
+        count = addPawnPromotions(pos, moves, count, west & lastRank, push - 1, true);
+        count = addPawnPromotions(pos, moves, count, east & lastRank, push + 1, true);
+
+        if (pos.epSquare != Position.NO_SQUARE) {
+            long attackers = Bitboards.pawnAttacks(us ^ 1, pos.epSquare) & pawns;
+            while (attackers != 0) {
+                int from = Bitboards.lsb(attackers);
+                attackers &= attackers - 1;
+                count = addIfLegal(pos, moves, count, Move.encode(from, pos.epSquare, Move.EP_CAPTURE));
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Adds one kind of pawn move for a set of target squares.
+     * @param pos position the moves are played in.
+     * @param moves move buffer.
+     * @param count number of moves already in the buffer.
+     * @param targets squares the pawns move to.
+     * @param delta distance from each pawn to its target.
+     * @param flags move flags.
+     * @return the new number of moves in the buffer.
+     */
+    private static int addPawnMoves(Position pos, int[] moves, int count, long targets, int delta, int flags) {
+        while (targets != 0) {
+            int to = Bitboards.lsb(targets);
+            targets &= targets - 1;
+            count = addIfLegal(pos, moves, count, Move.encode(to - delta, to, flags));
+        }
+        return count;
+    }
+
+    /**
+     * Adds the promotions of a set of pawn moves to the last rank.
+     * @param pos position the moves are played in.
+     * @param moves move buffer.
+     * @param count number of moves already in the buffer.
+     * @param targets squares on the last rank the pawns move to.
+     * @param delta distance from each pawn to its target.
+     * @param capture true if the pawns capture.
+     * @return the new number of moves in the buffer.
+     */
+    private static int addPawnPromotions(Position pos, int[] moves, int count, long targets, int delta,
+            boolean capture) {
+        while (targets != 0) {
+            int to = Bitboards.lsb(targets);
+            targets &= targets - 1;
+            count = addPromotions(pos, moves, count, to - delta, to, capture);
+        }
+        return count;
+    }
+
+    /**
+     * Adds the four promotions of a pawn move.
+     * @param pos position the moves are played in.
+     * @param moves move buffer.
+     * @param count number of moves already in the buffer.
+     * @param from square the pawn moves from.
+     * @param to square the pawn moves to.
+     * @param capture true if the pawn captures.
+     * @return the new number of moves in the buffer.
+     */
+    private static int addPromotions(Position pos, int[] moves, int count, int from, int to, boolean capture) {
+        if (isLegal(pos, Move.encode(from, to, Move.QUIET))) {
+            for (int type = Position.QUEEN; type >= Position.KNIGHT; type--) {
+                moves[count++] = Move.promotion(from, to, capture, type);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Adds the castling moves of the side to move. The king may not be in
+     * check, pass through an attacked square or land on one.
+     * @param pos position to generate moves for.
+     * @param moves move buffer.
+     * @param count number of moves already in the buffer.
+     * @param kingSq square the king is on.
+     * @return the new number of moves in the buffer.
+     */
+    private static int generateCastling(Position pos, int[] moves, int count, int kingSq) {
+        int us = pos.sideToMove;
+        int them = us ^ 1;
+        int kingside = us == Position.WHITE ? Position.WHITE_KINGSIDE : Position.BLACK_KINGSIDE;
+        int queenside = us == Position.WHITE ? Position.WHITE_QUEENSIDE : Position.BLACK_QUEENSIDE;
+        int home = us == Position.WHITE ? 4 : 60;
+        if ((pos.castling & (kingside | queenside)) == 0 || kingSq != home
+                || isAttacked(pos, home, them)) {
+            return count;
+        }
+        int rook = Position.piece(us, Position.ROOK);
+        if ((pos.castling & kingside) != 0 && pos.board[home + 3] == rook
+                && !pos.isOccupied(home + 1) && !pos.isOccupied(home + 2)
+                && !isAttacked(pos, home + 1, them) && !isAttacked(pos, home + 2, them)) {
+            moves[count++] = Move.encode(home, home + 2, Move.KING_CASTLE);
+        }
+        if ((pos.castling & queenside) != 0 && pos.board[home - 4] == rook
+                && !pos.isOccupied(home - 1) && !pos.isOccupied(home - 2) && !pos.isOccupied(home - 3)
+                && !isAttacked(pos, home - 1, them) && !isAttacked(pos, home - 2, them)) {
+            moves[count++] = Move.encode(home, home - 2, Move.QUEEN_CASTLE);
+        }
+        return count;
+    }
+}
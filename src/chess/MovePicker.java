@@ -0,0 +1,360 @@
+package chess;
+
+/**
+ * Hands out the moves of one node in stages, best first: the hash move,
+ * then captures and promotions that do not lose material by most
+ * valuable victim and least valuable attacker, then the killer moves,
+ * then the other quiet moves by history score, and last the captures
+ * that static exchange evaluation says lose material.
+ * The legal moves are generated once into a buffer owned by the picker
+ * and sorted lazily: each call to next() selects the best remaining move
+ * of the current stage, and a stage's scores are only worked out when
+ * the stage is reached, so a cutoff on the hash move or a capture never
+ * pays for ordering the quiet moves. A Search keeps one picker per ply,
+ * so picking moves does not allocate.
+ *
+ * @author JC
+ * @version 1.0
+ */
+final class MovePicker {
+
+    static final int STAGE_HASH = 0;
+    static final int STAGE_GOOD_CAPTURES = 1;
+    static final int STAGE_KILLERS = 2;
+    static final int STAGE_QUIETS = 3;
+    static final int STAGE_BAD_CAPTURES = 4;
+    static final int STAGE_COUNT = 5;
+    /** Stage names, indexed by stage, for reports. */
+    static final String[] STAGE_NAMES = {"hash", "good captures", "killers", "quiets", "bad captures"};
+
+    /** Piece values for exchanges, indexed by type; the king is never traded. */
+    private static final int[] SEE_VALUES = {100, 320, 330, 500, 900, 20000};
+    private static final int STAGE_DONE = STAGE_COUNT;
+
+    private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+    private final int[] scores = new int[MoveGenerator.MAX_MOVES];
+    private final int[] gain = new int[32];
+    private Position pos;
+    private int[] history;
+    private int ttMove;
+    private int killer1;
+    private int killer2;
+    private boolean capturesOnly;
+    private int count;
+    private int captureEnd;
+    private int badEnd;
+    private int index;
+    private int stage;
+    private int lastStage;
+
+    /**
+     * Generates the moves of a position and starts at the hash move.
+     * @param pos position to pick moves for; it must not change until
+     *     the picker is done with it, except by moves made and unmade.
+     * @param ttMove move from the transposition table, or Move.NONE.
+     * @param killer1 newest killer move of the ply, or Move.NONE.
+     * @param killer2 older killer move of the ply, or Move.NONE.
+     * @param history history scores indexed by piece * 64 + to square.
+     * @return number of legal moves.
+     */
+    int init(Position pos, int ttMove, int killer1, int killer2, int[] history) {
+        this.pos = pos;
+        this.history = history;
+        this.killer1 = killer1;
+        this.killer2 = killer2 != killer1 ? killer2 : Move.NONE;
+        capturesOnly = false;
+        count = MoveGenerator.generateLegal(pos, moves);
+        partition();
+        this.ttMove = contains(ttMove, 0, count) ? ttMove : Move.NONE;
+        stage = STAGE_HASH;
+        return count;
+    }
+
+    /**
+     * Generates the moves of a position and keeps only the captures and
+     * promotions, for the quiescence search.
+     * @param pos position to pick moves for.
+     * @return number of legal moves, quiet ones included.
+     */
+    int initCaptures(Position pos) {
+        this.pos = pos;
+        ttMove = Move.NONE;
+        killer1 = Move.NONE;
+        killer2 = Move.NONE;
+        capturesOnly = true;
+        count = MoveGenerator.generateLegal(pos, moves);
+        partition();
+        stage = STAGE_GOOD_CAPTURES;
+        scoreCaptures();
+        return count;
+    }
+
+    /**
+     * Gets the next move to try.
+     * @return packed move, or Move.NONE when every move has been given.
+     */
+    int next() {
+        while (true) {
+            switch (stage) {
+                case STAGE_HASH:
+                    stage = STAGE_GOOD_CAPTURES;
+                    scoreCaptures();
+                    if (ttMove != Move.NONE) {
+                        lastStage = STAGE_HASH;
+                        return ttMove;
+                    }
+                    break;
+                case STAGE_GOOD_CAPTURES:
+                    while (index < captureEnd) {
+                        int move = selectBest(index, captureEnd);
+                        index++;
+                        if (move == ttMove) {
+                            continue;
+                        }
+                        if (mayLose(move) && see(move) < 0) {
+                            moves[badEnd++] = move;
+                            continue;
+                        }
+                        lastStage = STAGE_GOOD_CAPTURES;
+                        return move;
+                    }
+                    stage = capturesOnly ? STAGE_BAD_CAPTURES : STAGE_KILLERS;
+                    index = 0;
+                    break;
+                case STAGE_KILLERS:
+                    while (index < 2) {
+                        int killer = index++ == 0 ? killer1 : killer2;
+                        if (killer != Move.NONE && killer != ttMove && contains(killer, captureEnd, count)) {
+                            lastStage = STAGE_KILLERS;
+                            return killer;
+                        }
+                    }
+                    stage = STAGE_QUIETS;
+                    index = captureEnd;
+                    scoreQuiets();
+                    break;
+                case STAGE_QUIETS:
+                    while (index < count) {
+                        int move = selectBest(index, count);
+                        index++;
+                        if (move != ttMove && move != killer1 && move != killer2) {
+                            lastStage = STAGE_QUIETS;
+                            return move;
+                        }
+                    }
+                    stage = STAGE_BAD_CAPTURES;
+                    index = 0;
+                    break;
+                case STAGE_BAD_CAPTURES:
+                    if (index < badEnd) {
+                        lastStage = STAGE_BAD_CAPTURES;
+                        return moves[index++];
+                    }
+                    stage = STAGE_DONE;
+                    break;
+                default:
+                    return Move.NONE;
+            }
+        }
+    }
+
+    /**
+     * Gets the stage of the move last returned by next().
+     * @return one of the STAGE constants.
+     */
+    int stage() {
+        return lastStage;
+    }
+
+    /**
+     * checks to see if a capture could lose material, which only a
+     * capture by a piece worth more than its victim can.
+     * @param move capture or promotion.
+     * @return true if the capture needs an exchange evaluation.
+     */
+    private boolean mayLose(int move) {
+        if (Move.isPromotion(move)) {
+            return false;
+        }
+        int victim = Move.flags(move) == Move.EP_CAPTURE ? Position.PAWN
+                : Position.typeOf(pos.board[Move.to(move)]);
+        return SEE_VALUES[Position.typeOf(pos.board[Move.from(move)])] > SEE_VALUES[victim];
+    }
+
+    /**
+     * Works out the material a capture wins once both sides have made
+     * every recapture that pays on its square, the cheapest attacker
+     * first. X-ray attackers behind a piece join in once it has moved.
+     * Only the sign is exact: a sequence is cut short once its outcome
+     * can no longer change sides.
+     * @param move capture to look at.
+     * @return material gain in centipawns for the side making the move.
+     */
+    int see(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int attacker = Position.typeOf(pos.board[from]);
+        int victim = Move.flags(move) == Move.EP_CAPTURE ? Position.PAWN : Position.typeOf(pos.board[to]);
+        long occupied = pos.occupied & ~(1L << from);
+        if (Move.flags(move) == Move.EP_CAPTURE) {
+            occupied &= ~(1L << (pos.sideToMove == Position.WHITE ? to - 8 : to + 8));
+        }
+        long diagonal = pos.pieces[Position.BISHOP] | pos.pieces[Position.BISHOP + 6]
+                | pos.pieces[Position.QUEEN] | pos.pieces[Position.QUEEN + 6];
+        long straight = pos.pieces[Position.ROOK] | pos.pieces[Position.ROOK + 6]
+                | pos.pieces[Position.QUEEN] | pos.pieces[Position.QUEEN + 6];
+        long attackers = attackersTo(pos, to, occupied) & occupied;
+        int depth = 0;
+        gain[0] = SEE_VALUES[victim];
+        int onSquare = attacker;
+        int side = pos.sideToMove ^ 1;
+        while (true) {
+            long own = attackers & pos.colors[side];
+            if (own == 0) {
+                break;
+            }
+            int type = Position.PAWN;
+            long attackerSet = 0;
+            for (; type <= Position.KING; type++) {
+                attackerSet = own & pos.pieces[Position.piece(side, type)];
+                if (attackerSet != 0) {
+                    break;
+                }
+            }
+            if (type == Position.KING && (attackers & pos.colors[side ^ 1]) != 0) {
+                break;
+            }
+            depth++;
+            gain[depth] = SEE_VALUES[onSquare] - gain[depth - 1];
+            if (Math.max(-gain[depth - 1], gain[depth]) < 0) {
+                break;
+            }
+            occupied &= ~(attackerSet & -attackerSet);
+            if (type == Position.PAWN || type == Position.BISHOP || type == Position.QUEEN) {
+                attackers |= Bitboards.bishopAttacks(to, occupied) & diagonal;
+            }
+            if (type == Position.ROOK || type == Position.QUEEN) {
+                attackers |= Bitboards.rookAttacks(to, occupied) & straight;
+            }
+            attackers &= occupied;
+            onSquare = type;
+            side ^= 1;
+        }
+        for (; depth > 0; depth--) {
+            gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+        }
+        return gain[0];
+    }
+
+    /**
+     * Finds every piece of either color that attacks a square.
+     * @param pos position to look at.
+     * @param sq attacked square.
+     * @param occupied squares that block sliding pieces.
+     * @return attackers as a bitboard.
+     */
+    private static long attackersTo(Position pos, int sq, long occupied) {
+        long bishops = pos.pieces[Position.BISHOP] | pos.pieces[Position.BISHOP + 6]
+                | pos.pieces[Position.QUEEN] | pos.pieces[Position.QUEEN + 6];
+        long rooks = pos.pieces[Position.ROOK] | pos.pieces[Position.ROOK + 6]
+                | pos.pieces[Position.QUEEN] | pos.pieces[Position.QUEEN + 6];
+        return (Bitboards.pawnAttacks(Position.BLACK, sq) & pos.pieces[Position.piece(Position.WHITE, Position.PAWN)])
+                | (Bitboards.pawnAttacks(Position.WHITE, sq) & pos.pieces[Position.piece(Position.BLACK, Position.PAWN)])
+                | (Bitboards.knightAttacks(sq) & (pos.pieces[Position.KNIGHT] | pos.pieces[Position.KNIGHT + 6]))
+                | (Bitboards.kingAttacks(sq) & (pos.pieces[Position.KING] | pos.pieces[Position.KING + 6]))
+                | (Bitboards.bishopAttacks(sq, occupied) & bishops)
+                | (Bitboards.rookAttacks(sq, occupied) & rooks);
+    }
+
+    /**
+     * Moves the captures and promotions to the front of the buffer and,
+     * for the quiescence search, drops the quiet moves.
+     */
+    private void partition() {
+        int front = 0;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            if (Move.isCapture(move) || Move.isPromotion(move)) {
+                moves[i] = moves[front];
+                moves[front++] = move;
+            }
+        }
+        captureEnd = front;
+        if (capturesOnly) {
+            count = front;
+        }
+        badEnd = 0;
+        index = 0;
+    }
+
+    /**
+     * Scores the captures and promotions by most valuable victim, then
+     * least valuable attacker.
+     */
+    private void scoreCaptures() {
+        for (int i = 0; i < captureEnd; i++) {
+            int move = moves[i];
+            int value = 0;
+            if (Move.isCapture(move)) {
+                int victim = Move.flags(move) == Move.EP_CAPTURE ? Position.PAWN
+                        : Position.typeOf(pos.board[Move.to(move)]);
+                value = Evaluator.PIECE_VALUES[victim] * 10;
+            }
+            if (Move.isPromotion(move)) {
+                value += Evaluator.PIECE_VALUES[Move.promotionType(move)];
+            }
+            scores[i] = value - Position.typeOf(pos.board[Move.from(move)]);
+        }
+    }
+
+    /**
+     * Scores the quiet moves by their history.
+     */
+    private void scoreQuiets() {
+        for (int i = captureEnd; i < count; i++) {
+            int move = moves[i];
+            scores[i] = history[pos.board[Move.from(move)] * 64 + Move.to(move)];
+        }
+    }
+
+    /**
+     * Swaps the best scored move of a range to its start.
+     * @param start first index of the range.
+     * @param end index after the range.
+     * @return the move now at start.
+     */
+    private int selectBest(int start, int end) {
+        int best = start;
+        for (int j = start + 1; j < end; j++) {
+            if (scores[j] > scores[best]) {
+                best = j;
+            }
+        }
+        int move = moves[best];
+        moves[best] = moves[start];
+        moves[start] = move;
+        int score = scores[best];
+        scores[best] = scores[start];
+        scores[start] = score;
+        return move;
+    }
+
+    /**
+     * checks to see if a move is in part of the buffer.
+     * @param move packed move.
+     * @param start first index to look at.
+     * @param end index after the last one.
+     * @return true if the move is there.
+     */
+    private boolean contains(int move, int start, int end) {
+        if (move == Move.NONE) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
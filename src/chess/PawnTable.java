@@ -0,0 +1,138 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Cache of pawn structure evaluations, indexed by the pawn hash that
+ * Position keeps. Pawns move rarely, so most nodes of a search find
+ * their structure here and skip the work in Evaluator. Entries live in
+ * parallel primitive arrays: the pawn key, the packed middlegame and
+ * endgame score for White, and the passed pawns of each side. A newer
+ * structure simply overwrites the entry it maps to.
+ * A table is not safe to share: every search thread has its own, which
+ * also keeps each thread's working set in its own cache.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public final class PawnTable {
+
+    /** Default table size in megabytes. */
+    public static final int DEFAULT_MB = 1;
+    /** Bytes per entry: key, score and two passed pawn sets. */
+    private static final int ENTRY_BYTES = 8 + 4 + 16;
+
+    private long[] keys;
+    private int[] scores;
+    private long[] passed;
+    private int mask;
+    private long probes;
+    private long hits;
+
+    /**
+     * Constructor for a table.
+     * @param megabytes size of the table in megabytes, at least 1.
+     */
+    public PawnTable(int megabytes) {
+        resize(megabytes);
+    }
+
+    /**
+     * Reallocates the table, dropping every entry.
+     * @param megabytes size of the table in megabytes, at least 1.
+     */
+    public void resize(int megabytes) {
+        long bytes = Math.max(1, megabytes) * 1024L * 1024L;
+        int entries = (int) Math.min(Long.highestOneBit(bytes / ENTRY_BYTES), 1 << 26);
+        keys = new long[entries];
+        scores = new int[entries];
+        passed = new long[entries * 2];
+        mask = entries - 1;
+        clear();
+    }
+
+    /**
+     * Drops every entry. The entry of the pawnless structure, whose key
+     * is 0, is the only one that starts out valid.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(scores, 0);
+        Arrays.fill(passed, 0L);
+    }
+
+    /**
+     * Gets the size of the table.
+     * @return size in megabytes.
+     */
+    public int sizeMegabytes() {
+        return (int) ((long) keys.length * ENTRY_BYTES / (1024 * 1024));
+    }
+
+    /**
+     * Finds the entry for the pawns of a position, evaluating them and
+     * filling the entry if they are not in the table.
+     * @param pos position whose pawns are looked up.
+     * @return entry index, for score and passed.
+     */
+    int probe(Position pos) {
+        long key = pos.pawnKey;
+        int entry = (int) key & mask;
+        probes++;
+        if (keys[entry] == key) {
+            hits++;
+            return entry;
+        }
+        long white = pos.pieces[Position.piece(Position.WHITE, Position.PAWN)];
+        long black = pos.pieces[Position.piece(Position.BLACK, Position.PAWN)];
+        keys[entry] = key;
+        scores[entry] = Evaluator.pawnStructure(white, black);
+        passed[entry * 2] = Evaluator.passedPawns(Position.WHITE, white, black);
+        passed[entry * 2 + 1] = Evaluator.passedPawns(Position.BLACK, black, white);
+        return entry;
+    }
+
+    /**
+     * Gets the pawn structure score of an entry.
+     * @param entry index returned by probe.
+     * @return packed middlegame and endgame score for White.
+     */
+    int score(int entry) {
+        return scores[entry];
+    }
+
+    /**
+     * Gets the passed pawns of one side stored in an entry.
+     * @param entry index returned by probe.
+     * @param color side whose passed pawns are wanted.
+     * @return passed pawns.
+     */
+    long passed(int entry, int color) {
+        return passed[entry * 2 + color];
+    }
+
+    /**
+     * Gets the number of probes since the statistics were last reset.
+     * @return number of probes.
+     */
+    public long getProbes() {
+        return probes;
+    }
+
+    /**
+     * Gets the number of probes that found their structure in the table
+     * since the statistics were last reset.
+     * @return number of hits.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Sets the probe and hit counts back to zero.
+     */
+    public void resetStatistics() {
+        probes = 0;
+        hits = 0;
+    }
+}
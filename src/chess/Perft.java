@@ -0,0 +1,204 @@
+package chess;
+
+/**
+ * Headless perft driver. Counts the leaf nodes of the legal move tree
+ * to a fixed depth, which checks the move generator against known
+ * counts and measures how fast it runs.
+ * Usage:
+ * <pre>
+ * java chess.Perft &lt;depth&gt; [fen]      count nodes from a position
+ * java chess.Perft divide &lt;depth&gt; [fen] count nodes under each root move
+ * java chess.Perft suite [maxNodes]    check the reference positions
+ * </pre>
+ * The suite exits with status 1 if any count is wrong.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public class Perft {
+
+    /**
+     * Reference positions with their known node counts, one entry per
+     * position: the FEN followed by the counts from depth 1 upwards.
+     */
+    static final String[][] SUITE = {
+        {Fen.START, "20", "400", "8902", "197281", "4865609"},
+        {"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "48", "2039", "97862", "4085603"},
+        {"8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "14", "191", "2812", "43238", "674624", "11030083"},
+        {"r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            "6", "264", "9467", "422333"},
+        {"rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+            "44", "1486", "62379", "2103487"},
+        {"r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+            "46", "2079", "89890", "3894594"},
+    };
+
+    private final Position work = new Position();
+    private final int[][] moves;
+
+    /**
+     * Constructor for perft, preallocates a move buffer for every ply.
+     * @param maxDepth deepest depth that will be counted.
+     */
+    public Perft(int maxDepth) {
+        moves = new int[maxDepth + 1][MoveGenerator.MAX_MOVES];
+    }
+
+    /**
+     * Counts the leaf nodes of the move tree.
+     * @param pos position to start from; it is not changed.
+     * @param depth number of plies to count.
+     * @return number of leaf nodes.
+     */
+    public long count(Position pos, int depth) {
+        work.copyFrom(pos);
+        return countMoves(depth);
+    }
+
+    /**
+     * Prints the node count under each root move, then the total.
+     * @param pos position to start from.
+     * @param depth number of plies to count, at least 1.
+     * @return total number of leaf nodes.
+     * @throws IllegalArgumentException if depth is below 1.
+     */
+    public long divide(Position pos, int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("divide needs a depth of at least 1: " + depth);
+        }
+        int[] root = new int[MoveGenerator.MAX_MOVES];
+        int n = MoveGenerator.generateLegal(pos, root);
+        work.copyFrom(pos);
+        long total = 0;
+        for (int i = 0; i < n; i++) {
+            work.makeMove(root[i]);
+            long nodes = countMoves(depth - 1);
+            work.unmakeMove(root[i]);
+            System.out.println(Move.toUci(root[i]) + ": " + nodes);
+            total += nodes;
+        }
+        return total;
+    }
+
+    /**
+     * Counts the leaf nodes below the working position, making and
+     * unmaking each move in place.
+     * @param depth number of plies to count.
+     * @return number of leaf nodes.
+     */
+    private long countMoves(int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        int[] buffer = moves[depth];
+        int n = MoveGenerator.generateLegal(work, buffer);
+        if (depth == 1) {
+            return n;
+        }
+        long nodes = 0;
+        for (int i = 0; i < n; i++) {
+            work.makeMove(buffer[i]);
+            nodes += countMoves(depth - 1);
+            work.unmakeMove(buffer[i]);
+        }
+        return nodes;
+    }
+
+    /**
+     * Runs every reference position up to the deepest depth whose count
+     * does not exceed maxNodes.
+     * @param maxNodes largest node count to check.
+     * @return true if every count matched.
+     */
+    public static boolean runSuite(long maxNodes) {
+        boolean passed = true;
+        long totalNodes = 0;
+        long totalTime = 0;
+        for (String[] entry : SUITE) {
+            Position pos = Fen.parse(entry[0]);
+            Perft perft = new Perft(entry.length - 1);
+            for (int depth = 1; depth < entry.length; depth++) {
+                long expected = Long.parseLong(entry[depth]);
+                if (expected > maxNodes) {
+                    break;
+                }
+                long start = System.nanoTime();
+                long nodes = perft.count(pos, depth);
+                long elapsed = System.nanoTime() - start;
+                totalNodes += nodes;
+                totalTime += elapsed;
+                String result = nodes == expected ? "ok" : "FAIL expected " + expected;
+                System.out.println(entry[0] + " depth " + depth + ": " + nodes + " " + result);
+                passed &= nodes == expected;
+            }
+        }
+        System.out.println("Total " + totalNodes + " nodes, " + nodesPerSecond(totalNodes, totalTime) + " nps");
+        return passed;
+    }
+
+    /**
+     * Converts a node count and an elapsed time into nodes per second.
+     * @param nodes number of nodes.
+     * @param nanos elapsed time in nanoseconds.
+     * @return nodes per second.
+     */
+    static long nodesPerSecond(long nodes, long nanos) {
+        return nanos == 0 ? 0 : nodes * 1000000000L / nanos;
+    }
+
+    /**
+     * Builds the FEN from the command line arguments from index start on.
+     * @param args command line arguments.
+     * @param start index of the first FEN field.
+     * @return the FEN, or the starting position if there are none.
+     */
+    private static String fenFrom(String[] args, int start) {
+        if (args.length <= start) {
+            return Fen.START;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = start; i < args.length; i++) {
+            sb.append(args[i]).append(' ');
+        }
+        return sb.toString().trim();
+    }
+
+    /**
+     * This is the driver for perft.
+     * @param args command line arguments, see the class comment.
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            usage();
+            return;
+        }
+        if (args[0].equals("suite")) {
+            long maxNodes = args.length > 1 ? Long.parseLong(args[1]) : 5000000L;
+            System.exit(runSuite(maxNodes) ? 0 : 1);
+        }
+        boolean divide = args[0].equals("divide");
+        int first = divide ? 1 : 0;
+        int depth = first < args.length ? Integer.parseInt(args[first]) : -1;
+        if (depth < (divide ? 1 : 0)) {
+            usage();
+            return;
+        }
+        Position pos = Fen.parse(fenFrom(args, first + 1));
+        Perft perft = new Perft(depth);
+        long start = System.nanoTime();
+        long nodes = divide ? perft.divide(pos, depth) : perft.count(pos, depth);
+        long elapsed = System.nanoTime() - start;
+        System.out.println("Nodes: " + nodes);
+        System.out.println("Time: " + elapsed / 1000000 + " ms");
+        System.out.println("NPS: " + nodesPerSecond(nodes, elapsed));
+    }
+
+    /**
+     * Prints how to run perft.
+     */
+    private static void usage() {
+        System.out.println("usage: Perft <depth> [fen] | divide <depth> [fen] | suite [maxNodes]");
+    }
+}
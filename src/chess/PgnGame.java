@@ -0,0 +1,77 @@
+package chess;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One game of a PGN file: its tag pairs, its moves and its result.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public class PgnGame {
+
+    public static final String WHITE_WINS = "1-0";
+    public static final String BLACK_WINS = "0-1";
+    public static final String DRAW = "1/2-1/2";
+    public static final String UNFINISHED = "*";
+
+    private final Map<String, String> tags;
+    private final GameRecord record;
+    private final String result;
+
+    /**
+     * Constructor for a game.
+     * @param tags tag pairs in file order; the map is kept, not copied.
+     * @param record the moves of the game.
+     * @param result one of the four PGN results.
+     */
+    public PgnGame(Map<String, String> tags, GameRecord record, String result) {
+        this.tags = tags;
+        this.record = record;
+        this.result = result;
+    }
+
+    /**
+     * Constructor for a game with no tags other than the result.
+     * @param record the moves of the game.
+     * @param result one of the four PGN results.
+     */
+    public PgnGame(GameRecord record, String result) {
+        this(new LinkedHashMap<String, String>(), record, result);
+    }
+
+    /**
+     * Gets the tag pairs of the game.
+     * @return tag pairs in file order.
+     */
+    public Map<String, String> getTags() {
+        return Collections.unmodifiableMap(tags);
+    }
+
+    /**
+     * Gets the value of one tag.
+     * @param name tag name, such as White or Event.
+     * @return tag value, or null if the game has no such tag.
+     */
+    public String getTag(String name) {
+        return tags.get(name);
+    }
+
+    /**
+     * Gets the moves of the game.
+     * @return game record.
+     */
+    public GameRecord getRecord() {
+        return record;
+    }
+
+    /**
+     * Gets the result of the game.
+     * @return 1-0, 0-1, 1/2-1/2 or *.
+     */
+    public String getResult() {
+        return result;
+    }
+}
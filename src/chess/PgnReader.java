@@ -0,0 +1,453 @@
+package chess;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streaming PGN reader.
+ * Games are read one at a time through a fixed-size byte buffer, so a
+ * file of any size is read in constant memory and each game can be
+ * handed on before the rest of the file has been read.
+ * Movetext is tokenized in place: moves are parsed straight from the
+ * buffer into packed moves and only tag values become Strings.
+ * Comments, variations, NAGs and escape lines are skipped. A game with
+ * a move that is not legal is dropped and counted in getSkippedGames().
+ *
+ * @author JC
+ * @version 1.0
+ */
+public class PgnReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_TOKEN = 1 << 12;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final byte[] token = new byte[MAX_TOKEN];
+    private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+    private final Position current = new Position();
+    private int pushedBack = -1;
+    private boolean lineStart = true;
+    private long skippedGames;
+
+    /**
+     * Constructor for a reader over a channel.
+     * @param channel channel to read PGN text from.
+     */
+    public PgnReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        buffer.flip();
+    }
+
+    /**
+     * Constructor for a reader over a stream.
+     * @param in stream to read PGN text from.
+     */
+    public PgnReader(InputStream in) {
+        this(Channels.newChannel(in));
+    }
+
+    /**
+     * Opens a PGN file.
+     * @param path file to read.
+     * @return a reader positioned at the first game.
+     * @throws IOException if the file cannot be opened.
+     */
+    public static PgnReader open(Path path) throws IOException {
+        return new PgnReader(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    /**
+     * Gets the number of games dropped because of a move that is not legal.
+     * @return number of skipped games.
+     */
+    public long getSkippedGames() {
+        return skippedGames;
+    }
+
+    /**
+     * Reads the next game.
+     * @return the next game, or null at the end of the input.
+     * @throws IOException if the input cannot be read.
+     */
+    public PgnGame next() throws IOException {
+        while (true) {
+            GameState state = new GameState();
+            if (!readGame(state)) {
+                return null;
+            }
+            if (state.failed) {
+                skippedGames++;
+            } else {
+                return new PgnGame(state.tags, state.record(current), state.result);
+            }
+        }
+    }
+
+    /**
+     * Reads every remaining game and hands each one to a consumer as
+     * soon as it has been read.
+     * @param consumer receives each game.
+     * @throws IOException if the input cannot be read.
+     */
+    public void forEach(Consumer<? super PgnGame> consumer) throws IOException {
+        PgnGame game;
+        while ((game = next()) != null) {
+            consumer.accept(game);
+        }
+    }
+
+    /**
+     * Gets a lazy sequential stream of the remaining games. Read errors
+     * are thrown as UncheckedIOException; closing the stream closes the
+     * reader.
+     * @return stream of games.
+     */
+    public Stream<PgnGame> stream() {
+        Spliterator<PgnGame> split = new Spliterators.AbstractSpliterator<PgnGame>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super PgnGame> action) {
+                try {
+                    PgnGame game = next();
+                    if (game == null) {
+                        return false;
+                    }
+                    action.accept(game);
+                    return true;
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+        };
+        return StreamSupport.stream(split, false).onClose(new Runnable() {
+            public void run() {
+                try {
+                    close();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+        });
+    }
+
+    /**
+     * Closes the underlying channel.
+     * @throws IOException if the channel cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Reads the tags and movetext of one game.
+     * @param state game being read.
+     * @return false if the input ended before any of the game was read.
+     * @throws IOException if the input cannot be read.
+     */
+    private boolean readGame(GameState state) throws IOException {
+        boolean seen = false;
+        while (true) {
+            int c = skipWhitespace();
+            if (c < 0) {
+                return seen;
+            }
+            if (c == '%' && lineStart) {
+                skipLine();
+                continue;
+            }
+            lineStart = false;
+            if (c == '[') {
+                if (state.inMovetext) {
+                    pushedBack = c;
+                    return true;
+                }
+                readTag(state);
+                seen = true;
+            } else if (c == '{') {
+                skipUntil('}');
+            } else if (c == ';') {
+                skipLine();
+            } else if (c == '(') {
+                skipVariation();
+            } else if (c == '$') {
+                readToken(c);
+            } else {
+                seen = true;
+                int len = readToken(c);
+                if (handleToken(state, len)) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Handles one movetext token: a move number, a result or a move.
+     * @param state game being read.
+     * @param len length of the token in the token buffer.
+     * @return true if the token ended the game.
+     */
+    private boolean handleToken(GameState state, int len) {
+        if (!state.inMovetext) {
+            state.startMovetext(current);
+        }
+        String result = result(len);
+        if (result != null) {
+            state.result = result;
+            return true;
+        }
+        int off = 0;
+        while (off < len && token[off] >= '0' && token[off] <= '9') {
+            off++;
+        }
+        if (off > 0 && off < len && token[off] != '.') {
+            off = 0;
+        }
+        while (off < len && token[off] == '.') {
+            off++;
+        }
+        if (off == len || state.failed) {
+            return false;
+        }
+        int move = San.parse(current, token, off, len - off, moves);
+        if (move == Move.NONE) {
+            state.failed = true;
+        } else {
+            current.makeMove(move);
+            state.moves.addMove(move);
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the token in the buffer is a game result.
+     * @param len length of the token.
+     * @return the result, or null if the token is not one.
+     */
+    private String result(int len) {
+        if (len == 1 && token[0] == '*') {
+            return PgnGame.UNFINISHED;
+        }
+        if (len == 3 && token[1] == '-') {
+            if (token[0] == '1' && token[2] == '0') {
+                return PgnGame.WHITE_WINS;
+            }
+            if (token[0] == '0' && token[2] == '1') {
+                return PgnGame.BLACK_WINS;
+            }
+        }
+        if (len == 7 && token[0] == '1' && token[1] == '/' && token[2] == '2' && token[3] == '-') {
+            return PgnGame.DRAW;
+        }
+        return null;
+    }
+
+    /**
+     * Reads a tag pair after its opening bracket.
+     * @param state game being read.
+     * @throws IOException if the input cannot be read.
+     */
+    private void readTag(GameState state) throws IOException {
+        int c = skipWhitespace();
+        int len = 0;
+        while (c > ' ' && c != '"' && c != ']') {
+            if (len < MAX_TOKEN) {
+                token[len++] = (byte) c;
+            }
+            c = read();
+        }
+        String name = new String(token, 0, len, StandardCharsets.US_ASCII);
+        while (c >= 0 && c != '"' && c != ']') {
+            c = read();
+        }
+        len = 0;
+        if (c == '"') {
+            c = read();
+            while (c >= 0 && c != '"') {
+                if (c == '\\') {
+                    c = read();
+                }
+                if (len < MAX_TOKEN && c >= 0) {
+                    token[len++] = (byte) c;
+                }
+                c = read();
+            }
+            while (c >= 0 && c != ']') {
+                c = read();
+            }
+        }
+        state.tags.put(name, new String(token, 0, len, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads a token into the token buffer, up to whitespace or a
+     * character that starts something else. A first character that
+     * cannot start a token, such as a stray closing parenthesis, is
+     * dropped, so the reader always moves on.
+     * @param first first character of the token, already read.
+     * @return length of the token, 0 if first was dropped.
+     * @throws IOException if the input cannot be read.
+     */
+    private int readToken(int first) throws IOException {
+        int len = 0;
+        int c = first;
+        while (c > ' ' && c != '{' && c != '(' && c != ')' && c != '[' && c != ';' && c != '$'
+                || (len == 0 && c == '$')) {
+            if (len < MAX_TOKEN) {
+                token[len++] = (byte) c;
+            }
+            c = read();
+        }
+        if (c >= 0 && len > 0) {
+            pushedBack = c;
+        }
+        return len;
+    }
+
+    /**
+     * Skips a variation, including nested variations and comments.
+     * @throws IOException if the input cannot be read.
+     */
+    private void skipVariation() throws IOException {
+        int depth = 1;
+        while (depth > 0) {
+            int c = read();
+            if (c < 0) {
+                return;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == '{') {
+                skipUntil('}');
+            } else if (c == ';') {
+                skipLine();
+            }
+        }
+    }
+
+    /**
+     * Skips input up to and including a character.
+     * @param end character to stop after.
+     * @throws IOException if the input cannot be read.
+     */
+    private void skipUntil(int end) throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c >= 0 && c != end);
+    }
+
+    /**
+     * Skips the rest of the current line.
+     * @throws IOException if the input cannot be read.
+     */
+    private void skipLine() throws IOException {
+        skipUntil('\n');
+        lineStart = true;
+    }
+
+    /**
+     * Skips whitespace, keeping track of line starts.
+     * @return the first character that is not whitespace, or -1 at the end.
+     * @throws IOException if the input cannot be read.
+     */
+    private int skipWhitespace() throws IOException {
+        int c = read();
+        while (c >= 0 && c <= ' ') {
+            if (c == '\n') {
+                lineStart = true;
+            }
+            c = read();
+        }
+        return c;
+    }
+
+    /**
+     * Reads the next byte, refilling the buffer from the channel as needed.
+     * @return the next byte, or -1 at the end of the input.
+     * @throws IOException if the input cannot be read.
+     */
+    private int read() throws IOException {
+        if (pushedBack >= 0) {
+            int c = pushedBack;
+            pushedBack = -1;
+            return c;
+        }
+        if (!buffer.hasRemaining()) {
+            buffer.clear();
+            int n;
+            do {
+                n = channel.read(buffer);
+            } while (n == 0);
+            buffer.flip();
+            if (n < 0) {
+                return -1;
+            }
+        }
+        return buffer.get() & 0xFF;
+    }
+
+    /**
+     * The game being read: its tags, moves, result and whether a move
+     * failed to parse.
+     */
+    private static final class GameState {
+        private final Map<String, String> tags = new LinkedHashMap<String, String>();
+        private GameRecord moves;
+        private String result = PgnGame.UNFINISHED;
+        private boolean inMovetext;
+        private boolean failed;
+
+        /**
+         * Sets up the starting position from the FEN tag, if any.
+         * @param current position to reset to the starting position.
+         */
+        private void startMovetext(Position current) {
+            inMovetext = true;
+            String fen = tags.get("FEN");
+            try {
+                if (fen != null) {
+                    Fen.parse(fen, current);
+                } else {
+                    current.copyFrom(Position.startPosition());
+                }
+            } catch (IllegalArgumentException ex) {
+                failed = true;
+                current.copyFrom(Position.startPosition());
+            }
+            moves = new GameRecord(current);
+        }
+
+        /**
+         * Gets the moves of the game, starting the movetext first if the
+         * game had tags only.
+         * @param current position to reset if the movetext never started.
+         * @return the game record.
+         */
+        private GameRecord record(Position current) {
+            if (!inMovetext) {
+                startMovetext(current);
+            }
+            return moves;
+        }
+    }
+}
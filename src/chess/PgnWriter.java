@@ -0,0 +1,142 @@
+package chess;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+/**
+ * Writes games as PGN, one after another, to a Writer.
+ * Movetext lines are wrapped at 80 characters. The scratch state used to
+ * write moves in SAN is reused from game to game.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public class PgnWriter implements Closeable, Flushable {
+
+    private static final int LINE_LENGTH = 80;
+
+    private final Writer out;
+    private final StringBuilder line = new StringBuilder(LINE_LENGTH + 16);
+    private final StringBuilder word = new StringBuilder(16);
+    private final Position current = new Position();
+    private final Position scratch = new Position();
+    private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+    /**
+     * Constructor for the writer.
+     * @param out writer to send the PGN text to.
+     */
+    public PgnWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes one game: its tags, a blank line, its movetext and another
+     * blank line. A Result tag is added if the game has none, and a FEN
+     * tag if it does not start from the standard position.
+     * @param game game to write.
+     * @throws IOException if the text cannot be written.
+     */
+    public void write(PgnGame game) throws IOException {
+        GameRecord record = game.getRecord();
+        Position start = record.getStart();
+        String startFen = Fen.toFen(start);
+        for (Map.Entry<String, String> tag : game.getTags().entrySet()) {
+            writeTag(tag.getKey(), tag.getValue());
+        }
+        if (game.getTag("Result") == null) {
+            writeTag("Result", game.getResult());
+        }
+        if (game.getTag("FEN") == null && !startFen.equals(Fen.START)) {
+            writeTag("SetUp", "1");
+            writeTag("FEN", startFen);
+        }
+        out.write('\n');
+        current.copyFrom(start);
+        line.setLength(0);
+        for (int i = 0; i < record.getMoveCount(); i++) {
+            int move = record.getMove(i);
+            word.setLength(0);
+            if (current.sideToMove == Position.WHITE) {
+                word.append(current.fullmoveNumber).append(". ");
+            } else if (i == 0) {
+                word.append(current.fullmoveNumber).append("... ");
+            }
+            San.append(word, current, move, scratch, moves);
+            appendWord(word);
+            current.makeMove(move);
+        }
+        word.setLength(0);
+        word.append(game.getResult());
+        appendWord(word);
+        out.append(line).append("\n\n");
+    }
+
+    /**
+     * Writes a position as a single FEN line.
+     * @param pos position to write.
+     * @throws IOException if the text cannot be written.
+     */
+    public void writeFen(Position pos) throws IOException {
+        out.write(Fen.toFen(pos));
+        out.write('\n');
+    }
+
+    /**
+     * Flushes the underlying writer.
+     * @throws IOException if the writer cannot be flushed.
+     */
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Closes the underlying writer.
+     * @throws IOException if the writer cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * Writes a tag pair, escaping quotes and backslashes in the value.
+     * @param name tag name.
+     * @param value tag value.
+     * @throws IOException if the text cannot be written.
+     */
+    private void writeTag(String name, String value) throws IOException {
+        out.write('[');
+        out.write(name);
+        out.write(" \"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.write('\\');
+            }
+            out.write(c);
+        }
+        out.write("\"]\n");
+    }
+
+    /**
+     * Adds a word to the current movetext line, starting a new line
+     * first if it would not fit.
+     * @param text word to add.
+     * @throws IOException if the text cannot be written.
+     */
+    private void appendWord(CharSequence text) throws IOException {
+        if (line.length() > 0 && line.length() + 1 + text.length() > LINE_LENGTH) {
+            out.append(line).append('\n');
+            line.setLength(0);
+        }
+        if (line.length() > 0) {
+            line.append(' ');
+        }
+        line.append(text);
+    }
+}
@@ -1,16 +1,13 @@
 package chess;
 
-import java.io.Serializable;
-
 /**
  * The Class Player represents a person playing the game of Chess.
  * A Player is given a color that determines whether the player
  * is on the black team or the white team.
  * A player can only move pieces of its corresponding color.
  */
-public class Player implements Serializable {
-    
-    private static final long serialVersionUID = 1L;
+public class Player {
+
     private String color;
 
     /**
@@ -29,5 +26,29 @@ public class Player implements Serializable {
         return this.color;
     }
 
-    
+    /**
+     * Checks whether moves for this player come from the board.
+     * @return true for a person clicking on the board.
+     */
+    public boolean isHuman() {
+        return true;
+    }
+
+    /**
+     * Chooses a move for this player. A person moves by clicking, so
+     * the default has no move to offer.
+     * @param pos position to move in; it is not changed.
+     * @param history hashes of the positions of the game before pos,
+     *     oldest first, as given by Game.getHistory.
+     * @return packed move, or Move.NONE.
+     */
+    public int chooseMove(Position pos, long[] history) {
+        return Move.NONE;
+    }
+
+    /**
+     * Interrupts a move being chosen; chooseMove returns early.
+     */
+    public void stopThinking() {
+    }
 }
@@ -0,0 +1,248 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * Opening book in the Polyglot .bin format, memory-mapped read only.
+ * The file is a sorted array of 16 byte big-endian entries: the
+ * Polyglot key of a position (8 bytes), a move (2), a weight (2) and a
+ * learn value (4). A probe binary-searches the mapping for the key, so
+ * it touches a few pages even for books of hundreds of megabytes, and
+ * nothing of the file is copied onto the heap. Books over 1GB are
+ * mapped in several pieces. Probes may run on any number of threads.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public final class PolyglotBook {
+
+    /** Bytes per book entry. */
+    public static final int ENTRY_SIZE = 16;
+
+    private static final int CHUNK_SHIFT = 26;
+    private static final long CHUNK_ENTRIES = 1L << CHUNK_SHIFT;
+
+    private final Path path;
+    private final PolyglotKey keys;
+    private final MappedByteBuffer[] chunks;
+    private final long entryCount;
+    private final ThreadLocal<int[]> legalMoves = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[MoveGenerator.MAX_MOVES];
+        }
+    };
+
+    /**
+     * Opens a book with the standard Polyglot keys.
+     * @param path book file.
+     * @return the book.
+     * @throws IOException if the file cannot be mapped, is not made of
+     *     whole entries, or the Polyglot key table is unavailable.
+     */
+    public static PolyglotBook open(Path path) throws IOException {
+        return new PolyglotBook(path, PolyglotKey.standard());
+    }
+
+    /**
+     * Constructor for a book.
+     * @param path book file.
+     * @param keys keys the book is indexed by.
+     * @throws IOException if the file cannot be mapped or is not made of
+     *     whole entries.
+     */
+    PolyglotBook(Path path, PolyglotKey keys) throws IOException {
+        this.path = path;
+        this.keys = keys;
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size % ENTRY_SIZE != 0) {
+                throw new IOException("Not a Polyglot book: " + path);
+            }
+            entryCount = size / ENTRY_SIZE;
+            int count = (int) ((entryCount + CHUNK_ENTRIES - 1) >>> CHUNK_SHIFT);
+            chunks = new MappedByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long offset = i * CHUNK_ENTRIES * ENTRY_SIZE;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                        Math.min(CHUNK_ENTRIES * ENTRY_SIZE, size - offset));
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Gets the file the book was opened from.
+     * @return book file.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Gets the number of entries in the book.
+     * @return entry count.
+     */
+    public long size() {
+        return entryCount;
+    }
+
+    /**
+     * Lists the book moves of a position that are legal in it.
+     * @param pos position to look up.
+     * @param moves receives the packed moves.
+     * @param weights receives the weight of each move.
+     * @return number of moves, at most the length of the arrays.
+     */
+    public int probe(Position pos, int[] moves, int[] weights) {
+        long key = keys.key(pos);
+        int[] legal = legalMoves.get();
+        int legalCount = MoveGenerator.generateLegal(pos, legal);
+        int count = 0;
+        for (long i = lowerBound(key); i < entryCount && keyAt(i) == key && count < moves.length; i++) {
+            int move = toMove(chunk(i).getShort(offset(i) + 8) & 0xFFFF, legal, legalCount);
+            if (move != Move.NONE) {
+                moves[count] = move;
+                weights[count] = chunk(i).getShort(offset(i) + 10) & 0xFFFF;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the book move with the highest weight.
+     * @param pos position to look up.
+     * @return packed move, or Move.NONE if the position is not in the book.
+     */
+    public int bestMove(Position pos) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int[] weights = new int[MoveGenerator.MAX_MOVES];
+        int count = probe(pos, moves, weights);
+        int best = Move.NONE;
+        int bestWeight = -1;
+        for (int i = 0; i < count; i++) {
+            if (weights[i] > bestWeight) {
+                best = moves[i];
+                bestWeight = weights[i];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Picks a book move at random, in proportion to the weights.
+     * @param pos position to look up.
+     * @param random source of randomness.
+     * @return packed move, or Move.NONE if the position is not in the book.
+     */
+    public int weightedMove(Position pos, Random random) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int[] weights = new int[MoveGenerator.MAX_MOVES];
+        int count = probe(pos, moves, weights);
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            total += weights[i];
+        }
+        if (total == 0) {
+            return count == 0 ? Move.NONE : moves[random.nextInt(count)];
+        }
+        long pick = (long) (random.nextDouble() * total);
+        for (int i = 0; i < count; i++) {
+            pick -= weights[i];
+            if (pick < 0) {
+                return moves[i];
+            }
+        }
+        return moves[count - 1];
+    }
+
+    /**
+     * Finds the first entry whose key is not below a key. Keys compare
+     * as unsigned numbers, as the book is sorted that way.
+     * @param key Polyglot key.
+     * @return entry index, or size() if every key is below it.
+     */
+    private long lowerBound(long key) {
+        long low = 0;
+        long high = entryCount;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (Long.compareUnsigned(keyAt(mid), key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Reads the key of an entry.
+     * @param index entry index.
+     * @return Polyglot key.
+     */
+    private long keyAt(long index) {
+        return chunk(index).getLong(offset(index));
+    }
+
+    /**
+     * Gets the mapping that holds an entry.
+     * @param index entry index.
+     * @return mapped piece of the file.
+     */
+    private MappedByteBuffer chunk(long index) {
+        return chunks[(int) (index >>> CHUNK_SHIFT)];
+    }
+
+    /**
+     * Gets the byte offset of an entry inside its mapping.
+     * @param index entry index.
+     * @return byte offset.
+     */
+    private static int offset(long index) {
+        return (int) (index & (CHUNK_ENTRIES - 1)) * ENTRY_SIZE;
+    }
+
+    /**
+     * Finds the legal move a Polyglot move stands for. Polyglot writes
+     * castling as the king taking its own rook, and promotions with
+     * 1 to 4 for knight to queen, the same order as the piece types.
+     * @param bookMove move as stored in the book.
+     * @param legal legal moves of the position.
+     * @param count number of legal moves.
+     * @return packed move, or Move.NONE if no legal move matches.
+     */
+    private static int toMove(int bookMove, int[] legal, int count) {
+        for (int i = 0; i < count; i++) {
+            if (toBookMove(legal[i]) == bookMove) {
+                return legal[i];
+            }
+        }
+        return Move.NONE;
+    }
+
+    /**
+     * Writes a move the way Polyglot books store it.
+     * @param move packed move.
+     * @return 16 bit Polyglot move.
+     */
+    static int toBookMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        if (Move.flags(move) == Move.KING_CASTLE) {
+            to = from + 3;
+        } else if (Move.flags(move) == Move.QUEEN_CASTLE) {
+            to = from - 4;
+        }
+        int promotion = Move.isPromotion(move) ? Move.promotionType(move) : 0;
+        return to | (from << 6) | (promotion << 12);
+    }
+}
@@ -0,0 +1,189 @@
+package chess;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Position keys in the Polyglot opening book format. They are not the
+ * engine's Zobrist keys: Polyglot books are indexed by XORs of the 781
+ * values of the Random64 table from the Polyglot specification.
+ * Entries 0-767 are for pieces, at 64 * kind + square, where kind is
+ * 2 * type + 1 for white and 2 * type for black; 768-771 are for white
+ * short, white long, black short and black long castling; 772-779 are
+ * for the en passant file, only when a pawn can actually capture there;
+ * 780 is for white to move.
+ * The table is read from the classpath resource RESOURCE, one hex value
+ * per line in specification order, and checked against the keys the
+ * specification publishes for a few positions before it is used.
+ *
+ * @author JC
+ * @version 1.0
+ */
+final class PolyglotKey {
+
+    /** Classpath resource holding the Random64 table. */
+    static final String RESOURCE = "/chess/polyglot-random64.txt";
+    /** Number of values in the Random64 table. */
+    static final int RANDOM_COUNT = 781;
+
+    private static final int CASTLING_OFFSET = 768;
+    private static final int EP_OFFSET = 772;
+    private static final int TURN_OFFSET = 780;
+
+    /** Positions as UCI moves from the start and their published keys. */
+    private static final String[] CHECK_LINES = {
+        "",
+        "e2e4",
+        "e2e4 d7d5",
+        "e2e4 d7d5 e4e5",
+        "e2e4 d7d5 e4e5 f7f5",
+        "e2e4 d7d5 e4e5 f7f5 e1e2",
+        "e2e4 d7d5 e4e5 f7f5 e1e2 e8f7",
+        "a2a4 b7b5 h2h4 b5b4 c2c4",
+        "a2a4 b7b5 h2h4 b5b4 c2c4 b4c3 a1a3",
+    };
+    private static final long[] CHECK_KEYS = {
+        0x463b96181691fc9cL,
+        0x823c9b50fd114196L,
+        0x0756b94461c50fb0L,
+        0x662fafb965db29d4L,
+        0x22a48b5a8e47ff78L,
+        0x652a607ca3f242c1L,
+        0x00fdd303c946bdd9L,
+        0x3c8123ea7b067637L,
+        0x5c3f9b829b279560L,
+    };
+
+    private static PolyglotKey standard;
+
+    private final long[] randoms;
+
+    /**
+     * Constructor for keys made from a table.
+     * @param randoms RANDOM_COUNT values.
+     */
+    PolyglotKey(long[] randoms) {
+        if (randoms.length != RANDOM_COUNT) {
+            throw new IllegalArgumentException("expected " + RANDOM_COUNT + " values, got " + randoms.length);
+        }
+        this.randoms = randoms.clone();
+    }
+
+    /**
+     * Gets the keys of the Polyglot specification, reading the table the
+     * first time.
+     * @return the standard keys.
+     * @throws IOException if the table is missing or does not give the
+     *     published keys.
+     */
+    static PolyglotKey standard() throws IOException {
+        synchronized (PolyglotKey.class) {
+            if (standard == null) {
+                PolyglotKey keys = new PolyglotKey(readTable(RESOURCE));
+                keys.verify();
+                standard = keys;
+            }
+            return standard;
+        }
+    }
+
+    /**
+     * Computes the key of a position.
+     * @param pos position.
+     * @return Polyglot key.
+     */
+    long key(Position pos) {
+        long key = 0;
+        long occupied = pos.occupied();
+        while (occupied != 0) {
+            int sq = Bitboards.lsb(occupied);
+            occupied &= occupied - 1;
+            int piece = pos.pieceAt(sq);
+            int kind = 2 * Position.typeOf(piece) + (Position.colorOf(piece) == Position.WHITE ? 1 : 0);
+            key ^= randoms[64 * kind + sq];
+        }
+        int rights = pos.castlingRights();
+        for (int i = 0; i < 4; i++) {
+            if ((rights & (1 << i)) != 0) {
+                key ^= randoms[CASTLING_OFFSET + i];
+            }
+        }
+        int ep = pos.epSquare();
+        if (ep != Position.NO_SQUARE) {
+            int us = pos.sideToMove();
+            long capturers = Bitboards.pawnAttacks(us ^ 1, ep) & pos.pieces(us, Position.PAWN);
+            if (capturers != 0) {
+                key ^= randoms[EP_OFFSET + Position.fileOf(ep)];
+            }
+        }
+        if (pos.sideToMove() == Position.WHITE) {
+            key ^= randoms[TURN_OFFSET];
+        }
+        return key;
+    }
+
+    /**
+     * checks the keys of the specification's example positions.
+     * @throws IOException if a key differs.
+     */
+    private void verify() throws IOException {
+        for (int i = 0; i < CHECK_LINES.length; i++) {
+            Game game = new Game();
+            for (String move : CHECK_LINES[i].split(" ")) {
+                if (!move.isEmpty()) {
+                    game.applyMove(move);
+                }
+            }
+            if (key(game.position()) != CHECK_KEYS[i]) {
+                throw new IOException("Polyglot table " + RESOURCE + " does not give the published key for \""
+                        + CHECK_LINES[i] + "\"");
+            }
+        }
+    }
+
+    /**
+     * Reads the Random64 table from the classpath.
+     * @param name resource name.
+     * @return the values.
+     * @throws IOException if the resource is missing or malformed.
+     */
+    static long[] readTable(String name) throws IOException {
+        InputStream stream = PolyglotKey.class.getResourceAsStream(name);
+        if (stream == null) {
+            throw new IOException("Polyglot books need the Random64 table of the Polyglot specification in "
+                    + name + " (" + RANDOM_COUNT + " hex values, one per line)");
+        }
+        long[] values = new long[RANDOM_COUNT];
+        int count = 0;
+        BufferedReader in = new BufferedReader(new InputStreamReader(stream, StandardCharsets.US_ASCII));
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                if (line.startsWith("0x") || line.startsWith("0X")) {
+                    line = line.substring(2);
+                }
+                if (count == RANDOM_COUNT) {
+                    throw new IOException("more than " + RANDOM_COUNT + " values in " + name);
+                }
+                try {
+                    values[count++] = Long.parseUnsignedLong(line, 16);
+                } catch (NumberFormatException ex) {
+                    throw new IOException("bad value " + line + " in " + name);
+                }
+            }
+        } finally {
+            in.close();
+        }
+        if (count != RANDOM_COUNT) {
+            throw new IOException("only " + count + " values in " + name);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,611 @@
+package chess;
+
+/**
+ * Headless chess position made of 64-bit bitboards.
+ * There is one bitboard per piece type and color, one per color and one
+ * for all occupied squares, plus a 64-entry mailbox so the piece on any
+ * square can be looked up directly.
+ * Squares are numbered 0 (a1) to 63 (h8), file-major within each rank.
+ * Pieces are small ints: color * 6 + type.
+ * The position also keeps the side to move, castling rights,
+ * the en passant square and the move clocks, and a Zobrist hash that is
+ * updated with every change so equal positions can be recognised cheaply.
+ * The middlegame and endgame material and piece-square sums of Evaluator,
+ * the game phase and a hash of the pawns alone are kept up to date the
+ * same way.
+ * Every move made is pushed on an undo stack of primitive records, so it
+ * can be taken back exactly with unmakeMove.
+ * The pieces giving check and the pieces pinned to the side to move's
+ * king are worked out once per move, from the king outwards, so the move
+ * generator and the end-of-game tests can read them at no cost.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public final class Position {
+
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    public static final int PAWN = 0;
+    public static final int KNIGHT = 1;
+    public static final int BISHOP = 2;
+    public static final int ROOK = 3;
+    public static final int QUEEN = 4;
+    public static final int KING = 5;
+
+    public static final int NO_PIECE = -1;
+    public static final int NO_SQUARE = -1;
+
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+    public static final int ALL_CASTLING = 15;
+
+    private static final int[] CASTLING_MASK = new int[64];
+    private static final int UNDO_LONGS = 2;
+    private static final int INITIAL_UNDO_DEPTH = 256;
+
+    static {
+        for (int sq = 0; sq < 64; sq++) {
+            CASTLING_MASK[sq] = ALL_CASTLING;
+        }
+        CASTLING_MASK[0] = ALL_CASTLING & ~WHITE_QUEENSIDE;
+        CASTLING_MASK[4] = ALL_CASTLING & ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASK[7] = ALL_CASTLING & ~WHITE_KINGSIDE;
+        CASTLING_MASK[56] = ALL_CASTLING & ~BLACK_QUEENSIDE;
+        CASTLING_MASK[60] = ALL_CASTLING & ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_MASK[63] = ALL_CASTLING & ~BLACK_KINGSIDE;
+    }
+
+    final long[] pieces = new long[12];
+    final long[] colors = new long[2];
+    long occupied;
+    final int[] board = new int[64];
+    int sideToMove;
+    int castling;
+    int epSquare;
+    int halfmoveClock;
+    int fullmoveNumber;
+    long hash;
+    private long epKey;
+    long pawnKey;
+    int middlegame;
+    int endgame;
+    int phase;
+    private long checkers;
+    private long pinned;
+    private boolean checkInfoStale;
+    private long[] undo = new long[INITIAL_UNDO_DEPTH * UNDO_LONGS];
+    private int undoCount;
+
+    /**
+     * Constructor for an empty position with white to move.
+     */
+    public Position() {
+        clear();
+    }
+
+    /**
+     * Creates the standard starting position.
+     * @return a new position with all 32 pieces set up.
+     */
+    public static Position startPosition() {
+        Position pos = new Position();
+        int[] backRank = {ROOK, KNIGHT, BISHOP, QUEEN, KING, BISHOP, KNIGHT, ROOK};
+        for (int file = 0; file < 8; file++) {
+            pos.put(piece(WHITE, backRank[file]), square(file, 0));
+            pos.put(piece(WHITE, PAWN), square(file, 1));
+            pos.put(piece(BLACK, PAWN), square(file, 6));
+            pos.put(piece(BLACK, backRank[file]), square(file, 7));
+        }
+        pos.setCastlingRights(ALL_CASTLING);
+        return pos;
+    }
+
+    /**
+     * Removes every piece and resets the state fields.
+     */
+    public void clear() {
+        for (int i = 0; i < 12; i++) {
+            pieces[i] = 0L;
+        }
+        colors[WHITE] = 0L;
+        colors[BLACK] = 0L;
+        occupied = 0L;
+        for (int sq = 0; sq < 64; sq++) {
+            board[sq] = NO_PIECE;
+        }
+        sideToMove = WHITE;
+        castling = 0;
+        epSquare = NO_SQUARE;
+        halfmoveClock = 0;
+        fullmoveNumber = 1;
+        hash = 0L;
+        epKey = 0L;
+        pawnKey = 0L;
+        middlegame = 0;
+        endgame = 0;
+        phase = 0;
+        undoCount = 0;
+        checkInfoStale = true;
+    }
+
+    /**
+     * Copies every field of another position into this one. The undo
+     * stack is not copied; the copy starts with no moves to take back.
+     * @param other position to copy from.
+     */
+    public void copyFrom(Position other) {
+        System.arraycopy(other.pieces, 0, pieces, 0, 12);
+        colors[WHITE] = other.colors[WHITE];
+        colors[BLACK] = other.colors[BLACK];
+        occupied = other.occupied;
+        System.arraycopy(other.board, 0, board, 0, 64);
+        sideToMove = other.sideToMove;
+        castling = other.castling;
+        epSquare = other.epSquare;
+        halfmoveClock = other.halfmoveClock;
+        fullmoveNumber = other.fullmoveNumber;
+        hash = other.hash;
+        epKey = other.epKey;
+        pawnKey = other.pawnKey;
+        middlegame = other.middlegame;
+        endgame = other.endgame;
+        phase = other.phase;
+        checkers = other.checkers;
+        pinned = other.pinned;
+        checkInfoStale = other.checkInfoStale;
+        undoCount = 0;
+    }
+
+    /**
+     * Places a piece on an empty square.
+     * @param piece piece code to place.
+     * @param sq square to place it on.
+     */
+    public void put(int piece, int sq) {
+        long bit = 1L << sq;
+        pieces[piece] |= bit;
+        colors[colorOf(piece)] |= bit;
+        occupied |= bit;
+        board[sq] = piece;
+        hash ^= Zobrist.PIECE_SQUARE[piece * 64 + sq];
+        pawnKey ^= Zobrist.PAWN_SQUARE[piece * 64 + sq];
+        middlegame += Evaluator.MIDDLEGAME[piece * 64 + sq];
+        endgame += Evaluator.ENDGAME[piece * 64 + sq];
+        phase += Evaluator.PHASE[piece];
+        checkInfoStale = true;
+    }
+
+    /**
+     * Removes whatever piece is on a square.
+     * @param sq square to empty.
+     * @return the piece that was removed, or NO_PIECE.
+     */
+    public int remove(int sq) {
+        int piece = board[sq];
+        if (piece != NO_PIECE) {
+            long bit = ~(1L << sq);
+            pieces[piece] &= bit;
+            colors[colorOf(piece)] &= bit;
+            occupied &= bit;
+            board[sq] = NO_PIECE;
+            hash ^= Zobrist.PIECE_SQUARE[piece * 64 + sq];
+            pawnKey ^= Zobrist.PAWN_SQUARE[piece * 64 + sq];
+            middlegame -= Evaluator.MIDDLEGAME[piece * 64 + sq];
+            endgame -= Evaluator.ENDGAME[piece * 64 + sq];
+            phase -= Evaluator.PHASE[piece];
+            checkInfoStale = true;
+        }
+        return piece;
+    }
+
+    /**
+     * Moves the piece on one square to another, capturing whatever
+     * was on the target square.
+     * @param from square the piece is moving from.
+     * @param to square the piece is moving to.
+     * @return the captured piece, or NO_PIECE.
+     */
+    public int movePiece(int from, int to) {
+        int captured = remove(to);
+        put(remove(from), to);
+        return captured;
+    }
+
+    /**
+     * Plays a legal move and hands the turn to the other side.
+     * Handles captures, en passant, castling and promotion, and updates
+     * the castling rights, en passant square and move clocks.
+     * The state the move destroys is pushed on the undo stack.
+     * @param move packed move, as listed by MoveGenerator.
+     */
+    public void makeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flags = Move.flags(move);
+        int us = sideToMove;
+        long savedHash = hash;
+        int piece = remove(from);
+        int captured;
+        if (flags == Move.EP_CAPTURE) {
+            captured = remove(us == WHITE ? to - 8 : to + 8);
+        } else {
+            captured = remove(to);
+        }
+        pushUndo(captured, savedHash);
+        if (Move.isPromotion(move)) {
+            put(piece(us, Move.promotionType(move)), to);
+        } else {
+            put(piece, to);
+        }
+        if (flags == Move.KING_CASTLE) {
+            put(remove(to + 1), to - 1);
+        } else if (flags == Move.QUEEN_CASTLE) {
+            put(remove(to - 2), to + 1);
+        }
+        setCastlingRights(castling & CASTLING_MASK[from] & CASTLING_MASK[to]);
+        setEpSquare(flags == Move.DOUBLE_PAWN_PUSH ? (from + to) >>> 1 : NO_SQUARE);
+        if (typeOf(piece) == PAWN || captured != NO_PIECE) {
+            halfmoveClock = 0;
+        } else {
+            halfmoveClock++;
+        }
+        if (us == BLACK) {
+            fullmoveNumber++;
+        }
+        sideToMove = us ^ 1;
+        hash ^= Zobrist.SIDE;
+        updateCheckInfo();
+    }
+
+    /**
+     * Takes back the last move made, restoring the captured piece,
+     * castling rights, en passant square, clocks and hash exactly.
+     * @param move the move that was made last.
+     */
+    public void unmakeMove(int move) {
+        int top = --undoCount * UNDO_LONGS;
+        long state = undo[top];
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flags = Move.flags(move);
+        int us = sideToMove ^ 1;
+        int piece = remove(to);
+        put(Move.isPromotion(move) ? piece(us, PAWN) : piece, from);
+        int captured = (int) (state & 0xF) - 1;
+        if (flags == Move.EP_CAPTURE) {
+            put(captured, us == WHITE ? to - 8 : to + 8);
+        } else if (captured != NO_PIECE) {
+            put(captured, to);
+        }
+        if (flags == Move.KING_CASTLE) {
+            put(remove(to - 1), to + 1);
+        } else if (flags == Move.QUEEN_CASTLE) {
+            put(remove(to + 1), to - 2);
+        }
+        castling = (int) (state >>> 4) & 0xF;
+        epSquare = (int) ((state >>> 8) & 0x7F) - 1;
+        halfmoveClock = (int) (state >>> 16);
+        if (us == BLACK) {
+            fullmoveNumber--;
+        }
+        sideToMove = us;
+        hash = undo[top + 1];
+        epKey = Zobrist.enPassant(this, epSquare);
+        updateCheckInfo();
+    }
+
+    /**
+     * checks to see if the side to move is in check.
+     * @return true if the king of the side to move is attacked.
+     */
+    public boolean inCheck() {
+        return checkers() != 0;
+    }
+
+    /**
+     * Gets the enemy pieces that attack the king of the side to move.
+     * @return bitboard of the checking pieces.
+     */
+    public long checkers() {
+        if (checkInfoStale) {
+            updateCheckInfo();
+        }
+        return checkers;
+    }
+
+    /**
+     * Gets the pieces of the side to move that are pinned to their king:
+     * moving one off its line would expose the king to a slider.
+     * @return bitboard of the pinned pieces.
+     */
+    public long pinned() {
+        if (checkInfoStale) {
+            updateCheckInfo();
+        }
+        return pinned;
+    }
+
+    /**
+     * Works out the checkers and pinned pieces for the side to move by
+     * looking outwards from its king: leaper attacks for checks, and for
+     * pins the enemy sliders that would see the king through exactly one
+     * friendly piece.
+     */
+    private void updateCheckInfo() {
+        int us = sideToMove;
+        int them = us ^ 1;
+        long king = pieces[piece(us, KING)];
+        checkers = 0L;
+        pinned = 0L;
+        checkInfoStale = false;
+        if (king == 0) {
+            return;
+        }
+        int k = Bitboards.lsb(king);
+        int base = piece(them, PAWN);
+        long diagonal = pieces[base + BISHOP] | pieces[base + QUEEN];
+        long straight = pieces[base + ROOK] | pieces[base + QUEEN];
+        checkers = (Bitboards.pawnAttacks(us, k) & pieces[base + PAWN])
+                | (Bitboards.knightAttacks(k) & pieces[base + KNIGHT])
+                | (Bitboards.bishopAttacks(k, occupied) & diagonal)
+                | (Bitboards.rookAttacks(k, occupied) & straight);
+        long snipers = (Bitboards.bishopAttacks(k, 0L) & diagonal)
+                | (Bitboards.rookAttacks(k, 0L) & straight);
+        while (snipers != 0) {
+            int sq = Bitboards.lsb(snipers);
+            snipers &= snipers - 1;
+            long blockers = Bitboards.between(k, sq) & occupied;
+            if (blockers != 0 && (blockers & (blockers - 1)) == 0) {
+                pinned |= blockers & colors[us];
+            }
+        }
+    }
+
+    /**
+     * Returns the number of moves that can be taken back.
+     * @return depth of the undo stack.
+     */
+    public int undoDepth() {
+        return undoCount;
+    }
+
+    /**
+     * Gets the hashes of the positions the moves on the undo stack were
+     * made from, oldest first. For a position reached by playing a game's
+     * moves these are the game's earlier positions.
+     * @return one hash per move that can be taken back.
+     */
+    public long[] history() {
+        long[] hashes = new long[undoCount];
+        for (int i = 0; i < undoCount; i++) {
+            hashes[i] = undo[i * UNDO_LONGS + 1];
+        }
+        return hashes;
+    }
+
+    /**
+     * Pushes the state a move is about to destroy. The stack only grows
+     * when a line is longer than any before it, so replaying a search
+     * tree never allocates.
+     * @param captured piece the move captures, or NO_PIECE.
+     * @param savedHash hash before the move.
+     */
+    private void pushUndo(int captured, long savedHash) {
+        int top = undoCount * UNDO_LONGS;
+        if (top == undo.length) {
+            long[] grown = new long[undo.length * 2];
+            System.arraycopy(undo, 0, grown, 0, undo.length);
+            undo = grown;
+        }
+        undo[top] = (captured + 1)
+                | (castling << 4)
+                | ((epSquare + 1) << 8)
+                | ((long) halfmoveClock << 16);
+        undo[top + 1] = savedHash;
+        undoCount++;
+    }
+
+    /**
+     * Gets the piece on a square.
+     * @param sq square to look at.
+     * @return piece code, or NO_PIECE if the square is empty.
+     */
+    public int pieceAt(int sq) {
+        return board[sq];
+    }
+
+    /**
+     * checks to see if there is a piece on a square.
+     * @param sq square to look at.
+     * @return true if the square is occupied.
+     */
+    public boolean isOccupied(int sq) {
+        return (occupied & (1L << sq)) != 0;
+    }
+
+    /**
+     * Gets the bitboard of one piece type of one color.
+     * @param color WHITE or BLACK.
+     * @param type piece type.
+     * @return bitboard of those pieces.
+     */
+    public long pieces(int color, int type) {
+        return pieces[piece(color, type)];
+    }
+
+    /**
+     * Gets the bitboard of every piece of one color.
+     * @param color WHITE or BLACK.
+     * @return bitboard of that side's pieces.
+     */
+    public long occupancy(int color) {
+        return colors[color];
+    }
+
+    /**
+     * Gets the bitboard of every occupied square.
+     * @return bitboard of all pieces.
+     */
+    public long occupied() {
+        return occupied;
+    }
+
+    /**
+     * Returns the color that is to move.
+     * @return WHITE or BLACK.
+     */
+    public int sideToMove() {
+        return sideToMove;
+    }
+
+    /**
+     * Sets the color that is to move.
+     * @param color WHITE or BLACK.
+     */
+    public void setSideToMove(int color) {
+        if (color != sideToMove) {
+            hash ^= Zobrist.SIDE;
+        }
+        sideToMove = color;
+        checkInfoStale = true;
+    }
+
+    /**
+     * Returns the castling rights as a mask of the *_KINGSIDE and
+     * *_QUEENSIDE flags.
+     * @return castling rights.
+     */
+    public int castlingRights() {
+        return castling;
+    }
+
+    /**
+     * Sets the castling rights.
+     * @param rights mask of the *_KINGSIDE and *_QUEENSIDE flags.
+     */
+    public void setCastlingRights(int rights) {
+        hash ^= Zobrist.CASTLING[castling] ^ Zobrist.CASTLING[rights];
+        castling = rights;
+    }
+
+    /**
+     * Returns the square a pawn can be captured on en passant.
+     * @return en passant square, or NO_SQUARE.
+     */
+    public int epSquare() {
+        return epSquare;
+    }
+
+    /**
+     * Sets the en passant square. The square is kept as given, but its
+     * file only goes into the hash if a pawn stands ready to capture on
+     * it, so the pawns should be in place before the square is set.
+     * @param sq en passant square, or NO_SQUARE.
+     */
+    public void setEpSquare(int sq) {
+        hash ^= epKey;
+        epKey = Zobrist.enPassant(this, sq);
+        hash ^= epKey;
+        epSquare = sq;
+    }
+
+    /**
+     * Returns the Zobrist hash of the position.
+     * @return hash of the position.
+     */
+    public long hash() {
+        return hash;
+    }
+
+    /**
+     * Returns the number of half moves since the last capture or pawn move.
+     * @return halfmove clock.
+     */
+    public int halfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * Sets the halfmove clock.
+     * @param clock number of half moves since the last capture or pawn move.
+     */
+    public void setHalfmoveClock(int clock) {
+        halfmoveClock = clock;
+    }
+
+    /**
+     * Returns the full move number, starting at 1.
+     * @return full move number.
+     */
+    public int fullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /**
+     * Sets the full move number.
+     * @param number full move number, starting at 1.
+     */
+    public void setFullmoveNumber(int number) {
+        fullmoveNumber = number;
+    }
+
+    /**
+     * Builds a piece code.
+     * @param color WHITE or BLACK.
+     * @param type piece type.
+     * @return piece code.
+     */
+    public static int piece(int color, int type) {
+        return color * 6 + type;
+    }
+
+    /**
+     * Gets the color of a piece code.
+     * @param piece piece code.
+     * @return WHITE or BLACK.
+     */
+    public static int colorOf(int piece) {
+        return piece >= 6 ? BLACK : WHITE;
+    }
+
+    /**
+     * Gets the type of a piece code.
+     * @param piece piece code.
+     * @return piece type.
+     */
+    public static int typeOf(int piece) {
+        return piece >= 6 ? piece - 6 : piece;
+    }
+
+    /**
+     * Builds a square index.
+     * @param file file from 0 (a) to 7 (h).
+     * @param rank rank from 0 (1) to 7 (8).
+     * @return square index.
+     */
+    public static int square(int file, int rank) {
+        return rank * 8 + file;
+    }
+
+    /**
+     * Gets the file of a square.
+     * @param sq square index.
+     * @return file from 0 (a) to 7 (h).
+     */
+    public static int fileOf(int sq) {
+        return sq & 7;
+    }
+
+    /**
+     * Gets the rank of a square.
+     * @param sq square index.
+     * @return rank from 0 (1) to 7 (8).
+     */
+    public static int rankOf(int sq) {
+        return sq >>> 3;
+    }
+}
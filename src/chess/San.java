@@ -0,0 +1,215 @@
+package chess;
+
+/**
+ * Reads and writes moves in Standard Algebraic Notation, such as Nf3,
+ * exd5, O-O or e8=Q+.
+ * Parsing works straight off a byte range so that PGN files can be read
+ * without turning every move into a String.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public final class San {
+
+    private static final String PIECE_LETTERS = "PNBRQK";
+
+    private San() {
+    }
+
+    /**
+     * Parses a SAN move.
+     * @param pos position the move is played in.
+     * @param san move text.
+     * @return packed move, or Move.NONE if it is not a legal move.
+     */
+    public static int parse(Position pos, String san) {
+        byte[] bytes = new byte[san.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) san.charAt(i);
+        }
+        return parse(pos, bytes, 0, bytes.length, new int[MoveGenerator.MAX_MOVES]);
+    }
+
+    /**
+     * Parses a SAN move from a range of bytes.
+     * Check, mate and annotation marks at the end are ignored, and
+     * long-algebraic forms such as Ng1-f3 are accepted.
+     * @param pos position the move is played in.
+     * @param text buffer holding the move.
+     * @param off first byte of the move.
+     * @param len number of bytes in the move.
+     * @param moves scratch buffer of at least MoveGenerator.MAX_MOVES entries.
+     * @return packed move, or Move.NONE if it is not exactly one legal move.
+     */
+    public static int parse(Position pos, byte[] text, int off, int len, int[] moves) {
+        int end = off + len;
+        while (end > off && isSuffix(text[end - 1])) {
+            end--;
+        }
+        if (end - off < 2) {
+            return Move.NONE;
+        }
+        int count = MoveGenerator.generateLegal(pos, moves);
+        if (text[off] == 'O' || text[off] == '0') {
+            int flags = end - off >= 5 ? Move.QUEEN_CASTLE : Move.KING_CASTLE;
+            for (int i = 0; i < count; i++) {
+                if (Move.flags(moves[i]) == flags) {
+                    return moves[i];
+                }
+            }
+            return Move.NONE;
+        }
+        int type = Position.PAWN;
+        int i = off;
+        int letter = PIECE_LETTERS.indexOf(text[i]);
+        if (letter >= 0) {
+            type = letter;
+            i++;
+        }
+        int promotion = -1;
+        if (type == Position.PAWN && end - i >= 3) {
+            int promo = PIECE_LETTERS.indexOf(Character.toUpperCase((char) text[end - 1]));
+            if (promo >= Position.KNIGHT && promo <= Position.QUEEN
+                    && (text[end - 2] == '=' || text[end - 2] == '1' || text[end - 2] == '8')) {
+                promotion = promo;
+                end -= text[end - 2] == '=' ? 2 : 1;
+            }
+        }
+        if (end - i < 2) {
+            return Move.NONE;
+        }
+        int toFile = text[end - 2] - 'a';
+        int toRank = text[end - 1] - '1';
+        if (toFile < 0 || toFile > 7 || toRank < 0 || toRank > 7) {
+            return Move.NONE;
+        }
+        int to = Position.square(toFile, toRank);
+        int fromFile = -1;
+        int fromRank = -1;
+        for (int j = i; j < end - 2; j++) {
+            byte c = text[j];
+            if (c >= 'a' && c <= 'h') {
+                fromFile = c - 'a';
+            } else if (c >= '1' && c <= '8') {
+                fromRank = c - '1';
+            } else if (c != 'x' && c != ':' && c != '-') {
+                return Move.NONE;
+            }
+        }
+        int found = Move.NONE;
+        for (int j = 0; j < count; j++) {
+            int move = moves[j];
+            int from = Move.from(move);
+            if (Move.to(move) != to || Position.typeOf(pos.board[from]) != type
+                    || (fromFile >= 0 && Position.fileOf(from) != fromFile)
+                    || (fromRank >= 0 && Position.rankOf(from) != fromRank)) {
+                continue;
+            }
+            if (Move.isPromotion(move) && Move.promotionType(move) != promotion) {
+                continue;
+            }
+            if (found != Move.NONE) {
+                return Move.NONE;
+            }
+            found = move;
+        }
+        return found;
+    }
+
+    /**
+     * Writes a move in SAN, with + or # added for check and mate.
+     * @param pos position the move is played in; it is not changed.
+     * @param move legal packed move.
+     * @return move in SAN.
+     */
+    public static String toSan(Position pos, int move) {
+        StringBuilder sb = new StringBuilder(8);
+        append(sb, pos, move, new Position(), new int[MoveGenerator.MAX_MOVES]);
+        return sb.toString();
+    }
+
+    /**
+     * Appends a move in SAN, with + or # added for check and mate.
+     * @param sb builder to append to.
+     * @param pos position the move is played in; it is not changed.
+     * @param move legal packed move.
+     * @param scratch position used to play the move to look for check.
+     * @param moves scratch buffer of at least MoveGenerator.MAX_MOVES entries.
+     */
+    public static void append(StringBuilder sb, Position pos, int move, Position scratch, int[] moves) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flags = Move.flags(move);
+        int type = Position.typeOf(pos.board[from]);
+        if (flags == Move.KING_CASTLE) {
+            sb.append("O-O");
+        } else if (flags == Move.QUEEN_CASTLE) {
+            sb.append("O-O-O");
+        } else if (type == Position.PAWN) {
+            if (Move.isCapture(move)) {
+                sb.append((char) ('a' + Position.fileOf(from))).append('x');
+            }
+            sb.append(Move.squareName(to));
+            if (Move.isPromotion(move)) {
+                sb.append('=').append(PIECE_LETTERS.charAt(Move.promotionType(move)));
+            }
+        } else {
+            sb.append(PIECE_LETTERS.charAt(type));
+            appendDisambiguation(sb, pos, move, type, moves);
+            if (Move.isCapture(move)) {
+                sb.append('x');
+            }
+            sb.append(Move.squareName(to));
+        }
+        scratch.copyFrom(pos);
+        scratch.makeMove(move);
+        if (MoveGenerator.inCheck(scratch)) {
+            sb.append(MoveGenerator.generateLegal(scratch, moves) == 0 ? '#' : '+');
+        }
+    }
+
+    /**
+     * Appends the file, rank or square of the moving piece when another
+     * piece of the same type could move to the same square.
+     * @param sb builder to append to.
+     * @param pos position the move is played in.
+     * @param move packed move.
+     * @param type type of the moving piece.
+     * @param moves scratch move buffer.
+     */
+    private static void appendDisambiguation(StringBuilder sb, Position pos, int move, int type, int[] moves) {
+        int from = Move.from(move);
+        int count = MoveGenerator.generateLegal(pos, moves);
+        boolean ambiguous = false;
+        boolean sameFile = false;
+        boolean sameRank = false;
+        for (int i = 0; i < count; i++) {
+            int other = Move.from(moves[i]);
+            if (other != from && Move.to(moves[i]) == Move.to(move)
+                    && Position.typeOf(pos.board[other]) == type) {
+                ambiguous = true;
+                sameFile |= Position.fileOf(other) == Position.fileOf(from);
+                sameRank |= Position.rankOf(other) == Position.rankOf(from);
+            }
+        }
+        if (!ambiguous) {
+            return;
+        }
+        if (!sameFile) {
+            sb.append((char) ('a' + Position.fileOf(from)));
+        } else if (!sameRank) {
+            sb.append((char) ('1' + Position.rankOf(from)));
+        } else {
+            sb.append(Move.squareName(from));
+        }
+    }
+
+    /**
+     * checks to see if a byte is a check, mate or annotation mark.
+     * @param c byte to check.
+     * @return true if the byte can be dropped from the end of a move.
+     */
+    private static boolean isSuffix(byte c) {
+        return c == '+' || c == '#' || c == '!' || c == '?';
+    }
+}
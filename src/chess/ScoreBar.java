@@ -0,0 +1,83 @@
+package chess;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.util.Locale;
+import javax.swing.JComponent;
+
+/**
+ * A vertical bar beside the board showing who stands better by the
+ * static evaluation: the white part grows from the bottom as White's
+ * score rises, and the score is written in pawns at the end of the bar
+ * that belongs to the side ahead. Scores are squashed so that a few
+ * pawns already fill most of the bar.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public class ScoreBar extends JComponent {
+
+    private static final long serialVersionUID = 1L;
+    private static final Color WHITE_SIDE = Color.WHITE;
+    private static final Color BLACK_SIDE = Color.DARK_GRAY;
+    /** Centipawns at which the white part covers about three quarters. */
+    private static final double SCALE = 400.0;
+
+    private int score;
+
+    /**
+     * Shows a new score.
+     * @param whiteScore score in centipawns, positive when White is better.
+     */
+    public void setScore(int whiteScore) {
+        if (whiteScore != score) {
+            score = whiteScore;
+            repaint();
+        }
+    }
+
+    /**
+     * Gets the score shown.
+     * @return score in centipawns for White.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Gets the preferred size, a narrow strip as tall as the board.
+     * @return preferred size.
+     */
+    @Override
+    public Dimension getPreferredSize() {
+        return new Dimension(40, 800);
+    }
+
+    /**
+     * Draws the two parts of the bar and the score.
+     * @param g graphics to draw with.
+     */
+    @Override
+    protected void paintComponent(Graphics g) {
+        int width = getWidth();
+        int height = getHeight();
+        double share = 1.0 / (1.0 + Math.exp(-score * Math.log(3.0) / SCALE));
+        int white = (int) Math.round(height * share);
+        g.setColor(BLACK_SIDE);
+        g.fillRect(0, 0, width, height - white);
+        g.setColor(WHITE_SIDE);
+        g.fillRect(0, height - white, width, white);
+        String text = String.format(Locale.ROOT, "%.1f", Math.abs(score) / 100.0);
+        FontMetrics metrics = g.getFontMetrics();
+        int x = (width - metrics.stringWidth(text)) / 2;
+        if (score >= 0) {
+            g.setColor(BLACK_SIDE);
+            g.drawString(text, x, height - 4);
+        } else {
+            g.setColor(WHITE_SIDE);
+            g.drawString(text, x, metrics.getAscent() + 2);
+        }
+    }
+}
@@ -0,0 +1,660 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * One search thread: iterative deepening principal variation search with
+ * a quiescence search at the leaves.
+ * The tree is walked with makeMove and unmakeMove on a single Position,
+ * and all per-node state lives in arrays allocated once per Search, so
+ * searching does not allocate. Results are shared through the
+ * TranspositionTable handed in by the Engine, which is how several
+ * searches running at once help each other.
+ * Each search counts its transposition table probes, hits and
+ * collisions, its move generations and its cutoffs in plain fields,
+ * reset at the start of every search, and records a SearchIterationEvent
+ * for Flight Recorder after every completed iteration.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public class Search {
+
+    public static final int INFINITY = 32000;
+    public static final int MATE = 31000;
+    /** Scores beyond this are mate scores. */
+    public static final int MATE_BOUND = MATE - 1000;
+
+    private static final int MAX_PLY = 128;
+    /** Game positions before the root kept for repetitions; the fifty move rule ends any longer run. */
+    private static final int MAX_HISTORY = 100;
+    private static final long[] NO_HISTORY = new long[0];
+    private static final int CHECK_INTERVAL = 2047;
+    /** History scores are halved once one of them passes this. */
+    private static final int HISTORY_LIMIT = 1 << 20;
+
+    private final TranspositionTable tt;
+    private final Position pos = new Position();
+    private final int[] rootMoves = new int[MoveGenerator.MAX_MOVES];
+    private final MovePicker[] pickers = new MovePicker[MAX_PLY + 1];
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    private final int[] history = new int[12 * 64];
+    private final long[] stageCutoffs = new long[MovePicker.STAGE_COUNT];
+    private final PawnTable pawnTable = new PawnTable(PawnTable.DEFAULT_MB);
+    private final long[] hashes = new long[MAX_HISTORY + MAX_PLY + 1];
+    private final int[] pv = new int[MAX_PLY];
+    private final int[][] pvTable = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] pvLength = new int[MAX_PLY + 1];
+
+    private volatile boolean stopped;
+    private int rootIndex;
+    private int depthOffset;
+    private long nodes;
+    private long nodeLimit;
+    private long deadline;
+    private int bestMove;
+    private int bestScore;
+    private int completedDepth;
+    private int pvCount;
+    private long cutoffs;
+    private long firstMoveCutoffs;
+    private long ttProbes;
+    private long ttHits;
+    private long ttCollisions;
+    private long generations;
+    private long movesGenerated;
+    private double branchingFactor;
+    private SearchListener listener;
+    private Tablebases tablebases;
+
+    /**
+     * Constructor for a search thread.
+     * @param tt transposition table shared with other searches.
+     */
+    public Search(TranspositionTable tt) {
+        this.tt = tt;
+        for (int i = 0; i < pickers.length; i++) {
+            pickers[i] = new MovePicker();
+        }
+    }
+
+    /**
+     * Searches a position with iterative deepening until a limit is
+     * reached or stop() is called.
+     * @param root position to search; it is not changed.
+     * @param limits depth, node and time limits.
+     * @return best move found, or Move.NONE if there are no legal moves.
+     */
+    public int search(Position root, SearchLimits limits) {
+        prepare(NO_HISTORY);
+        return run(root, limits);
+    }
+
+    /**
+     * Clears the stop flag before a search is started, so a stop that
+     * arrives before the search thread gets going is not lost, and takes
+     * the hashes of the game positions before the root.
+     * @param history hashes of the positions before the root, oldest
+     *     first; only the last MAX_HISTORY are kept.
+     */
+    void prepare(long[] history) {
+        stopped = false;
+        rootIndex = Math.min(history.length, MAX_HISTORY);
+        System.arraycopy(history, history.length - rootIndex, hashes, 0, rootIndex);
+    }
+
+    /**
+     * Searches a position after prepare has been called. An infinite
+     * search waits for stop() after its last iteration.
+     * @param root position to search; it is not changed.
+     * @param limits depth, node and time limits.
+     * @return best move found, or Move.NONE if there are no legal moves.
+     */
+    int run(Position root, SearchLimits limits) {
+        int move = iterate(root, limits);
+        if (limits.isInfinite()) {
+            awaitStop();
+        }
+        return move;
+    }
+
+    /**
+     * Waits until stop() is called.
+     */
+    private void awaitStop() {
+        boolean interrupted = false;
+        while (!stopped) {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs the iterations of a search.
+     * @param root position to search; it is not changed.
+     * @param limits depth, node and time limits.
+     * @return best move found, or Move.NONE if there are no legal moves.
+     */
+    private int iterate(Position root, SearchLimits limits) {
+        nodes = 0;
+        nodeLimit = limits.getNodes();
+        long start = System.currentTimeMillis();
+        deadline = limits.getMoveTimeMs() > 0 ? start + limits.getMoveTimeMs() : Long.MAX_VALUE;
+        bestMove = Move.NONE;
+        bestScore = 0;
+        completedDepth = 0;
+        pvCount = 0;
+        cutoffs = 0;
+        firstMoveCutoffs = 0;
+        ttProbes = 0;
+        ttHits = 0;
+        ttCollisions = 0;
+        generations = 0;
+        movesGenerated = 0;
+        branchingFactor = 0;
+        Arrays.fill(stageCutoffs, 0);
+        pawnTable.resetStatistics();
+        for (int[] pair : killers) {
+            pair[0] = Move.NONE;
+            pair[1] = Move.NONE;
+        }
+        ageHistory();
+        pos.copyFrom(root);
+        int legal = MoveGenerator.generateLegal(root, rootMoves);
+        if (legal == 0) {
+            bestScore = MoveGenerator.inCheck(root) ? -MATE : 0;
+            return Move.NONE;
+        }
+        bestMove = rootMoves[0];
+        if (tablebases != null && Long.bitCount(root.occupied()) <= Tablebases.MAX_PIECES) {
+            int tbMove = tablebases.bestMove(root);
+            if (tbMove != Move.NONE) {
+                bestMove = tbMove;
+                bestScore = tablebaseScore(tablebases.probe(root), 0);
+                completedDepth = 1;
+                pv[0] = tbMove;
+                pvCount = 1;
+                if (listener != null) {
+                    listener.iterationFinished(1, bestScore, System.currentTimeMillis() - start,
+                            getPrincipalVariation());
+                }
+                return bestMove;
+            }
+        }
+        int maxDepth = limits.maxDepth();
+        long previousNodes = 0;
+        long previousIterationNodes = 0;
+        for (int depth = 1 + depthOffset; depth <= maxDepth; depth++) {
+            SearchIterationEvent event = new SearchIterationEvent();
+            event.begin();
+            int score = pvs(0, depth, -INFINITY, INFINITY);
+            if (stopped) {
+                break;
+            }
+            long iterationNodes = nodes - previousNodes;
+            if (previousIterationNodes > 0) {
+                branchingFactor = (double) iterationNodes / previousIterationNodes;
+            }
+            previousNodes = nodes;
+            previousIterationNodes = iterationNodes;
+            bestScore = score;
+            completedDepth = depth;
+            if (pvLength[0] > 0) {
+                bestMove = pvTable[0][0];
+                pvCount = pvLength[0];
+                System.arraycopy(pvTable[0], 0, pv, 0, pvCount);
+            }
+            long elapsed = System.currentTimeMillis() - start;
+            event.end();
+            if (event.shouldCommit()) {
+                event.depth = depth;
+                event.score = score;
+                event.nodes = iterationNodes;
+                event.bestMove = Move.toUci(bestMove);
+                event.commit();
+            }
+            if (listener != null) {
+                listener.iterationFinished(depth, score, elapsed, getPrincipalVariation());
+            }
+            if (!limits.isInfinite() && (legal == 1 || Math.abs(score) >= MATE_BOUND
+                    || (limits.getMoveTimeMs() > 0 && elapsed * 2 > limits.getMoveTimeMs()))) {
+                break;
+            }
+        }
+        return bestMove;
+    }
+
+    /**
+     * Asks the search to stop as soon as possible. Safe to call from
+     * any thread.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Makes the search start its iterations deeper than depth 1. Helper
+     * threads use different offsets so they are not all searching the
+     * same depth at the same time.
+     * @param depthOffset number of plies to skip at the start.
+     */
+    public void setDepthOffset(int depthOffset) {
+        this.depthOffset = depthOffset;
+    }
+
+    /**
+     * Sets the listener told about every completed iteration.
+     * @param listener listener, or null for none.
+     */
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Sets the endgame tablebases probed at the root and in the tree.
+     * @param tablebases tablebases, or null for none.
+     */
+    public void setTablebases(Tablebases tablebases) {
+        this.tablebases = tablebases;
+    }
+
+    /**
+     * Gets the pawn hash table of this search thread.
+     * @return the table.
+     */
+    public PawnTable getPawnTable() {
+        return pawnTable;
+    }
+
+    /**
+     * Gets the number of nodes searched by the last search.
+     * @return number of nodes.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Gets the number of beta cutoffs in the last search.
+     * @return number of cutoffs.
+     */
+    public long getCutoffs() {
+        return cutoffs;
+    }
+
+    /**
+     * Gets the number of beta cutoffs in the last search that came from
+     * the first move tried.
+     * @return number of first move cutoffs.
+     */
+    public long getFirstMoveCutoffs() {
+        return firstMoveCutoffs;
+    }
+
+    /**
+     * Gets the number of beta cutoffs in the last search made by moves
+     * of one picker stage.
+     * @param stage stage index, from 0 (hash move) to 4 (losing captures).
+     * @return number of cutoffs.
+     */
+    public long getStageCutoffs(int stage) {
+        return stageCutoffs[stage];
+    }
+
+    /**
+     * Gets the number of transposition table probes in the last search.
+     * @return number of probes.
+     */
+    public long getTtProbes() {
+        return ttProbes;
+    }
+
+    /**
+     * Gets the number of transposition table probes in the last search
+     * that found their position.
+     * @return number of hits.
+     */
+    public long getTtHits() {
+        return ttHits;
+    }
+
+    /**
+     * Gets the number of stores in the last search that overwrote the
+     * entry of another position.
+     * @return number of collisions.
+     */
+    public long getTtCollisions() {
+        return ttCollisions;
+    }
+
+    /**
+     * Gets the number of times the last search generated moves.
+     * @return number of generations.
+     */
+    public long getGenerations() {
+        return generations;
+    }
+
+    /**
+     * Gets the number of legal moves generated by the last search.
+     * @return number of moves.
+     */
+    public long getMovesGenerated() {
+        return movesGenerated;
+    }
+
+    /**
+     * Gets the effective branching factor of the last search: the nodes
+     * of its last completed iteration over those of the one before.
+     * @return branching factor, or 0 before two iterations completed.
+     */
+    public double getBranchingFactor() {
+        return branchingFactor;
+    }
+
+    /**
+     * Gets the score of the best move of the last completed iteration.
+     * @return score in centipawns for the side to move, or a mate score.
+     */
+    public int getBestScore() {
+        return bestScore;
+    }
+
+    /**
+     * Gets the depth of the last completed iteration.
+     * @return depth in plies.
+     */
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    /**
+     * Gets the principal variation of the last completed iteration.
+     * @return moves of the principal variation.
+     */
+    public int[] getPrincipalVariation() {
+        int[] line = new int[pvCount];
+        System.arraycopy(pv, 0, line, 0, pvCount);
+        return line;
+    }
+
+    /**
+     * Principal variation search.
+     * @param ply distance from the root.
+     * @param depth remaining depth.
+     * @param alpha lower bound of the window.
+     * @param beta upper bound of the window.
+     * @return score of the position for the side to move.
+     */
+    private int pvs(int ply, int depth, int alpha, int beta) {
+        pvLength[ply] = 0;
+        boolean inCheck = MoveGenerator.inCheck(pos);
+        if (inCheck && depth < MAX_PLY - ply) {
+            depth++;
+        }
+        if (depth <= 0 || ply >= MAX_PLY) {
+            return quiesce(ply, alpha, beta);
+        }
+        if (countNode()) {
+            return 0;
+        }
+        hashes[rootIndex + ply] = pos.hash;
+        if (ply > 0 && (pos.halfmoveClock >= 100 || isRepetition(ply))) {
+            return 0;
+        }
+        if (ply > 0 && tablebases != null && Long.bitCount(pos.occupied) <= Tablebases.MAX_PIECES) {
+            int value = tablebases.probe(pos);
+            if (value != Tablebases.UNKNOWN) {
+                return tablebaseScore(value, ply);
+            }
+        }
+        boolean pvNode = beta - alpha > 1;
+        long entry = tt.probe(pos.hash);
+        ttProbes++;
+        int ttMove = Move.NONE;
+        if (entry != TranspositionTable.MISS) {
+            ttHits++;
+            ttMove = TranspositionTable.move(entry);
+            if (!pvNode && TranspositionTable.depth(entry) >= depth) {
+                int score = fromTt(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.BOUND_EXACT
+                        || (bound == TranspositionTable.BOUND_LOWER && score >= beta)
+                        || (bound == TranspositionTable.BOUND_UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+        MovePicker picker = pickers[ply];
+        int count = picker.init(pos, ttMove, killers[ply][0], killers[ply][1], history);
+        generations++;
+        movesGenerated += count;
+        if (count == 0) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestLocal = Move.NONE;
+        int move;
+        for (int i = 0; (move = picker.next()) != Move.NONE; i++) {
+            pos.makeMove(move);
+            int score;
+            if (i == 0) {
+                score = -pvs(ply + 1, depth - 1, -beta, -alpha);
+            } else {
+                score = -pvs(ply + 1, depth - 1, -alpha - 1, -alpha);
+                if (score > alpha && score < beta) {
+                    score = -pvs(ply + 1, depth - 1, -beta, -alpha);
+                }
+            }
+            pos.unmakeMove(move);
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestLocal = move;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                    if (score >= beta) {
+                        recordCutoff(ply, move, depth, i, picker.stage());
+                        break;
+                    }
+                }
+            }
+        }
+        int bound = best >= beta ? TranspositionTable.BOUND_LOWER
+                : best > originalAlpha ? TranspositionTable.BOUND_EXACT : TranspositionTable.BOUND_UPPER;
+        if (tt.store(pos.hash, bestLocal, toTt(best, ply), depth, bound)) {
+            ttCollisions++;
+        }
+        return best;
+    }
+
+    /**
+     * Quiescence search: only captures and promotions are played, and the
+     * side to move may stand pat on the static evaluation.
+     * @param ply distance from the root.
+     * @param alpha lower bound of the window.
+     * @param beta upper bound of the window.
+     * @return score of the position for the side to move.
+     */
+    private int quiesce(int ply, int alpha, int beta) {
+        pvLength[ply] = 0;
+        if (countNode()) {
+            return 0;
+        }
+        int standPat = Evaluator.evaluate(pos, pawnTable);
+        if (ply >= MAX_PLY || standPat >= beta) {
+            return standPat;
+        }
+        if (standPat > alpha) {
+            alpha = standPat;
+        }
+        MovePicker picker = pickers[ply];
+        movesGenerated += picker.initCaptures(pos);
+        generations++;
+        int move;
+        while ((move = picker.next()) != Move.NONE) {
+            pos.makeMove(move);
+            int score = -quiesce(ply + 1, -beta, -alpha);
+            pos.unmakeMove(move);
+            if (stopped) {
+                return 0;
+            }
+            if (score > alpha) {
+                if (score >= beta) {
+                    return score;
+                }
+                alpha = score;
+            }
+        }
+        return alpha;
+    }
+
+    /**
+     * Counts a node and checks the node and time limits.
+     * @return true if the search has to stop.
+     */
+    private boolean countNode() {
+        nodes++;
+        if ((nodes & CHECK_INTERVAL) == 0) {
+            if ((nodeLimit > 0 && nodes >= nodeLimit)
+                    || System.currentTimeMillis() >= deadline) {
+                stopped = true;
+            }
+        }
+        return stopped;
+    }
+
+    /**
+     * checks to see if the position at ply has occurred before within the
+     * moves since the last capture or pawn move. Once is enough inside
+     * the search tree, since the side that repeated could repeat again;
+     * positions of the game before the root only count when they make a
+     * threefold repetition.
+     * @param ply distance from the root.
+     * @return true if the position is a repetition.
+     */
+    private boolean isRepetition(int ply) {
+        int index = rootIndex + ply;
+        int limit = Math.max(0, index - pos.halfmoveClock);
+        boolean seenBeforeRoot = false;
+        for (int i = index - 2; i >= limit; i -= 2) {
+            if (hashes[i] == hashes[index]) {
+                if (i >= rootIndex || seenBeforeRoot) {
+                    return true;
+                }
+                seenBeforeRoot = true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Records a beta cutoff: counts it by stage and, for a quiet move,
+     * makes it a killer of the ply and raises its history score.
+     * @param ply distance from the root.
+     * @param move move that caused the cutoff.
+     * @param depth remaining depth of the node.
+     * @param tried number of moves tried before it.
+     * @param stage picker stage the move came from.
+     */
+    private void recordCutoff(int ply, int move, int depth, int tried, int stage) {
+        cutoffs++;
+        if (tried == 0) {
+            firstMoveCutoffs++;
+        }
+        stageCutoffs[stage]++;
+        if (Move.isCapture(move) || Move.isPromotion(move)) {
+            return;
+        }
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        int slot = pos.board[Move.from(move)] * 64 + Move.to(move);
+        history[slot] += depth * depth;
+        if (history[slot] > HISTORY_LIMIT) {
+            ageHistory();
+        }
+    }
+
+    /**
+     * Halves every history score, so older results count for less.
+     */
+    private void ageHistory() {
+        for (int i = 0; i < history.length; i++) {
+            history[i] >>= 1;
+        }
+    }
+
+    /**
+     * Makes the move the start of the principal variation at ply,
+     * followed by the variation of the child.
+     * @param ply distance from the root.
+     * @param move best move at ply.
+     */
+    private void updatePv(int ply, int move) {
+        pvTable[ply][0] = move;
+        int childLength = pvLength[ply + 1];
+        System.arraycopy(pvTable[ply + 1], 0, pvTable[ply], 1, childLength);
+        pvLength[ply] = childLength + 1;
+    }
+
+    /**
+     * Converts a tablebase value into a score relative to the root.
+     * @param value value from Tablebases.probe.
+     * @param ply distance from the root.
+     * @return mate score, or 0 for a draw.
+     */
+    private static int tablebaseScore(int value, int ply) {
+        if (value > 0) {
+            return MATE - ply - value;
+        }
+        if (value < 0) {
+            return -MATE + ply - value - 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Converts a mate score relative to the root into one relative to
+     * the node, for storing in the transposition table.
+     * @param score score relative to the root.
+     * @param ply distance from the root.
+     * @return score to store.
+     */
+    private static int toTt(int score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score + ply;
+        }
+        if (score <= -MATE_BOUND) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    /**
+     * Converts a stored mate score back to one relative to the root.
+     * @param score stored score.
+     * @param ply distance from the root.
+     * @return score relative to the root.
+     */
+    private static int fromTt(int score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score - ply;
+        }
+        if (score <= -MATE_BOUND) {
+            return score + ply;
+        }
+        return score;
+    }
+}
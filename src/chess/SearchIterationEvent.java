@@ -0,0 +1,35 @@
+package chess;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for one completed iteration of a search thread.
+ * Its duration is the time the iteration took.
+ *
+ * @author JC
+ * @version 1.0
+ */
+@Name("chess.SearchIteration")
+@Label("Search Iteration")
+@Category({"Chess", "Engine"})
+@Description("One completed iterative deepening iteration of a search thread")
+final class SearchIterationEvent extends Event {
+
+    @Label("Depth")
+    int depth;
+
+    @Label("Score")
+    @Description("Score in centipawns for the side to move, or a mate score")
+    int score;
+
+    @Label("Nodes")
+    @Description("Nodes searched in this iteration")
+    long nodes;
+
+    @Label("Best Move")
+    String bestMove;
+}
@@ -0,0 +1,156 @@
+package chess;
+
+/**
+ * Limits on how long a search may run. A search stops at whichever
+ * limit it reaches first; a limit of 0 means no limit of that kind.
+ * An infinite search never stops on its own, not even with one legal
+ * move or a mate found, and only returns once it is stopped.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public class SearchLimits {
+
+    /** Deepest depth any search goes to. */
+    public static final int MAX_DEPTH = 64;
+
+    /** Moves the time left is shared over when no count is given. */
+    private static final int DEFAULT_MOVES_TO_GO = 30;
+    /** Time always left on the clock for communication delays. */
+    private static final long CLOCK_MARGIN_MS = 50;
+
+    private int depth;
+    private long nodes;
+    private long moveTimeMs;
+    private boolean infinite;
+
+    /**
+     * Constructor for limits with no limit at all; the search runs
+     * until MAX_DEPTH or until it is stopped.
+     */
+    public SearchLimits() {
+    }
+
+    /**
+     * Creates limits that stop at a fixed depth.
+     * @param depth depth in plies.
+     * @return new limits.
+     */
+    public static SearchLimits depth(int depth) {
+        SearchLimits limits = new SearchLimits();
+        limits.setDepth(depth);
+        return limits;
+    }
+
+    /**
+     * Creates limits that stop after a number of nodes.
+     * @param nodes number of nodes.
+     * @return new limits.
+     */
+    public static SearchLimits nodes(long nodes) {
+        SearchLimits limits = new SearchLimits();
+        limits.setNodes(nodes);
+        return limits;
+    }
+
+    /**
+     * Creates limits that stop after a fixed time.
+     * @param moveTimeMs time in milliseconds.
+     * @return new limits.
+     */
+    public static SearchLimits moveTime(long moveTimeMs) {
+        SearchLimits limits = new SearchLimits();
+        limits.setMoveTimeMs(moveTimeMs);
+        return limits;
+    }
+
+    /**
+     * Creates limits for a game played on a clock. The time for the move
+     * is an even share of what is left plus most of the increment, and
+     * always leaves a safety margin on the clock.
+     * @param timeLeftMs time left on the clock in milliseconds.
+     * @param incrementMs time added after each move in milliseconds.
+     * @param movesToGo moves until the next time control, or 0 if the
+     *     rest of the game has to be played in the time left.
+     * @return new limits.
+     */
+    public static SearchLimits clock(long timeLeftMs, long incrementMs, int movesToGo) {
+        long margin = Math.min(CLOCK_MARGIN_MS, timeLeftMs / 10);
+        long usable = Math.max(1, timeLeftMs - margin);
+        long share = usable / (movesToGo > 0 ? Math.min(movesToGo, DEFAULT_MOVES_TO_GO) : DEFAULT_MOVES_TO_GO)
+                + incrementMs * 3 / 4;
+        return moveTime(Math.max(1, Math.min(share, usable)));
+    }
+
+    /**
+     * Gets the depth limit.
+     * @return depth in plies, or 0 for none.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Sets the depth limit.
+     * @param depth depth in plies, or 0 for none.
+     */
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    /**
+     * Gets the node limit.
+     * @return number of nodes, or 0 for none.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Sets the node limit.
+     * @param nodes number of nodes, or 0 for none.
+     */
+    public void setNodes(long nodes) {
+        this.nodes = nodes;
+    }
+
+    /**
+     * Gets the time limit.
+     * @return time in milliseconds, or 0 for none.
+     */
+    public long getMoveTimeMs() {
+        return moveTimeMs;
+    }
+
+    /**
+     * Sets the time limit.
+     * @param moveTimeMs time in milliseconds, or 0 for none.
+     */
+    public void setMoveTimeMs(long moveTimeMs) {
+        this.moveTimeMs = moveTimeMs;
+    }
+
+    /**
+     * checks to see if the search runs until it is stopped.
+     * @return true for an infinite search.
+     */
+    public boolean isInfinite() {
+        return infinite;
+    }
+
+    /**
+     * Sets whether the search runs until it is stopped.
+     * @param infinite true for an infinite search.
+     */
+    public void setInfinite(boolean infinite) {
+        this.infinite = infinite;
+    }
+
+    /**
+     * Gets the deepest depth the search may start.
+     * @return depth in plies.
+     */
+    int maxDepth() {
+        return depth > 0 ? Math.min(depth, MAX_DEPTH) : MAX_DEPTH;
+    }
+}
@@ -0,0 +1,20 @@
+package chess;
+
+/**
+ * Receives the result of every completed iteration of a search, for
+ * front-ends that report progress while the engine thinks.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public interface SearchListener {
+
+    /**
+     * Called on the search thread after an iteration completes.
+     * @param depth depth of the iteration in plies.
+     * @param score score for the side to move, or a mate score.
+     * @param elapsedMs milliseconds since the search started.
+     * @param pv principal variation; the listener may keep it.
+     */
+    void iterationFinished(int depth, int score, long elapsedMs, int[] pv);
+}
@@ -0,0 +1,141 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * One game hosted by the GameServer, kept as small as possible so that
+ * tens of thousands fit in one JVM.
+ * Instead of a Position with its undo stack, a game keeps the current
+ * position packed into GameFile.POSITION_SIZE bytes and the hashes of
+ * the positions since the last capture or pawn move, which is all the
+ * history the draw rules need. A move is played by unpacking into a
+ * scratch position owned by the calling thread, so a game costs about
+ * two hundred bytes. Callers synchronize on the game.
+ *
+ * @author JC
+ * @version 1.0
+ */
+final class ServerGame {
+
+    private static final int HASH_CHUNK = 8;
+    /** Offset of the side to move in the packed position. */
+    private static final int SIDE_OFFSET = 24;
+
+    private final byte[] packed = new byte[GameFile.POSITION_SIZE];
+    private long[] hashes = new long[HASH_CHUNK];
+    private int hashCount;
+    private byte status;
+    private byte loser;
+
+    /**
+     * Constructor for a game starting from a position.
+     * @param start starting position; it is not changed.
+     */
+    ServerGame(Position start) {
+        pack(start);
+        hashes[hashCount++] = start.hash();
+        updateStatus(start);
+    }
+
+    /**
+     * Copies the current position into a scratch position.
+     * @param pos position to overwrite.
+     */
+    void unpack(Position pos) {
+        try {
+            GameFile.readPosition(ByteBuffer.wrap(packed), pos);
+        } catch (IOException ex) {
+            throw new IllegalStateException("corrupt server game", ex);
+        }
+    }
+
+    /**
+     * Plays a move given in UCI notation.
+     * @param uci move text, such as e2e4 or e7e8q.
+     * @param scratch position owned by the calling thread.
+     * @param moves move buffer of MoveGenerator.MAX_MOVES entries.
+     * @return true if the move was legal and played.
+     */
+    boolean play(String uci, Position scratch, int[] moves) {
+        if (status != Game.ONGOING) {
+            return false;
+        }
+        unpack(scratch);
+        int count = MoveGenerator.generateLegal(scratch, moves);
+        for (int i = 0; i < count; i++) {
+            if (Move.toUci(moves[i]).equals(uci)) {
+                scratch.makeMove(moves[i]);
+                if (scratch.halfmoveClock() == 0) {
+                    hashCount = 0;
+                    if (hashes.length > HASH_CHUNK) {
+                        hashes = new long[HASH_CHUNK];
+                    }
+                } else if (hashCount == hashes.length) {
+                    hashes = Arrays.copyOf(hashes, hashCount + HASH_CHUNK);
+                }
+                hashes[hashCount++] = scratch.hash();
+                pack(scratch);
+                updateStatus(scratch);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Ends an ongoing game by resignation.
+     * @param color side that resigns.
+     * @return true if the game was ongoing.
+     */
+    boolean resign(int color) {
+        if (status != Game.ONGOING) {
+            return false;
+        }
+        status = Game.RESIGNED;
+        loser = (byte) color;
+        return true;
+    }
+
+    /**
+     * Gets the state of the game.
+     * @return Game.ONGOING or the way the game ended.
+     */
+    int getStatus() {
+        return status;
+    }
+
+    /**
+     * Gets the side to move.
+     * @return Position.WHITE or Position.BLACK.
+     */
+    int sideToMove() {
+        return packed[SIDE_OFFSET];
+    }
+
+    /**
+     * Gets the result in PGN notation.
+     * @return PgnGame.WHITE_WINS, BLACK_WINS, DRAW or UNFINISHED.
+     */
+    String getResult() {
+        return Game.resultOf(status, loser);
+    }
+
+    /**
+     * Packs a position into the game.
+     * @param pos position to store.
+     */
+    private void pack(Position pos) {
+        GameFile.writePosition(pos, ByteBuffer.wrap(packed));
+    }
+
+    /**
+     * Works out whether the position just stored ends the game.
+     * @param pos the stored position.
+     */
+    private void updateStatus(Position pos) {
+        status = (byte) Game.statusOf(pos, hashes, hashCount - 1);
+        loser = (byte) pos.sideToMove();
+    }
+}
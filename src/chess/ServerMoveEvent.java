@@ -0,0 +1,28 @@
+package chess;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for one move request handled by GameServer. Its
+ * duration is the time taken to check and play the move.
+ *
+ * @author JC
+ * @version 1.0
+ */
+@Name("chess.ServerMove")
+@Label("Server Move")
+@Category({"Chess", "Server"})
+final class ServerMoveEvent extends Event {
+
+    @Label("Game")
+    int game;
+
+    @Label("Move")
+    String move;
+
+    @Label("Played")
+    boolean played;
+}
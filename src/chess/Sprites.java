@@ -0,0 +1,147 @@
+package chess;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import javax.imageio.ImageIO;
+
+/**
+ * Shared cache of the piece images.
+ * The twelve images are decoded once per process from the classpath
+ * (res/chess in the source tree) and the same immutable instances are
+ * drawn by every board. Scaled copies are cached for the last cell size
+ * asked for only, so resizing the window does not keep a set of images
+ * for every size it passed through. Works without a display.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public final class Sprites {
+
+    private static final String[] COLOR_NAMES = {"White", "Black"};
+    private static final String[] TYPE_NAMES = {"Pawn", "Knight", "Bishop", "Rook", "Queen", "King"};
+
+    private static volatile Scaled scaled;
+
+    private Sprites() {
+    }
+
+    /**
+     * Holds the decoded images, so they are loaded the first time one is
+     * asked for and never again.
+     */
+    private static final class Originals {
+        static final BufferedImage[] IMAGES = new BufferedImage[12];
+
+        static {
+            for (int piece = 0; piece < 12; piece++) {
+                IMAGES[piece] = load(resourceName(piece));
+            }
+        }
+    }
+
+    /**
+     * The twelve images scaled to one cell size. Replaced as a whole when
+     * another size is asked for, so readers never see a mixed set.
+     */
+    private static final class Scaled {
+        final int size;
+        final BufferedImage[] images = new BufferedImage[12];
+
+        /**
+         * Constructor for a set of scaled images.
+         * @param size width and height of the cell in pixels.
+         */
+        Scaled(int size) {
+            this.size = size;
+            for (int piece = 0; piece < 12; piece++) {
+                images[piece] = scale(Originals.IMAGES[piece], size);
+            }
+        }
+    }
+
+    /**
+     * Gets the image of a piece at its original size.
+     * @param piece piece code.
+     * @return shared image; do not draw on it.
+     */
+    public static BufferedImage image(int piece) {
+        return Originals.IMAGES[piece];
+    }
+
+    /**
+     * Gets the image of a piece scaled to fit a square cell.
+     * @param piece piece code.
+     * @param size width and height of the cell in pixels.
+     * @return shared image; do not draw on it.
+     */
+    public static BufferedImage image(int piece, int size) {
+        Scaled current = scaled;
+        if (current == null || current.size != size) {
+            current = new Scaled(size);
+            scaled = current;
+        }
+        return current.images[piece];
+    }
+
+    /**
+     * Gets the classpath resource name of a piece image.
+     * @param piece piece code.
+     * @return resource name, such as /chess/White_Pawn.png.
+     */
+    private static String resourceName(int piece) {
+        return "/chess/" + COLOR_NAMES[Position.colorOf(piece)] + "_"
+                + TYPE_NAMES[Position.typeOf(piece)] + ".png";
+    }
+
+    /**
+     * Decodes an image from the classpath.
+     * @param name resource name.
+     * @return decoded image.
+     * @throws IllegalStateException if the resource is missing or broken.
+     */
+    private static BufferedImage load(String name) {
+        InputStream in = Sprites.class.getResourceAsStream(name);
+        if (in == null) {
+            throw new IllegalStateException("missing piece image " + name);
+        }
+        try {
+            try {
+                BufferedImage image = ImageIO.read(in);
+                if (image == null) {
+                    throw new IllegalStateException("unreadable piece image " + name);
+                }
+                return image;
+            } finally {
+                in.close();
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("cannot read piece image " + name, ex);
+        }
+    }
+
+    /**
+     * Draws a smoothly scaled copy of an image that fits a square cell,
+     * keeping its proportions and centring it.
+     * @param source image to scale.
+     * @param size width and height of the cell in pixels.
+     * @return new image of size by size pixels.
+     */
+    private static BufferedImage scale(BufferedImage source, int size) {
+        BufferedImage scaled = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        double ratio = Math.min((double) size / source.getWidth(), (double) size / source.getHeight());
+        int width = (int) Math.round(source.getWidth() * ratio);
+        int height = (int) Math.round(source.getHeight() * ratio);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, (size - width) / 2, (size - height) / 2, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return scaled;
+    }
+}
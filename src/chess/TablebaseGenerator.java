@@ -0,0 +1,220 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Builds the tables read by Tablebases with retrograde analysis, one
+ * ply of depth at a time. Positions that are mated get depth 0; at an
+ * odd depth n a position is won if a move reaches a position lost in
+ * fewer than n plies, and at an even depth n it is lost once every move
+ * reaches a won position. Moves that leave the table are looked up in
+ * the tables built before (a pawn promoting) or are draws (the piece is
+ * captured), so KQvK and KRvK are built before KPvK.
+ * Usage: java chess.TablebaseGenerator [directory]
+ *
+ * @author JC
+ * @version 1.0
+ */
+public class TablebaseGenerator {
+
+    private static final byte UNRESOLVED = Byte.MIN_VALUE;
+    private static final byte ILLEGAL = Byte.MIN_VALUE + 1;
+    private static final int MAX_DEPTH = 120;
+    /** Deeper than any result in the tables a pawn can promote into. */
+    private static final int EXTERNAL_DEPTH = 64;
+
+    private final Path directory;
+    private final Tablebases built;
+
+    /**
+     * Constructor for a generator.
+     * @param directory directory the files are written to.
+     */
+    public TablebaseGenerator(Path directory) {
+        this.directory = directory;
+        this.built = new Tablebases(directory, Long.MAX_VALUE);
+    }
+
+    /**
+     * Builds and writes the tables for queen, rook and pawn.
+     * @throws IOException if a file cannot be written.
+     */
+    public void generateAll() throws IOException {
+        Files.createDirectories(directory);
+        for (int type : new int[] {Position.QUEEN, Position.ROOK, Position.PAWN}) {
+            long begin = System.currentTimeMillis();
+            byte[] table = generate(type);
+            write(type, table);
+            System.out.printf("%s: %d ms%n", Tablebases.fileName(type), System.currentTimeMillis() - begin);
+        }
+    }
+
+    /**
+     * Builds the table for the kings and one white piece.
+     * @param type piece type of the white piece.
+     * @return one value per index, as stored in the file.
+     */
+    byte[] generate(int type) {
+        byte[] table = new byte[Tablebases.TABLE_SIZE];
+        Position pos = new Position();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int[] pending = new int[Tablebases.TABLE_SIZE];
+        int pendingCount = 0;
+        for (int index = 0; index < Tablebases.TABLE_SIZE; index++) {
+            if (!setUp(pos, type, index)) {
+                table[index] = ILLEGAL;
+            } else if (MoveGenerator.generateLegal(pos, moves) == 0) {
+                table[index] = MoveGenerator.inCheck(pos) ? (byte) -1 : 0;
+            } else {
+                table[index] = UNRESOLVED;
+                pending[pendingCount++] = index;
+            }
+        }
+        int[] resolved = new int[Tablebases.TABLE_SIZE];
+        byte[] values = new byte[Tablebases.TABLE_SIZE];
+        int idle = 0;
+        for (int depth = 1; depth <= MAX_DEPTH && idle < 2 && pendingCount > 0; depth++) {
+            int resolvedCount = 0;
+            int kept = 0;
+            for (int i = 0; i < pendingCount; i++) {
+                int index = pending[i];
+                setUp(pos, type, index);
+                int value = resolve(pos, type, table, moves, depth);
+                if (value == UNRESOLVED) {
+                    pending[kept++] = index;
+                } else {
+                    resolved[resolvedCount] = index;
+                    values[resolvedCount++] = (byte) value;
+                }
+            }
+            for (int i = 0; i < resolvedCount; i++) {
+                table[resolved[i]] = values[i];
+            }
+            pendingCount = kept;
+            idle = resolvedCount == 0 && depth > EXTERNAL_DEPTH ? idle + 1 : 0;
+        }
+        for (int index = 0; index < Tablebases.TABLE_SIZE; index++) {
+            if (table[index] == UNRESOLVED || table[index] == ILLEGAL) {
+                table[index] = 0;
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Works out whether a position is decided at a depth.
+     * @param pos the position.
+     * @param type piece type of the white piece.
+     * @param table values found at smaller depths.
+     * @param moves move buffer.
+     * @param depth depth being filled in.
+     * @return the value to store, or UNRESOLVED.
+     */
+    private int resolve(Position pos, int type, byte[] table, int[] moves, int depth) {
+        int count = MoveGenerator.generateLegal(pos, moves);
+        boolean allWon = true;
+        for (int i = 0; i < count; i++) {
+            pos.makeMove(moves[i]);
+            int value = successor(pos, type, table);
+            pos.unmakeMove(moves[i]);
+            if ((depth & 1) == 1 && value < 0 && value != UNRESOLVED && -value - 1 < depth) {
+                return depth;
+            }
+            if (value == UNRESOLVED || value <= 0 || value >= depth) {
+                allWon = false;
+            }
+        }
+        return (depth & 1) == 0 && allWon ? -depth - 1 : UNRESOLVED;
+    }
+
+    /**
+     * Gets the value of a position reached by a move.
+     * @param pos position after the move.
+     * @param type piece type of the table being built.
+     * @param table values found so far.
+     * @return the value, or UNRESOLVED.
+     */
+    private int successor(Position pos, int type, byte[] table) {
+        long white = pos.occupancy(Position.WHITE) & ~pos.pieces(Position.WHITE, Position.KING);
+        if (white == 0) {
+            return 0;
+        }
+        int sq = Bitboards.lsb(white);
+        if (Position.typeOf(pos.pieceAt(sq)) != type) {
+            int value = built.probe(pos);
+            return value == Tablebases.UNKNOWN ? 0 : value;
+        }
+        int whiteKing = Bitboards.lsb(pos.pieces(Position.WHITE, Position.KING));
+        int blackKing = Bitboards.lsb(pos.pieces(Position.BLACK, Position.KING));
+        return table[Tablebases.index(pos.sideToMove(), whiteKing, blackKing, sq)];
+    }
+
+    /**
+     * Sets up the position of an index.
+     * @param pos position to fill.
+     * @param type piece type of the white piece.
+     * @param index table index.
+     * @return false if the index is not a legal position.
+     */
+    private static boolean setUp(Position pos, int type, int index) {
+        int sq = index & 63;
+        int blackKing = (index >> 6) & 63;
+        int whiteKing = (index >> 12) & 63;
+        int side = index >> 18;
+        if (sq == whiteKing || sq == blackKing || whiteKing == blackKing
+                || (Bitboards.kingAttacks(whiteKing) & (1L << blackKing)) != 0) {
+            return false;
+        }
+        if (type == Position.PAWN && (Position.rankOf(sq) == 0 || Position.rankOf(sq) == 7)) {
+            return false;
+        }
+        pos.clear();
+        pos.put(Position.piece(Position.WHITE, Position.KING), whiteKing);
+        pos.put(Position.piece(Position.BLACK, Position.KING), blackKing);
+        pos.put(Position.piece(Position.WHITE, type), sq);
+        pos.setSideToMove(side ^ 1);
+        boolean opponentInCheck = MoveGenerator.inCheck(pos);
+        pos.setSideToMove(side);
+        return !opponentInCheck;
+    }
+
+    /**
+     * Writes a table file.
+     * @param type piece type of the white piece.
+     * @param table table values.
+     * @throws IOException if the file cannot be written.
+     */
+    private void write(int type, byte[] table) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(Tablebases.HEADER_SIZE + table.length);
+        buf.putInt(Tablebases.MAGIC);
+        buf.put((byte) Tablebases.VERSION);
+        buf.put((byte) type);
+        buf.putShort((short) 0);
+        buf.put(table);
+        buf.flip();
+        FileChannel channel = FileChannel.open(directory.resolve(Tablebases.fileName(type)),
+                StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            while (buf.hasRemaining()) {
+                channel.write(buf);
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Builds every table into a directory.
+     * @param args optional directory, tablebases by default.
+     * @throws IOException if a file cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        new TablebaseGenerator(Paths.get(args.length > 0 ? args[0] : "tablebases")).generateAll();
+    }
+}
@@ -0,0 +1,234 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Endgame tablebases: perfect results for positions with the two kings
+ * and one more piece, read from files made by TablebaseGenerator.
+ * The files are this engine's own format, not Syzygy, Gaviota or
+ * Nalimov tables, and there are none for four or more pieces.
+ * Each file, such as KQvK.tb, holds one signed byte per position with
+ * the stronger side as White, indexed by side to move, white king,
+ * black king and piece square. A file is memory-mapped the first time
+ * a position needs it, and only while the total mapped size stays
+ * within the budget; a table that does not fit is treated as missing.
+ * One instance can be shared by every search thread and every game in
+ * the JVM, since probes only read the mappings.
+ * A value is 0 for a draw, n &gt; 0 if the side to move mates in n
+ * plies, and n &lt; 0 if it is mated in -n - 1 plies. Positions with
+ * castling rights are not probed, and the fifty move rule is ignored.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public final class Tablebases {
+
+    /** Most pieces, kings included, of a position that can be probed. */
+    public static final int MAX_PIECES = 3;
+    /** Result of a probe for a position that is not in the tables. */
+    public static final int UNKNOWN = Integer.MIN_VALUE;
+    /** Default budget for mapped files in bytes. */
+    public static final long DEFAULT_BUDGET = 64L << 20;
+
+    static final int MAGIC = 0x43485442;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    static final int TABLE_SIZE = 2 * 64 * 64 * 64;
+    static final String PIECE_LETTERS = "PNBRQK";
+
+    private static final ByteBuffer MISSING = ByteBuffer.allocate(0);
+
+    private final Path directory;
+    private final long budget;
+    private final AtomicLong mapped = new AtomicLong();
+    private final AtomicReferenceArray<ByteBuffer> tables = new AtomicReferenceArray<ByteBuffer>(6);
+    /** Striped, so search threads probing at once do not share one counter. */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * Constructor for tablebases read from a directory.
+     * @param directory directory holding the .tb files.
+     * @param budget most bytes of files mapped at once.
+     */
+    public Tablebases(Path directory, long budget) {
+        this.directory = directory;
+        this.budget = budget;
+    }
+
+    /**
+     * Gets the directory the tables are read from.
+     * @return table directory.
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Gets the number of bytes of table files mapped so far.
+     * @return mapped bytes.
+     */
+    public long getMappedBytes() {
+        return mapped.get();
+    }
+
+    /**
+     * Gets the number of successful probes.
+     * @return probe hits.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Looks up the exact result of a position.
+     * @param pos position with at most MAX_PIECES pieces.
+     * @return 0 for a draw, n &gt; 0 for a mate in n plies, n &lt; 0 for
+     *     mated in -n - 1 plies, or UNKNOWN.
+     */
+    public int probe(Position pos) {
+        long occupied = pos.occupied();
+        int count = Long.bitCount(occupied);
+        if (count > MAX_PIECES || pos.castlingRights() != 0) {
+            return UNKNOWN;
+        }
+        int whiteKing = Bitboards.lsb(pos.pieces(Position.WHITE, Position.KING));
+        int blackKing = Bitboards.lsb(pos.pieces(Position.BLACK, Position.KING));
+        long others = occupied & ~(1L << whiteKing) & ~(1L << blackKing);
+        if (others == 0) {
+            hits.increment();
+            return 0;
+        }
+        int sq = Bitboards.lsb(others);
+        int piece = pos.pieceAt(sq);
+        int type = Position.typeOf(piece);
+        if (type == Position.KNIGHT || type == Position.BISHOP) {
+            hits.increment();
+            return 0;
+        }
+        ByteBuffer table = table(type);
+        if (table == null) {
+            return UNKNOWN;
+        }
+        int side = pos.sideToMove();
+        if (Position.colorOf(piece) == Position.BLACK) {
+            int king = whiteKing;
+            whiteKing = blackKing ^ 56;
+            blackKing = king ^ 56;
+            sq ^= 56;
+            side ^= 1;
+        }
+        hits.increment();
+        return table.get(HEADER_SIZE + index(side, whiteKing, blackKing, sq));
+    }
+
+    /**
+     * Picks the move that keeps the best result: the fastest win, else a
+     * draw, else the slowest loss.
+     * @param pos position to move in; it is not changed.
+     * @return packed move, or Move.NONE if the position or one of its
+     *     successors is not in the tables.
+     */
+    public int bestMove(Position pos) {
+        if (Long.bitCount(pos.occupied()) > MAX_PIECES || probe(pos) == UNKNOWN) {
+            return Move.NONE;
+        }
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateLegal(pos, moves);
+        Position child = new Position();
+        int best = Move.NONE;
+        int bestRank = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            child.copyFrom(pos);
+            child.makeMove(moves[i]);
+            int value = probe(child);
+            if (value == UNKNOWN) {
+                return Move.NONE;
+            }
+            int rank = value < 0 ? 1000 + value : value > 0 ? -1000 + value : 0;
+            if (rank > bestRank) {
+                bestRank = rank;
+                best = moves[i];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Gets the name of the file for a piece type, such as KQvK.tb.
+     * @param type piece type of the extra piece.
+     * @return file name.
+     */
+    static String fileName(int type) {
+        return "K" + PIECE_LETTERS.charAt(type) + "vK.tb";
+    }
+
+    /**
+     * Gets the position of an entry in a table.
+     * @param side side to move, with the extra piece White's.
+     * @param whiteKing white king square.
+     * @param blackKing black king square.
+     * @param sq square of the extra piece.
+     * @return entry index.
+     */
+    static int index(int side, int whiteKing, int blackKing, int sq) {
+        return ((side * 64 + whiteKing) * 64 + blackKing) * 64 + sq;
+    }
+
+    /**
+     * Gets the table for a piece type, mapping its file the first time.
+     * @param type piece type of the extra piece.
+     * @return the mapping, or null if there is no usable file.
+     */
+    private ByteBuffer table(int type) {
+        ByteBuffer table = tables.get(type);
+        if (table == null) {
+            synchronized (this) {
+                table = tables.get(type);
+                if (table == null) {
+                    table = map(directory.resolve(fileName(type)), type);
+                    tables.set(type, table);
+                }
+            }
+        }
+        return table == MISSING ? null : table;
+    }
+
+    /**
+     * Maps a table file if it is valid and fits the budget.
+     * @param file table file.
+     * @param type piece type the file should hold.
+     * @return the mapping, or MISSING.
+     */
+    private ByteBuffer map(Path file, int type) {
+        long size = HEADER_SIZE + TABLE_SIZE;
+        if (!Files.isRegularFile(file) || mapped.get() + size > budget) {
+            return MISSING;
+        }
+        try {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+                if (channel.size() != size) {
+                    return MISSING;
+                }
+                ByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                if (table.getInt(0) != MAGIC || table.get(4) != VERSION || table.get(5) != type) {
+                    return MISSING;
+                }
+                mapped.addAndGet(size);
+                return table;
+            } finally {
+                channel.close();
+            }
+        } catch (IOException ex) {
+            return MISSING;
+        }
+    }
+}
@@ -0,0 +1,527 @@
+package chess;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Plays engine against engine in batches to measure strength and speed.
+ * Every opening is played twice with the colors swapped, and the games
+ * are spread over a fork-join pool, one game per task. Each finished
+ * game is written as one line to the log; at the end the runner prints
+ * wins, draws and losses of engine A, the Elo difference with a 95%
+ * error bar and the nodes per second of both engines together.
+ * Usage:
+ * <pre>
+ * java chess.Tournament [-games n] [-threads n] [-openings file] [-log file]
+ *                       [-maxplies n] [-tb dir] [-a spec] [-b spec]
+ * </pre>
+ * A spec sets the engine's limits and hash as comma separated pairs,
+ * such as tc=10+0.1,hash=16 (seconds per game plus increment),
+ * movetime=100, nodes=20000 or depth=6. The opening file has one
+ * opening per line, either UCI moves from the start position or a FEN;
+ * lines starting with # are skipped. A side whose clock runs out loses,
+ * and games longer than maxplies are drawn. With -tb, every engine of
+ * every game probes the same endgame tablebases from the directory.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public class Tournament {
+
+    /** Openings used when no file is given, as UCI moves. */
+    static final String[] DEFAULT_OPENINGS = {
+        "e2e4 e7e5 g1f3 b8c6 f1b5",
+        "e2e4 c7c5 g1f3 d7d6 d2d4",
+        "e2e4 e7e6 d2d4 d7d5",
+        "e2e4 c7c6 d2d4 d7d5",
+        "d2d4 d7d5 c2c4 e7e6",
+        "d2d4 g8f6 c2c4 g7g6 b1c3",
+        "c2c4 e7e5 b1c3 g8f6",
+        "g1f3 d7d5 g2g3 g8f6",
+    };
+
+    private static final int WIN = 2;
+    private static final int DRAW = 1;
+    private static final int LOSS = 0;
+    private static final String[] STATUS_REASONS = {
+        "ongoing", "checkmate", "stalemate", "fifty", "repetition", "material", "resign"
+    };
+
+    private final EngineSpec a;
+    private final EngineSpec b;
+    private final List<String> openings;
+    private final int maxPlies;
+    private final ThreadLocal<Engine[]> engines = new ThreadLocal<Engine[]>();
+    private final int[] tally = new int[3];
+    private long nodes;
+    private long searchNanos;
+    private PrintWriter log;
+    private Tablebases tablebases;
+
+    /**
+     * Constructor for a tournament between two engine settings.
+     * @param a settings of engine A, whose results are reported.
+     * @param b settings of engine B.
+     * @param openings openings as UCI move lists or FENs.
+     * @param maxPlies plies after which a game is drawn.
+     */
+    public Tournament(EngineSpec a, EngineSpec b, List<String> openings, int maxPlies) {
+        if (openings.isEmpty()) {
+            throw new IllegalArgumentException("no openings");
+        }
+        this.a = a;
+        this.b = b;
+        this.openings = openings;
+        this.maxPlies = maxPlies;
+    }
+
+    /**
+     * Sets the endgame tablebases shared by all engines. Call before
+     * play.
+     * @param tablebases tablebases, or null for none.
+     */
+    public void setTablebases(Tablebases tablebases) {
+        this.tablebases = tablebases;
+    }
+
+    /**
+     * Plays a number of games and waits for all of them.
+     * @param games number of games; each opening is used for two games
+     *     in a row, one with each color.
+     * @param threads number of games played at once.
+     * @param log receives one line per game.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public void play(int games, int threads, PrintWriter log) throws InterruptedException {
+        this.log = log;
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            List<Future<?>> running = new ArrayList<Future<?>>();
+            for (int i = 0; i < games; i++) {
+                final int index = i;
+                running.add(pool.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        playGame(index);
+                    }
+                }));
+            }
+            for (Future<?> future : running) {
+                try {
+                    future.get();
+                } catch (ExecutionException ex) {
+                    throw new IllegalStateException("game failed", ex.getCause());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Plays one game and records its result.
+     * @param index game number; even games give engine A white.
+     */
+    private void playGame(int index) {
+        Engine[] pair = engines.get();
+        if (pair == null) {
+            pair = new Engine[] {new Engine(a.hashMb), new Engine(b.hashMb)};
+            pair[0].setTablebases(tablebases);
+            pair[1].setTablebases(tablebases);
+            engines.set(pair);
+        }
+        boolean aWhite = (index & 1) == 0;
+        EngineSpec[] specs = aWhite ? new EngineSpec[] {a, b} : new EngineSpec[] {b, a};
+        EnginePlayer[] players = {
+            new EnginePlayer("white", pair[aWhite ? 0 : 1], specs[0].limits),
+            new EnginePlayer("black", pair[aWhite ? 1 : 0], specs[1].limits),
+        };
+        for (Engine engine : pair) {
+            engine.newGame();
+        }
+        String opening = openings.get((index / 2) % openings.size());
+        Game game = new Game(startOf(opening));
+        long[] clock = {specs[0].clockMs, specs[1].clockMs};
+        long gameNodes = 0;
+        long gameNanos = 0;
+        String result = null;
+        String reason = null;
+        while (!game.isOver() && result == null) {
+            if (game.getMoveCount() >= maxPlies) {
+                result = PgnGame.DRAW;
+                reason = "adjudicated";
+                break;
+            }
+            int side = game.sideToMove();
+            EnginePlayer player = players[side];
+            if (specs[side].clockMs > 0) {
+                player.setLimits(SearchLimits.clock(clock[side], specs[side].incrementMs, 0));
+            }
+            long begin = System.nanoTime();
+            int move = player.chooseMove(game.position(), game.getHistory());
+            long spent = System.nanoTime() - begin;
+            gameNanos += spent;
+            gameNodes += player.getEngine().getNodes();
+            if (specs[side].clockMs > 0) {
+                clock[side] -= spent / 1000000L;
+                if (clock[side] < 0) {
+                    result = side == Position.WHITE ? PgnGame.BLACK_WINS : PgnGame.WHITE_WINS;
+                    reason = "time";
+                    break;
+                }
+                clock[side] += specs[side].incrementMs;
+            }
+            if (!game.applyMove(move)) {
+                throw new IllegalStateException("engine played illegal move " + Move.toUci(move)
+                        + " in " + game.toFen());
+            }
+        }
+        if (result == null) {
+            result = game.getResult();
+            reason = STATUS_REASONS[game.getStatus()];
+        }
+        int points = result.equals(PgnGame.DRAW) ? DRAW
+                : result.equals(PgnGame.WHITE_WINS) == aWhite ? WIN : LOSS;
+        record(index, aWhite, result, reason, game.getMoveCount(), gameNodes, gameNanos, points);
+    }
+
+    /**
+     * Counts a finished game and writes its log line.
+     * @param index game number.
+     * @param aWhite true if engine A had white.
+     * @param result PGN result.
+     * @param reason how the game ended.
+     * @param plies half moves played.
+     * @param gameNodes nodes searched by both engines.
+     * @param gameNanos time spent searching.
+     * @param points result for engine A: WIN, DRAW or LOSS.
+     */
+    private synchronized void record(int index, boolean aWhite, String result, String reason,
+            int plies, long gameNodes, long gameNanos, int points) {
+        tally[points]++;
+        nodes += gameNodes;
+        searchNanos += gameNanos;
+        log.printf(Locale.ROOT, "%d %s %s %s %d %d %d%n", index + 1, aWhite ? "A-B" : "B-A",
+                result, reason, plies, gameNodes, gameNanos / 1000000L);
+        log.flush();
+    }
+
+    /**
+     * Gets the wins of engine A.
+     * @return number of wins.
+     */
+    public synchronized int getWins() {
+        return tally[WIN];
+    }
+
+    /**
+     * Gets the draws.
+     * @return number of draws.
+     */
+    public synchronized int getDraws() {
+        return tally[DRAW];
+    }
+
+    /**
+     * Gets the losses of engine A.
+     * @return number of losses.
+     */
+    public synchronized int getLosses() {
+        return tally[LOSS];
+    }
+
+    /**
+     * Gets the nodes per second of both engines over all games, counting
+     * only time spent searching.
+     * @return nodes per second of one search thread.
+     */
+    public synchronized long getNodesPerSecond() {
+        return searchNanos == 0 ? 0 : (long) (nodes * 1e9 / searchNanos);
+    }
+
+    /**
+     * Gets the total nodes searched.
+     * @return number of nodes.
+     */
+    public synchronized long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Gets the Elo difference of engine A over engine B.
+     * @return Elo difference, infinite when one side scored everything.
+     */
+    public synchronized double getElo() {
+        return elo(score());
+    }
+
+    /**
+     * Gets the half width of the 95% confidence interval of the Elo
+     * difference, from the spread of the per-game scores.
+     * @return error bar in Elo, infinite when it cannot be estimated.
+     */
+    public synchronized double getEloError() {
+        int games = tally[WIN] + tally[DRAW] + tally[LOSS];
+        if (games < 2) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double score = score();
+        double variance = (tally[WIN] * (1 - score) * (1 - score)
+                + tally[DRAW] * (0.5 - score) * (0.5 - score)
+                + tally[LOSS] * score * score) / games;
+        double margin = 1.96 * Math.sqrt(variance / games);
+        return (elo(score + margin) - elo(score - margin)) / 2;
+    }
+
+    /**
+     * Describes the results so far on one line.
+     * @return wins, draws, losses, Elo and nps.
+     */
+    public synchronized String summary() {
+        int games = tally[WIN] + tally[DRAW] + tally[LOSS];
+        return String.format(Locale.ROOT, "games %d  A: +%d =%d -%d  score %.1f%%  Elo %+.1f +/- %.1f  nps %d",
+                games, tally[WIN], tally[DRAW], tally[LOSS], 100 * score(), getElo(), getEloError(),
+                getNodesPerSecond());
+    }
+
+    /**
+     * Gets the score of engine A.
+     * @return points per game between 0 and 1.
+     */
+    private double score() {
+        int games = tally[WIN] + tally[DRAW] + tally[LOSS];
+        return games == 0 ? 0.5 : (tally[WIN] + 0.5 * tally[DRAW]) / games;
+    }
+
+    /**
+     * Converts a score to an Elo difference with the logistic model.
+     * @param score points per game.
+     * @return Elo difference.
+     */
+    static double elo(double score) {
+        if (score <= 0) {
+            return Double.NEGATIVE_INFINITY;
+        } else if (score >= 1) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return 400 * Math.log10(score / (1 - score));
+    }
+
+    /**
+     * Sets up the start position of an opening.
+     * @param opening UCI moves from the start position, or a FEN.
+     * @return position after the opening.
+     * @throws IllegalArgumentException if the opening is not valid.
+     */
+    static Position startOf(String opening) {
+        if (opening.indexOf('/') >= 0) {
+            return Fen.parse(opening);
+        }
+        Game game = new Game();
+        for (String move : opening.trim().split("\\s+")) {
+            if (!move.isEmpty() && !game.applyMove(move)) {
+                throw new IllegalArgumentException("illegal opening move " + move + " in " + opening);
+            }
+        }
+        return game.getPosition();
+    }
+
+    /**
+     * Limits and hash size of one engine in a tournament.
+     */
+    public static final class EngineSpec {
+        private SearchLimits limits = SearchLimits.depth(SearchLimits.MAX_DEPTH);
+        private long clockMs;
+        private long incrementMs;
+        private int hashMb = Engine.DEFAULT_HASH_MB;
+
+        /**
+         * Parses a spec such as tc=10+0.1,hash=16.
+         * @param spec comma separated key=value pairs: tc, movetime,
+         *     nodes, depth and hash.
+         * @return the spec.
+         * @throws IllegalArgumentException if the spec is malformed.
+         */
+        public static EngineSpec parse(String spec) {
+            EngineSpec parsed = new EngineSpec();
+            for (String pair : spec.split(",")) {
+                int eq = pair.indexOf('=');
+                if (eq < 0) {
+                    throw new IllegalArgumentException("expected key=value in " + spec);
+                }
+                String key = pair.substring(0, eq).trim();
+                String value = pair.substring(eq + 1).trim();
+                if (key.equals("tc")) {
+                    int plus = value.indexOf('+');
+                    parsed.clockMs = seconds(plus < 0 ? value : value.substring(0, plus));
+                    parsed.incrementMs = plus < 0 ? 0 : seconds(value.substring(plus + 1));
+                } else if (key.equals("movetime")) {
+                    parsed.limits = SearchLimits.moveTime(Long.parseLong(value));
+                } else if (key.equals("nodes")) {
+                    parsed.limits = SearchLimits.nodes(Long.parseLong(value));
+                } else if (key.equals("depth")) {
+                    parsed.limits = SearchLimits.depth(Integer.parseInt(value));
+                } else if (key.equals("hash")) {
+                    parsed.hashMb = Integer.parseInt(value);
+                } else {
+                    throw new IllegalArgumentException("unknown setting " + key);
+                }
+            }
+            return parsed;
+        }
+
+        /**
+         * Gets the limits of every search when there is no clock.
+         * @return search limits.
+         */
+        public SearchLimits getLimits() {
+            return limits;
+        }
+
+        /**
+         * Gets the time for the whole game.
+         * @return milliseconds, or 0 when there is no clock.
+         */
+        public long getClockMs() {
+            return clockMs;
+        }
+
+        /**
+         * Gets the time added after each move.
+         * @return milliseconds.
+         */
+        public long getIncrementMs() {
+            return incrementMs;
+        }
+
+        /**
+         * Gets the hash table size.
+         * @return megabytes.
+         */
+        public int getHashMb() {
+            return hashMb;
+        }
+
+        /**
+         * Converts seconds with an optional fraction to milliseconds.
+         * @param text seconds, such as 10 or 0.1.
+         * @return milliseconds.
+         */
+        private static long seconds(String text) {
+            return Math.round(Double.parseDouble(text) * 1000);
+        }
+    }
+
+    /**
+     * Reads an opening file.
+     * @param path file with one opening per line.
+     * @return the openings.
+     * @throws IOException if the file cannot be read.
+     */
+    static List<String> readOpenings(String path) throws IOException {
+        List<String> openings = new ArrayList<String>();
+        BufferedReader in = Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8);
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    startOf(line);
+                    openings.add(line);
+                }
+            }
+        } finally {
+            in.close();
+        }
+        return openings;
+    }
+
+    /**
+     * Runs a tournament from the command line and prints the summary.
+     * @param args options, see the class comment.
+     * @throws Exception if a file cannot be read or written.
+     */
+    public static void main(String[] args) throws Exception {
+        int games = 100;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int maxPlies = 400;
+        String openingFile = null;
+        String logFile = null;
+        String specA = "tc=10+0.1";
+        String specB = null;
+        String tablebaseDir = null;
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("missing value for " + args[i]);
+            }
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "-games":
+                    games = Integer.parseInt(value);
+                    break;
+                case "-threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "-maxplies":
+                    maxPlies = Integer.parseInt(value);
+                    break;
+                case "-openings":
+                    openingFile = value;
+                    break;
+                case "-log":
+                    logFile = value;
+                    break;
+                case "-tb":
+                    tablebaseDir = value;
+                    break;
+                case "-a":
+                    specA = value;
+                    break;
+                case "-b":
+                    specB = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+        List<String> openings = new ArrayList<String>();
+        if (openingFile != null) {
+            openings = readOpenings(openingFile);
+        } else {
+            for (String opening : DEFAULT_OPENINGS) {
+                openings.add(opening);
+            }
+        }
+        Tournament tournament = new Tournament(EngineSpec.parse(specA),
+                EngineSpec.parse(specB != null ? specB : specA), openings, maxPlies);
+        if (tablebaseDir != null) {
+            tournament.setTablebases(new Tablebases(Paths.get(tablebaseDir), Tablebases.DEFAULT_BUDGET));
+        }
+        PrintWriter log = logFile != null
+                ? new PrintWriter(Files.newBufferedWriter(Paths.get(logFile), StandardCharsets.UTF_8))
+                : new PrintWriter(System.out);
+        long begin = System.nanoTime();
+        try {
+            tournament.play(games, threads, log);
+        } finally {
+            log.flush();
+            if (logFile != null) {
+                log.close();
+            }
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        System.out.println(tournament.summary());
+        System.out.printf(Locale.ROOT, "%.1f s, %.0f nodes/s over all threads%n",
+                seconds, tournament.getNodes() / seconds);
+    }
+}
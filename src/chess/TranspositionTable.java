@@ -0,0 +1,228 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size, lock-free transposition table.
+ * Entries live in one long[] as pairs of (key XOR data, data), grouped in
+ * buckets of four that fill one 64-byte cache line. Readers and writers
+ * never lock: a reader recomputes key XOR data and only trusts an entry
+ * whose result matches the key it asked for, so an entry torn by two
+ * threads writing at once is simply treated as a miss. Any number of
+ * search threads can share one table.
+ * The data word packs the move (16 bits), score (16), depth (8),
+ * bound (2) and search generation (6).
+ *
+ * @author JC
+ * @version 1.0
+ */
+public final class TranspositionTable {
+
+    public static final int BOUND_NONE = 0;
+    public static final int BOUND_UPPER = 1;
+    public static final int BOUND_LOWER = 2;
+    public static final int BOUND_EXACT = 3;
+
+    /** Value returned by probe when the position is not in the table. */
+    public static final long MISS = 0L;
+
+    private static final int ENTRY_LONGS = 2;
+    private static final int BUCKET_ENTRIES = 4;
+    private static final int BUCKET_LONGS = ENTRY_LONGS * BUCKET_ENTRIES;
+    private static final int BUCKET_BYTES = BUCKET_LONGS * 8;
+    private static final long MAX_BUCKETS = 1L << 27;
+
+    private long[] table;
+    private int bucketMask;
+    private volatile int generation;
+
+    /**
+     * Constructor for the table.
+     * @param megabytes size of the table in megabytes, at least 1.
+     */
+    public TranspositionTable(int megabytes) {
+        resize(megabytes);
+    }
+
+    /**
+     * Reallocates the table, dropping every entry. Must not be called
+     * while a search is using the table.
+     * @param megabytes size of the table in megabytes, at least 1.
+     */
+    public void resize(int megabytes) {
+        long bytes = Math.max(1, megabytes) * 1024L * 1024L;
+        long buckets = Long.highestOneBit(bytes / BUCKET_BYTES);
+        buckets = Math.min(buckets, MAX_BUCKETS);
+        table = new long[(int) (buckets * BUCKET_LONGS)];
+        bucketMask = (int) buckets - 1;
+        generation = 0;
+    }
+
+    /**
+     * Drops every entry.
+     */
+    public void clear() {
+        Arrays.fill(table, 0L);
+        generation = 0;
+    }
+
+    /**
+     * Starts a new search, so entries from earlier searches are the
+     * first to be replaced.
+     */
+    public void newSearch() {
+        generation = (generation + 1) & 63;
+    }
+
+    /**
+     * Gets the size of the table.
+     * @return size in megabytes.
+     */
+    public int sizeMegabytes() {
+        return (int) ((long) table.length * 8 / (1024 * 1024));
+    }
+
+    /**
+     * Looks a position up.
+     * @param key Zobrist hash of the position.
+     * @return the data word of the entry, or MISS.
+     */
+    public long probe(long key) {
+        long[] t = table;
+        int base = ((int) key & bucketMask) * BUCKET_LONGS;
+        for (int i = base; i < base + BUCKET_LONGS; i += ENTRY_LONGS) {
+            long data = t[i + 1];
+            if (data != MISS && (t[i] ^ data) == key) {
+                return data;
+            }
+        }
+        return MISS;
+    }
+
+    /**
+     * Stores the result of searching a position. The entry for the same
+     * position is replaced if there is one, otherwise the entry of the
+     * bucket that is shallowest and oldest.
+     * @param key Zobrist hash of the position.
+     * @param move best move found, or Move.NONE.
+     * @param score score of the position.
+     * @param depth depth searched.
+     * @param bound BOUND_UPPER, BOUND_LOWER or BOUND_EXACT.
+     * @return true if the entry written held another position, which
+     *     the caller can count as a collision.
+     */
+    public boolean store(long key, int move, int score, int depth, int bound) {
+        long[] t = table;
+        int gen = generation;
+        int base = ((int) key & bucketMask) * BUCKET_LONGS;
+        int replace = base;
+        int worst = Integer.MAX_VALUE;
+        boolean collision = true;
+        for (int i = base; i < base + BUCKET_LONGS; i += ENTRY_LONGS) {
+            long data = t[i + 1];
+            if (data == MISS) {
+                replace = i;
+                collision = false;
+                break;
+            }
+            if ((t[i] ^ data) == key) {
+                if (move == Move.NONE) {
+                    move = move(data);
+                }
+                replace = i;
+                collision = false;
+                break;
+            }
+            int age = (gen - generation(data)) & 63;
+            int value = depth(data) - 8 * age;
+            if (value < worst) {
+                worst = value;
+                replace = i;
+            }
+        }
+        long data = pack(move, score, depth, bound, gen);
+        t[replace] = key ^ data;
+        t[replace + 1] = data;
+        return collision;
+    }
+
+    /**
+     * Estimates how full the table is from a sample of its entries.
+     * @return entries used by the current search, per thousand.
+     */
+    public int hashfull() {
+        long[] t = table;
+        int gen = generation;
+        int sampled = Math.min(1000, t.length / ENTRY_LONGS);
+        int used = 0;
+        for (int i = 0; i < sampled; i++) {
+            long data = t[i * ENTRY_LONGS + 1];
+            if (data != MISS && generation(data) == gen) {
+                used++;
+            }
+        }
+        return used * 1000 / sampled;
+    }
+
+    /**
+     * Packs an entry into a data word.
+     * @param move packed move.
+     * @param score score.
+     * @param depth depth searched.
+     * @param bound bound type.
+     * @param gen search generation.
+     * @return data word.
+     */
+    private static long pack(int move, int score, int depth, int bound, int gen) {
+        return (move & 0xFFFFL)
+                | ((score & 0xFFFFL) << 16)
+                | ((depth & 0xFFL) << 32)
+                | ((long) bound << 40)
+                | ((long) gen << 42);
+    }
+
+    /**
+     * Gets the move of an entry.
+     * @param data data word returned by probe.
+     * @return packed move, or Move.NONE.
+     */
+    public static int move(long data) {
+        return (int) (data & 0xFFFF);
+    }
+
+    /**
+     * Gets the score of an entry.
+     * @param data data word returned by probe.
+     * @return score.
+     */
+    public static int score(long data) {
+        return (short) (data >>> 16);
+    }
+
+    /**
+     * Gets the depth of an entry.
+     * @param data data word returned by probe.
+     * @return depth searched.
+     */
+    public static int depth(long data) {
+        return (byte) (data >>> 32);
+    }
+
+    /**
+     * Gets the bound of an entry.
+     * @param data data word returned by probe.
+     * @return BOUND_UPPER, BOUND_LOWER or BOUND_EXACT.
+     */
+    public static int bound(long data) {
+        return (int) (data >>> 40) & 3;
+    }
+
+    /**
+     * Gets the search generation of an entry.
+     * @param data data word returned by probe.
+     * @return generation, 0 to 63.
+     */
+    private static int generation(long data) {
+        return (int) (data >>> 42) & 63;
+    }
+}
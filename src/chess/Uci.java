@@ -0,0 +1,429 @@
+package chess;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * Universal Chess Interface front-end for the engine, over stdin and
+ * stdout, so the engine can be run by tournament managers and GUIs
+ * without the Swing board.
+ * Supported commands: uci, isready, ucinewgame, setoption (Hash,
+ * PawnHash, Threads, OwnBook with BookFile for a Polyglot book, and
+ * TablebasePath with TablebaseMemory for endgame tablebases), position
+ * startpos|fen ... [moves ...], go with depth, nodes, movetime, wtime,
+ * btime, winc, binc, movestogo or infinite, stop and quit. The search runs on its own thread, so stop, isready
+ * and quit are answered while it thinks; an info line with nps,
+ * hashfull and tbhits is written after every iteration, and the share
+ * of cutoffs made by each move picker stage and the pawn hash hit rate
+ * before bestmove.
+ * Usage: java chess.Uci
+ *
+ * @author JC
+ * @version 1.0
+ */
+public class Uci {
+
+    private static final String NAME = "Chess 1.0";
+    private static final String AUTHOR = "JC";
+    private static final int MAX_HASH_MB = 8192;
+    private static final int MAX_PAWN_HASH_MB = 1024;
+
+    private final Engine engine = new Engine();
+    private final PrintStream out;
+    private final Position position = Fen.parse(Fen.START);
+    private final int[] moveBuffer = new int[MoveGenerator.MAX_MOVES];
+    private Thread searcher;
+    private PolyglotBook book;
+    private boolean ownBook;
+    private final Random bookRandom = new Random();
+    private String tablebasePath = "";
+    private int tablebaseMb = (int) (Tablebases.DEFAULT_BUDGET >> 20);
+
+    /**
+     * Constructor for the front-end.
+     * @param out stream the replies are written to.
+     */
+    public Uci(PrintStream out) {
+        this.out = out;
+        engine.setListener(new SearchListener() {
+            @Override
+            public void iterationFinished(int depth, int score, long elapsedMs, int[] pv) {
+                reportIteration(depth, score, elapsedMs, pv);
+            }
+        });
+        engine.getMetrics().register("uci");
+    }
+
+    /**
+     * Reads and answers commands until quit or the end of the input.
+     * @param in command input.
+     * @throws IOException if the input cannot be read.
+     */
+    public void run(BufferedReader in) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (!execute(line.trim())) {
+                break;
+            }
+        }
+        finishSearch();
+    }
+
+    /**
+     * Answers one command. Unknown commands are ignored, as UCI asks.
+     * @param line command text.
+     * @return false once quit has been received.
+     */
+    public boolean execute(String line) {
+        String[] words = line.split("\\s+");
+        switch (words[0]) {
+            case "uci":
+                send("id name " + NAME);
+                send("id author " + AUTHOR);
+                send("option name Hash type spin default " + Engine.DEFAULT_HASH_MB
+                        + " min 1 max " + MAX_HASH_MB);
+                send("option name PawnHash type spin default " + PawnTable.DEFAULT_MB
+                        + " min 1 max " + MAX_PAWN_HASH_MB);
+                send("option name Threads type spin default 1 min 1 max " + Engine.MAX_THREADS);
+                send("option name OwnBook type check default false");
+                send("option name BookFile type string default <empty>");
+                send("option name TablebasePath type string default <empty>");
+                send("option name TablebaseMemory type spin default " + tablebaseMb + " min 1 max " + MAX_HASH_MB);
+                send("uciok");
+                break;
+            case "isready":
+                send("readyok");
+                break;
+            case "ucinewgame":
+                finishSearch();
+                engine.newGame();
+                position.copyFrom(Fen.parse(Fen.START));
+                break;
+            case "setoption":
+                finishSearch();
+                setOption(line);
+                break;
+            case "position":
+                finishSearch();
+                setPosition(words);
+                break;
+            case "go":
+                finishSearch();
+                go(words);
+                break;
+            case "stop":
+                engine.stop();
+                break;
+            case "quit":
+                engine.stop();
+                return false;
+            default:
+                break;
+        }
+        return true;
+    }
+
+    /**
+     * Handles setoption name &lt;id&gt; value &lt;x&gt;.
+     * @param line command text.
+     */
+    private void setOption(String line) {
+        int name = line.indexOf(" name ");
+        int value = line.indexOf(" value ");
+        if (name < 0 || value < name) {
+            return;
+        }
+        String id = line.substring(name + 6, value).trim();
+        String text = line.substring(value + 7).trim();
+        try {
+            if (id.equalsIgnoreCase("Hash")) {
+                engine.setHashSize(Math.max(1, Math.min(Integer.parseInt(text), MAX_HASH_MB)));
+            } else if (id.equalsIgnoreCase("PawnHash")) {
+                engine.setPawnHashSize(Math.max(1, Math.min(Integer.parseInt(text), MAX_PAWN_HASH_MB)));
+            } else if (id.equalsIgnoreCase("Threads")) {
+                engine.setThreads(Integer.parseInt(text));
+            } else if (id.equalsIgnoreCase("OwnBook")) {
+                ownBook = Boolean.parseBoolean(text);
+            } else if (id.equalsIgnoreCase("BookFile")) {
+                book = text.isEmpty() || text.equals("<empty>") ? null : PolyglotBook.open(Paths.get(text));
+            } else if (id.equalsIgnoreCase("TablebasePath")) {
+                tablebasePath = text.equals("<empty>") ? "" : text;
+                openTablebases();
+            } else if (id.equalsIgnoreCase("TablebaseMemory")) {
+                tablebaseMb = Math.max(1, Math.min(Integer.parseInt(text), MAX_HASH_MB));
+                openTablebases();
+            } else {
+                send("info string unknown option " + id);
+            }
+        } catch (NumberFormatException ex) {
+            send("info string bad value for " + id);
+        } catch (IOException ex) {
+            book = null;
+            send("info string cannot open book: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Gives the engine tablebases for the current path and budget, or
+     * none if the path is empty.
+     */
+    private void openTablebases() {
+        engine.setTablebases(tablebasePath.isEmpty() ? null
+                : new Tablebases(Paths.get(tablebasePath), (long) tablebaseMb << 20));
+    }
+
+    /**
+     * Handles position startpos|fen &lt;fen&gt; [moves &lt;uci&gt; ...].
+     * An illegal move stops the list; the moves before it are kept.
+     * @param words words of the command.
+     */
+    private void setPosition(String[] words) {
+        int i = 1;
+        if (words.length > 1 && words[1].equals("startpos")) {
+            position.copyFrom(Fen.parse(Fen.START));
+            i = 2;
+        } else if (words.length > 1 && words[1].equals("fen")) {
+            StringBuilder fen = new StringBuilder();
+            for (i = 2; i < words.length && !words[i].equals("moves"); i++) {
+                fen.append(words[i]).append(' ');
+            }
+            try {
+                position.copyFrom(Fen.parse(fen.toString().trim()));
+            } catch (IllegalArgumentException ex) {
+                send("info string bad fen: " + ex.getMessage());
+                return;
+            }
+        } else {
+            return;
+        }
+        if (i < words.length && words[i].equals("moves")) {
+            for (i++; i < words.length; i++) {
+                int move = findMove(words[i]);
+                if (move == Move.NONE) {
+                    send("info string illegal move " + words[i]);
+                    return;
+                }
+                position.makeMove(move);
+            }
+        }
+    }
+
+    /**
+     * Handles go and starts the search thread.
+     * @param words words of the command.
+     */
+    private void go(String[] words) {
+        SearchLimits limits = new SearchLimits();
+        long[] time = new long[2];
+        long[] increment = new long[2];
+        int movesToGo = 0;
+        boolean clock = false;
+        try {
+            for (int i = 1; i < words.length; i++) {
+                switch (words[i]) {
+                    case "infinite":
+                        limits.setInfinite(true);
+                        break;
+                    case "depth":
+                        limits.setDepth(Integer.parseInt(value(words, ++i)));
+                        break;
+                    case "nodes":
+                        limits.setNodes(Long.parseLong(value(words, ++i)));
+                        break;
+                    case "movetime":
+                        limits.setMoveTimeMs(Long.parseLong(value(words, ++i)));
+                        break;
+                    case "wtime":
+                        time[Position.WHITE] = Long.parseLong(value(words, ++i));
+                        clock = true;
+                        break;
+                    case "btime":
+                        time[Position.BLACK] = Long.parseLong(value(words, ++i));
+                        clock = true;
+                        break;
+                    case "winc":
+                        increment[Position.WHITE] = Long.parseLong(value(words, ++i));
+                        break;
+                    case "binc":
+                        increment[Position.BLACK] = Long.parseLong(value(words, ++i));
+                        break;
+                    case "movestogo":
+                        movesToGo = Integer.parseInt(value(words, ++i));
+                        break;
+                    default:
+                        break;
+                }
+            }
+        } catch (NumberFormatException ex) {
+            send("info string bad number in go");
+        }
+        if (clock && limits.getMoveTimeMs() == 0 && !limits.isInfinite()) {
+            int side = position.sideToMove();
+            long moveTime = SearchLimits.clock(time[side], increment[side], movesToGo).getMoveTimeMs();
+            limits.setMoveTimeMs(moveTime);
+        }
+        if (ownBook && book != null && !limits.isInfinite()) {
+            int move = book.weightedMove(position, bookRandom);
+            if (move != Move.NONE) {
+                send("info string book move");
+                send("bestmove " + Move.toUci(move));
+                return;
+            }
+        }
+        final Position root = new Position();
+        root.copyFrom(position);
+        final SearchLimits searchLimits = limits;
+        engine.prepare(position.history());
+        searcher = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                int best = engine.go(root, searchLimits);
+                int[] pv = engine.getPrincipalVariation();
+                reportStatistics();
+                String reply = "bestmove " + Move.toUci(best);
+                if (pv.length > 1 && pv[0] == best) {
+                    reply += " ponder " + Move.toUci(pv[1]);
+                }
+                send(reply);
+            }
+        }, "uci-search");
+        searcher.setDaemon(true);
+        searcher.start();
+    }
+
+    /**
+     * Gets the value after a go parameter.
+     * @param words words of the command.
+     * @param i index of the value.
+     * @return the value, or an empty string if the command ends first.
+     */
+    private static String value(String[] words, int i) {
+        return i < words.length ? words[i] : "";
+    }
+
+    /**
+     * Stops a running search and waits until its bestmove has been
+     * written, so commands that change the engine never race it.
+     */
+    private void finishSearch() {
+        if (searcher == null) {
+            return;
+        }
+        engine.stop();
+        boolean interrupted = false;
+        while (searcher.isAlive()) {
+            try {
+                searcher.join();
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        searcher = null;
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes the info line for a completed iteration.
+     * @param depth depth of the iteration.
+     * @param score score for the side to move.
+     * @param elapsedMs milliseconds since the search started.
+     * @param pv principal variation.
+     */
+    private void reportIteration(int depth, int score, long elapsedMs, int[] pv) {
+        long nodes = engine.getNodes();
+        StringBuilder line = new StringBuilder("info depth ").append(depth);
+        if (Math.abs(score) >= Search.MATE_BOUND) {
+            int plies = Search.MATE - Math.abs(score);
+            line.append(" score mate ").append(score > 0 ? (plies + 1) / 2 : -(plies + 1) / 2);
+        } else {
+            line.append(" score cp ").append(score);
+        }
+        line.append(" nodes ").append(nodes)
+                .append(" nps ").append(nodes * 1000 / Math.max(1, elapsedMs))
+                .append(" hashfull ").append(engine.getTranspositionTable().hashfull())
+                .append(" tbhits ").append(tablebaseHits())
+                .append(" time ").append(elapsedMs);
+        if (pv.length > 0) {
+            line.append(" pv");
+            for (int move : pv) {
+                line.append(' ').append(Move.toUci(move));
+            }
+        }
+        send(line.toString());
+    }
+
+    /**
+     * Writes info strings with the share of beta cutoffs made by the
+     * first move tried and by each move picker stage, and with the hit
+     * rate of the pawn hash tables.
+     */
+    private void reportStatistics() {
+        long probes = engine.getPawnProbes();
+        if (probes > 0) {
+            send("info string pawn hash hits " + engine.getPawnHits() * 100 / probes + "% of " + probes + " probes");
+        }
+        long cutoffs = engine.getCutoffs();
+        if (cutoffs == 0) {
+            return;
+        }
+        StringBuilder line = new StringBuilder("info string cutoffs ").append(cutoffs)
+                .append(" first ").append(engine.getFirstMoveCutoffs() * 100 / cutoffs).append('%');
+        for (int stage = 0; stage < MovePicker.STAGE_COUNT; stage++) {
+            line.append(", ").append(MovePicker.STAGE_NAMES[stage]).append(' ')
+                    .append(engine.getStageCutoffs(stage) * 100 / cutoffs).append('%');
+        }
+        send(line.toString());
+    }
+
+    /**
+     * Gets the number of tablebase probes that found their position.
+     * @return probe hits since the tablebases were opened.
+     */
+    private long tablebaseHits() {
+        Tablebases tablebases = engine.getTablebases();
+        return tablebases == null ? 0 : tablebases.getHits();
+    }
+
+    /**
+     * Looks up the legal move written in UCI notation.
+     * @param uci move text.
+     * @return packed move, or Move.NONE if no legal move matches.
+     */
+    private int findMove(String uci) {
+        int count = MoveGenerator.generateLegal(position, moveBuffer);
+        for (int i = 0; i < count; i++) {
+            if (Move.toUci(moveBuffer[i]).equals(uci)) {
+                return moveBuffer[i];
+            }
+        }
+        return Move.NONE;
+    }
+
+    /**
+     * Writes one line and flushes it, from any thread.
+     * @param line text to write.
+     */
+    private void send(String line) {
+        synchronized (out) {
+            out.println(line);
+            out.flush();
+        }
+    }
+
+    /**
+     * Runs the UCI front-end on stdin and stdout.
+     * @param args not used.
+     * @throws IOException if stdin cannot be read.
+     */
+    public static void main(String[] args) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.US_ASCII));
+        new Uci(System.out).run(in);
+    }
+}
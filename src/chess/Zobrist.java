@@ -0,0 +1,119 @@
+package chess;
+
+/**
+ * Zobrist hash keys. A position's hash is the XOR of one key per piece
+ * on its square, one for the castling rights, one for the file of the
+ * en passant square when a pawn can capture there and one when black is
+ * to move. Position keeps its
+ * hash up to date as pieces are put, removed and moved, and a second
+ * key made of the pawn keys alone, which the pawn hash table is indexed
+ * by.
+ * The keys come from a fixed-seed generator so hashes are the same in
+ * every run.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public final class Zobrist {
+
+    static final long[] PIECE_SQUARE = new long[12 * 64];
+    /** PIECE_SQUARE for pawns and 0 for every other piece. */
+    static final long[] PAWN_SQUARE = new long[12 * 64];
+    static final long[] CASTLING = new long[16];
+    static final long[] EP_FILE = new long[8];
+    static final long SIDE;
+
+    static {
+        long seed = 0x1F2E3D4C5B6A7988L;
+        for (int i = 0; i < PIECE_SQUARE.length; i++) {
+            seed = next(seed);
+            PIECE_SQUARE[i] = mix(seed);
+        }
+        for (int i = 1; i < CASTLING.length; i++) {
+            seed = next(seed);
+            CASTLING[i] = mix(seed);
+        }
+        for (int i = 0; i < EP_FILE.length; i++) {
+            seed = next(seed);
+            EP_FILE[i] = mix(seed);
+        }
+        seed = next(seed);
+        SIDE = mix(seed);
+        for (int color = Position.WHITE; color <= Position.BLACK; color++) {
+            int pawn = Position.piece(color, Position.PAWN);
+            System.arraycopy(PIECE_SQUARE, pawn * 64, PAWN_SQUARE, pawn * 64, 64);
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * Gets the key of a piece on a square.
+     * @param piece piece code.
+     * @param sq square index.
+     * @return hash key.
+     */
+    public static long pieceSquare(int piece, int sq) {
+        return PIECE_SQUARE[piece * 64 + sq];
+    }
+
+    /**
+     * Computes the hash of a position from scratch.
+     * @param pos position to hash.
+     * @return hash of the position.
+     */
+    public static long compute(Position pos) {
+        long hash = 0L;
+        for (int sq = 0; sq < 64; sq++) {
+            if (pos.board[sq] != Position.NO_PIECE) {
+                hash ^= pieceSquare(pos.board[sq], sq);
+            }
+        }
+        hash ^= CASTLING[pos.castling];
+        hash ^= enPassant(pos, pos.epSquare);
+        if (pos.sideToMove == Position.BLACK) {
+            hash ^= SIDE;
+        }
+        return hash;
+    }
+
+    /**
+     * Gets the en passant key for an en passant square: the key of its
+     * file when a pawn of the capturing side stands next to the pawn that
+     * has just moved two squares, and 0 otherwise, so positions that only
+     * differ by an en passant square no pawn can use hash the same.
+     * @param pos position holding the pawns.
+     * @param sq en passant square, or Position.NO_SQUARE.
+     * @return en passant key, or 0.
+     */
+    static long enPassant(Position pos, int sq) {
+        if (sq == Position.NO_SQUARE) {
+            return 0L;
+        }
+        int capturer = Position.rankOf(sq) == 2 ? Position.BLACK : Position.WHITE;
+        long pawns = pos.pieces[Position.piece(capturer, Position.PAWN)];
+        return (Bitboards.pawnAttacks(capturer ^ 1, sq) & pawns) != 0 ? EP_FILE[Position.fileOf(sq)] : 0L;
+    }
+
+    /**
+     * Advances the splitmix64 state.
+     * @param state current state.
+     * @return next state.
+     */
+    private static long next(long state) {
+        return state + 0x9E3779B97F4A7C15L;
+    }
+
+    /**
+     * Scrambles a splitmix64 state into a random value.
+     * @param state generator state.
+     * @return random 64-bit value.
+     */
+    private static long mix(long state) {
+        long z = state;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
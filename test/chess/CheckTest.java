@@ -0,0 +1,127 @@
+package chess;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the checkers and pins a position works out after each move,
+ * the legal moves that follow from them, and checkmate and stalemate.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public class CheckTest {
+
+    /**
+     * checks to see if single and double checks find their checkers and
+     * a double check leaves only king moves.
+     */
+    @Test
+    public void findsCheckers() {
+        Position single = Fen.parse("4k3/8/8/8/8/8/8/r3K3 w - - 0 1");
+        assertEquals(bit("a1"), single.checkers());
+        assertTrue(single.inCheck());
+
+        Position twice = Fen.parse("4k3/8/8/8/8/3n4/8/r3K2R w K - 0 1");
+        assertEquals(bit("a1") | bit("d3"), twice.checkers());
+        for (String uci : legal(twice).split(" ")) {
+            assertTrue(uci.startsWith("e1"), uci);
+        }
+        assertFalse(legal(twice).contains("e1g1"));
+    }
+
+    /**
+     * checks to see if pinned pieces are found and may only move along
+     * the pin.
+     */
+    @Test
+    public void pinnedPiecesStayOnTheLine() {
+        Position pos = Fen.parse("4r2k/8/8/b7/4R3/8/3B4/4K3 w - - 0 1");
+        assertEquals(bit("e4") | bit("d2"), pos.pinned());
+        String moves = legal(pos);
+        assertTrue(moves.contains("e4e8"));
+        assertTrue(moves.contains("e4e5"));
+        assertFalse(moves.contains("e4d4"));
+        assertTrue(moves.contains("d2a5"));
+        assertFalse(moves.contains("d2e3"));
+    }
+
+    /**
+     * checks to see if the king may not step into check or capture a
+     * defended piece, and the en passant capture that would uncover a
+     * check along the rank is left out.
+     */
+    @Test
+    public void kingAndEnPassantSafety() {
+        String moves = legal(Fen.parse("4k3/8/8/8/8/3q4/3r4/4K3 w - - 0 1"));
+        assertFalse(moves.contains("e1d2"));
+        assertFalse(moves.contains("e1f1"));
+        assertFalse(moves.contains("e1e2"));
+
+        Position ep = Fen.parse("8/8/8/K2pP2r/8/8/8/7k w - d6 0 1");
+        assertFalse(legal(ep).contains("e5d6"));
+    }
+
+    /**
+     * checks to see if checks are worked out again after a move is made
+     * and taken back.
+     */
+    @Test
+    public void checkersFollowMoves() {
+        Position pos = Fen.parse("4k3/8/8/8/8/8/8/R3K3 w - - 0 1");
+        int move = San.parse(pos, "Ra8+");
+        pos.makeMove(move);
+        assertEquals(bit("a8"), pos.checkers());
+        pos.unmakeMove(move);
+        assertEquals(0L, pos.checkers());
+    }
+
+    /**
+     * checks to see if mate and stalemate end a game with the right
+     * result.
+     */
+    @Test
+    public void mateAndStalemate() {
+        Game mate = new Game();
+        for (String uci : new String[] {"f2f3", "e7e5", "g2g4", "d8h4"}) {
+            assertTrue(mate.applyMove(uci), uci);
+        }
+        assertTrue(MoveGenerator.isCheckmate(mate.getPosition()));
+        assertEquals(Game.CHECKMATE, mate.getStatus());
+        assertEquals(PgnGame.BLACK_WINS, mate.getResult());
+        assertFalse(mate.applyMove("a2a3"));
+
+        Game stale = new Game(Fen.parse("7k/8/6Q1/8/8/8/8/K7 w - - 0 1"));
+        assertTrue(stale.applyMove("g6f7"));
+        assertTrue(MoveGenerator.isStalemate(stale.getPosition()));
+        assertEquals(Game.STALEMATE, stale.getStatus());
+        assertEquals(PgnGame.DRAW, stale.getResult());
+    }
+
+    /**
+     * Gets the bit of a named square.
+     * @param name square such as e4.
+     * @return bitboard with that square set.
+     */
+    private static long bit(String name) {
+        return 1L << Position.square(name.charAt(0) - 'a', name.charAt(1) - '1');
+    }
+
+    /**
+     * Lists the legal moves of a position.
+     * @param pos position to look at.
+     * @return moves in UCI notation, separated by spaces.
+     */
+    private static String legal(Position pos) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int n = MoveGenerator.generateLegal(pos, moves);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            sb.append(Move.toUci(moves[i])).append(' ');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,78 @@
+package chess;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the engine's JMX metrics: the totals a search leaves behind as
+ * read through the platform MBean server, and registering and
+ * unregistering the bean.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public class EngineMetricsTest {
+
+    private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+    /**
+     * checks to see if one search shows up in the bean's attributes with
+     * the engine's own totals.
+     * @throws JMException if an attribute cannot be read.
+     */
+    @Test
+    public void searchTotals() throws JMException {
+        Engine engine = new Engine(4, 2);
+        ObjectName name = engine.getMetrics().register("metrics-test");
+        try {
+            assertEquals(new ObjectName("chess:type=Engine,name=\"metrics-test\""), name);
+            assertEquals(0L, server.getAttribute(name, "Searches"));
+            engine.think(Position.startPosition(), SearchLimits.depth(4));
+
+            assertEquals(1L, server.getAttribute(name, "Searches"));
+            assertEquals(engine.getNodes(), server.getAttribute(name, "Nodes"));
+            assertEquals(engine.getPawnProbes(), server.getAttribute(name, "PawnHashProbes"));
+            assertEquals(engine.getPawnHits(), server.getAttribute(name, "PawnHashHits"));
+            assertEquals(2, server.getAttribute(name, "Threads"));
+            assertEquals(false, server.getAttribute(name, "Thinking"));
+            assertTrue((Long) server.getAttribute(name, "Nodes") > 0);
+            assertTrue((Long) server.getAttribute(name, "TtProbes") > 0);
+            assertTrue((Long) server.getAttribute(name, "MoveGenerations") > 0);
+            assertTrue((Long) server.getAttribute(name, "MovesGenerated") > 0);
+
+            engine.think(Position.startPosition(), SearchLimits.depth(2));
+            assertEquals(2L, server.getAttribute(name, "Searches"));
+        } finally {
+            EngineMetrics.unregister(name);
+        }
+    }
+
+    /**
+     * checks to see if a second bean under the same name replaces the
+     * first and unregistering removes it, twice without harm.
+     * @throws JMException if an attribute cannot be read.
+     */
+    @Test
+    public void registerAndUnregister() throws JMException {
+        Engine first = new Engine(1, 1);
+        Engine second = new Engine(1, 1);
+        ObjectName name = first.getMetrics().register("metrics-twice");
+        assertTrue(server.isRegistered(name));
+        second.think(Position.startPosition(), SearchLimits.depth(1));
+        assertEquals(name, second.getMetrics().register("metrics-twice"));
+        assertEquals(1L, server.getAttribute(name, "Searches"));
+
+        EngineMetrics.unregister(name);
+        assertFalse(server.isRegistered(name));
+        EngineMetrics.unregister(name);
+        EngineMetrics.unregister(null);
+        assertFalse(server.isRegistered(name));
+    }
+}
@@ -0,0 +1,64 @@
+package chess;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+/**
+ * Checks that FEN strings are read and written back unchanged and that
+ * positions the rules cannot work with are refused.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public class FenTest {
+
+    /**
+     * checks to see if parsing and writing a FEN gives it back.
+     */
+    @Test
+    public void roundTrip() {
+        String[] fens = {
+            Fen.START,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3",
+            "8/8/8/8/8/8/8/K6k b - - 99 120",
+        };
+        for (String fen : fens) {
+            assertEquals(fen, Fen.toFen(Fen.parse(fen)));
+        }
+        assertEquals("4k3/8/8/8/8/8/8/4K3 w - - 0 1", Fen.toFen(Fen.parse("4k3/8/8/8/8/8/8/4K3 w - -")));
+    }
+
+    /**
+     * checks to see if malformed or impossible positions are refused.
+     */
+    @Test
+    public void rejectsBadInput() {
+        String[] fens = {
+            "4k3/8/8/8/8/8/8/4K3 w -",
+            "4k3/8/8/8/8/8/8/4K2 w - - 0 1",
+            "4k3/8/8/8/8/8/8/8/4K3 w - - 0 1",
+            "4k3/8/8/8/8/8/8/4K4 w - - 0 1",
+            "8/8/8/8/8/8/8/4K3 w - - 0 1",
+            "4k3/8/8/8/8/8/8/3KK3 w - - 0 1",
+            "4k3/8/8/8/8/8/8/4K3 x - - 0 1",
+            "4k3/8/8/8/8/8/8/4K3 w K - 0 1",
+            "4k3/8/8/8/8/8/8/4K3 w - e6 0 1",
+            "4k2R/8/8/8/8/8/8/4K3 w - - 0 1",
+            "4k3/8/8/8/8/8/8/4K3 w - - -1 1",
+            "4k3/8/8/8/8/8/8/4K3 w - - 0 0",
+            "4k3/8/8/8/8/8/8/4K3 w - - x 1",
+        };
+        for (final String fen : fens) {
+            assertThrows(IllegalArgumentException.class, new Executable() {
+                @Override
+                public void execute() {
+                    Fen.parse(fen);
+                }
+            }, fen);
+        }
+    }
+}
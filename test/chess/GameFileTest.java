@@ -0,0 +1,222 @@
+package chess;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that games survive a save and load unchanged, that damaged or
+ * crafted saves are refused with an IOException, and that the board of
+ * the bundled legacy save can still be imported.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public class GameFileTest {
+
+    private static final String START = "r3k2r/pp3ppp/2n5/3pP3/8/2N5/PPP2PPP/R3K2R w KQkq d6 0 12";
+
+    @TempDir
+    Path dir;
+
+    /**
+     * checks to see if the start position, moves and clocks read back
+     * exactly as they were written.
+     * @throws IOException if the files cannot be used.
+     */
+    @Test
+    public void roundTrip() throws IOException {
+        GameRecord record = playedGame();
+        Path path = dir.resolve("game.chg");
+        GameFile.save(record, path);
+        assertEquals(GameFile.encodedSize(record), Files.size(path));
+        assertEquals(60 + 2 * record.getMoveCount(), Files.size(path));
+
+        GameRecord loaded = GameFile.load(path);
+        assertEquals(Fen.toFen(record.getStart()), Fen.toFen(loaded.getStart()));
+        assertArrayEquals(movesOf(record), movesOf(loaded));
+        assertEquals(record.getWhiteTimeMs(), loaded.getWhiteTimeMs());
+        assertEquals(record.getBlackTimeMs(), loaded.getBlackTimeMs());
+    }
+
+    /**
+     * checks to see if a save with a flipped byte is refused.
+     * @throws IOException if the files cannot be used.
+     */
+    @Test
+    public void corruptSaveRefused() throws IOException {
+        GameRecord record = playedGame();
+        final ByteBuffer buf = ByteBuffer.allocate(GameFile.encodedSize(record));
+        GameFile.encode(record, buf);
+        buf.put(40, (byte) (buf.get(40) ^ 1));
+        buf.flip();
+        assertThrows(IOException.class, new Executable() {
+            @Override
+            public void execute() throws IOException {
+                GameFile.decode(buf);
+            }
+        });
+    }
+
+    /**
+     * checks to see if a packed position without a king is refused
+     * before the move generator ever sees it.
+     */
+    @Test
+    public void kinglessPositionRefused() {
+        final ByteBuffer buf = ByteBuffer.allocate(GameFile.POSITION_SIZE);
+        buf.putLong(1L << 12);
+        buf.put((byte) (Position.piece(Position.WHITE, Position.PAWN) << 4));
+        buf.position(8 + 16);
+        buf.put((byte) Position.WHITE).put((byte) 0).put((byte) -1).putShort((short) 0).putShort((short) 1);
+        buf.flip();
+        IOException ex = assertThrows(IOException.class, new Executable() {
+            @Override
+            public void execute() throws IOException {
+                GameFile.readPosition(buf, new Position());
+            }
+        });
+        assertEquals("Corrupt saved game", ex.getMessage());
+    }
+
+    /**
+     * checks to see if legacy files with impossible lengths or references
+     * are refused without allocating what they ask for.
+     * @throws IOException if the files cannot be written.
+     */
+    @Test
+    public void craftedLegacyFilesRefused() throws IOException {
+        int[] lengths = {Integer.MAX_VALUE, -5};
+        for (int length : lengths) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = legacyStream(bytes);
+            out.writeByte(0x75);
+            out.writeByte(0x72);
+            out.writeUTF("[Ljava.lang.Object;");
+            out.writeLong(0L);
+            out.writeByte(0x02);
+            out.writeShort(0);
+            out.writeByte(0x78);
+            out.writeByte(0x70);
+            out.writeInt(length);
+            assertRefused(bytes);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = legacyStream(bytes);
+        out.writeByte(0x71);
+        out.writeInt(0x7E0005);
+        assertRefused(bytes);
+
+        bytes = new ByteArrayOutputStream();
+        out = legacyStream(bytes);
+        out.writeByte(0x74);
+        out.writeUTF("not a class");
+        out.writeByte(0x73);
+        out.writeByte(0x71);
+        out.writeInt(0x7E0000);
+        assertRefused(bytes);
+    }
+
+    /**
+     * Starts a serialization stream.
+     * @param bytes buffer to write to.
+     * @return stream with the header written.
+     * @throws IOException never.
+     */
+    private static DataOutputStream legacyStream(ByteArrayOutputStream bytes) throws IOException {
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeShort(0xACED);
+        out.writeShort(5);
+        return out;
+    }
+
+    /**
+     * Writes a legacy file and checks that importing it fails with an
+     * IOException.
+     * @param bytes contents of the file.
+     * @throws IOException if the file cannot be written.
+     */
+    private void assertRefused(ByteArrayOutputStream bytes) throws IOException {
+        final Path path = dir.resolve("crafted.gam");
+        Files.write(path, bytes.toByteArray());
+        assertThrows(IOException.class, new Executable() {
+            @Override
+            public void execute() throws IOException {
+                LegacyGameImporter.importGame(path);
+            }
+        });
+    }
+
+    /**
+     * checks to see if the board of the old serialized test.gam is found.
+     * @throws IOException if the files cannot be used.
+     */
+    @Test
+    public void importsLegacySave() throws IOException {
+        Path legacy = Paths.get("test.gam");
+        assertTrue(LegacyGameImporter.isLegacyFile(legacy));
+        GameRecord record = LegacyGameImporter.importGame(legacy);
+        assertEquals("rnbkqbnr/ppp1pppp/3p4/8/8/3PP3/PPP2PPP/RNBKQBNR b - - 0 1", Fen.toFen(record.getStart()));
+        assertEquals(0, record.getMoveCount());
+    }
+
+    /**
+     * Builds a timed game of a few moves that uses en passant, castling
+     * and captures.
+     * @return the game record.
+     */
+    private static GameRecord playedGame() {
+        GameRecord record = new GameRecord(Fen.parse(START));
+        Position pos = Fen.parse(START);
+        for (String uci : new String[] {"e5d6", "e8c8", "e1g1", "d8d6", "c3b5", "d6d2"}) {
+            int move = find(pos, uci);
+            pos.makeMove(move);
+            record.addMove(move);
+        }
+        record.setClocks(61500, 59250);
+        return record;
+    }
+
+    /**
+     * Finds a legal move by its UCI text.
+     * @param pos position to look in.
+     * @param uci move text.
+     * @return the packed move.
+     */
+    static int find(Position pos, String uci) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int n = MoveGenerator.generateLegal(pos, moves);
+        for (int i = 0; i < n; i++) {
+            if (Move.toUci(moves[i]).equals(uci)) {
+                return moves[i];
+            }
+        }
+        throw new AssertionError("no legal move " + uci + " in " + Fen.toFen(pos));
+    }
+
+    /**
+     * Lists the moves of a record.
+     * @param record game record.
+     * @return its moves in order.
+     */
+    private static int[] movesOf(GameRecord record) {
+        int[] moves = new int[record.getMoveCount()];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = record.getMove(i);
+        }
+        return moves;
+    }
+}
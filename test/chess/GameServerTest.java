@@ -0,0 +1,98 @@
+package chess;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Talks to a GameServer over its line protocol: playing a game, bad
+ * requests that get an err reply without losing the connection, and
+ * stop closing open connections.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public class GameServerTest {
+
+    /**
+     * checks to see if a game can be created and played, and if bad
+     * positions and moves are answered with err on the same connection.
+     * @throws IOException if the connection fails.
+     */
+    @Test
+    public void playsAndRejects() throws IOException {
+        GameServer server = new GameServer(0);
+        server.start();
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+        try {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII);
+            assertTrue(request(in, out, "new 4k3/8/8/8/8/8/8/4K2 w - - 0 1").startsWith("err Bad piece placement"));
+            assertTrue(request(in, out, "new 8/8/8/8/8/8/8/8 w - - 0 1").startsWith("err Each side needs one king"));
+            assertTrue(request(in, out, "new 4k3/8/8/8/8/8/8/4K3 w K - 0 1").startsWith("err Castling rights"));
+            String created = request(in, out, "new");
+            assertTrue(created.startsWith("ok "), created);
+            String id = created.substring(3);
+            assertEquals("ok ongoing *", request(in, out, "move " + id + " e2e4"));
+            assertEquals("err illegal move e2e4", request(in, out, "move " + id + " e2e4"));
+            assertEquals("err no game 999", request(in, out, "fen 999"));
+            assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1", request(in, out, "fen " + id).substring(3));
+            assertEquals(1, server.getConnectionCount());
+        } finally {
+            socket.close();
+            server.stop();
+        }
+    }
+
+    /**
+     * checks to see if stop closes a connection that is still open.
+     * @throws IOException if the connection fails.
+     */
+    @Test
+    public void stopClosesConnections() throws IOException {
+        GameServer server = new GameServer(0);
+        server.start();
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+        try {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII);
+            assertTrue(request(in, out, "new").startsWith("ok "));
+            server.stop();
+            String line;
+            try {
+                line = in.readLine();
+            } catch (SocketException ex) {
+                line = null;
+            }
+            assertNull(line);
+            assertEquals(0, server.getConnectionCount());
+        } finally {
+            socket.close();
+        }
+    }
+
+    /**
+     * Sends one request and reads its reply.
+     * @param in reader of the replies.
+     * @param out writer of the requests.
+     * @param line request without the line end.
+     * @return reply line.
+     * @throws IOException if the connection fails.
+     */
+    private static String request(BufferedReader in, Writer out, String line) throws IOException {
+        out.write(line + "\n");
+        out.flush();
+        return in.readLine();
+    }
+}
@@ -0,0 +1,99 @@
+package chess;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.GraphicsEnvironment;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the headless Game API: playing, taking back and redoing moves,
+ * listeners, loading records and the ways a game can end.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public class GameTest {
+
+    /**
+     * checks to see if a game is played, taken back and redone without
+     * a display, telling its listeners each time.
+     */
+    @Test
+    public void playUndoRedo() {
+        assertTrue(GraphicsEnvironment.isHeadless());
+        Game game = new Game();
+        final AtomicInteger changes = new AtomicInteger();
+        game.addListener(new GameListener() {
+            @Override
+            public void gameChanged(Game changed) {
+                changes.incrementAndGet();
+            }
+        });
+        assertEquals(20, game.legalMoves().length);
+        assertFalse(game.applyMove("e2e5"));
+        assertTrue(game.applyMove("e2e4"));
+        assertTrue(game.applyMove("c7c5"));
+        assertEquals(2, game.getMoveCount());
+        assertEquals(Position.WHITE, game.sideToMove());
+        assertEquals("rnbqkbnr/pp1ppppp/8/2p5/4P3/8/PPPP1PPP/RNBQKBNR w KQkq c6 0 2", game.toFen());
+
+        assertTrue(game.undo());
+        assertEquals(1, game.getRedoCount());
+        assertTrue(game.redo());
+        assertEquals("c7c5", Move.toUci(game.getLastMove()));
+        assertTrue(game.undo());
+        assertTrue(game.applyMove("e7e5"));
+        assertEquals(0, game.getRedoCount());
+        assertFalse(game.redo());
+        assertEquals(6, changes.get());
+        assertEquals(2, game.getHistory().length);
+    }
+
+    /**
+     * checks to see if loading a record replays its moves.
+     */
+    @Test
+    public void loadsRecord() {
+        Game played = new Game();
+        for (String uci : new String[] {"d2d4", "d7d5", "c2c4", "e7e6"}) {
+            assertTrue(played.applyMove(uci));
+        }
+        GameRecord record = new GameRecord();
+        for (int i = 0; i < played.getRecord().getMoveCount(); i++) {
+            record.addMove(played.getRecord().getMove(i));
+        }
+        Game loaded = new Game();
+        loaded.load(record);
+        assertEquals(played.toFen(), loaded.toFen());
+        assertArrayEquals(played.getHistory(), loaded.getHistory());
+        assertEquals(Game.ONGOING, loaded.getStatus());
+    }
+
+    /**
+     * checks to see if the fifty move rule, bare kings and resignation
+     * end the game with a draw or a win.
+     */
+    @Test
+    public void drawsAndResignation() {
+        Game fifty = new Game(Fen.parse("4k3/8/8/8/8/8/8/R3K3 w - - 99 80"));
+        assertTrue(fifty.applyMove("a1a2"));
+        assertEquals(Game.DRAW_FIFTY_MOVES, fifty.getStatus());
+        assertEquals(PgnGame.DRAW, fifty.getResult());
+
+        Game bare = new Game(Fen.parse("4k3/8/8/8/8/8/3r4/4K3 w - - 0 1"));
+        assertTrue(bare.applyMove("e1d2"));
+        assertEquals(Game.DRAW_INSUFFICIENT_MATERIAL, bare.getStatus());
+        assertEquals(0, bare.legalMoves().length);
+
+        Game resigned = new Game();
+        resigned.resign(Position.WHITE);
+        assertEquals(Game.RESIGNED, resigned.getStatus());
+        assertEquals(PgnGame.BLACK_WINS, resigned.getResult());
+        assertFalse(resigned.applyMove("e2e4"));
+        assertEquals("White resigns. Black wins.", resigned.describeResult());
+    }
+}
@@ -0,0 +1,83 @@
+package chess;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the move picker: static exchange evaluation of a few known
+ * exchanges, and the order of the stages on a fixed position.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public class MovePickerTest {
+
+    /**
+     * checks to see if exchanges with known outcomes are scored right,
+     * x-ray attackers included.
+     */
+    @Test
+    public void exchanges() {
+        assertEquals(-400, see("4k3/8/2p5/3p4/8/8/8/3RK3 w - - 0 1", "d1d5"));
+        assertEquals(320, see("4k3/8/8/3n4/4P3/8/8/4K3 w - - 0 1", "e4d5"));
+        assertEquals(0, see("4k3/8/2p5/3n4/8/4N3/8/4K3 w - - 0 1", "e3d5"));
+        assertEquals(100, see("3rk3/8/8/3p4/8/8/3R4/3RK3 w - - 0 1", "d2d5"));
+        assertEquals(100, see("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1", "e5d6"));
+    }
+
+    /**
+     * checks to see if the moves come out as hash move, winning
+     * captures by most valuable victim, killer, quiet moves and losing
+     * captures, each move once.
+     */
+    @Test
+    public void stageOrder() {
+        Position pos = Fen.parse("4k3/8/2p5/3p1n2/4P3/8/8/3RK3 w - - 0 1");
+        MovePicker picker = new MovePicker();
+        int count = picker.init(pos, GameFileTest.find(pos, "d1a1"), GameFileTest.find(pos, "e1e2"),
+                Move.NONE, new int[12 * 64]);
+        List<String> moves = new ArrayList<String>();
+        List<Integer> stages = new ArrayList<Integer>();
+        for (int move = picker.next(); move != Move.NONE; move = picker.next()) {
+            moves.add(Move.toUci(move));
+            stages.add(picker.stage());
+        }
+        assertEquals(count, moves.size(), moves.toString());
+        Set<String> distinct = new HashSet<String>(moves);
+        assertEquals(count, distinct.size(), moves.toString());
+
+        assertEquals("d1a1", moves.get(0));
+        assertEquals(MovePicker.STAGE_HASH, (int) stages.get(0));
+        assertEquals("e4f5", moves.get(1));
+        assertEquals(MovePicker.STAGE_GOOD_CAPTURES, (int) stages.get(1));
+        assertEquals("e4d5", moves.get(2));
+        assertEquals(MovePicker.STAGE_GOOD_CAPTURES, (int) stages.get(2));
+        assertEquals("e1e2", moves.get(3));
+        assertEquals(MovePicker.STAGE_KILLERS, (int) stages.get(3));
+        for (int i = 4; i < count - 1; i++) {
+            assertEquals(MovePicker.STAGE_QUIETS, (int) stages.get(i), moves.get(i));
+        }
+        assertEquals("d1d5", moves.get(count - 1));
+        assertEquals(MovePicker.STAGE_BAD_CAPTURES, (int) stages.get(count - 1));
+        assertTrue(count > 5, moves.toString());
+    }
+
+    /**
+     * Scores one capture with static exchange evaluation.
+     * @param fen position.
+     * @param uci capture in UCI form.
+     * @return material the capture wins.
+     */
+    private static int see(String fen, String uci) {
+        Position pos = Fen.parse(fen);
+        MovePicker picker = new MovePicker();
+        picker.init(pos, Move.NONE, Move.NONE, Move.NONE, new int[12 * 64]);
+        return picker.see(GameFileTest.find(pos, uci));
+    }
+}
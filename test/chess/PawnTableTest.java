@@ -0,0 +1,59 @@
+package chess;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that looking the pawn structure up in a PawnTable never changes
+ * the evaluation, and that the table counts its probes and hits.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public class PawnTableTest {
+
+    /**
+     * checks to see if cached and uncached evaluations agree at every
+     * ply of random games, and if probes and hits are counted.
+     */
+    @Test
+    public void cachedEvaluationMatches() {
+        PawnTable table = new PawnTable(PawnTable.DEFAULT_MB);
+        Random random = new Random(2024);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        long evaluations = 0;
+        for (int game = 0; game < 20; game++) {
+            Position pos = Position.startPosition();
+            for (int ply = 0; ply < 300; ply++) {
+                assertEquals(Evaluator.evaluate(pos), Evaluator.evaluate(pos, table), Fen.toFen(pos));
+                evaluations++;
+                int n = MoveGenerator.generateLegal(pos, moves);
+                if (n == 0) {
+                    break;
+                }
+                pos.makeMove(moves[random.nextInt(n)]);
+            }
+        }
+        assertEquals(evaluations, table.getProbes());
+        assertTrue(table.getHits() > 0 && table.getHits() < evaluations,
+                table.getHits() + " hits in " + evaluations);
+
+        Position start = Position.startPosition();
+        table.resetStatistics();
+        assertEquals(0, table.getProbes());
+        assertEquals(0, table.getHits());
+        Evaluator.evaluate(start, table);
+        Evaluator.evaluate(start, table);
+        assertEquals(2, table.getProbes());
+        assertEquals(2, table.getHits());
+
+        table.clear();
+        table.resetStatistics();
+        Evaluator.evaluate(start, table);
+        Evaluator.evaluate(start, table);
+        assertEquals(1, table.getHits());
+    }
+}
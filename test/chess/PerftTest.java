@@ -0,0 +1,100 @@
+package chess;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+/**
+ * Checks the move generator against the reference counts of the perft
+ * suite, and makeMove/unmakeMove against a hash computed from scratch.
+ * Only the shallow depths are run so the build stays quick; the full
+ * suite is still run with java chess.Perft suite.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public class PerftTest {
+
+    private static final long MAX_NODES = 200000;
+
+    /**
+     * checks to see if every reference position gives its known counts.
+     */
+    @Test
+    public void suiteCounts() {
+        for (String[] entry : Perft.SUITE) {
+            Position pos = Fen.parse(entry[0]);
+            Perft perft = new Perft(entry.length - 1);
+            for (int depth = 1; depth < entry.length; depth++) {
+                long expected = Long.parseLong(entry[depth]);
+                if (expected > MAX_NODES) {
+                    break;
+                }
+                assertEquals(expected, perft.count(pos, depth), entry[0] + " depth " + depth);
+            }
+        }
+    }
+
+    /**
+     * checks to see if the incremental hash equals the hash computed
+     * from scratch after every make and unmake, and if unmaking gives
+     * back the same position.
+     */
+    @Test
+    public void hashFollowsMakeAndUnmake() {
+        for (String[] entry : Perft.SUITE) {
+            walk(Fen.parse(entry[0]), 3);
+        }
+    }
+
+    /**
+     * Makes and unmakes every legal move to a depth, checking the hash
+     * along the way.
+     * @param pos position to walk from; it is left unchanged.
+     * @param depth number of plies to walk.
+     */
+    private static void walk(Position pos, int depth) {
+        assertEquals(Zobrist.compute(pos), pos.hash(), Fen.toFen(pos));
+        if (depth == 0) {
+            return;
+        }
+        String before = Fen.toFen(pos);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int n = MoveGenerator.generateLegal(pos, moves);
+        for (int i = 0; i < n; i++) {
+            pos.makeMove(moves[i]);
+            walk(pos, depth - 1);
+            pos.unmakeMove(moves[i]);
+            assertEquals(before, Fen.toFen(pos), "after unmaking " + Move.toUci(moves[i]));
+            assertEquals(Zobrist.compute(pos), pos.hash(), before);
+        }
+    }
+
+    /**
+     * checks to see if divide adds up to the plain count and refuses a
+     * depth below 1.
+     */
+    @Test
+    public void divide() {
+        final Position pos = Fen.parse(Fen.START);
+        final Perft perft = new Perft(3);
+        PrintStream out = System.out;
+        try {
+            System.setOut(new PrintStream(new ByteArrayOutputStream()));
+            assertEquals(8902L, perft.divide(pos, 3));
+        } finally {
+            System.setOut(out);
+        }
+        assertEquals(8902L, perft.count(pos, 3));
+        assertThrows(IllegalArgumentException.class, new Executable() {
+            @Override
+            public void execute() {
+                perft.divide(pos, 0);
+            }
+        });
+    }
+}
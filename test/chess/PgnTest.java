@@ -0,0 +1,180 @@
+package chess;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+/**
+ * Checks SAN in both directions and that games written by PgnWriter
+ * are read back unchanged by PgnReader.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public class PgnTest {
+
+    /**
+     * checks to see if castling, promotion, disambiguation and the check
+     * and mate marks are written as SAN expects.
+     */
+    @Test
+    public void writesSan() {
+        assertEquals("O-O", san("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1", "e1g1"));
+        assertEquals("O-O-O", san("r3k2r/8/8/8/8/8/8/R3K2R b KQkq - 0 1", "e8c8"));
+        assertEquals("b8=Q+", san("4k3/1P6/8/8/8/8/8/4K3 w - - 0 1", "b7b8q"));
+        assertEquals("Nbd2", san("4k3/8/8/8/8/5N2/8/1N2K3 w - - 0 1", "b1d2"));
+        assertEquals("R1a3", san("4k3/8/R7/8/8/8/8/R3K3 w - - 0 1", "a1a3"));
+        assertEquals("exd6", san("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1", "e5d6"));
+        assertEquals("Qxf7#", san("r1bqkbnr/pppp1ppp/2n5/4p3/2B1P3/5Q2/PPPP1PPP/RNB1K1NR w KQkq - 4 4", "f3f7"));
+    }
+
+    /**
+     * checks to see if SAN is read back as the same move, with or
+     * without marks and in long-algebraic form.
+     */
+    @Test
+    public void readsSan() {
+        Position pos = Fen.parse("4k3/8/8/8/8/5N2/8/1N2K3 w - - 0 1");
+        assertEquals("b1d2", Move.toUci(San.parse(pos, "Nbd2")));
+        assertEquals("f3d2", Move.toUci(San.parse(pos, "Nfd2!?")));
+        assertEquals("f3e5", Move.toUci(San.parse(pos, "Nf3-e5")));
+        assertEquals(Move.NONE, San.parse(pos, "Nd2"));
+        assertEquals(Move.NONE, San.parse(pos, "Qd2"));
+    }
+
+    /**
+     * checks to see if tags, start position, moves and result survive
+     * a write and a read.
+     * @throws IOException if the text cannot be read.
+     */
+    @Test
+    public void roundTrip() throws IOException {
+        PgnGame first = game(Fen.START, "1-0", "e4", "e5", "Bc4", "Nc6", "Qh5", "Nf6", "Qxf7#");
+        PgnGame second = game("r3k2r/8/8/8/8/8/8/R3K2R b KQkq - 0 30", "1/2-1/2", "O-O-O", "O-O", "Rd7");
+        StringWriter text = new StringWriter();
+        PgnWriter writer = new PgnWriter(text);
+        writer.write(first);
+        writer.write(second);
+        writer.flush();
+
+        PgnReader reader = new PgnReader(new ByteArrayInputStream(text.toString().getBytes(StandardCharsets.US_ASCII)));
+        assertSame(first, reader.next());
+        assertSame(second, reader.next());
+        assertNull(reader.next());
+        assertEquals(0, reader.getSkippedGames());
+    }
+
+    /**
+     * checks to see if comments, variations and NAGs are skipped and a
+     * game with an illegal move is dropped without losing the next one.
+     * @throws IOException if the text cannot be read.
+     */
+    @Test
+    public void skipsAnnotationsAndBadGames() throws IOException {
+        String text = "[Event \"One\"]\n\n1. e4 {best by test} e5 (1... c5 2. Nf3) 2. Nf3 $1 Nc6 *\n\n"
+                + "[Event \"Bad\"]\n\n1. e4 e5 2. Ke3 *\n\n"
+                + "[Event \"Three\"]\n\n1. d4 ; a comment to the end of the line\nd5 0-1\n";
+        PgnReader reader = new PgnReader(new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII)));
+        PgnGame one = reader.next();
+        assertEquals("One", one.getTag("Event"));
+        assertEquals(4, one.getRecord().getMoveCount());
+        PgnGame three = reader.next();
+        assertEquals("Three", three.getTag("Event"));
+        assertEquals("0-1", three.getResult());
+        assertEquals(2, three.getRecord().getMoveCount());
+        assertNull(reader.next());
+        assertEquals(1, reader.getSkippedGames());
+    }
+
+    /**
+     * checks to see if a stray closing parenthesis in the movetext is
+     * skipped instead of stopping the reader.
+     */
+    @Test
+    public void skipsStrayParenthesis() {
+        assertTimeoutPreemptively(Duration.ofSeconds(10), new Executable() {
+            @Override
+            public void execute() throws IOException {
+                String text = "[Event \"x\"]\n\n1. e4 ) e5 1-0\n\n[Event \"y\"]\n\n1. d4 ) ) *\n";
+                PgnReader reader = new PgnReader(new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII)));
+                PgnGame x = reader.next();
+                assertEquals("x", x.getTag("Event"));
+                assertEquals("1-0", x.getResult());
+                assertEquals(2, x.getRecord().getMoveCount());
+                PgnGame y = reader.next();
+                assertEquals("y", y.getTag("Event"));
+                assertEquals(1, y.getRecord().getMoveCount());
+                assertNull(reader.next());
+            }
+        });
+    }
+
+    /**
+     * Writes one move of a position in SAN.
+     * @param fen position the move is played in.
+     * @param uci move in UCI notation.
+     * @return the move in SAN.
+     */
+    private static String san(String fen, String uci) {
+        Position pos = Fen.parse(fen);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int n = MoveGenerator.generateLegal(pos, moves);
+        for (int i = 0; i < n; i++) {
+            if (Move.toUci(moves[i]).equals(uci)) {
+                return San.toSan(pos, moves[i]);
+            }
+        }
+        throw new AssertionError("no legal move " + uci + " in " + fen);
+    }
+
+    /**
+     * Builds a game from SAN moves.
+     * @param fen start position.
+     * @param result game result.
+     * @param sans moves in SAN.
+     * @return the game, with Event, White and Black tags.
+     */
+    private static PgnGame game(String fen, String result, String... sans) {
+        Position pos = Fen.parse(fen);
+        GameRecord record = new GameRecord(pos);
+        for (String text : sans) {
+            int move = San.parse(pos, text);
+            assertNotEquals(Move.NONE, move, text);
+            pos.makeMove(move);
+            record.addMove(move);
+        }
+        Map<String, String> tags = new LinkedHashMap<String, String>();
+        tags.put("Event", "Test");
+        tags.put("White", "A");
+        tags.put("Black", "B");
+        return new PgnGame(tags, record, result);
+    }
+
+    /**
+     * Checks that a game read back matches the game written.
+     * @param expected game written.
+     * @param actual game read.
+     */
+    private static void assertSame(PgnGame expected, PgnGame actual) {
+        assertEquals(Fen.toFen(expected.getRecord().getStart()), Fen.toFen(actual.getRecord().getStart()));
+        assertEquals(expected.getRecord().getMoveCount(), actual.getRecord().getMoveCount());
+        for (int i = 0; i < expected.getRecord().getMoveCount(); i++) {
+            assertEquals(expected.getRecord().getMove(i), actual.getRecord().getMove(i));
+        }
+        assertEquals(expected.getResult(), actual.getResult());
+        for (String name : expected.getTags().keySet()) {
+            assertEquals(expected.getTag(name), actual.getTag(name), name);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package chess;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+/**
+ * Checks the Polyglot keys: the keys the specification publishes for
+ * its example positions, a clear error for a missing table, and the
+ * layout of the table with made-up values.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public class PolyglotKeyTest {
+
+    /** Example positions of the Polyglot specification. */
+    private static final String[] FENS = {
+        "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+        "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1",
+        "rnbqkbnr/ppp1pppp/8/3p4/4P3/8/PPPP1PPP/RNBQKBNR w KQkq d6 0 2",
+        "rnbqkbnr/ppp1pppp/8/3pP3/8/8/PPPP1PPP/RNBQKBNR b KQkq - 0 2",
+        "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3",
+        "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPPKPPP/RNBQ1BNR b kq - 0 3",
+        "rnbq1bnr/ppp1pkpp/8/3pPp2/8/8/PPPPKPPP/RNBQ1BNR w - - 0 4",
+        "rnbqkbnr/p1pppppp/8/8/PpP4P/8/1P1PPPP1/RNBQKBNR b KQkq c3 0 3",
+        "rnbqkbnr/p1pppppp/8/8/P6P/R1p5/1P1PPPP1/1NBQKBNR b Kkq - 0 4",
+    };
+    /** Published keys of the example positions. */
+    private static final long[] KEYS = {
+        0x463b96181691fc9cL,
+        0x823c9b50fd114196L,
+        0x0756b94461c50fb0L,
+        0x662fafb965db29d4L,
+        0x22a48b5a8e47ff78L,
+        0x652a607ca3f242c1L,
+        0x00fdd303c946bdd9L,
+        0x3c8123ea7b067637L,
+        0x5c3f9b829b279560L,
+    };
+
+    /**
+     * checks to see if the bundled table gives the published key of
+     * every example position, the start position first.
+     * @throws IOException if the table cannot be read.
+     */
+    @Test
+    public void publishedKeys() throws IOException {
+        PolyglotKey keys = PolyglotKey.standard();
+        for (int i = 0; i < FENS.length; i++) {
+            assertEquals(KEYS[i], keys.key(Fen.parse(FENS[i])), FENS[i]);
+        }
+    }
+
+    /**
+     * checks to see if a missing table is reported with the name of the
+     * resource.
+     */
+    @Test
+    public void missingTableReported() {
+        final String name = "/chess/no-such-table.txt";
+        IOException ex = assertThrows(IOException.class, new Executable() {
+            @Override
+            public void execute() throws IOException {
+                PolyglotKey.readTable(name);
+            }
+        });
+        assertTrue(ex.getMessage().contains(name), ex.getMessage());
+    }
+
+    /**
+     * checks to see if the side to move, castling rights and a usable en
+     * passant square each add their own table entry.
+     */
+    @Test
+    public void tableLayout() {
+        long[] randoms = new long[PolyglotKey.RANDOM_COUNT];
+        Random random = new Random(781);
+        for (int i = 0; i < randoms.length; i++) {
+            randoms[i] = random.nextLong();
+        }
+        PolyglotKey keys = new PolyglotKey(randoms);
+
+        long white = keys.key(Fen.parse("4k3/8/8/8/8/8/8/4K3 w - - 0 1"));
+        long black = keys.key(Fen.parse("4k3/8/8/8/8/8/8/4K3 b - - 0 1"));
+        assertEquals(randoms[780], white ^ black);
+
+        long rook = keys.key(Fen.parse("4k3/8/8/8/8/8/8/4K2R w - - 0 1"));
+        long castle = keys.key(Fen.parse("4k3/8/8/8/8/8/8/4K2R w K - 0 1"));
+        assertEquals(randoms[768], rook ^ castle);
+
+        long usable = keys.key(Fen.parse("4k3/8/8/4pP2/8/8/8/4K3 w - e6 0 1"));
+        long plain = keys.key(Fen.parse("4k3/8/8/4pP2/8/8/8/4K3 w - - 0 1"));
+        assertEquals(randoms[772 + 4], usable ^ plain);
+
+        long unusable = keys.key(Fen.parse("4k3/8/8/4p3/8/8/8/4K3 w - e6 0 1"));
+        assertEquals(keys.key(Fen.parse("4k3/8/8/4p3/8/8/8/4K3 w - - 0 1")), unusable);
+
+        long whitePawn = keys.key(Fen.parse("4k3/8/8/8/8/8/P7/4K3 w - - 0 1"));
+        assertEquals(randoms[64 * 1 + 8], white ^ whitePawn);
+    }
+}
@@ -0,0 +1,161 @@
+package chess;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that unmakeMove restores every part of a position exactly:
+ * pieces, rights, en passant square, clocks, hashes and the running
+ * evaluation sums, for each kind of move and for long lines, and that
+ * those sums always equal a recount from the board.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public class PositionTest {
+
+    /**
+     * checks to see if captures, en passant, both castlings and capturing
+     * promotions are taken back exactly.
+     */
+    @Test
+    public void unmakeRestoresSpecialMoves() {
+        roundTrip("r3k2r/p1pp1pP1/8/3Pp3/8/8/P1PP1P1P/R3K2R w KQkq e6 0 20", "d5e6", "e1g1", "e1c1", "g7h8q", "a1b1");
+        roundTrip("r3k2r/p1pp1p2/8/8/8/8/P1PP1PpP/R3K2R b KQkq - 0 20", "g2h1n", "e8g8", "e8c8", "a7a5", "h8h2");
+    }
+
+    /**
+     * checks to see if the undo stack grows past its first size and a
+     * long line unwinds back to the start.
+     */
+    @Test
+    public void longLineUnwinds() {
+        Position pos = Position.startPosition();
+        String start = Fen.toFen(pos);
+        long hash = pos.hash();
+        String[] shuffle = {"g1f3", "g8f6", "f3g1", "f6g8"};
+        int[] played = new int[400];
+        for (int i = 0; i < played.length; i++) {
+            played[i] = find(pos, shuffle[i % shuffle.length]);
+            pos.makeMove(played[i]);
+        }
+        assertEquals(played.length, pos.undoDepth());
+        assertEquals(played.length, pos.history().length);
+        for (int i = played.length - 1; i >= 0; i--) {
+            pos.unmakeMove(played[i]);
+        }
+        assertEquals(0, pos.undoDepth());
+        assertEquals(start, Fen.toFen(pos));
+        assertEquals(hash, pos.hash());
+    }
+
+    /**
+     * checks to see if the running material and piece-square sums, the
+     * phase and the pawn hash equal the same terms added up from scratch
+     * after every make and unmake, for every move of the perft suite to
+     * depth 2.
+     */
+    @Test
+    public void evaluationTermsFollowMakeAndUnmake() {
+        for (String[] entry : Perft.SUITE) {
+            walk(Fen.parse(entry[0]), 2);
+        }
+    }
+
+    /**
+     * Makes and unmakes every legal move to a depth, comparing the
+     * running sums with a recount before and after each move.
+     * @param pos position to walk from; it is left unchanged.
+     * @param depth number of plies to walk.
+     */
+    private static void walk(Position pos, int depth) {
+        checkTerms(pos);
+        if (depth == 0) {
+            return;
+        }
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int n = MoveGenerator.generateLegal(pos, moves);
+        for (int i = 0; i < n; i++) {
+            pos.makeMove(moves[i]);
+            walk(pos, depth - 1);
+            pos.unmakeMove(moves[i]);
+            checkTerms(pos);
+        }
+    }
+
+    /**
+     * Adds up the evaluation terms of every piece on the board and
+     * compares them with the ones the position keeps.
+     * @param pos position to check.
+     */
+    private static void checkTerms(Position pos) {
+        long pawnKey = 0L;
+        int middlegame = 0;
+        int endgame = 0;
+        int phase = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            int piece = pos.board[sq];
+            if (piece != Position.NO_PIECE) {
+                pawnKey ^= Zobrist.PAWN_SQUARE[piece * 64 + sq];
+                middlegame += Evaluator.MIDDLEGAME[piece * 64 + sq];
+                endgame += Evaluator.ENDGAME[piece * 64 + sq];
+                phase += Evaluator.PHASE[piece];
+            }
+        }
+        String fen = Fen.toFen(pos);
+        assertEquals(pawnKey, pos.pawnKey, fen);
+        assertEquals(middlegame, pos.middlegame, fen);
+        assertEquals(endgame, pos.endgame, fen);
+        assertEquals(phase, pos.phase, fen);
+    }
+
+    /**
+     * Makes and unmakes each move in turn, checking that everything the
+     * position keeps comes back.
+     * @param fen position to start from.
+     * @param ucis moves to try, each from the start position.
+     */
+    private static void roundTrip(String fen, String... ucis) {
+        Position pos = Fen.parse(fen);
+        for (String uci : ucis) {
+            int move = find(pos, uci);
+            String before = Fen.toFen(pos);
+            long hash = pos.hash();
+            long pawnKey = pos.pawnKey;
+            int middlegame = pos.middlegame;
+            int endgame = pos.endgame;
+            int phase = pos.phase;
+            long checkers = pos.checkers();
+            long pinned = pos.pinned();
+            pos.makeMove(move);
+            assertEquals(Zobrist.compute(pos), pos.hash(), uci);
+            pos.unmakeMove(move);
+            assertEquals(before, Fen.toFen(pos), uci);
+            assertEquals(hash, pos.hash(), uci);
+            assertEquals(pawnKey, pos.pawnKey, uci);
+            assertEquals(middlegame, pos.middlegame, uci);
+            assertEquals(endgame, pos.endgame, uci);
+            assertEquals(phase, pos.phase, uci);
+            assertEquals(checkers, pos.checkers(), uci);
+            assertEquals(pinned, pos.pinned(), uci);
+        }
+    }
+
+    /**
+     * Finds a legal move by its UCI text.
+     * @param pos position to look in.
+     * @param uci move text.
+     * @return the packed move.
+     */
+    private static int find(Position pos, String uci) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int n = MoveGenerator.generateLegal(pos, moves);
+        for (int i = 0; i < n; i++) {
+            if (Move.toUci(moves[i]).equals(uci)) {
+                return moves[i];
+            }
+        }
+        throw new AssertionError("no legal move " + uci + " in " + Fen.toFen(pos));
+    }
+}
@@ -0,0 +1,91 @@
+package chess;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the engine finds a short mate, that it sees repetitions
+ * of the game positions played before the search started, and that an
+ * infinite search only ends when it is stopped.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public class SearchTest {
+
+    /** White is a queen down, with a knight and king against king and queen. */
+    private static final String LOST = "7k/8/8/8/8/8/q7/6NK w - - 20 60";
+
+    /**
+     * checks to see if a mate in one is played and scored as mate.
+     */
+    @Test
+    public void findsMateInOne() {
+        Engine engine = new Engine(4, 1);
+        int move = engine.think(Fen.parse("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1"), SearchLimits.depth(4));
+        assertEquals("a1a8", Move.toUci(move));
+        assertEquals(Search.MATE - 1, engine.getScore());
+    }
+
+    /**
+     * checks to see if a side that is lost heads for a position the game
+     * has already been in twice, once it is told about the game.
+     */
+    @Test
+    public void usesGameHistoryForRepetition() {
+        Position pos = Fen.parse(LOST);
+        Engine engine = new Engine(4, 1);
+        engine.think(pos, SearchLimits.depth(5));
+        assertTrue(engine.getScore() < -500, "lost without history: " + engine.getScore());
+
+        Position after = Fen.parse(LOST);
+        after.makeMove(San.parse(after, "Nf3"));
+        long repeated = after.hash();
+        long[] history = {0x1234L, repeated, 0x5678L, repeated};
+        engine.newGame();
+        int move = engine.think(pos, history, SearchLimits.depth(5));
+        assertEquals("g1f3", Move.toUci(move));
+        assertEquals(0, engine.getScore());
+    }
+
+    /**
+     * checks to see if an infinite search with one legal move, and one
+     * that finds a mate, keep going until stop is called, and if a stop
+     * sent right after prepare is not lost.
+     * @throws InterruptedException if the test is interrupted.
+     */
+    @Test
+    public void infiniteRunsUntilStopped() throws InterruptedException {
+        SearchLimits limits = new SearchLimits();
+        limits.setInfinite(true);
+        String[] fens = {"k7/8/8/8/8/8/6r1/5r1K w - - 0 1", "6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1"};
+        for (String fen : fens) {
+            final Engine engine = new Engine(4, 1);
+            Thread stopper = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        Thread.sleep(300);
+                    } catch (InterruptedException ex) {
+                        return;
+                    }
+                    engine.stop();
+                }
+            });
+            long start = System.nanoTime();
+            stopper.start();
+            engine.think(Fen.parse(fen), limits);
+            long elapsedMs = (System.nanoTime() - start) / 1000000;
+            stopper.join();
+            assertTrue(elapsedMs >= 250, fen + " returned after " + elapsedMs + " ms");
+        }
+
+        Engine engine = new Engine(4, 1);
+        engine.prepare(new long[0]);
+        engine.stop();
+        int move = engine.go(Fen.parse(Fen.START), limits);
+        assertTrue(move != Move.NONE);
+    }
+}
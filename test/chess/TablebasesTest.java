@@ -0,0 +1,106 @@
+package chess;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Builds the tablebases into a temporary directory once and checks them
+ * against results known from chess theory: the longest mates with queen
+ * and with rook, a drawn and a won king and pawn ending, and that
+ * following bestMove mates in exactly the promised number of plies.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public class TablebasesTest {
+
+    @TempDir
+    static Path directory;
+
+    private static Tablebases tablebases;
+
+    /**
+     * Generates the queen, rook and pawn tables.
+     * @throws IOException if a table cannot be written.
+     */
+    @BeforeAll
+    public static void generate() throws IOException {
+        new TablebaseGenerator(directory).generateAll();
+        tablebases = new Tablebases(directory, Tablebases.DEFAULT_BUDGET);
+    }
+
+    /**
+     * checks to see if the longest win with the queen is a mate in 10
+     * moves and with the rook a mate in 16.
+     * @throws IOException if a table cannot be read.
+     */
+    @Test
+    public void longestMates() throws IOException {
+        assertEquals(19, longestWin(Position.QUEEN));
+        assertEquals(31, longestWin(Position.ROOK));
+    }
+
+    /**
+     * checks to see if a king and pawn ending is drawn when the defender
+     * blocks the pawn, whoever moves, and won when the attacking king is
+     * in front of its pawn on the sixth rank.
+     */
+    @Test
+    public void pawnEnding() {
+        assertEquals(0, tablebases.probe(Fen.parse("4k3/8/4P3/4K3/8/8/8/8 w - - 0 1")));
+        assertEquals(0, tablebases.probe(Fen.parse("4k3/8/4P3/4K3/8/8/8/8 b - - 0 1")));
+        int value = tablebases.probe(Fen.parse("4k3/8/4K3/4P3/8/8/8/8 b - - 0 1"));
+        assertNotEquals(Tablebases.UNKNOWN, value);
+        assertEquals(true, value < 0, "black to move should lose, got " + value);
+        assertEquals(value, tablebases.probe(Fen.parse("8/8/8/8/4p3/4k3/8/4K3 w - - 0 1")));
+        assertEquals(0, tablebases.probe(Fen.parse("k7/8/8/8/8/8/8/7K w - - 0 1")));
+    }
+
+    /**
+     * checks to see if playing bestMove for both sides ends in mate after
+     * as many plies as the probe of the start promised.
+     */
+    @Test
+    public void bestMoveMates() {
+        String[] fens = {
+            "8/8/8/4k3/8/8/Q7/4K3 w - - 0 1",
+            "8/8/8/3k4/8/8/8/R3K3 w - - 0 1",
+            "k7/8/8/8/8/8/7P/K7 w - - 0 1",
+        };
+        for (String fen : fens) {
+            Position pos = Fen.parse(fen);
+            int value = tablebases.probe(pos);
+            assertEquals(true, value > 0, fen + " should be won, got " + value);
+            for (int ply = 0; ply < value; ply++) {
+                int move = tablebases.bestMove(pos);
+                assertNotEquals(Move.NONE, move, Fen.toFen(pos));
+                pos.makeMove(move);
+            }
+            int[] moves = new int[MoveGenerator.MAX_MOVES];
+            assertEquals(0, MoveGenerator.generateLegal(pos, moves), Fen.toFen(pos));
+            assertEquals(true, MoveGenerator.inCheck(pos), Fen.toFen(pos));
+        }
+    }
+
+    /**
+     * Finds the longest win for White to move in a table file.
+     * @param type piece type of the table.
+     * @return most plies to mate.
+     * @throws IOException if the file cannot be read.
+     */
+    private static int longestWin(int type) throws IOException {
+        byte[] file = Files.readAllBytes(directory.resolve(Tablebases.fileName(type)));
+        int longest = 0;
+        for (int i = 0; i < Tablebases.TABLE_SIZE / 2; i++) {
+            longest = Math.max(longest, file[Tablebases.HEADER_SIZE + i]);
+        }
+        return longest;
+    }
+}
@@ -0,0 +1,125 @@
+package chess;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+/**
+ * Checks the tournament runner: engine specs, openings, the Elo maths
+ * and the tally of a few quick games with known results.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public class TournamentTest {
+
+    /** White mates in one with Qh8. */
+    private static final String MATE_IN_ONE = "k7/8/1K6/8/8/8/7Q/8 w - - 0 1";
+
+    /** Bare kings, drawn whatever is played. */
+    private static final String BARE_KINGS = "4k3/8/8/8/8/8/8/4K3 w - - 0 1";
+
+    /**
+     * checks to see if each setting of a spec is read, with the time
+     * control given in seconds.
+     */
+    @Test
+    public void parseSpec() {
+        Tournament.EngineSpec spec = Tournament.EngineSpec.parse("tc=10+0.1,hash=16");
+        assertEquals(10000, spec.getClockMs());
+        assertEquals(100, spec.getIncrementMs());
+        assertEquals(16, spec.getHashMb());
+        assertEquals(6, Tournament.EngineSpec.parse("depth=6").getLimits().getDepth());
+        assertEquals(20000, Tournament.EngineSpec.parse(" nodes = 20000 ").getLimits().getNodes());
+        assertEquals(100, Tournament.EngineSpec.parse("movetime=100").getLimits().getMoveTimeMs());
+        assertEquals(0, Tournament.EngineSpec.parse("tc=5").getIncrementMs());
+        for (final String bad : new String[] {"depth", "speed=3", "nodes=many"}) {
+            assertThrows(IllegalArgumentException.class, new Executable() {
+                @Override
+                public void execute() {
+                    Tournament.EngineSpec.parse(bad);
+                }
+            }, bad);
+        }
+    }
+
+    /**
+     * checks to see if the logistic model gives the usual Elo values.
+     */
+    @Test
+    public void eloFromScore() {
+        assertEquals(0, Tournament.elo(0.5), 1e-9);
+        assertEquals(400 * Math.log10(3), Tournament.elo(0.75), 1e-9);
+        assertEquals(-Tournament.elo(0.75), Tournament.elo(0.25), 1e-9);
+        assertEquals(Double.POSITIVE_INFINITY, Tournament.elo(1), 0);
+        assertEquals(Double.NEGATIVE_INFINITY, Tournament.elo(0), 0);
+    }
+
+    /**
+     * checks to see if openings are read as moves or as a FEN, and if an
+     * illegal move is refused.
+     */
+    @Test
+    public void openingStart() {
+        assertEquals("rnbqkbnr/pppp1ppp/8/4p3/4P3/8/PPPP1PPP/RNBQKBNR w KQkq e6 0 2",
+                Fen.toFen(Tournament.startOf(" e2e4  e7e5 ")));
+        assertEquals(MATE_IN_ONE, Fen.toFen(Tournament.startOf(MATE_IN_ONE)));
+        for (String opening : Tournament.DEFAULT_OPENINGS) {
+            Tournament.startOf(opening);
+        }
+        assertThrows(IllegalArgumentException.class, new Executable() {
+            @Override
+            public void execute() {
+                Tournament.startOf("e2e4 e2e4");
+            }
+        });
+    }
+
+    /**
+     * checks to see if a mate in one is won by whichever engine has
+     * white, bare kings are drawn, and the tally, log and error bar
+     * follow from those four games.
+     * @throws InterruptedException if the test is interrupted.
+     */
+    @Test
+    public void tallyAndElo() throws InterruptedException {
+        Tournament.EngineSpec spec = Tournament.EngineSpec.parse("depth=1,hash=1");
+        Tournament tournament = new Tournament(spec, spec,
+                Arrays.asList(MATE_IN_ONE, BARE_KINGS), 10);
+        StringWriter log = new StringWriter();
+        tournament.play(4, 2, new PrintWriter(log));
+
+        assertEquals(1, tournament.getWins());
+        assertEquals(2, tournament.getDraws());
+        assertEquals(1, tournament.getLosses());
+        assertEquals(4, log.toString().split("\\R").length, log.toString());
+        assertTrue(log.toString().contains("1 A-B 1-0 checkmate 1 "), log.toString());
+        assertTrue(log.toString().contains("2 B-A 1-0 checkmate 1 "), log.toString());
+        assertEquals(0, tournament.getElo(), 1e-9);
+
+        double variance = (0.25 + 0 + 0.25) / 4;
+        double margin = 1.96 * Math.sqrt(variance / 4);
+        assertEquals(Tournament.elo(0.5 + margin), tournament.getEloError(), 1e-9);
+    }
+
+    /**
+     * checks to see if an option without a value is refused rather than
+     * dropped.
+     */
+    @Test
+    public void danglingOption() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, new Executable() {
+            @Override
+            public void execute() throws Exception {
+                Tournament.main(new String[] {"-games", "2", "-b"});
+            }
+        });
+        assertTrue(ex.getMessage().contains("-b"), ex.getMessage());
+    }
+}
@@ -0,0 +1,120 @@
+package chess;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that entries read back as stored, that replacing another
+ * position is reported, and that threads sharing the table never see
+ * an entry that belongs to a different position.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public class TranspositionTableTest {
+
+    /**
+     * checks to see if a stored entry reads back field by field and if
+     * a move of Move.NONE keeps the move already stored.
+     */
+    @Test
+    public void storeAndProbe() {
+        TranspositionTable tt = new TranspositionTable(1);
+        long key = 0x123456789ABCDEF1L;
+        assertEquals(TranspositionTable.MISS, tt.probe(key));
+        assertFalse(tt.store(key, 0x1234, -517, 9, TranspositionTable.BOUND_LOWER));
+        long data = tt.probe(key);
+        assertEquals(0x1234, TranspositionTable.move(data));
+        assertEquals(-517, TranspositionTable.score(data));
+        assertEquals(9, TranspositionTable.depth(data));
+        assertEquals(TranspositionTable.BOUND_LOWER, TranspositionTable.bound(data));
+
+        assertFalse(tt.store(key, Move.NONE, 30, 10, TranspositionTable.BOUND_EXACT));
+        data = tt.probe(key);
+        assertEquals(0x1234, TranspositionTable.move(data));
+        assertEquals(30, TranspositionTable.score(data));
+    }
+
+    /**
+     * checks to see if a store into a full bucket reports the collision.
+     */
+    @Test
+    public void reportsCollisions() {
+        TranspositionTable tt = new TranspositionTable(1);
+        long bucket = 0x2A;
+        for (long i = 1; i <= 4; i++) {
+            assertFalse(tt.store((i << 40) | bucket, 1, 0, 1, TranspositionTable.BOUND_EXACT));
+        }
+        assertTrue(tt.store((5L << 40) | bucket, 1, 0, 1, TranspositionTable.BOUND_EXACT));
+    }
+
+    /**
+     * checks to see if threads writing and reading the same small table
+     * only ever get back data written for the key they asked for.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    @Test
+    public void concurrentEntriesStayConsistent() throws InterruptedException {
+        final TranspositionTable tt = new TranspositionTable(1);
+        final AtomicInteger mismatches = new AtomicInteger();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int seed = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    long state = seed;
+                    for (int i = 0; i < 500000; i++) {
+                        state = state * 6364136223846793005L + 1442695040888963407L;
+                        long key = keyOf((int) (state >>> 40) & 0x3FFFF);
+                        tt.store(key, moveOf(key), scoreOf(key), 1, TranspositionTable.BOUND_EXACT);
+                        long probe = keyOf((int) (state >>> 20) & 0x3FFFF);
+                        long data = tt.probe(probe);
+                        if (data != TranspositionTable.MISS && (TranspositionTable.move(data) != moveOf(probe)
+                                || TranspositionTable.score(data) != scoreOf(probe))) {
+                            mismatches.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, mismatches.get());
+    }
+
+    /**
+     * Makes a well spread key from an index.
+     * @param index key number.
+     * @return the key.
+     */
+    private static long keyOf(int index) {
+        long z = (index + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Gets the move stored for a key.
+     * @param key the key.
+     * @return a nonzero 16-bit move.
+     */
+    private static int moveOf(long key) {
+        return (int) (key & 0xFFFF) | 1;
+    }
+
+    /**
+     * Gets the score stored for a key.
+     * @param key the key.
+     * @return a score from -2048 to 2047.
+     */
+    private static int scoreOf(long key) {
+        return (int) ((key >>> 48) & 0xFFF) - 2048;
+    }
+}
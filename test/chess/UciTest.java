@@ -0,0 +1,91 @@
+package chess;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Drives the UCI front-end with a script of commands and checks its
+ * replies: the handshake, a legal bestmove after a position with moves,
+ * and an infinite search that only answers once it is stopped.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public class UciTest {
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final Uci uci = new Uci(new PrintStream(bytes, true));
+
+    /**
+     * checks to see if uci and isready are answered and go depth 2 after
+     * a position with moves gives a legal bestmove.
+     * @throws IOException never, the input is a string.
+     */
+    @Test
+    public void handshakeAndSearch() throws IOException {
+        uci.run(new BufferedReader(new StringReader("uci\nisready\n"
+                + "position startpos moves e2e4 e7e5 g1f3\ngo depth 2\nisready\n")));
+        String[] lines = output().split("\\R");
+        assertTrue(contains(lines, "uciok"), output());
+        assertTrue(contains(lines, "readyok"), output());
+        String bestmove = null;
+        for (String line : lines) {
+            if (line.startsWith("bestmove ")) {
+                bestmove = line.split(" ")[1];
+            }
+        }
+        Position pos = Fen.parse(Fen.START);
+        for (String move : new String[] {"e2e4", "e7e5", "g1f3"}) {
+            pos.makeMove(GameFileTest.find(pos, move));
+        }
+        assertTrue(bestmove != null, output());
+        GameFileTest.find(pos, bestmove);
+    }
+
+    /**
+     * checks to see if go infinite keeps searching a position with one
+     * legal move until stop arrives.
+     * @throws IOException never, the input is a string.
+     * @throws InterruptedException if the test is interrupted.
+     */
+    @Test
+    public void infiniteWaitsForStop() throws IOException, InterruptedException {
+        uci.execute("position fen k7/8/8/8/8/8/6r1/5r1K w - - 0 1");
+        uci.execute("go infinite");
+        Thread.sleep(300);
+        assertFalse(output().contains("bestmove"), output());
+        uci.run(new BufferedReader(new StringReader("stop\n")));
+        assertTrue(output().contains("bestmove h1g2"), output());
+    }
+
+    /**
+     * Gets everything the front-end has written so far.
+     * @return the output.
+     */
+    private String output() {
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * checks to see if one of the lines is exactly the given text.
+     * @param lines lines of output.
+     * @param text line to look for.
+     * @return true if it is there.
+     */
+    private static boolean contains(String[] lines, String text) {
+        for (String line : lines) {
+            if (line.equals(text)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
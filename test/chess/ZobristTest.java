@@ -0,0 +1,72 @@
+package chess;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the hash tells positions apart exactly when the rules do:
+ * an en passant square counts only when a pawn can capture on it.
+ *
+ * @author JC
+ * @version 1.0
+ */
+public class ZobristTest {
+
+    /**
+     * checks to see if an en passant square no pawn can use leaves the
+     * hash alone, while one that can be used changes it.
+     */
+    @Test
+    public void enPassantOnlyWhenCapturable() {
+        long plain = Fen.parse("4k3/8/8/8/4P3/8/8/4K3 b - - 0 1").hash();
+        long phantom = Fen.parse("4k3/8/8/8/4P3/8/8/4K3 b - e3 0 1").hash();
+        assertEquals(plain, phantom);
+
+        long noCapture = Fen.parse("4k3/8/8/8/3pP3/8/8/4K3 b - - 0 1").hash();
+        long capture = Fen.parse("4k3/8/8/8/3pP3/8/8/4K3 b - e3 0 1").hash();
+        assertNotEquals(noCapture, capture);
+    }
+
+    /**
+     * checks to see if the hash after a double push matches the one
+     * computed from scratch, both when a capture is possible and when
+     * it is not, and after the move is taken back.
+     */
+    @Test
+    public void doublePushMatchesScratchHash() {
+        for (String fen : new String[] {"4k3/8/8/8/3p4/8/4P3/4K3 w - - 0 1", "4k3/8/8/8/8/8/4P3/4K3 w - - 0 1",
+            "4k3/3p4/8/4P3/8/8/8/4K3 b - - 0 1", "4k3/3p4/8/8/8/8/8/4K3 b - - 0 1"}) {
+            Position pos = Fen.parse(fen);
+            long before = pos.hash();
+            int[] moves = new int[MoveGenerator.MAX_MOVES];
+            int n = MoveGenerator.generateLegal(pos, moves);
+            for (int i = 0; i < n; i++) {
+                if (Move.flags(moves[i]) == Move.DOUBLE_PAWN_PUSH) {
+                    pos.makeMove(moves[i]);
+                    assertEquals(Zobrist.compute(pos), pos.hash(), Fen.toFen(pos));
+                    pos.unmakeMove(moves[i]);
+                }
+            }
+            assertEquals(before, pos.hash(), fen);
+        }
+    }
+
+    /**
+     * checks to see if the position after 1. e4 counts as repeated when
+     * the knights go out and back twice, as the en passant square it had
+     * could never be used.
+     */
+    @Test
+    public void repetitionAfterDoublePush() {
+        Game game = new Game();
+        for (String uci : new String[] {"e2e4", "g8f6", "g1f3", "f6g8", "f3g1", "g8f6", "g1f3", "f6g8"}) {
+            assertTrue(game.applyMove(uci), uci);
+            assertEquals(Game.ONGOING, game.getStatus(), uci);
+        }
+        assertTrue(game.applyMove("f3g1"));
+        assertEquals(Game.DRAW_REPETITION, game.getStatus());
+    }
+}